@@ -0,0 +1,199 @@
+package benchmarks;
+
+import config.DatabaseConnection;
+import dao.Daos;
+import dao.FichaBibliograficaDao;
+import dao.LibroDao;
+import entities.FichaBibliografica;
+import entities.Libro;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Base de datos de los benchmarks.
+ *
+ * Por defecto usa H2 en memoria en modo MySQL: crea el esquema de {@code bench/esquema_h2.sql}
+ * (equivalente al de los dumps, sin los índices FULLTEXT que H2 no soporta), carga los INSERT de {@code biblioteca_tfi_libro.sql} y
+ * {@code biblioteca_tfi_fichabibliografica.sql} y agrega libros sintéticos hasta {@code bench.filas}.
+ * Las propiedades se fijan como propiedades de sistema, que {@link config.AppConfig} prioriza sobre
+ * db.properties, por lo que DAOs y servicios usan esta base sin cambios.
+ *
+ * Si se pasa {@code -Ddb.url=...} (ej. {@code -jvmArgsAppend -Ddb.url=jdbc:mysql://...}) se usa esa
+ * base tal cual, que debe estar cargada con los dumps; es la única forma de medir la búsqueda FULLTEXT.
+ * Con {@code -Dalmacenamiento.motor=memoria} los mismos datos se cargan en el almacenamiento en memoria.
+ */
+public final class BaseDeDatosBench {
+
+    public static final String URL_H2 =
+            "jdbc:h2:mem:bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1";
+
+    private static final String[] DUMPS = {"biblioteca_tfi_libro.sql", "biblioteca_tfi_fichabibliografica.sql"};
+
+    // Esquema equivalente al de los dumps, relativo a bench.sql.dir (también lo usa test/dao/BaseDeDatosH2)
+    private static final String ESQUEMA_H2 = "bench/esquema_h2.sql";
+
+    private static boolean preparada;
+
+    private BaseDeDatosBench() {
+    }
+
+    /**
+     * @return {@code true} si se usa H2 embebida, {@code false} si se usa la base indicada con -Ddb.url
+     */
+    public static boolean esEmbebida() {
+        return System.getProperty("db.url") == null || System.getProperty("db.url").equals(URL_H2);
+    }
+
+    /**
+     * @return {@code true} si se corre con {@code -Dalmacenamiento.motor=memoria} (sin base de datos)
+     */
+    public static boolean esMemoria() {
+        return "memoria".equalsIgnoreCase(System.getProperty("almacenamiento.motor"));
+    }
+
+    // Mismos datos que en H2, cargados con los DAOs en memoria (el almacén lee los dumps al crearse)
+    private static void prepararMemoria(int filas) {
+        Path dir = Paths.get(System.getProperty("bench.sql.dir", "."));
+        StringBuilder datos = new StringBuilder();
+        for (String dump : DUMPS) {
+            datos.append(datos.length() > 0 ? "," : "").append(dir.resolve(dump));
+        }
+        System.setProperty("almacenamiento.memoria.datos", datos.toString());
+        LibroDao libroDao = Daos.libroDao();
+        FichaBibliograficaDao fichaDao = Daos.fichaDao();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            long existentes = libroDao.leerTodos(conn).size();
+            for (long n = existentes + 1; n <= filas; n++) {
+                Libro libro = libroDao.crear(new Libro("Libro de prueba " + n, "Autor " + (n % 500),
+                        "Editorial " + (n % 50), 1900 + (int) (n % 125)), conn);
+                fichaDao.crear(new FichaBibliografica(isbnSintetico(n), String.format("%03d.%02d", n % 1000, n % 100),
+                        "Z" + (n % 90) + "-" + (n % 40), (n & 1) == 0 ? "Español" : "Ingles"), libro.getId(), conn);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("No se pudo preparar el almacenamiento en memoria de los benchmarks", e);
+        }
+    }
+
+    /**
+     * Prepara la base una vez por JVM (cada fork de JMH es una JVM nueva).
+     *
+     * @param filas cantidad total aproximada de libros con ficha a dejar cargados
+     */
+    public static synchronized void preparar(int filas) {
+        // Los benchmarks miden la BD: las cachés de entidades quedan apagadas salvo que se pida lo contrario
+        System.setProperty("cache.libro.habilitada", System.getProperty("cache.libro.habilitada", "false"));
+        System.setProperty("cache.ficha.habilitada", System.getProperty("cache.ficha.habilitada", "false"));
+        if (preparada || !esEmbebida()) {
+            preparada = true;
+            return;
+        }
+        if (esMemoria()) {
+            prepararMemoria(filas);
+            preparada = true;
+            return;
+        }
+        System.setProperty("db.url", URL_H2);
+        System.setProperty("db.driver", "org.h2.Driver");
+        System.setProperty("db.user", "sa");
+        System.setProperty("db.password", "");
+
+        try (Connection conn = DriverManager.getConnection(URL_H2, "sa", "");
+             Statement st = conn.createStatement()) {
+            Path dir = Paths.get(System.getProperty("bench.sql.dir", "."));
+            crearEsquema(st, dir.resolve(ESQUEMA_H2));
+            for (String dump : DUMPS) {
+                for (String linea : Files.readAllLines(dir.resolve(dump), StandardCharsets.UTF_8)) {
+                    if (linea.startsWith("INSERT INTO")) {
+                        st.execute(linea.endsWith(";") ? linea.substring(0, linea.length() - 1) : linea);
+                    }
+                }
+            }
+            completarSinteticos(conn, filas);
+        } catch (SQLException | IOException e) {
+            throw new RuntimeException("No se pudo preparar la base de los benchmarks", e);
+        }
+        preparada = true;
+    }
+
+    // Borra todo y ejecuta el script de esquema (sentencias separadas por ';', comentarios con '--')
+    private static void crearEsquema(Statement st, Path esquema) throws SQLException, IOException {
+        st.execute("DROP ALL OBJECTS");
+        StringBuilder sql = new StringBuilder();
+        for (String linea : Files.readAllLines(esquema, StandardCharsets.UTF_8)) {
+            if (!linea.startsWith("--")) {
+                sql.append(linea).append('\n');
+            }
+        }
+        for (String sentencia : sql.toString().split(";")) {
+            if (!sentencia.isBlank()) {
+                st.execute(sentencia);
+            }
+        }
+    }
+
+    // Libros + fichas generados, con ISBN-13 válidos y títulos repartidos para que las búsquedas encuentren filas
+    private static void completarSinteticos(Connection conn, int filas) throws SQLException {
+        long existentes;
+        try (Statement st = conn.createStatement();
+             var rs = st.executeQuery("SELECT COALESCE(MAX(id), 0) FROM libro")) {
+            rs.next();
+            existentes = rs.getLong(1);
+        }
+        conn.setAutoCommit(false);
+        try (PreparedStatement libro = conn.prepareStatement(
+                "INSERT INTO libro (id, titulo, autor, editorial, anioEdicion, eliminado) VALUES (?, ?, ?, ?, ?, FALSE)");
+             PreparedStatement ficha = conn.prepareStatement(
+                "INSERT INTO fichabibliografica (idLIBRO, isbn, isbnCanonico, clasificacionDewey, estanteria, idioma, eliminado)"
+                + " VALUES (?, ?, ?, ?, ?, ?, FALSE)")) {
+            for (long id = existentes + 1; id <= filas; id++) {
+                libro.setLong(1, id);
+                libro.setString(2, "Libro de prueba " + id);
+                libro.setString(3, "Autor " + (id % 500));
+                libro.setString(4, "Editorial " + (id % 50));
+                libro.setInt(5, 1900 + (int) (id % 125));
+                libro.addBatch();
+                String isbn = isbnSintetico(id);
+                ficha.setLong(1, id);
+                ficha.setString(2, isbn);
+                ficha.setString(3, isbn);
+                ficha.setString(4, String.format("%03d.%02d", id % 1000, id % 100));
+                ficha.setString(5, "Z" + (id % 90) + "-" + (id % 40));
+                ficha.setString(6, (id & 1) == 0 ? "Español" : "Ingles");
+                ficha.addBatch();
+                if (id % 1000 == 0) {
+                    libro.executeBatch();
+                    ficha.executeBatch();
+                }
+            }
+            libro.executeBatch();
+            ficha.executeBatch();
+            conn.commit();
+        } finally {
+            conn.setAutoCommit(true);
+        }
+        try (Statement st = conn.createStatement()) {
+            st.execute("ALTER TABLE libro ALTER COLUMN id RESTART WITH " + (Math.max(filas, existentes) + 1));
+        }
+    }
+
+    /**
+     * ISBN-13 válido (prefijo 979, verificador módulo 10) derivado de {@code n}; distinto para cada n &lt; 10^9.
+     */
+    public static String isbnSintetico(long n) {
+        char[] d = ("979" + String.format("%09d", n % 1_000_000_000L) + "0").toCharArray();
+        int suma = 0;
+        for (int i = 0; i < 12; i++) {
+            suma += (d[i] - '0') * ((i & 1) == 0 ? 1 : 3);
+        }
+        d[12] = (char) ('0' + (10 - suma % 10) % 10);
+        return new String(d);
+    }
+}
@@ -0,0 +1,68 @@
+package benchmarks;
+
+import config.DatabaseConnection;
+import dao.LibroDao;
+import entities.Libro;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Búsquedas FULLTEXT ngram de {@link LibroDao}. H2 no soporta MATCH ... AGAINST, así que sólo
+ * corre contra MySQL cargado con los dumps y las migraciones:
+ * <pre>
+ * ant bench -Dbench.args="BusquedaFullTextBenchmark -jvmArgsAppend -Ddb.url=jdbc:mysql://..."
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class BusquedaFullTextBenchmark {
+
+    @Param({"soledad", "prueba 12"})
+    public String texto;
+
+    private final LibroDao dao = new LibroDao();
+    private Connection conn;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        if (BaseDeDatosBench.esEmbebida()) {
+            throw new IllegalStateException("BusquedaFullTextBenchmark requiere MySQL: pasar -jvmArgsAppend -Ddb.url=...");
+        }
+        BaseDeDatosBench.preparar(0);
+        conn = DatabaseConnection.getConnection();
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws SQLException {
+        conn.close();
+    }
+
+    @Benchmark
+    public List<Libro> buscarPorTitulo() throws SQLException {
+        return dao.buscarPorTitulo(texto, conn);
+    }
+
+    @Benchmark
+    public List<Libro> buscar() throws SQLException {
+        return dao.buscar(texto, 20, conn);
+    }
+}
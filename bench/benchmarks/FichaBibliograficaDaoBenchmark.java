@@ -0,0 +1,88 @@
+package benchmarks;
+
+import config.DatabaseConnection;
+import dao.FichaBibliograficaDao;
+import entities.FichaBibliografica;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lecturas y escrituras de {@link FichaBibliograficaDao} sobre la base de {@link BaseDeDatosBench}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class FichaBibliograficaDaoBenchmark {
+
+    @Param({"10000"})
+    public int filas;
+
+    private final FichaBibliograficaDao dao = new FichaBibliograficaDao();
+    private Connection conn;
+    private FichaBibliografica existente;
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException {
+        BaseDeDatosBench.preparar(filas);
+        conn = DatabaseConnection.getConnection();
+        existente = dao.leer(1L, conn);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws SQLException {
+        conn.close();
+    }
+
+    // Las fichas sintéticas tienen id de libro > 9 (ver BaseDeDatosBench)
+    private long idSintetico() {
+        return ThreadLocalRandom.current().nextLong(10, filas + 1);
+    }
+
+    @Benchmark
+    public FichaBibliografica leer() throws SQLException {
+        return dao.leer(idSintetico(), conn);
+    }
+
+    @Benchmark
+    public FichaBibliografica buscarPorIdLibro() throws SQLException {
+        return dao.buscarPorIdLibro(idSintetico(), conn);
+    }
+
+    @Benchmark
+    public FichaBibliografica buscarPorIsbn() throws SQLException {
+        return dao.buscarPorIsbn(BaseDeDatosBench.isbnSintetico(idSintetico()), conn);
+    }
+
+    @Benchmark
+    public FichaBibliografica buscarPorIsbnConGuiones() throws SQLException {
+        return dao.buscarPorIsbn("978-84-376-0494-7", conn);
+    }
+
+    @Benchmark
+    public long recorrerTodos() throws SQLException {
+        return dao.recorrerTodos(conn, ficha -> { });
+    }
+
+    @Benchmark
+    public void actualizar() throws SQLException {
+        dao.actualizar(existente, conn);
+    }
+}
@@ -0,0 +1,77 @@
+package benchmarks;
+
+import entities.Isbn;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Validación/normalización de ISBN: implementación anterior con regex contra el códec {@link Isbn}.
+ * Correr con {@code ant bench -Dbench.args="IsbnBenchmark -prof gc"} para ver también la basura generada.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IsbnBenchmark {
+
+    @Param({"978-84-376-0494-7", "9788437604947", "0-306-40615-2"})
+    public String isbn;
+
+    @Setup
+    public void verificar() {
+        validarConRegex(isbn);
+        Isbn.validarFormato(isbn);
+    }
+
+    // Copia de FichaBibliografica.setIsbn antes del códec
+    private static void validarConRegex(String isbn) {
+        String clean = isbn.replaceAll("[\\s\\-]", "");
+        if (clean.length() != 10 && clean.length() != 13) {
+            throw new IllegalArgumentException("ISBN debe tener 10 o 13 dígitos (sin guiones)");
+        }
+        if (!clean.matches("\\d{9}[\\dXx]|\\d{12}[\\dXx]")) {
+            throw new IllegalArgumentException("ISBN contiene caracteres invalidos");
+        }
+        if (isbn.length() > 17) {
+            throw new IllegalArgumentException("ISBN excede los 17 caracteres (con guiones)");
+        }
+    }
+
+    @Benchmark
+    public void validarFormatoRegex() {
+        validarConRegex(isbn);
+    }
+
+    @Benchmark
+    public void validarFormatoCodec() {
+        Isbn.validarFormato(isbn);
+    }
+
+    @Benchmark
+    public boolean verificadorCodec() {
+        return Isbn.verificadorValido(isbn);
+    }
+
+    @Benchmark
+    public String normalizarRegex() {
+        return isbn.replaceAll("[\\s\\-]", "");
+    }
+
+    @Benchmark
+    public void canonicoCodec(Blackhole bh) {
+        bh.consume(Isbn.canonico(isbn));
+    }
+}
@@ -0,0 +1,111 @@
+package benchmarks;
+
+import config.DatabaseConnection;
+import dao.LibroDao;
+import entities.Libro;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * CRUD, lecturas con ficha, paginación y búsqueda por prefijo de {@link LibroDao}
+ * sobre la base de {@link BaseDeDatosBench}. Cada hilo usa una conexión propia del pool,
+ * de modo que se mide el DAO + driver y no el préstamo de conexiones.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class LibroDaoBenchmark {
+
+    @Param({"10000"})
+    public int filas;
+
+    @Param({"20"})
+    public int tamanioPagina;
+
+    private final LibroDao dao = new LibroDao();
+    private Connection conn;
+    private Libro existente;
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException {
+        BaseDeDatosBench.preparar(filas);
+        conn = DatabaseConnection.getConnection();
+        existente = dao.leer(1L, conn);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws SQLException {
+        conn.close();
+    }
+
+    private long idAlAzar() {
+        return ThreadLocalRandom.current().nextLong(1, filas + 1);
+    }
+
+    @Benchmark
+    public Libro leer() throws SQLException {
+        return dao.leer(idAlAzar(), conn);
+    }
+
+    @Benchmark
+    public Libro leerConFicha() throws SQLException {
+        return dao.leerConFicha(idAlAzar(), conn);
+    }
+
+    @Benchmark
+    public List<Libro> leerPrimeraPagina() throws SQLException {
+        return dao.leerPagina(null, null, tamanioPagina, conn);
+    }
+
+    @Benchmark
+    public List<Libro> leerPaginaIntermedia() throws SQLException {
+        return dao.leerPagina("Libro de prueba 5", 0L, tamanioPagina, conn);
+    }
+
+    @Benchmark
+    public List<Libro> buscarPorTituloUnCaracter() throws SQLException {
+        // Un solo carácter: LIKE '%C%' recorre la tabla (ningún índice sirve); es el único camino de
+        // buscarPorTitulo que corre en H2, el FULLTEXT se mide en BusquedaFullTextBenchmark
+        return dao.buscarPorTitulo("C", conn);
+    }
+
+    @Benchmark
+    public long recorrerTodos() throws SQLException {
+        return dao.recorrerTodos(conn, libro -> { });
+    }
+
+    @Benchmark
+    public void actualizar() throws SQLException {
+        dao.actualizar(existente, conn);
+    }
+
+    @Benchmark
+    public Libro crearYDeshacer() throws SQLException {
+        conn.setAutoCommit(false);
+        try {
+            return dao.crear(new Libro("Libro benchmark", "Autor benchmark", "Editorial", 2024), conn);
+        } finally {
+            conn.rollback();
+            conn.setAutoCommit(true);
+        }
+    }
+}
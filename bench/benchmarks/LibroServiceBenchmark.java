@@ -0,0 +1,56 @@
+package benchmarks;
+
+import entities.FichaBibliografica;
+import entities.Libro;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import service.LibroService;
+
+/**
+ * {@link LibroService#crearLibroConFicha}: validación + préstamo de conexión del pool +
+ * dos INSERT + commit. Cada invocación usa un ISBN nuevo, por lo que la tabla crece durante la corrida.
+ * Con {@code -t N} mide además la contención sobre el pool.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LibroServiceBenchmark {
+
+    @Param({"10000"})
+    public int filas;
+
+    private final AtomicLong secuencia = new AtomicLong();
+    private LibroService servicio;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        BaseDeDatosBench.preparar(filas);
+        servicio = new LibroService();
+        // Por encima de los ISBN sintéticos de la carga inicial
+        secuencia.set(500_000_000L + System.nanoTime() % 100_000_000L);
+    }
+
+    @Benchmark
+    public Libro crearLibroConFicha() {
+        long n = secuencia.incrementAndGet();
+        Libro libro = new Libro("Libro benchmark " + n, "Autor benchmark", "Editorial", 2024);
+        servicio.crearLibroConFicha(libro,
+                new FichaBibliografica(BaseDeDatosBench.isbnSintetico(n), "000.00", "B-1", "Español"));
+        return libro;
+    }
+}
@@ -0,0 +1,455 @@
+package carga;
+
+import config.DatabaseConnection;
+import config.PoolStats;
+import entities.FichaBibliografica;
+import entities.Libro;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import metricas.Histograma;
+import service.ConflictoConcurrenciaException;
+import service.FichaBibliograficaService;
+import service.LibroService;
+import service.Pagina;
+
+/**
+ * Generador de carga y prueba de resistencia (soak) sobre LibroService y FichaBibliograficaService.
+ *
+ * N trabajadores concurrentes ejecutan una mezcla configurable de operaciones durante un tiempo dado,
+ * opcionalmente a una tasa objetivo total, y al final se informa por operación: cantidad, operaciones/s,
+ * porcentaje de errores y latencias p50/p95/p99/máx. Durante la corrida se imprime un resumen por
+ * intervalo (útil en corridas largas para ver degradación, esperas del pool y memoria).
+ * <pre>
+ * ant carga -Dcarga.args="--hilos 50 --duracion 120 --tasa 500 --mezcla leer=50,titulo=20,isbn=15,crear=5,actualizar=7,eliminar=3"
+ * </pre>
+ * Opciones (todas opcionales):
+ * <pre>
+ * --hilos N            trabajadores concurrentes (50)
+ * --duracion S         segundos medidos (60)
+ * --calentamiento S    segundos previos sin medir (10)
+ * --tasa N             operaciones/s totales; 0 = sin límite, cada trabajador encadena operaciones (0)
+ * --mezcla op=peso,... pesos relativos de leer, titulo, isbn, crear, actualizar, eliminar
+ * --intervalo S        segundos entre resúmenes parciales; 0 los desactiva (10)
+ * --salida archivo     además escribe el resultado final en JSON
+ * </pre>
+ * Usa la base configurada en db.properties (o -Ddb.url=..., -Dalmacenamiento.motor=memoria).
+ * Las altas usan ISBN-13 sintéticos con prefijo 979; actualizar y eliminar sólo tocan libros creados
+ * por la corrida, para no alterar los datos existentes, y eligen uno al azar en cada operación.
+ * Los conflictos de versión no son errores y se informan aparte: "fusion %" son actualizaciones
+ * resueltas con actualizarFusionando, "confl %" las que no pudieron aplicarse (mismo campo cambiado
+ * por otro trabajador, o libro eliminado mientras se actualizaba).
+ *
+ * Con --tasa la latencia se mide desde el instante en que la operación debía empezar según la
+ * tasa, no desde que empezó: si el sistema se atrasa, la espera acumulada se refleja en los
+ * percentiles en lugar de ocultarse (omisión coordinada).
+ */
+public final class GeneradorCarga {
+
+    enum Operacion { LEER, TITULO, ISBN, CREAR, ACTUALIZAR, ELIMINAR }
+
+    // Desenlace de una operación sin error
+    enum Desenlace { OK, FUSIONADA, CONFLICTO }
+
+    private static final int MUESTRA_MAXIMA = 10_000;
+
+    private final LibroService libroService = new LibroService();
+    private final FichaBibliograficaService fichaService = new FichaBibliograficaService();
+
+    private final int hilos;
+    private final int duracionSeg;
+    private final int calentamientoSeg;
+    private final int tasa;
+    private final int intervaloSeg;
+    private final Operacion[] ruleta;
+
+    // Datos existentes para las lecturas
+    private final List<Long> ids = new ArrayList<>();
+    private final List<String> titulos = new ArrayList<>();
+    private final List<String> isbns = new ArrayList<>();
+    // Libros creados por la corrida (candidatos a actualizar/eliminar), con acceso sincronizado
+    private final List<Long> creados = new ArrayList<>();
+    private final AtomicLong secuenciaIsbn = new AtomicLong(System.currentTimeMillis() % 100_000_000L * 10);
+
+    private final Map<Operacion, Estadistica> totales = new EnumMap<>(Operacion.class);
+    private final Map<Operacion, Estadistica> parciales = new EnumMap<>(Operacion.class);
+    private final Histograma parcialTodas = new Histograma();
+    private final Map<String, LongAdder> errores = new ConcurrentHashMap<>();
+    private volatile boolean midiendo;
+
+    GeneradorCarga(int hilos, int duracionSeg, int calentamientoSeg, int tasa, int intervaloSeg, Map<Operacion, Integer> mezcla) {
+        this.hilos = hilos;
+        this.duracionSeg = duracionSeg;
+        this.calentamientoSeg = calentamientoSeg;
+        this.tasa = tasa;
+        this.intervaloSeg = intervaloSeg;
+        List<Operacion> r = new ArrayList<>();
+        for (Map.Entry<Operacion, Integer> e : mezcla.entrySet()) {
+            for (int i = 0; i < e.getValue(); i++) {
+                r.add(e.getKey());
+            }
+        }
+        if (r.isEmpty()) {
+            throw new IllegalArgumentException("La mezcla no tiene operaciones con peso mayor a 0");
+        }
+        this.ruleta = r.toArray(new Operacion[0]);
+        for (Operacion op : Operacion.values()) {
+            totales.put(op, new Estadistica());
+            parciales.put(op, new Estadistica());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<Operacion, Integer> mezcla = mezcla(opcion(args, "--mezcla", "leer=50,titulo=20,isbn=15,crear=5,actualizar=7,eliminar=3"));
+        GeneradorCarga generador = new GeneradorCarga(
+                Integer.parseInt(opcion(args, "--hilos", "50")),
+                Integer.parseInt(opcion(args, "--duracion", "60")),
+                Integer.parseInt(opcion(args, "--calentamiento", "10")),
+                Integer.parseInt(opcion(args, "--tasa", "0")),
+                Integer.parseInt(opcion(args, "--intervalo", "10")),
+                mezcla);
+        generador.cargarMuestra();
+        generador.correr();
+        generador.informar(System.out);
+        String salida = opcion(args, "--salida", null);
+        if (salida != null) {
+            Files.writeString(Paths.get(salida), generador.json(), StandardCharsets.UTF_8);
+        }
+        System.exit(0);
+    }
+
+    // ===== Preparación =====
+
+    private void cargarMuestra() {
+        String token = null;
+        do {
+            Pagina<Libro> pagina = libroService.listarPagina(token, 1000);
+            for (Libro libro : pagina.getElementos()) {
+                ids.add(libro.getId());
+                String titulo = libro.getTitulo();
+                int espacio = titulo.indexOf(' ');
+                titulos.add(espacio > 3 ? titulo.substring(0, espacio) : titulo);
+            }
+            token = pagina.getSiguienteToken();
+        } while (token != null && ids.size() < MUESTRA_MAXIMA);
+        for (int i = 0; i < ids.size() && isbns.size() < 1000; i += Math.max(1, ids.size() / 1000)) {
+            FichaBibliografica ficha = fichaService.buscarPorIdLibro(ids.get(i));
+            if (ficha != null && ficha.getIsbn() != null) {
+                isbns.add(ficha.getIsbn());
+            }
+        }
+        System.out.printf("Muestra: %d libros, %d ISBN. %d hilos, %s, calentamiento %d s, medicion %d s%n",
+                ids.size(), isbns.size(), hilos, tasa > 0 ? tasa + " ops/s" : "sin limite de tasa",
+                calentamientoSeg, duracionSeg);
+        if (ids.isEmpty()) {
+            System.out.println("Aviso: no hay libros; leer/titulo/isbn se cuentan como error hasta que haya altas.");
+        }
+    }
+
+    // ===== Corrida =====
+
+    private void correr() throws InterruptedException {
+        long inicio = System.nanoTime();
+        long finCalentamiento = inicio + TimeUnit.SECONDS.toNanos(calentamientoSeg);
+        long fin = finCalentamiento + TimeUnit.SECONDS.toNanos(duracionSeg);
+        long periodo = tasa > 0 ? 1_000_000_000L / tasa : 0;
+        AtomicLong proximoTurno = new AtomicLong(inicio);
+
+        ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor();
+        for (int i = 0; i < hilos; i++) {
+            ejecutor.execute(() -> {
+                while (true) {
+                    long programada = System.nanoTime();
+                    if (periodo > 0) {
+                        programada = proximoTurno.getAndAdd(periodo);
+                        long espera = programada - System.nanoTime();
+                        if (espera > 0) {
+                            LockSupport.parkNanos(espera);
+                        }
+                    }
+                    if (programada >= fin) {
+                        return;
+                    }
+                    ejecutarUna(programada);
+                }
+            });
+        }
+
+        long siguienteReporte = finCalentamiento + TimeUnit.SECONDS.toNanos(intervaloSeg);
+        while (System.nanoTime() < fin) {
+            long ahora = System.nanoTime();
+            if (!midiendo && ahora >= finCalentamiento) {
+                reiniciar(totales);
+                reiniciar(parciales);
+                parcialTodas.reiniciar();
+                errores.clear();
+                midiendo = true;
+                System.out.println("Calentamiento terminado, midiendo...");
+            }
+            if (midiendo && intervaloSeg > 0 && ahora >= siguienteReporte) {
+                reportarIntervalo((ahora - finCalentamiento) / 1_000_000_000L);
+                siguienteReporte += TimeUnit.SECONDS.toNanos(intervaloSeg);
+            }
+            Thread.sleep(100);
+        }
+        midiendo = false;
+        ejecutor.shutdown();
+        if (!ejecutor.awaitTermination(60, TimeUnit.SECONDS)) {
+            System.out.println("Aviso: quedaron operaciones en curso al terminar");
+        }
+    }
+
+    private void ejecutarUna(long programada) {
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        Operacion op = ruleta[r.nextInt(ruleta.length)];
+        try {
+            Desenlace desenlace = Desenlace.OK;
+            switch (op) {
+                case LEER -> libroService.obtenerConFicha(elegir(ids, r));
+                case TITULO -> libroService.buscarPorTituloPagina(elegir(titulos, r), null, 20);
+                case ISBN -> fichaService.buscarPorIsbn(elegir(isbns, r));
+                case CREAR -> agregarCreado(crear());
+                case ACTUALIZAR -> desenlace = actualizar(r);
+                case ELIMINAR -> eliminar(r);
+            }
+            registrar(op, System.nanoTime() - programada, null, desenlace);
+        } catch (RuntimeException e) {
+            registrar(op, System.nanoTime() - programada, e, Desenlace.OK);
+        }
+    }
+
+    private long crear() {
+        long n = secuenciaIsbn.incrementAndGet() % 1_000_000_000L;
+        Libro libro = new Libro("Carga " + n, "Autor carga " + n % 100, "Editorial carga", 2000 + (int) (n % 25));
+        libroService.crearLibroConFicha(libro, new FichaBibliografica(isbnSintetico(n), "000.00", "CARGA", "Español"));
+        return libro.getId();
+    }
+
+    private Desenlace actualizar(ThreadLocalRandom r) {
+        Long id = elegirCreado(r, false);
+        if (id == null) {
+            agregarCreado(crear());
+            return Desenlace.OK;
+        }
+        Libro libro = libroService.obtenerPorId(id);
+        if (libro == null) {
+            // Otro trabajador lo eliminó después de elegirlo
+            return Desenlace.CONFLICTO;
+        }
+        Libro original = libro.copia();
+        libro.setEditorial("Editorial carga " + r.nextInt(1000));
+        try {
+            libroService.actualizar(libro);
+            return Desenlace.OK;
+        } catch (ConflictoConcurrenciaException e) {
+            // Otro trabajador actualizó el mismo libro: se reintenta sobre la versión vigente
+        }
+        try {
+            libroService.actualizarFusionando(original, libro);
+            return Desenlace.FUSIONADA;
+        } catch (ConflictoConcurrenciaException | IllegalArgumentException e) {
+            // Ambos cambiaron la editorial, o el libro se eliminó entre tanto
+            return Desenlace.CONFLICTO;
+        }
+    }
+
+    private void eliminar(ThreadLocalRandom r) {
+        Long id = elegirCreado(r, true);
+        libroService.eliminarLogico(id != null ? id : crear());
+    }
+
+    private void agregarCreado(long id) {
+        synchronized (creados) {
+            creados.add(id);
+        }
+    }
+
+    // Un libro creado por la corrida al azar; con quitar, deja de ser candidato (para eliminarlo)
+    private Long elegirCreado(ThreadLocalRandom r, boolean quitar) {
+        synchronized (creados) {
+            if (creados.isEmpty()) {
+                return null;
+            }
+            int i = r.nextInt(creados.size());
+            Long id = creados.get(i);
+            if (quitar) {
+                creados.set(i, creados.get(creados.size() - 1));
+                creados.remove(creados.size() - 1);
+            }
+            return id;
+        }
+    }
+
+    private static <T> T elegir(List<T> lista, ThreadLocalRandom r) {
+        if (lista.isEmpty()) {
+            throw new IllegalStateException("No hay datos para la operacion");
+        }
+        return lista.get(r.nextInt(lista.size()));
+    }
+
+    // ISBN-13 válido con prefijo 979 (mismo esquema que los benchmarks)
+    private static String isbnSintetico(long n) {
+        char[] d = ("979" + String.format("%09d", n) + "0").toCharArray();
+        int suma = 0;
+        for (int i = 0; i < 12; i++) {
+            suma += (d[i] - '0') * ((i & 1) == 0 ? 1 : 3);
+        }
+        d[12] = (char) ('0' + (10 - suma % 10) % 10);
+        return new String(d);
+    }
+
+    // ===== Estadísticas =====
+
+    private void registrar(Operacion op, long nanos, RuntimeException error, Desenlace desenlace) {
+        if (!midiendo) {
+            return;
+        }
+        totales.get(op).registrar(nanos, error != null, desenlace);
+        parciales.get(op).registrar(nanos, error != null, desenlace);
+        parcialTodas.registrar(nanos);
+        if (error != null) {
+            String clave = op.name().toLowerCase(Locale.ROOT) + ": " + error.getMessage();
+            errores.computeIfAbsent(clave, k -> new LongAdder()).increment();
+        }
+    }
+
+    private static void reiniciar(Map<Operacion, Estadistica> estadisticas) {
+        for (Estadistica e : estadisticas.values()) {
+            e.reiniciar();
+        }
+    }
+
+    private void reportarIntervalo(long segundos) {
+        long conError = 0;
+        long conConflicto = 0;
+        for (Estadistica e : parciales.values()) {
+            conError += e.errores.sum();
+            conConflicto += e.conflictos.sum();
+        }
+        long cantidad = parcialTodas.getCantidad();
+        long p99 = parcialTodas.getPercentilNanos(99);
+        reiniciar(parciales);
+        parcialTodas.reiniciar();
+        PoolStats pool = DatabaseConnection.getPoolStats();
+        Runtime rt = Runtime.getRuntime();
+        System.out.printf(Locale.ROOT, "[%5d s] %8.1f ops/s  errores %d  conflictos %d  p99 %.2f ms  %s  heap %d MB%n",
+                segundos, cantidad / (double) intervaloSeg, conError, conConflicto, p99 / 1e6,
+                pool == null ? "sin pool" : "pool activas " + pool.getActive() + " en espera " + pool.getWaiters(),
+                (rt.totalMemory() - rt.freeMemory()) >> 20);
+    }
+
+    private void informar(PrintStream out) {
+        out.printf("%nResultado (%d s medidos, %d hilos):%n", duracionSeg, hilos);
+        out.printf("  %-11s %9s %9s %8s %8s %8s %9s %9s %9s %9s%n",
+                "operacion", "cantidad", "ops/s", "error %", "confl %", "fusion %", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        long total = 0;
+        for (Map.Entry<Operacion, Estadistica> e : totales.entrySet()) {
+            Histograma h = e.getValue().tiempos;
+            long n = h.getCantidad();
+            if (n == 0) {
+                continue;
+            }
+            total += n;
+            out.printf(Locale.ROOT, "  %-11s %9d %9.1f %8.2f %8.2f %8.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    e.getKey().name().toLowerCase(Locale.ROOT), n, n / (double) duracionSeg,
+                    100.0 * e.getValue().errores.sum() / n, 100.0 * e.getValue().conflictos.sum() / n,
+                    100.0 * e.getValue().fusionadas.sum() / n,
+                    h.getPercentilNanos(50) / 1e6, h.getPercentilNanos(95) / 1e6,
+                    h.getPercentilNanos(99) / 1e6, h.getMaxNanos() / 1e6);
+        }
+        out.printf(Locale.ROOT, "  %-11s %9d %9.1f%n", "total", total, total / (double) duracionSeg);
+        if (!errores.isEmpty()) {
+            out.println("Errores:");
+            errores.entrySet().stream()
+                    .sorted((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()))
+                    .limit(20)
+                    .forEach(e -> out.println("  " + e.getValue().sum() + "  " + e.getKey()));
+        }
+    }
+
+    private String json() {
+        StringBuilder sb = new StringBuilder(512);
+        sb.append(String.format(Locale.ROOT, "{\"hilos\":%d,\"duracionSeg\":%d,\"tasa\":%d,\"operaciones\":{",
+                hilos, duracionSeg, tasa));
+        boolean primero = true;
+        for (Map.Entry<Operacion, Estadistica> e : totales.entrySet()) {
+            Histograma h = e.getValue().tiempos;
+            if (h.getCantidad() == 0) {
+                continue;
+            }
+            sb.append(primero ? "" : ",");
+            primero = false;
+            sb.append(String.format(Locale.ROOT,
+                    "\"%s\":{\"cantidad\":%d,\"opsPorSeg\":%.1f,\"errores\":%d,\"conflictos\":%d,\"fusionadas\":%d,"
+                    + "\"p50Ms\":%.3f,\"p95Ms\":%.3f,\"p99Ms\":%.3f,\"maxMs\":%.3f}",
+                    e.getKey().name().toLowerCase(Locale.ROOT), h.getCantidad(), h.getCantidad() / (double) duracionSeg,
+                    e.getValue().errores.sum(), e.getValue().conflictos.sum(), e.getValue().fusionadas.sum(),
+                    h.getPercentilNanos(50) / 1e6, h.getPercentilNanos(95) / 1e6,
+                    h.getPercentilNanos(99) / 1e6, h.getMaxNanos() / 1e6));
+        }
+        return sb.append("}}\n").toString();
+    }
+
+    private static final class Estadistica {
+        final Histograma tiempos = new Histograma();
+        final LongAdder errores = new LongAdder();
+        final LongAdder conflictos = new LongAdder();
+        final LongAdder fusionadas = new LongAdder();
+
+        void registrar(long nanos, boolean error, Desenlace desenlace) {
+            tiempos.registrar(nanos);
+            if (error) {
+                errores.increment();
+            }
+            if (desenlace == Desenlace.CONFLICTO) {
+                conflictos.increment();
+            } else if (desenlace == Desenlace.FUSIONADA) {
+                fusionadas.increment();
+            }
+        }
+
+        void reiniciar() {
+            tiempos.reiniciar();
+            errores.reset();
+            conflictos.reset();
+            fusionadas.reset();
+        }
+    }
+
+    // ===== Argumentos =====
+
+    private static String opcion(String[] args, String nombre, String porDefecto) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (nombre.equals(args[i])) {
+                return args[i + 1];
+            }
+        }
+        return porDefecto;
+    }
+
+    private static Map<Operacion, Integer> mezcla(String texto) {
+        Map<Operacion, Integer> mezcla = new EnumMap<>(Operacion.class);
+        for (String par : texto.split(",")) {
+            String[] kv = par.trim().split("=");
+            if (kv.length != 2) {
+                throw new IllegalArgumentException("Mezcla invalida: " + par + " (se espera op=peso)");
+            }
+            mezcla.put(Operacion.valueOf(kv[0].trim().toUpperCase(Locale.ROOT)), Integer.parseInt(kv[1].trim()));
+        }
+        return mezcla;
+    }
+}
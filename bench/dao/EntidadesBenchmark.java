@@ -0,0 +1,57 @@
+package dao;
+
+import entities.FichaBibliografica;
+import entities.Libro;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Costo de construir entidades: setters con validación (alta desde el menú o la importación)
+ * contra la hidratación directa que usan los DAOs. No usa la BD; está en el paquete dao para
+ * llegar a {@link Hidratacion} como los DAOs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EntidadesBenchmark {
+
+    public String titulo = "  Cien años de soledad  ";
+    public String autor = "Gabriel Garcia Marquez";
+    public String editorial = "Sudamericana";
+    public Integer anio = 1967;
+    public String isbn = "978-84-376-0494-7";
+    public String dewey = "863.64";
+    public String estanteria = "A3-B12";
+    public String idioma = "Español";
+
+    @Benchmark
+    public Libro libroConSetters() {
+        return new Libro(titulo, autor, editorial, anio);
+    }
+
+    @Benchmark
+    public Libro libroHidratado() {
+        return Hidratacion.libro(1L, titulo, autor, editorial, anio, false, 0);
+    }
+
+    @Benchmark
+    public FichaBibliografica fichaConSetters() {
+        return new FichaBibliografica(isbn, dewey, estanteria, idioma);
+    }
+
+    @Benchmark
+    public FichaBibliografica fichaHidratada() {
+        return Hidratacion.ficha(1L, isbn, dewey, estanteria, idioma, false, 0);
+    }
+}
@@ -0,0 +1,136 @@
+package dao;
+
+import benchmarks.BaseDeDatosBench;
+import config.DatabaseConnection;
+import entities.FichaBibliografica;
+import entities.Libro;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Mapeo de filas a entidades sin la BD de por medio: las filas se leen una vez a un
+ * {@link CachedRowSet} en memoria y cada invocación las mapea todas.
+ * Compara los mappers por índice de columna de los DAOs con el mapeo anterior
+ * (por nombre de columna y a través de los setters que validan).
+ * Está en el paquete dao para acceder a {@code LibroDao.mapear}/{@code FichaBibliograficaDao.mapear}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MapeoBenchmark {
+
+    @Param({"1000"})
+    public int filas;
+
+    private CachedRowSet libros;
+    private CachedRowSet librosConFicha;
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException {
+        BaseDeDatosBench.preparar(filas);
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            libros = cargar(conn, """
+                SELECT id, titulo, autor, editorial, anioEdicion, eliminado, version
+                FROM Libro ORDER BY id LIMIT ?
+                """);
+            librosConFicha = cargar(conn, """
+                SELECT l.id, l.titulo, l.autor, l.editorial, l.anioEdicion, l.eliminado, l.version,
+                       f.id AS fichaId, f.isbn, f.clasificacionDewey, f.estanteria, f.idioma,
+                       f.eliminado AS fichaEliminado, f.version AS fichaVersion
+                FROM Libro l
+                LEFT JOIN FichaBibliografica f ON f.idLIBRO = l.id AND f.eliminado = FALSE
+                ORDER BY l.id LIMIT ?
+                """);
+        }
+    }
+
+    private CachedRowSet cargar(Connection conn, String sql) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, filas);
+            try (ResultSet rs = ps.executeQuery()) {
+                CachedRowSet crs = RowSetProvider.newFactory().createCachedRowSet();
+                crs.populate(rs);
+                return crs;
+            }
+        }
+    }
+
+    @Benchmark
+    public void libroPorIndice(Blackhole bh) throws SQLException {
+        libros.beforeFirst();
+        while (libros.next()) {
+            bh.consume(LibroDao.mapear(libros, 1));
+        }
+    }
+
+    @Benchmark
+    public void libroPorNombreConSetters(Blackhole bh) throws SQLException {
+        libros.beforeFirst();
+        while (libros.next()) {
+            bh.consume(libroConSetters(libros));
+        }
+    }
+
+    @Benchmark
+    public void libroConFichaPorIndice(Blackhole bh) throws SQLException {
+        librosConFicha.beforeFirst();
+        while (librosConFicha.next()) {
+            Libro libro = LibroDao.mapear(librosConFicha, 1);
+            libro.setFichaBibliografica(FichaBibliograficaDao.mapear(librosConFicha, 8));
+            bh.consume(libro);
+        }
+    }
+
+    @Benchmark
+    public void libroConFichaPorNombreConSetters(Blackhole bh) throws SQLException {
+        librosConFicha.beforeFirst();
+        while (librosConFicha.next()) {
+            Libro libro = libroConSetters(librosConFicha);
+            long fichaId = librosConFicha.getLong("fichaId");
+            if (!librosConFicha.wasNull()) {
+                FichaBibliografica ficha = new FichaBibliografica();
+                ficha.setId(fichaId);
+                ficha.setIsbn(librosConFicha.getString("isbn"));
+                ficha.setClasificacionDewey(librosConFicha.getString("clasificacionDewey"));
+                ficha.setEstanteria(librosConFicha.getString("estanteria"));
+                ficha.setIdioma(librosConFicha.getString("idioma"));
+                ficha.setEliminado(librosConFicha.getBoolean("fichaEliminado"));
+                libro.setFichaBibliografica(ficha);
+            }
+            bh.consume(libro);
+        }
+    }
+
+    // Mapeo previo a la hidratación directa (LibroDao.mapResultSetToLibro original)
+    private static Libro libroConSetters(ResultSet rs) throws SQLException {
+        Libro libro = new Libro();
+        libro.setId(rs.getLong("id"));
+        libro.setTitulo(rs.getString("titulo"));
+        libro.setAutor(rs.getString("autor"));
+        libro.setEditorial(rs.getString("editorial"));
+        libro.setAnioEdicion((Integer) rs.getObject("anioEdicion"));
+        libro.setEliminado(rs.getBoolean("eliminado"));
+        return libro;
+    }
+}
@@ -0,0 +1,32 @@
+-- Esquema de H2 (modo MySQL) equivalente al de los dumps, con los mismos nombres de índices y claves,
+-- sin los índices FULLTEXT que H2 no soporta.
+-- Lo usan BaseDeDatosBench y las pruebas del SQL de los DAOs.
+
+CREATE TABLE libro (
+  id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  titulo VARCHAR(150) NOT NULL,
+  autor VARCHAR(120) NOT NULL,
+  editorial VARCHAR(100),
+  anioEdicion INT,
+  eliminado BOOLEAN NOT NULL DEFAULT FALSE,
+  version BIGINT NOT NULL DEFAULT 0
+);
+
+CREATE TABLE fichabibliografica (
+  id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  idLIBRO BIGINT NOT NULL,
+  isbn VARCHAR(17),
+  isbnCanonico VARCHAR(13),
+  clasificacionDewey VARCHAR(20),
+  estanteria VARCHAR(20),
+  idioma VARCHAR(30),
+  eliminado BOOLEAN NOT NULL DEFAULT FALSE,
+  version BIGINT NOT NULL DEFAULT 0,
+  CONSTRAINT idLIBRO UNIQUE (idLIBRO),
+  CONSTRAINT isbn UNIQUE (isbn),
+  CONSTRAINT uk_ficha_isbn_canonico UNIQUE (isbnCanonico),
+  CONSTRAINT fk_ficha_libro FOREIGN KEY (idLIBRO) REFERENCES libro (id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_libro_titulo ON libro (titulo);
+CREATE INDEX idx_libro_autor ON libro (autor);
@@ -26,14 +26,16 @@ CREATE TABLE `fichabibliografica` (
   `id` bigint NOT NULL AUTO_INCREMENT,
   `idLIBRO` bigint NOT NULL,
   `isbn` varchar(17) COLLATE utf8mb4_unicode_ci DEFAULT NULL,
+  `isbnCanonico` varchar(13) COLLATE utf8mb4_unicode_ci DEFAULT NULL,
   `clasificacionDewey` varchar(20) COLLATE utf8mb4_unicode_ci DEFAULT NULL,
   `estanteria` varchar(20) COLLATE utf8mb4_unicode_ci DEFAULT NULL,
   `idioma` varchar(30) COLLATE utf8mb4_unicode_ci DEFAULT NULL,
   `eliminado` tinyint(1) NOT NULL DEFAULT '0',
+  `version` bigint NOT NULL DEFAULT '0',
   PRIMARY KEY (`id`),
   UNIQUE KEY `idLIBRO` (`idLIBRO`),
   UNIQUE KEY `isbn` (`isbn`),
-  KEY `idx_ficha_isbn` (`isbn`),
+  UNIQUE KEY `uk_ficha_isbn_canonico` (`isbnCanonico`),
   CONSTRAINT `fk_ficha_libro` FOREIGN KEY (`idLIBRO`) REFERENCES `libro` (`id`) ON DELETE CASCADE ON UPDATE CASCADE
 ) ENGINE=InnoDB AUTO_INCREMENT=10 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 /*!40101 SET character_set_client = @saved_cs_client */;
@@ -44,7 +46,7 @@ CREATE TABLE `fichabibliografica` (
 
 LOCK TABLES `fichabibliografica` WRITE;
 /*!40000 ALTER TABLE `fichabibliografica` DISABLE KEYS */;
-INSERT INTO `fichabibliografica` VALUES (1,1,'978-84-376-0494-7','863.64','A3-B12','Español',0),(2,2,'978-987-566-623-0','843.91','A1-C05','Español',0),(3,3,'978-0-553-29335-7','813.54','B2-A07','Ingles',0),(4,4,'978-950-07-0243-1','863.64','A3-B13','Español',0),(5,5,'978-0-452-28423-4','823.91','B1-C10','Ingles',0),(6,6,'1234567898','100','12','esp',0),(7,7,'1326578947','100','16','esp',0),(8,8,'1234567891','100','12','Español',0),(9,9,'1234123454','200','4','Español',0);
+INSERT INTO `fichabibliografica` VALUES (1,1,'978-84-376-0494-7','9788437604947','863.64','A3-B12','Español',0,0),(2,2,'978-987-566-623-0','9789875666230','843.91','A1-C05','Español',0,0),(3,3,'978-0-553-29335-7','9780553293357','813.54','B2-A07','Ingles',0,0),(4,4,'978-950-07-0243-1','9789500702431','863.64','A3-B13','Español',0,0),(5,5,'978-0-452-28423-4','9780452284234','823.91','B1-C10','Ingles',0,0),(6,6,'1234567898','1234567898','100','12','esp',0,0),(7,7,'1326578947','1326578947','100','16','esp',0,0),(8,8,'1234567891','1234567891','100','12','Español',0,0),(9,9,'1234123454','1234123454','200','4','Español',0,0);
 /*!40000 ALTER TABLE `fichabibliografica` ENABLE KEYS */;
 UNLOCK TABLES;
 /*!40103 SET TIME_ZONE=@OLD_TIME_ZONE */;
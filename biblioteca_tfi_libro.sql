@@ -22,6 +22,8 @@
 DROP TABLE IF EXISTS `libro`;
 /*!40101 SET @saved_cs_client     = @@character_set_client */;
 /*!50503 SET character_set_client = utf8mb4 */;
+/*!50604 SET @saved_ft_stopword = @@innodb_ft_enable_stopword */;
+/*!50604 SET innodb_ft_enable_stopword = OFF */;
 CREATE TABLE `libro` (
   `id` bigint NOT NULL AUTO_INCREMENT,
   `titulo` varchar(150) COLLATE utf8mb4_unicode_ci NOT NULL,
@@ -29,10 +31,14 @@ CREATE TABLE `libro` (
   `editorial` varchar(100) COLLATE utf8mb4_unicode_ci DEFAULT NULL,
   `anioEdicion` int DEFAULT NULL,
   `eliminado` tinyint(1) NOT NULL DEFAULT '0',
+  `version` bigint NOT NULL DEFAULT '0',
   PRIMARY KEY (`id`),
   KEY `idx_libro_titulo` (`titulo`),
-  KEY `idx_libro_autor` (`autor`)
+  KEY `idx_libro_autor` (`autor`),
+  FULLTEXT KEY `ft_libro_titulo` (`titulo`) /*!50100 WITH PARSER `ngram` */ ,
+  FULLTEXT KEY `ft_libro_titulo_autor` (`titulo`,`autor`) /*!50100 WITH PARSER `ngram` */ 
 ) ENGINE=InnoDB AUTO_INCREMENT=10 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+/*!50604 SET innodb_ft_enable_stopword = @saved_ft_stopword */;
 /*!40101 SET character_set_client = @saved_cs_client */;
 
 --
@@ -41,7 +47,7 @@ CREATE TABLE `libro` (
 
 LOCK TABLES `libro` WRITE;
 /*!40000 ALTER TABLE `libro` DISABLE KEYS */;
-INSERT INTO `libro` VALUES (1,'Cien años de soledad','Gabriel Garcia Marquez','Sudamericana',1967,0),(2,'El Principito','Antoine de Saint-Exupéry','Reynal & Hitchcock',1943,0),(3,'Fundacion','Isaac Asimov','Gnome Press',1951,0),(4,'Rayuela','Julio Cortazar','Sudamericana',1963,0),(5,'1984','George Orwell','Secker & Warburg',1949,0),(6,'asdads','sass','aadda',2022,0),(7,'El mas aca','Naza','Pueblada',2024,1),(8,'El Mas aca','Naza','Pueblada',2025,1),(9,'Mil Anios de Pobreza','Fede Quinteros','UTN',2025,0);
+INSERT INTO `libro` VALUES (1,'Cien años de soledad','Gabriel Garcia Marquez','Sudamericana',1967,0,0),(2,'El Principito','Antoine de Saint-Exupéry','Reynal & Hitchcock',1943,0,0),(3,'Fundacion','Isaac Asimov','Gnome Press',1951,0,0),(4,'Rayuela','Julio Cortazar','Sudamericana',1963,0,0),(5,'1984','George Orwell','Secker & Warburg',1949,0,0),(6,'asdads','sass','aadda',2022,0,0),(7,'El mas aca','Naza','Pueblada',2024,1,0),(8,'El Mas aca','Naza','Pueblada',2025,1,0),(9,'Mil Anios de Pobreza','Fede Quinteros','UTN',2025,0,0);
 /*!40000 ALTER TABLE `libro` ENABLE KEYS */;
 UNLOCK TABLES;
 /*!40103 SET TIME_ZONE=@OLD_TIME_ZONE */;
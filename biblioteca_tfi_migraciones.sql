@@ -0,0 +1,45 @@
+-- Migraciones incrementales sobre una base biblioteca_tfi existente.
+-- Los dumps biblioteca_tfi_libro.sql / biblioteca_tfi_fichabibliografica.sql ya incluyen estos cambios.
+-- Ejecutar en orden; cada bloque se aplica una sola vez.
+
+USE biblioteca_tfi;
+
+-- 1. Búsqueda por título/autor con índices FULLTEXT (parser ngram, token de 2 caracteres).
+--    Requiere ngram_token_size=2 en my.cnf (es el valor por defecto).
+--    La lista de stopwords queda fijada en el índice al crearlo: se crea sin stopwords
+--    (ver bloque 4), sólo en esta sesión y sin tocar la configuración global del servidor.
+SET SESSION innodb_ft_enable_stopword = OFF;
+ALTER TABLE libro
+  ADD FULLTEXT INDEX ft_libro_titulo (titulo) WITH PARSER ngram,
+  ADD FULLTEXT INDEX ft_libro_titulo_autor (titulo, autor) WITH PARSER ngram;
+SET SESSION innodb_ft_enable_stopword = DEFAULT;
+
+-- 2. Clave canónica de ISBN (sin guiones; ISBN-10 válido convertido a ISBN-13).
+--    Las búsquedas por ISBN usan uk_ficha_isbn_canonico en lugar de UPPER(isbn).
+--    Después de este bloque completar las filas existentes con:
+--      java -cp ... main.Main --completar-isbn
+ALTER TABLE fichabibliografica
+  ADD COLUMN isbnCanonico VARCHAR(13) COLLATE utf8mb4_unicode_ci DEFAULT NULL AFTER isbn,
+  ADD UNIQUE KEY uk_ficha_isbn_canonico (isbnCanonico),
+  DROP INDEX idx_ficha_isbn;
+
+-- 3. Control optimista de concurrencia: cada UPDATE incrementa version y las ediciones
+--    interactivas sólo escriben si la fila sigue en la versión que leyeron.
+ALTER TABLE libro
+  ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE fichabibliografica
+  ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+-- 4. Sólo si el bloque 1 se aplicó sin desactivar las stopwords: recrear los índices FULLTEXT.
+--    Con la lista por defecto el parser ngram descarta todo token que contenga una stopword
+--    ("a", "i", "de", "la", ...), así que títulos como "casa" o "vida" no se encontraban.
+--    Cualquier reconstrucción posterior de la tabla (ALTER TABLE ... FORCE, OPTIMIZE TABLE)
+--    debe hacerse también con innodb_ft_enable_stopword = OFF en la sesión.
+SET SESSION innodb_ft_enable_stopword = OFF;
+ALTER TABLE libro
+  DROP INDEX ft_libro_titulo,
+  DROP INDEX ft_libro_titulo_autor;
+ALTER TABLE libro
+  ADD FULLTEXT INDEX ft_libro_titulo (titulo) WITH PARSER ngram,
+  ADD FULLTEXT INDEX ft_libro_titulo_autor (titulo, autor) WITH PARSER ngram;
+SET SESSION innodb_ft_enable_stopword = DEFAULT;
@@ -0,0 +1,79 @@
+package config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Configuración de la aplicación leída una única vez desde db.properties.
+ * Una propiedad de sistema (-Dclave=valor) con el mismo nombre tiene prioridad
+ * sobre el valor del archivo.
+ */
+public final class AppConfig {
+
+    private static final String PROPERTIES_FILE = "db.properties";
+    private static final Properties PROPS = loadProperties();
+
+    private AppConfig() {
+    }
+
+    private static Properties loadProperties() {
+        Properties props = new Properties();
+        try (InputStream input = AppConfig.class.getClassLoader()
+                .getResourceAsStream(PROPERTIES_FILE)) {
+            if (input == null) {
+                throw new RuntimeException(" Archivo '" + PROPERTIES_FILE + "' no encontrado en el classpath.");
+            }
+            props.load(input);
+        } catch (IOException e) {
+            throw new RuntimeException("Error al cargar '" + PROPERTIES_FILE + "'", e);
+        }
+        return props;
+    }
+
+    public static String getFileName() {
+        return PROPERTIES_FILE;
+    }
+
+    public static String get(String clave) {
+        String valor = System.getProperty(clave, PROPS.getProperty(clave));
+        return valor != null ? valor.trim() : null;
+    }
+
+    public static String get(String clave, String porDefecto) {
+        String valor = get(clave);
+        return valor == null || valor.isEmpty() ? porDefecto : valor;
+    }
+
+    public static int getInt(String clave, int porDefecto) {
+        String valor = get(clave);
+        if (valor == null || valor.isEmpty()) {
+            return porDefecto;
+        }
+        try {
+            return Integer.parseInt(valor);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException(" Propiedad '" + clave + "' debe ser un entero: " + valor, e);
+        }
+    }
+
+    public static long getLong(String clave, long porDefecto) {
+        String valor = get(clave);
+        if (valor == null || valor.isEmpty()) {
+            return porDefecto;
+        }
+        try {
+            return Long.parseLong(valor);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException(" Propiedad '" + clave + "' debe ser un entero: " + valor, e);
+        }
+    }
+
+    public static boolean getBoolean(String clave, boolean porDefecto) {
+        String valor = get(clave);
+        if (valor == null || valor.isEmpty()) {
+            return porDefecto;
+        }
+        return Boolean.parseBoolean(valor);
+    }
+}
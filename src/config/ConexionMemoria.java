@@ -0,0 +1,143 @@
+package config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Connection sin base de datos para el almacenamiento en memoria ({@code almacenamiento.motor=memoria}).
+ * No ejecuta SQL: los DAOs en memoria registran, por cada cambio hecho con autoCommit=false, una
+ * acción que lo deshace. rollback (total o a un savepoint) ejecuta esas acciones en orden inverso y
+ * commit las descarta, de modo que los servicios mantienen su manejo de transacciones sin cambios.
+ * No hay aislamiento entre conexiones: los cambios son visibles para todos antes del commit.
+ */
+public final class ConexionMemoria implements InvocationHandler {
+
+    private final List<Runnable> deshacer = new ArrayList<>();
+    private boolean autoCommit = true;
+    private boolean readOnly;
+    private boolean cerrada;
+
+    private ConexionMemoria() {
+    }
+
+    public static Connection crear() {
+        return (Connection) Proxy.newProxyInstance(ConexionMemoria.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConexionMemoria());
+    }
+
+    /**
+     * Registra cómo deshacer un cambio ya aplicado. Con autoCommit=true (o si la conexión no es
+     * de memoria) el cambio queda confirmado y la acción se descarta.
+     */
+    public static void registrarDeshacer(Connection conn, Runnable accion) {
+        if (conn != null && Proxy.isProxyClass(conn.getClass())
+                && Proxy.getInvocationHandler(conn) instanceof ConexionMemoria c) {
+            synchronized (c) {
+                if (!c.autoCommit) {
+                    c.deshacer.add(accion);
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "close":
+            case "abort":
+                if (!cerrada) {
+                    deshacerHasta(0);
+                    cerrada = true;
+                }
+                return null;
+            case "isClosed":
+                return cerrada;
+            case "isValid":
+                return !cerrada;
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "ConexionMemoria[autoCommit=" + autoCommit + ", pendientes=" + deshacer.size() + "]";
+            default:
+                break;
+        }
+        if (cerrada) {
+            throw new SQLException("La conexion ya fue cerrada", "08003");
+        }
+        switch (method.getName()) {
+            case "getAutoCommit":
+                return autoCommit;
+            case "setAutoCommit":
+                // Según JDBC, volver a autoCommit=true confirma la transacción en curso
+                if ((Boolean) args[0] && !autoCommit) {
+                    deshacer.clear();
+                }
+                autoCommit = (Boolean) args[0];
+                return null;
+            case "commit":
+                deshacer.clear();
+                return null;
+            case "rollback":
+                if (args == null || args.length == 0) {
+                    deshacerHasta(0);
+                } else {
+                    deshacerHasta(((PuntoGuardado) args[0]).marca);
+                }
+                return null;
+            case "setSavepoint":
+                return new PuntoGuardado(deshacer.size());
+            case "releaseSavepoint":
+                return null;
+            case "isReadOnly":
+                return readOnly;
+            case "setReadOnly":
+                readOnly = (Boolean) args[0];
+                return null;
+            case "getTransactionIsolation":
+                return Connection.TRANSACTION_READ_UNCOMMITTED;
+            case "setTransactionIsolation":
+            case "clearWarnings":
+                return null;
+            case "getWarnings":
+                return null;
+            case "isWrapperFor":
+                return false;
+            default:
+                throw new SQLFeatureNotSupportedException(
+                        "Almacenamiento en memoria: la conexion no ejecuta SQL (" + method.getName() + ")");
+        }
+    }
+
+    private void deshacerHasta(int marca) {
+        for (int i = deshacer.size() - 1; i >= marca; i--) {
+            deshacer.remove(i).run();
+        }
+    }
+
+    private static final class PuntoGuardado implements Savepoint {
+        private final int marca;
+
+        PuntoGuardado(int marca) {
+            this.marca = marca;
+        }
+
+        @Override
+        public int getSavepointId() {
+            return marca;
+        }
+
+        @Override
+        public String getSavepointName() {
+            return "punto-" + marca;
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import metricas.SentenciaMedida;
+
+/**
+ * Pool acotado de conexiones JDBC.
+ * Las conexiones se validan al prestarse, se descartan al superar su tiempo de vida
+ * y las ociosas por encima de minIdle se cierran tras idleTimeout.
+ * Cerrar la conexión prestada la devuelve al pool en lugar de cerrar el socket.
+ */
+public class ConnectionPool {
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxSize;
+    private final int minIdle;
+    private final long idleTimeoutMs;
+    private final long maxLifetimeMs;
+    private final long borrowTimeoutMs;
+    private final int validationTimeoutSec;
+
+    // LIFO: la conexión devuelta más recientemente es la primera en prestarse
+    private final LinkedBlockingDeque<PhysicalConnection> idle = new LinkedBlockingDeque<>();
+    private final Semaphore permits;
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final LongAdder borrows = new LongAdder();
+    private final LongAdder borrowWaitNanos = new LongAdder();
+    private final AtomicLong maxBorrowWaitNanos = new AtomicLong();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder discarded = new LongAdder();
+    private final LongAdder openFailures = new LongAdder();
+    private final LongAdder closeFailures = new LongAdder();
+    private volatile String lastError;
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    /**
+     * Crea el pool y arranca la tarea de mantenimiento (cierre de ociosas y reposición de minIdle).
+     */
+    public static ConnectionPool create(String url, String user, String password, int maxSize, int minIdle,
+                                        long idleTimeoutMs, long maxLifetimeMs, long borrowTimeoutMs, int validationTimeoutSec) {
+        ConnectionPool pool = new ConnectionPool(url, user, password, maxSize, minIdle,
+                idleTimeoutMs, maxLifetimeMs, borrowTimeoutMs, validationTimeoutSec);
+        pool.start();
+        return pool;
+    }
+
+    private ConnectionPool(String url, String user, String password, int maxSize, int minIdle,
+                          long idleTimeoutMs, long maxLifetimeMs, long borrowTimeoutMs, int validationTimeoutSec) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("El tamanio maximo del pool debe ser mayor a 0");
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.minIdle = Math.max(0, Math.min(minIdle, maxSize));
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.maxLifetimeMs = maxLifetimeMs;
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.validationTimeoutSec = validationTimeoutSec;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // Se programa recién con el pool construido: el housekeeper no ve un objeto a medio inicializar
+    private void start() {
+        long period = Math.max(1000L, Math.min(idleTimeoutMs, 30_000L));
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Presta una conexión validada. Espera hasta borrowTimeoutMs si el pool está agotado.
+     *
+     * @return Connection cuyo close() la devuelve al pool
+     * @throws SQLException si vence el tiempo de espera o no se puede abrir una conexión
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("El pool de conexiones esta cerrado");
+        }
+        long start = System.nanoTime();
+        waiters.incrementAndGet();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrumpido esperando una conexion del pool", e);
+        } finally {
+            waiters.decrementAndGet();
+        }
+        long waited = System.nanoTime() - start;
+        if (!acquired) {
+            throw new SQLException("Tiempo de espera agotado (" + borrowTimeoutMs + " ms) para obtener una conexion del pool", "08001");
+        }
+
+        try {
+            PhysicalConnection pc = takeValidIdle();
+            if (pc == null) {
+                pc = open();
+            }
+            active.incrementAndGet();
+            borrows.increment();
+            borrowWaitNanos.add(waited);
+            maxBorrowWaitNanos.accumulateAndGet(waited, Math::max);
+            return pc.lease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private PhysicalConnection takeValidIdle() {
+        PhysicalConnection pc;
+        while ((pc = idle.pollFirst()) != null) {
+            if (pc.isExpired(System.currentTimeMillis()) || !pc.isValid()) {
+                discard(pc);
+                continue;
+            }
+            return pc;
+        }
+        return null;
+    }
+
+    private PhysicalConnection open() throws SQLException {
+        Connection raw = DriverManager.getConnection(url, user, password);
+        total.incrementAndGet();
+        created.increment();
+        return new PhysicalConnection(raw);
+    }
+
+    private void release(PhysicalConnection pc) {
+        active.decrementAndGet();
+        try {
+            if (closed || pc.isExpired(System.currentTimeMillis()) || !pc.reset()) {
+                discard(pc);
+            } else {
+                pc.lastUsed = System.currentTimeMillis();
+                idle.offerFirst(pc);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void discard(PhysicalConnection pc) {
+        total.decrementAndGet();
+        discarded.increment();
+        try {
+            pc.raw.close();
+        } catch (SQLException e) {
+            closeFailures.increment();
+            lastError = "Error al cerrar conexion descartada: " + e.getMessage();
+        }
+    }
+
+    // Cierra ociosas vencidas y repone hasta minIdle
+    private void housekeep() {
+        if (closed) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (PhysicalConnection pc : idle) {
+            boolean sobran = idle.size() > minIdle;
+            if (pc.isExpired(now) || (sobran && now - pc.lastUsed > idleTimeoutMs)) {
+                if (idle.remove(pc)) {
+                    discard(pc);
+                }
+            }
+        }
+        fillToMinIdle();
+    }
+
+    /**
+     * Abre conexiones hasta alcanzar minIdle ociosas (sin superar el máximo).
+     */
+    public void fillToMinIdle() {
+        while (!closed && idle.size() < minIdle && total.get() < maxSize && permits.tryAcquire()) {
+            try {
+                PhysicalConnection pc = open();
+                idle.offerLast(pc);
+            } catch (SQLException e) {
+                openFailures.increment();
+                lastError = "No se pudo abrir conexion ociosa: " + e.getMessage();
+                return;
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    public PoolStats getStats() {
+        long count = borrows.sum();
+        return new PoolStats(maxSize, total.get(), active.get(), idle.size(), waiters.get(),
+                count, count == 0 ? 0 : borrowWaitNanos.sum() / count, maxBorrowWaitNanos.get(),
+                created.sum(), discarded.sum(), openFailures.sum(), closeFailures.sum(), lastError);
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PhysicalConnection pc;
+        while ((pc = idle.pollFirst()) != null) {
+            discard(pc);
+        }
+    }
+
+    // ===== Conexión física y handle prestado =====
+
+    private final class PhysicalConnection {
+        private final Connection raw;
+        private final long createdAt = System.currentTimeMillis();
+        private volatile long lastUsed = createdAt;
+
+        PhysicalConnection(Connection raw) {
+            this.raw = raw;
+        }
+
+        boolean isExpired(long now) {
+            return maxLifetimeMs > 0 && now - createdAt > maxLifetimeMs;
+        }
+
+        boolean isValid() {
+            try {
+                return raw.isValid(validationTimeoutSec);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        // Deja la conexión como recién abierta; false si no es reutilizable
+        boolean reset() {
+            try {
+                if (raw.isClosed()) {
+                    return false;
+                }
+                if (!raw.getAutoCommit()) {
+                    raw.rollback();
+                    raw.setAutoCommit(true);
+                }
+                if (raw.isReadOnly()) {
+                    raw.setReadOnly(false);
+                }
+                raw.clearWarnings();
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        Connection lease() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new LeaseHandler(this));
+        }
+    }
+
+    private final class LeaseHandler implements InvocationHandler {
+        private final PhysicalConnection pc;
+        private volatile boolean returned;
+
+        LeaseHandler(PhysicalConnection pc) {
+            this.pc = pc;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    synchronized (this) {
+                        if (!returned) {
+                            returned = true;
+                            release(pc);
+                        }
+                    }
+                    return null;
+                case "abort":
+                    // La conexión física queda en un estado desconocido: se cierra en lugar de volver al pool
+                    synchronized (this) {
+                        if (!returned) {
+                            returned = true;
+                            active.decrementAndGet();
+                            try {
+                                discard(pc);
+                            } finally {
+                                permits.release();
+                            }
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || pc.raw.isClosed();
+                case "unwrap":
+                case "isWrapperFor":
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pc.raw + "]";
+                default:
+                    if (returned) {
+                        throw new SQLException("La conexion ya fue devuelta al pool", "08003");
+                    }
+            }
+            Object resultado;
+            try {
+                resultado = method.invoke(pc.raw, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            // Con métricas o log de consultas lentas habilitados cada sentencia mide sus execute*
+            if (resultado instanceof Statement st && SentenciaMedida.aplica()) {
+                return SentenciaMedida.envolver(st,
+                        args != null && args.length > 0 && args[0] instanceof String sql ? sql : null);
+            }
+            return resultado;
+        }
+    }
+}
@@ -4,60 +4,131 @@ package config;
 import java.io.IOException;
 import java.io.InputStream;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.Properties;
+import metricas.Metricas;
 
 /**
  * Clase de configuración para obtener conexiones a la base de datos.
- * Lee parámetros desde db.properties (ubicado en src/ o classpath raíz).
+ * Lee parámetros desde db.properties (ubicado en src/ o classpath raíz) una sola vez
+ * y entrega conexiones desde un pool compartido (ver {@link ConnectionPool}).
+ * Con {@code almacenamiento.motor=memoria} entrega conexiones sin base de datos ({@link ConexionMemoria}).
  */
 public class DatabaseConnection {
 
-    private static final String PROPERTIES_FILE = "db.properties";
+    private static final String PROPERTIES_FILE = AppConfig.getFileName();
 
-    private static Properties loadProperties() {
-        Properties props = new Properties();
-        try (InputStream input = DatabaseConnection.class.getClassLoader()
-                .getResourceAsStream(PROPERTIES_FILE)) {
-            if (input == null) {
-                throw new RuntimeException(" Archivo '" + PROPERTIES_FILE + "' no encontrado en el classpath.");
+    private static volatile ConnectionPool pool;
+
+    // almacenamiento.motor=memoria: sin base de datos, los DAOs trabajan sobre dao.AlmacenMemoria
+    private static final boolean EN_MEMORIA = "memoria".equalsIgnoreCase(AppConfig.get("almacenamiento.motor", "mysql"));
+
+    /**
+     * @return {@code true} si la aplicación corre sobre el almacenamiento en memoria
+     */
+    public static boolean isEnMemoria() {
+        return EN_MEMORIA;
+    }
+
+    private static ConnectionPool getPool() {
+        ConnectionPool p = pool;
+        if (p == null) {
+            synchronized (DatabaseConnection.class) {
+                p = pool;
+                if (p == null) {
+                    p = createPool();
+                    pool = p;
+                }
             }
-            props.load(input);
-        } catch (IOException e) {
-            throw new RuntimeException("Error al cargar '" + PROPERTIES_FILE + "'", e);
         }
-        return props;
+        return p;
     }
 
-    /**
-     * Obtiene una nueva conexión a la base de datos.
-     * 
-     * @return Connection abierta y lista para usar.
-     * @throws RuntimeException si falla la conexión.
-     */
-    public static Connection getConnection() {
-        Properties props = loadProperties();
-        String url = props.getProperty("db.url");
-        String user = props.getProperty("db.user");
-        String password = props.getProperty("db.password");
+    private static ConnectionPool createPool() {
+        String url = AppConfig.get("db.url");
+        String user = AppConfig.get("db.user");
+        String password = AppConfig.get("db.password");
 
         // Validaciones básicas
-        if (url == null || url.trim().isEmpty()) {
+        if (url == null || url.isEmpty()) {
             throw new RuntimeException(" Propiedad 'db.url' no definida en " + PROPERTIES_FILE);
         }
 
         try {
-            // Cargar driver explícitamente
-            Class.forName("com.mysql.cj.jdbc.Driver");
-            
-            return DriverManager.getConnection(url, user, password);
+            // Cargar driver explícitamente (una sola vez)
+            Class.forName(AppConfig.get("db.driver", "com.mysql.cj.jdbc.Driver"));
         } catch (ClassNotFoundException e) {
             throw new RuntimeException(" Driver de MySQL no encontrado. Asegurate de tener mysql-connector-java en el classpath.", e);
+        }
+
+        ConnectionPool p = ConnectionPool.create(url, user, password,
+                AppConfig.getInt("db.pool.maxSize", 10),
+                AppConfig.getInt("db.pool.minIdle", 2),
+                AppConfig.getLong("db.pool.idleTimeoutMs", 600_000L),
+                AppConfig.getLong("db.pool.maxLifetimeMs", 1_800_000L),
+                AppConfig.getLong("db.pool.borrowTimeoutMs", 30_000L),
+                AppConfig.getInt("db.pool.validationTimeoutSec", 2));
+        Runtime.getRuntime().addShutdownHook(new Thread(p::close, "db-pool-shutdown"));
+        return p;
+    }
+
+    /**
+     * Obtiene una conexión del pool. Al cerrarla vuelve al pool.
+     * 
+     * @return Connection abierta, validada y lista para usar.
+     * @throws RuntimeException si falla la conexión.
+     */
+    public static Connection getConnection() {
+        if (EN_MEMORIA) {
+            return ConexionMemoria.crear();
+        }
+        long inicio = Metricas.inicio();
+        try {
+            Connection conn = getPool().borrow();
+            Metricas.registrar("db.getConnection", inicio);
+            return conn;
         } catch (SQLException e) {
+            Metricas.registrarError("db.getConnection", inicio, e);
             throw new RuntimeException(" Error al conectar a la base de datos. Verifica URL, usuario y contrasenia.", e);
         }
     }
+
+    /**
+     * Crea el pool (si no existía) y abre de antemano sus db.pool.minIdle conexiones ociosas, para que
+     * las primeras operaciones no paguen la carga del driver ni la conexión y autenticación.
+     *
+     * @return conexiones ociosas en el pool (0 con almacenamiento en memoria)
+     */
+    public static int abrirConexionesMinimas() {
+        if (EN_MEMORIA) {
+            return 0;
+        }
+        ConnectionPool p = getPool();
+        p.fillToMinIdle();
+        return p.getStats().getIdle();
+    }
+
+    /**
+     * Estadísticas actuales del pool (activas, ociosas, en espera, tiempo de espera).
+     *
+     * @return estadísticas, o {@code null} con almacenamiento en memoria (no hay pool)
+     */
+    public static PoolStats getPoolStats() {
+        if (EN_MEMORIA) {
+            return null;
+        }
+        return getPool().getStats();
+    }
+
+    /**
+     * Cierra todas las conexiones ociosas; las prestadas se cierran al devolverse.
+     */
+    public static synchronized void shutdown() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+    }
     
     public static void main(String[] args) {
         try (InputStream is = DatabaseConnection.class
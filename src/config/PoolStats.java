@@ -0,0 +1,119 @@
+package config;
+
+/**
+ * Foto inmutable del estado del pool de conexiones en un instante dado.
+ */
+public class PoolStats {
+
+    private final int maxSize;
+    private final int total;
+    private final int active;
+    private final int idle;
+    private final int waiters;
+    private final long borrowCount;
+    private final long avgBorrowWaitNanos;
+    private final long maxBorrowWaitNanos;
+    private final long created;
+    private final long discarded;
+    private final long openFailures;
+    private final long closeFailures;
+    private final String lastError;
+
+    public PoolStats(int maxSize, int total, int active, int idle, int waiters, long borrowCount,
+                     long avgBorrowWaitNanos, long maxBorrowWaitNanos, long created, long discarded,
+                     long openFailures, long closeFailures, String lastError) {
+        this.maxSize = maxSize;
+        this.total = total;
+        this.active = active;
+        this.idle = idle;
+        this.waiters = waiters;
+        this.borrowCount = borrowCount;
+        this.avgBorrowWaitNanos = avgBorrowWaitNanos;
+        this.maxBorrowWaitNanos = maxBorrowWaitNanos;
+        this.created = created;
+        this.discarded = discarded;
+        this.openFailures = openFailures;
+        this.closeFailures = closeFailures;
+        this.lastError = lastError;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getActive() {
+        return active;
+    }
+
+    public int getIdle() {
+        return idle;
+    }
+
+    public int getWaiters() {
+        return waiters;
+    }
+
+    public long getBorrowCount() {
+        return borrowCount;
+    }
+
+    public long getAvgBorrowWaitNanos() {
+        return avgBorrowWaitNanos;
+    }
+
+    public long getMaxBorrowWaitNanos() {
+        return maxBorrowWaitNanos;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public long getDiscarded() {
+        return discarded;
+    }
+
+    /**
+     * Conexiones ociosas que el mantenimiento no pudo abrir (fuera de un préstamo).
+     */
+    public long getOpenFailures() {
+        return openFailures;
+    }
+
+    /**
+     * Conexiones descartadas cuyo cierre falló.
+     */
+    public long getCloseFailures() {
+        return closeFailures;
+    }
+
+    /**
+     * Último error de apertura o cierre ocurrido fuera de un préstamo, o null si no hubo.
+     */
+    public String getLastError() {
+        return lastError;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolStats{" +
+                "max=" + maxSize +
+                ", total=" + total +
+                ", active=" + active +
+                ", idle=" + idle +
+                ", waiters=" + waiters +
+                ", borrows=" + borrowCount +
+                ", avgWaitMs=" + String.format("%.3f", avgBorrowWaitNanos / 1_000_000.0) +
+                ", maxWaitMs=" + String.format("%.3f", maxBorrowWaitNanos / 1_000_000.0) +
+                ", created=" + created +
+                ", discarded=" + discarded +
+                ", openFailures=" + openFailures +
+                ", closeFailures=" + closeFailures +
+                (lastError == null ? "" : ", lastError='" + lastError + '\'') +
+                '}';
+    }
+}
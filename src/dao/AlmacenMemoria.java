@@ -0,0 +1,564 @@
+package dao;
+
+import config.AppConfig;
+import config.ConexionMemoria;
+import entities.FichaBibliografica;
+import entities.Isbn;
+import entities.Libro;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
+
+/**
+ * Catálogo en memoria compartido por {@link LibroDaoMemoria} y {@link FichaBibliograficaDaoMemoria}.
+ *
+ * Filas e índices:
+ * <ul>
+ *   <li>Libros y Fichas por id (hash concurrente); se guardan también las eliminadas lógicamente.</li>
+ *   <li>Ficha por idLIBRO y por ISBN canónico (hash concurrente, únicos como uk de la BD,
+ *       incluyendo fichas eliminadas).</li>
+ *   <li>Libros ordenados por (título, id) y por (autor, id) (skip list concurrente), comparando sin
+ *       mayúsculas ni acentos como la collation utf8mb4_unicode_ci. Título y autor se normalizan una
+ *       vez al escribir y se guardan con la fila, para que las búsquedas filtren sin volver a hacerlo.</li>
+ * </ul>
+ * Las lecturas no bloquean; las escrituras se serializan con el monitor del almacén para mantener
+ * consistentes filas e índices. Se entregan y guardan copias, nunca las instancias de las filas.
+ *
+ * Carga inicial opcional desde los dumps SQL ({@code almacenamiento.memoria.datos}, rutas
+ * separadas por coma): se toman las líneas INSERT de las tablas libro y fichabibliografica.
+ */
+final class AlmacenMemoria {
+
+    private static volatile AlmacenMemoria instancia;
+
+    private final ConcurrentHashMap<Long, FilaLibro> libros = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, FilaFicha> fichas = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Long> fichaPorIdLibro = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Long> fichaPorIsbn = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Clave> porTitulo = new ConcurrentSkipListSet<>();
+    private final ConcurrentSkipListSet<Clave> porAutor = new ConcurrentSkipListSet<>();
+    private final AtomicLong secuenciaLibro = new AtomicLong();
+    private final AtomicLong secuenciaFicha = new AtomicLong();
+
+    private AlmacenMemoria() {
+    }
+
+    static AlmacenMemoria instancia() {
+        AlmacenMemoria a = instancia;
+        if (a == null) {
+            synchronized (AlmacenMemoria.class) {
+                a = instancia;
+                if (a == null) {
+                    a = new AlmacenMemoria();
+                    for (String ruta : AppConfig.get("almacenamiento.memoria.datos", "").split(",")) {
+                        if (!ruta.isBlank()) {
+                            a.cargarDump(Paths.get(ruta.trim()));
+                        }
+                    }
+                    instancia = a;
+                }
+            }
+        }
+        return a;
+    }
+
+    // ===== Libros =====
+
+    Libro libro(Long id) {
+        Libro l = activo(id == null ? null : libros.get(id));
+        return l != null ? l.copia() : null;
+    }
+
+    synchronized void insertarLibro(Libro libro, Connection conn) {
+        long id = secuenciaLibro.incrementAndGet();
+        Libro fila = Hidratacion.libro(id, libro.getTitulo(), libro.getAutor(), libro.getEditorial(),
+                libro.getAnioEdicion(), libro.getEliminado(), 0);
+        guardarLibro(fila);
+        libro.setId(id);
+        libro.setVersion(0L);
+        ConexionMemoria.registrarDeshacer(conn, () -> borrarLibro(id));
+    }
+
+    /**
+     * @param versionEsperada si no es nula, sólo actualiza si el Libro sigue en esa versión
+     * @return {@code false} si no existe un Libro con ese id (eliminado o no)
+     */
+    synchronized boolean actualizarLibro(Libro libro, Long versionEsperada, Connection conn)
+            throws ConflictoVersionException {
+        FilaLibro fila = libro.getId() == null ? null : libros.get(libro.getId());
+        if (fila == null) {
+            return false;
+        }
+        Libro anterior = fila.libro;
+        if (versionEsperada != null && versionEsperada != anterior.getVersion().longValue()) {
+            throw new ConflictoVersionException("Libro", libro.getId(), versionEsperada, anterior.getVersion());
+        }
+        reemplazarLibro(Hidratacion.libro(libro.getId(), libro.getTitulo(), libro.getAutor(),
+                libro.getEditorial(), libro.getAnioEdicion(), libro.getEliminado(), anterior.getVersion() + 1));
+        ConexionMemoria.registrarDeshacer(conn, () -> restaurarLibro(anterior));
+        return true;
+    }
+
+    synchronized void eliminarLibro(Long id, Connection conn) {
+        Libro anterior = activo(id == null ? null : libros.get(id));
+        if (anterior == null) {
+            return;
+        }
+        Libro eliminado = anterior.copia();
+        eliminado.setEliminado(true);
+        eliminado.setVersion(anterior.getVersion() + 1);
+        reemplazarLibro(eliminado);
+        ConexionMemoria.registrarDeshacer(conn, () -> restaurarLibro(anterior));
+    }
+
+    /**
+     * Libros activos en orden (título, id), posteriores a la clave dada si no es nula, cuyo título y
+     * autor normalizados cumplen el filtro; como máximo {@code limite} (negativo: sin límite).
+     */
+    List<Libro> librosPorTitulo(String despuesDeTitulo, Long despuesDeId, BiPredicate<String, String> filtro,
+                                int limite) {
+        NavigableSet<Clave> rango = despuesDeTitulo == null || despuesDeId == null
+                ? porTitulo
+                : porTitulo.tailSet(new Clave(despuesDeTitulo, despuesDeId), false);
+        List<Libro> resultado = new ArrayList<>();
+        for (Clave c : rango) {
+            if (limite >= 0 && resultado.size() >= limite) {
+                break;
+            }
+            FilaLibro f = libros.get(c.id);
+            if (activo(f) != null && (filtro == null || filtro.test(f.titulo, f.autor))) {
+                resultado.add(f.libro.copia());
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Libros activos cuyo título o autor empieza con el prefijo (ya normalizado), en orden (título, id),
+     * como máximo {@code limite} (negativo: sin límite). Recorre sólo los rangos del prefijo en ambos índices.
+     */
+    List<Libro> librosConPrefijo(String prefijo, int limite) {
+        // Más allá de los primeros 'limite' por título no puede haber resultados: esos ya los preceden
+        TreeMap<Clave, Libro> porOrden = new TreeMap<>();
+        for (Clave c : porTitulo.tailSet(Clave.inicioDe(prefijo), true)) {
+            if (!c.orden.startsWith(prefijo) || (limite >= 0 && porOrden.size() >= limite)) {
+                break;
+            }
+            Libro l = activo(libros.get(c.id));
+            if (l != null) {
+                porOrden.put(c, l);
+            }
+        }
+        for (Clave c : porAutor.tailSet(Clave.inicioDe(prefijo), true)) {
+            if (!c.orden.startsWith(prefijo)) {
+                break;
+            }
+            FilaLibro f = libros.get(c.id);
+            if (activo(f) != null) {
+                porOrden.put(new Clave(c.id, f.titulo), f.libro);
+            }
+        }
+        List<Libro> resultado = new ArrayList<>();
+        for (Libro l : porOrden.values()) {
+            if (limite >= 0 && resultado.size() >= limite) {
+                break;
+            }
+            resultado.add(l.copia());
+        }
+        return resultado;
+    }
+
+    private static Libro activo(FilaLibro f) {
+        return f != null && !f.libro.getEliminado() ? f.libro : null;
+    }
+
+    private void guardarLibro(Libro libro) {
+        FilaLibro fila = new FilaLibro(libro);
+        libros.put(libro.getId(), fila);
+        porTitulo.add(new Clave(libro.getId(), fila.titulo));
+        porAutor.add(new Clave(libro.getId(), fila.autor));
+    }
+
+    private void reemplazarLibro(Libro nueva) {
+        quitarDeIndices(libros.get(nueva.getId()));
+        guardarLibro(nueva);
+    }
+
+    private void quitarDeIndices(FilaLibro fila) {
+        if (fila != null) {
+            porTitulo.remove(new Clave(fila.libro.getId(), fila.titulo));
+            porAutor.remove(new Clave(fila.libro.getId(), fila.autor));
+        }
+    }
+
+    private synchronized void restaurarLibro(Libro anterior) {
+        FilaLibro actual = libros.get(anterior.getId());
+        if (actual != null) {
+            reemplazarLibro(anterior);
+        } else {
+            guardarLibro(anterior);
+        }
+    }
+
+    private synchronized void borrarLibro(long id) {
+        quitarDeIndices(libros.remove(id));
+    }
+
+    // ===== Fichas =====
+
+    FichaBibliografica ficha(Long id) {
+        FilaFicha f = id == null ? null : fichas.get(id);
+        return f != null && !f.ficha.getEliminado() ? f.ficha.copia() : null;
+    }
+
+    FichaBibliografica fichaDeLibro(Long idLibro) {
+        Long id = idLibro == null ? null : fichaPorIdLibro.get(idLibro);
+        return id == null ? null : ficha(id);
+    }
+
+    FichaBibliografica fichaPorIsbnCanonico(String canonico) {
+        Long id = canonico == null ? null : fichaPorIsbn.get(canonico);
+        return id == null ? null : ficha(id);
+    }
+
+    /**
+     * Libro dueño de la ficha con ese ISBN canónico, con la ficha cargada, aunque alguno de los dos
+     * esté eliminado (el ISBN sigue ocupado); {@code null} si ninguna ficha lo usa.
+     */
+    Libro libroPorIsbnCanonico(String canonico) {
+        Long id = canonico == null ? null : fichaPorIsbn.get(canonico);
+        FilaFicha f = id == null ? null : fichas.get(id);
+        FilaLibro fl = f == null ? null : libros.get(f.idLibro);
+        Libro l = fl == null ? null : fl.libro;
+        if (l == null) {
+            return null;
+        }
+        Libro copia = l.copia();
+        copia.setFichaBibliografica(f.ficha.copia());
+        return copia;
+    }
+
+    /**
+     * Fichas activas ordenadas por ISBN (las sin ISBN primero), como SELECT_ALL_SQL.
+     */
+    List<FichaBibliografica> fichasPorIsbn() {
+        List<FichaBibliografica> resultado = new ArrayList<>(fichas.size());
+        for (FilaFicha f : fichas.values()) {
+            if (!f.ficha.getEliminado()) {
+                resultado.add(f.ficha.copia());
+            }
+        }
+        resultado.sort(Comparator.comparing(FichaBibliografica::getIsbn, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(FichaBibliografica::getId));
+        return resultado;
+    }
+
+    /**
+     * Inserta la ficha asignándole id, con las mismas restricciones que la tabla:
+     * FK a Libro, idLIBRO único e ISBN (canónico) único.
+     */
+    synchronized void insertarFicha(FichaBibliografica ficha, Long idLibro, Connection conn)
+            throws SQLIntegrityConstraintViolationException {
+        if (idLibro == null || !libros.containsKey(idLibro)) {
+            throw new SQLIntegrityConstraintViolationException(
+                    "Cannot add or update a child row: a foreign key constraint fails (fk_ficha_libro)", "23000", 1452);
+        }
+        if (fichaPorIdLibro.containsKey(idLibro)) {
+            throw duplicado(String.valueOf(idLibro), "idLIBRO");
+        }
+        String canonico = Isbn.canonico(ficha.getIsbn());
+        if (canonico != null && fichaPorIsbn.containsKey(canonico)) {
+            throw duplicado(ficha.getIsbn(), "isbn");
+        }
+        long id = secuenciaFicha.incrementAndGet();
+        guardarFicha(new FilaFicha(Hidratacion.ficha(id, ficha.getIsbn(), ficha.getClasificacionDewey(),
+                ficha.getEstanteria(), ficha.getIdioma(), ficha.getEliminado(), 0), idLibro, canonico));
+        ficha.setId(id);
+        ficha.setVersion(0L);
+        ConexionMemoria.registrarDeshacer(conn, () -> borrarFicha(id));
+    }
+
+    /**
+     * Como {@link #insertarFicha}, de forma atómica con la verificación del Libro.
+     * @return {@code false} (sin insertar) si no hay un Libro activo con ese id
+     */
+    synchronized boolean insertarFichaSiLibroActivo(FichaBibliografica ficha, Long idLibro, Connection conn)
+            throws SQLIntegrityConstraintViolationException {
+        if (activo(idLibro == null ? null : libros.get(idLibro)) == null) {
+            return false;
+        }
+        insertarFicha(ficha, idLibro, conn);
+        return true;
+    }
+
+    /**
+     * @param versionEsperada si no es nula, sólo actualiza si la Ficha sigue en esa versión
+     * @return {@code false} si no existe una Ficha con ese id (eliminada o no)
+     */
+    synchronized boolean actualizarFicha(FichaBibliografica ficha, Long versionEsperada, Connection conn)
+            throws SQLIntegrityConstraintViolationException, ConflictoVersionException {
+        FilaFicha anterior = ficha.getId() == null ? null : fichas.get(ficha.getId());
+        if (anterior == null) {
+            return false;
+        }
+        long version = anterior.ficha.getVersion();
+        if (versionEsperada != null && versionEsperada != version) {
+            throw new ConflictoVersionException("FichaBibliografica", ficha.getId(), versionEsperada, version);
+        }
+        String canonico = Isbn.canonico(ficha.getIsbn());
+        Long otra = canonico == null ? null : fichaPorIsbn.get(canonico);
+        if (otra != null && !otra.equals(ficha.getId())) {
+            throw duplicado(ficha.getIsbn(), "isbn");
+        }
+        reemplazarFicha(anterior, new FilaFicha(Hidratacion.ficha(ficha.getId(), ficha.getIsbn(),
+                ficha.getClasificacionDewey(), ficha.getEstanteria(), ficha.getIdioma(), ficha.getEliminado(),
+                version + 1), anterior.idLibro, canonico));
+        ConexionMemoria.registrarDeshacer(conn, () -> restaurarFicha(anterior));
+        return true;
+    }
+
+    synchronized void eliminarFicha(Long id, Connection conn) {
+        FilaFicha anterior = id == null ? null : fichas.get(id);
+        if (anterior == null || anterior.ficha.getEliminado()) {
+            return;
+        }
+        FichaBibliografica eliminada = anterior.ficha.copia();
+        eliminada.setEliminado(true);
+        eliminada.setVersion(anterior.ficha.getVersion() + 1);
+        fichas.put(id, new FilaFicha(eliminada, anterior.idLibro, anterior.canonico));
+        ConexionMemoria.registrarDeshacer(conn, () -> restaurarFicha(anterior));
+    }
+
+    private void guardarFicha(FilaFicha f) {
+        fichas.put(f.ficha.getId(), f);
+        fichaPorIdLibro.put(f.idLibro, f.ficha.getId());
+        if (f.canonico != null) {
+            fichaPorIsbn.put(f.canonico, f.ficha.getId());
+        }
+    }
+
+    private void reemplazarFicha(FilaFicha anterior, FilaFicha nueva) {
+        if (anterior.canonico != null) {
+            fichaPorIsbn.remove(anterior.canonico, anterior.ficha.getId());
+        }
+        guardarFicha(nueva);
+    }
+
+    private synchronized void restaurarFicha(FilaFicha anterior) {
+        FilaFicha actual = fichas.get(anterior.ficha.getId());
+        if (actual != null) {
+            reemplazarFicha(actual, anterior);
+        } else {
+            guardarFicha(anterior);
+        }
+    }
+
+    private synchronized void borrarFicha(long id) {
+        FilaFicha anterior = fichas.remove(id);
+        if (anterior != null) {
+            fichaPorIdLibro.remove(anterior.idLibro, id);
+            if (anterior.canonico != null) {
+                fichaPorIsbn.remove(anterior.canonico, id);
+            }
+        }
+    }
+
+    // Mismo texto que MySQL para que los servicios traduzcan el error igual
+    private static SQLIntegrityConstraintViolationException duplicado(String valor, String clave) {
+        return new SQLIntegrityConstraintViolationException(
+                "Duplicate entry '" + valor + "' for key 'fichabibliografica." + clave + "'", "23000", 1062);
+    }
+
+    // ===== Carga desde los dumps =====
+
+    private synchronized void cargarDump(Path archivo) {
+        List<String> lineas;
+        try {
+            lineas = Files.readAllLines(archivo, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException("No se pudo leer el dump " + archivo + " para el almacenamiento en memoria", e);
+        }
+        for (String linea : lineas) {
+            if (!linea.startsWith("INSERT INTO")) {
+                continue;
+            }
+            String tabla = linea.substring("INSERT INTO".length()).trim().replace("`", "").split("\\s")[0]
+                    .toLowerCase(Locale.ROOT);
+            for (List<String> v : new LectorValores(linea.substring(linea.indexOf(" VALUES ") + 8)).tuplas()) {
+                if (tabla.equals("libro")) {
+                    // Con o sin la columna version (dumps anteriores a la migración 3)
+                    long id = Long.parseLong(v.get(0));
+                    guardarLibro(Hidratacion.libro(id, v.get(1), v.get(2), v.get(3),
+                            v.get(4) == null ? null : Integer.valueOf(v.get(4)), "1".equals(v.get(5)),
+                            v.size() > 6 ? Long.parseLong(v.get(6)) : 0));
+                    secuenciaLibro.accumulateAndGet(id, Math::max);
+                } else if (tabla.equals("fichabibliografica")) {
+                    // Con o sin las columnas isbnCanonico y version (dumps anteriores a las migraciones 2 y 3)
+                    int d = v.size() >= 8 ? 1 : 0;
+                    long id = Long.parseLong(v.get(0));
+                    String isbn = v.get(2);
+                    long version = v.size() > 8 ? Long.parseLong(v.get(8)) : 0;
+                    guardarFicha(new FilaFicha(Hidratacion.ficha(id, isbn, v.get(3 + d), v.get(4 + d),
+                            v.get(5 + d), "1".equals(v.get(6 + d)), version), Long.parseLong(v.get(1)),
+                            Isbn.canonico(isbn)));
+                    secuenciaFicha.accumulateAndGet(id, Math::max);
+                }
+            }
+        }
+    }
+
+    // Tuplas de un INSERT de mysqldump: (1,'texto',NULL),(2,...);
+    private static final class LectorValores {
+        private final String s;
+        private int pos;
+
+        LectorValores(String s) {
+            this.s = s;
+        }
+
+        List<List<String>> tuplas() {
+            List<List<String>> tuplas = new ArrayList<>();
+            while (pos < s.length() && s.charAt(pos) == '(') {
+                pos++;
+                List<String> valores = new ArrayList<>();
+                while (true) {
+                    valores.add(valor());
+                    char c = s.charAt(pos++);
+                    if (c == ')') {
+                        break;
+                    }
+                }
+                tuplas.add(valores);
+                if (pos < s.length() && s.charAt(pos) == ',') {
+                    pos++;
+                }
+            }
+            return tuplas;
+        }
+
+        private String valor() {
+            if (s.charAt(pos) != '\'') {
+                int inicio = pos;
+                while (s.charAt(pos) != ',' && s.charAt(pos) != ')') {
+                    pos++;
+                }
+                String literal = s.substring(inicio, pos);
+                return literal.equals("NULL") ? null : literal;
+            }
+            StringBuilder sb = new StringBuilder();
+            pos++;
+            while (true) {
+                char c = s.charAt(pos++);
+                if (c == '\\') {
+                    char e = s.charAt(pos++);
+                    sb.append(switch (e) {
+                        case 'n' -> '\n';
+                        case 'r' -> '\r';
+                        case 't' -> '\t';
+                        case '0' -> '\0';
+                        default -> e;
+                    });
+                } else if (c == '\'') {
+                    if (pos < s.length() && s.charAt(pos) == '\'') {
+                        sb.append('\'');
+                        pos++;
+                    } else {
+                        return sb.toString();
+                    }
+                } else {
+                    sb.append(c);
+                }
+            }
+        }
+    }
+
+    // ===== Tipos internos =====
+
+    private static final class FilaLibro {
+        final Libro libro;
+        // Normalizados como las claves de los índices
+        final String titulo;
+        final String autor;
+
+        FilaLibro(Libro libro) {
+            this.libro = libro;
+            this.titulo = Clave.normalizar(libro.getTitulo());
+            this.autor = Clave.normalizar(libro.getAutor());
+        }
+    }
+
+    private static final class FilaFicha {
+        final FichaBibliografica ficha;
+        final long idLibro;
+        final String canonico;
+
+        FilaFicha(FichaBibliografica ficha, long idLibro, String canonico) {
+            this.ficha = ficha;
+            this.idLibro = idLibro;
+            this.canonico = canonico;
+        }
+    }
+
+    /**
+     * Entrada de los índices ordenados: texto normalizado (sin mayúsculas ni acentos) + id.
+     */
+    static final class Clave implements Comparable<Clave> {
+        final String orden;
+        final long id;
+
+        Clave(String texto, long id) {
+            this.orden = normalizar(texto);
+            this.id = id;
+        }
+
+        // Con el texto ya normalizado
+        private Clave(long id, String orden) {
+            this.orden = orden;
+            this.id = id;
+        }
+
+        // Primera clave posible para un texto ya normalizado (inicio de un rango por prefijo)
+        static Clave inicioDe(String normalizado) {
+            return new Clave(Long.MIN_VALUE, normalizado);
+        }
+
+        static String normalizar(String texto) {
+            if (texto == null) {
+                return "";
+            }
+            String sinAcentos = Normalizer.normalize(texto, Normalizer.Form.NFD).replaceAll("\\p{M}+", "");
+            return sinAcentos.toLowerCase(Locale.ROOT).trim();
+        }
+
+        @Override
+        public int compareTo(Clave o) {
+            int c = orden.compareTo(o.orden);
+            return c != 0 ? c : Long.compare(id, o.id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Clave c && c.id == id && c.orden.equals(orden);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(id) * 31 + orden.hashCode();
+        }
+    }
+}
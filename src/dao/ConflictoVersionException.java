@@ -0,0 +1,42 @@
+package dao;
+
+import java.sql.SQLException;
+
+/**
+ * Una actualización condicionada a la versión leída no se aplicó porque otra transacción modificó
+ * la fila antes (control optimista de concurrencia). No es un error transitorio: repetir la misma
+ * escritura vuelve a fallar; hay que releer la fila y decidir qué valores conservar.
+ */
+public class ConflictoVersionException extends SQLException {
+
+    private static final long serialVersionUID = 1L;
+    private final String entidad;
+    private final Long id;
+    private final long versionEsperada;
+    private final long versionActual;
+
+    public ConflictoVersionException(String entidad, Long id, long versionEsperada, long versionActual) {
+        super(entidad + " con ID " + id + " fue modificado por otra operacion (version leida "
+                + versionEsperada + ", version actual " + versionActual + ")");
+        this.entidad = entidad;
+        this.id = id;
+        this.versionEsperada = versionEsperada;
+        this.versionActual = versionActual;
+    }
+
+    public String getEntidad() {
+        return entidad;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public long getVersionEsperada() {
+        return versionEsperada;
+    }
+
+    public long getVersionActual() {
+        return versionActual;
+    }
+}
@@ -0,0 +1,135 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Utilidades JDBC compartidas por los DAOs.
+ */
+final class DaoUtil {
+
+    private static final int FETCH_SIZE_OTROS_DRIVERS = 500;
+
+    /**
+     * Máximo de valores por {@code IN (...)}. Hasta eq_range_index_dive_limit (200 por defecto en
+     * MySQL) el optimizador estima cada valor sondeando el índice; por encima pasa a estadísticas
+     * del índice y el plan puede empeorar. 200 BIGINT ocupan muy por debajo de max_allowed_packet.
+     */
+    static final int TAMANIO_BLOQUE_IN = 200;
+
+    // Los bloques se completan hasta uno de estos tamaños (repitiendo el último id) para que sólo
+    // existan unas pocas formas de la sentencia y el driver/servidor reutilicen la preparada.
+    private static final int[] TAMANIOS_IN = {1, 4, 16, 64, TAMANIO_BLOQUE_IN};
+
+    /**
+     * Lee una fila por cada fila del resultado.
+     */
+    @FunctionalInterface
+    interface MapeoFila<T> {
+        T mapear(ResultSet rs) throws SQLException;
+    }
+
+    private DaoUtil() {
+    }
+
+    /**
+     * Configura la sentencia para leer fila por fila sin cargar el resultado completo.
+     * En MySQL el único valor que activa el streaming es Integer.MIN_VALUE;
+     * mientras el resultado esté abierto no se pueden ejecutar otras sentencias en esa conexión.
+     */
+    static void habilitarStreaming(PreparedStatement ps) throws SQLException {
+        String url = ps.getConnection().getMetaData().getURL();
+        if (url != null && url.startsWith("jdbc:mysql:")) {
+            ps.setFetchSize(Integer.MIN_VALUE);
+        } else {
+            ps.setFetchSize(FETCH_SIZE_OTROS_DRIVERS);
+        }
+    }
+
+    /**
+     * Ejecuta {@code sqlHastaIn + "?, ?, ...)"} en bloques de hasta {@link #TAMANIO_BLOQUE_IN} ids
+     * y devuelve las filas indexadas por el valor de {@code columnaClave}. Los ids nulos y
+     * repetidos se ignoran; los que no tienen fila quedan ausentes del mapa.
+     *
+     * @param sqlHastaIn SELECT que termina en {@code "... IN ("}
+     */
+    static <T> Map<Long, T> leerPorBloques(Connection conn, Collection<Long> ids, String sqlHastaIn,
+                                           int columnaClave, MapeoFila<T> mapeo) throws SQLException {
+        return leerPorBloques(conn, ids, sqlHastaIn, rs -> rs.getLong(columnaClave), mapeo);
+    }
+
+    /**
+     * Igual que {@link #leerPorBloques(Connection, Collection, String, int, MapeoFila)} para claves de
+     * cualquier tipo admitido por setObject (ej. el ISBN canónico).
+     */
+    static <K, T> Map<K, T> leerPorBloques(Connection conn, Collection<K> claves, String sqlHastaIn,
+                                           MapeoFila<K> clave, MapeoFila<T> mapeo) throws SQLException {
+        List<K> unicas = new ArrayList<>(new LinkedHashSet<>(claves));
+        unicas.remove(null);
+        Map<K, T> resultado = new HashMap<>(Math.max(16, unicas.size() * 2));
+        for (int desde = 0; desde < unicas.size(); desde += TAMANIO_BLOQUE_IN) {
+            List<K> bloque = unicas.subList(desde, Math.min(unicas.size(), desde + TAMANIO_BLOQUE_IN));
+            int tamanio = tamanioIn(bloque.size());
+            try (PreparedStatement ps = conn.prepareStatement(sqlIn(sqlHastaIn, tamanio))) {
+                for (int i = 0; i < tamanio; i++) {
+                    ps.setObject(i + 1, bloque.get(Math.min(i, bloque.size() - 1)));
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        resultado.put(clave.mapear(rs), mapeo.mapear(rs));
+                    }
+                }
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Error para un UPDATE por id que no afectó filas: si la escritura era condicional a una versión
+     * y la fila existe, otra transacción la modificó primero ({@link ConflictoVersionException});
+     * si no, la fila no existe.
+     *
+     * @param sqlVersion {@code SELECT version FROM ... WHERE id = ?}
+     * @param versionEsperada versión de la escritura condicional, o {@code null} si no lo era
+     */
+    static SQLException sinFilasActualizadas(Connection conn, String sqlVersion, String entidad, Long id,
+                                             Long versionEsperada, String mensajeNoExiste) throws SQLException {
+        if (versionEsperada != null) {
+            try (PreparedStatement ps = conn.prepareStatement(sqlVersion)) {
+                ps.setLong(1, id);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        return new ConflictoVersionException(entidad, id, versionEsperada, rs.getLong(1));
+                    }
+                }
+            }
+        }
+        return new SQLException(mensajeNoExiste);
+    }
+
+    private static int tamanioIn(int cantidad) {
+        for (int t : TAMANIOS_IN) {
+            if (cantidad <= t) {
+                return t;
+            }
+        }
+        return TAMANIO_BLOQUE_IN;
+    }
+
+    private static String sqlIn(String sqlHastaIn, int marcadores) {
+        StringBuilder sb = new StringBuilder(sqlHastaIn.length() + marcadores * 3);
+        sb.append(sqlHastaIn).append('?');
+        for (int i = 1; i < marcadores; i++) {
+            sb.append(", ?");
+        }
+        return sb.append(')').toString();
+    }
+}
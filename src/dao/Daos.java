@@ -0,0 +1,27 @@
+package dao;
+
+import config.DatabaseConnection;
+
+/**
+ * Crea los DAOs según el motor de almacenamiento configurado en db.properties:
+ * <pre>
+ * almacenamiento.motor=mysql     (por defecto: DAOs JDBC)
+ * almacenamiento.motor=memoria   (DAOs sobre AlmacenMemoria, sin base de datos)
+ * almacenamiento.memoria.datos=biblioteca_tfi_libro.sql,biblioteca_tfi_fichabibliografica.sql
+ * </pre>
+ */
+public final class Daos {
+
+    private Daos() {
+    }
+
+    public static LibroDao libroDao() {
+        return DatabaseConnection.isEnMemoria() ? new LibroDaoMemoria(AlmacenMemoria.instancia()) : new LibroDao();
+    }
+
+    public static FichaBibliograficaDao fichaDao() {
+        return DatabaseConnection.isEnMemoria()
+                ? new FichaBibliograficaDaoMemoria(AlmacenMemoria.instancia())
+                : new FichaBibliograficaDao();
+    }
+}
@@ -2,35 +2,102 @@
 package dao;
 
 import entities.FichaBibliografica;
+import entities.Isbn;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public class FichaBibliograficaDao implements GenericDao<FichaBibliografica> {
 
+    // Columnas que lee mapear(); las consultas agregan sus claves después
+    static final int COLUMNAS_FICHA = 7;
+
     private static final String INSERT_SQL = """
-        INSERT INTO FichaBibliografica (idLIBRO, isbn, clasificacionDewey, estanteria, idioma, eliminado)
-        VALUES (?, ?, ?, ?, ?, ?)
+        INSERT INTO FichaBibliografica (idLIBRO, isbn, isbnCanonico, clasificacionDewey, estanteria, idioma, eliminado)
+        VALUES (?, ?, ?, ?, ?, ?, ?)
         """;
     private static final String SELECT_BY_ID_SQL = """
-        SELECT id, isbn, clasificacionDewey, estanteria, idioma, eliminado
+        SELECT id, isbn, clasificacionDewey, estanteria, idioma, eliminado, version
         FROM FichaBibliografica
         WHERE id = ? AND eliminado = FALSE
         """;
+    private static final String SELECT_BY_IDS_SQL = """
+        SELECT id, isbn, clasificacionDewey, estanteria, idioma, eliminado, version
+        FROM FichaBibliografica
+        WHERE eliminado = FALSE AND id IN (""";
     private static final String SELECT_ALL_SQL = """
-        SELECT id, isbn, clasificacionDewey, estanteria, idioma, eliminado
+        SELECT id, isbn, clasificacionDewey, estanteria, idioma, eliminado, version
         FROM FichaBibliografica
         WHERE eliminado = FALSE
         ORDER BY isbn
         """;
     private static final String UPDATE_SQL = """
         UPDATE FichaBibliografica
-        SET isbn = ?, clasificacionDewey = ?, estanteria = ?, idioma = ?, eliminado = ?
+        SET isbn = ?, isbnCanonico = ?, clasificacionDewey = ?, estanteria = ?, idioma = ?, eliminado = ?,
+            version = version + 1
+        WHERE id = ?
+        """;
+    // Control optimista: sólo escribe si nadie modificó la fila desde que se leyó (misma versión)
+    private static final String UPDATE_SI_VERSION_SQL = """
+        UPDATE FichaBibliografica
+        SET isbn = ?, isbnCanonico = ?, clasificacionDewey = ?, estanteria = ?, idioma = ?, eliminado = ?,
+            version = version + 1
+        WHERE id = ? AND version = ?
+        """;
+    private static final String SELECT_VERSION_SQL = """
+        SELECT version
+        FROM FichaBibliografica
         WHERE id = ?
         """;
+    // Alta condicionada al Libro activo en una sola sentencia; la unicidad 1:1 la garantiza el UK de idLIBRO
+    private static final String INSERT_SI_LIBRO_ACTIVO_SQL = """
+        INSERT INTO FichaBibliografica (idLIBRO, isbn, isbnCanonico, clasificacionDewey, estanteria, idioma, eliminado)
+        SELECT id, ?, ?, ?, ?, ?, ?
+        FROM Libro
+        WHERE id = ? AND eliminado = FALSE
+        """;
+    // Como LibroDao.UPDATE_LOTE_SI_VERSION_SQL: 0 filas si la Ficha se eliminó o modificó desde que se leyó
+    private static final String UPDATE_ESTANTERIA_SI_VERSION_SQL = """
+        UPDATE FichaBibliografica
+        SET estanteria = ?, version = version + 1
+        WHERE id = ? AND version = ? AND eliminado = FALSE
+        """;
     private static final String DELETE_LOGICO_SQL = """
         UPDATE FichaBibliografica
-        SET eliminado = TRUE
+        SET eliminado = TRUE, version = version + 1
+        WHERE id = ?
+        """;
+    private static final String SELECT_BY_ID_LIBRO_SQL = """
+        SELECT id, isbn, clasificacionDewey, estanteria, idioma, eliminado, version
+        FROM FichaBibliografica
+        WHERE idLIBRO = ? AND eliminado = FALSE
+        """;
+    // idLIBRO va después de las columnas del mapeo: es la clave del resultado
+    private static final String SELECT_BY_IDS_LIBRO_SQL = """
+        SELECT id, isbn, clasificacionDewey, estanteria, idioma, eliminado, version, idLIBRO
+        FROM FichaBibliografica
+        WHERE eliminado = FALSE AND idLIBRO IN (""";
+    // Búsqueda por ISBN: sondeo único sobre uk_ficha_isbn_canonico
+    private static final String BUSCAR_POR_ISBN_SQL = """
+        SELECT id, isbn, clasificacionDewey, estanteria, idioma, eliminado, version
+        FROM FichaBibliografica
+        WHERE isbnCanonico = ? AND eliminado = FALSE
+        """;
+    // Backfill de isbnCanonico para filas anteriores a la columna (keyset por id)
+    private static final String PENDIENTES_CANONICO_SQL = """
+        SELECT id, isbn
+        FROM FichaBibliografica
+        WHERE isbnCanonico IS NULL AND isbn IS NOT NULL AND id > ?
+        ORDER BY id
+        LIMIT ?
+        """;
+    private static final String UPDATE_CANONICO_SQL = """
+        UPDATE FichaBibliografica
+        SET isbnCanonico = ?
         WHERE id = ?
         """;
 
@@ -38,10 +105,11 @@ public class FichaBibliograficaDao implements GenericDao<FichaBibliografica> {
         try (PreparedStatement ps = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
             ps.setLong(1, idLIBRO); // 
             ps.setString(2, ficha.getIsbn());
-            ps.setString(3, ficha.getClasificacionDewey());
-            ps.setString(4, ficha.getEstanteria());
-            ps.setString(5, ficha.getIdioma());
-            ps.setBoolean(6, ficha.getEliminado());
+            ps.setString(3, Isbn.canonico(ficha.getIsbn()));
+            ps.setString(4, ficha.getClasificacionDewey());
+            ps.setString(5, ficha.getEstanteria());
+            ps.setString(6, ficha.getIdioma());
+            ps.setBoolean(7, ficha.getEliminado());
 
             int filas = ps.executeUpdate();
             if (filas == 0) {
@@ -51,12 +119,111 @@ public class FichaBibliograficaDao implements GenericDao<FichaBibliografica> {
             try (ResultSet rs = ps.getGeneratedKeys()) {
                 if (rs.next()) {
                     ficha.setId(rs.getLong(1));
+                    ficha.setVersion(0L);
                 }
             }
             return ficha;
         }
     }
 
+    /**
+     * Crea la Ficha sólo si el Libro existe y está activo, con un único INSERT ... SELECT (sin
+     * lectura previa ni carrera entre la verificación y el alta). Si el Libro ya tiene ficha
+     * la sentencia falla por el UK de idLIBRO (SQLState 23000).
+     * @return la ficha con ID asignado, o {@code null} si no hay un Libro activo con ese ID
+     */
+    public FichaBibliografica crearSiLibroActivo(FichaBibliografica ficha, Long idLIBRO, Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(INSERT_SI_LIBRO_ACTIVO_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            ps.setString(1, ficha.getIsbn());
+            ps.setString(2, Isbn.canonico(ficha.getIsbn()));
+            ps.setString(3, ficha.getClasificacionDewey());
+            ps.setString(4, ficha.getEstanteria());
+            ps.setString(5, ficha.getIdioma());
+            ps.setBoolean(6, ficha.getEliminado());
+            ps.setLong(7, idLIBRO);
+
+            if (ps.executeUpdate() == 0) {
+                return null;
+            }
+            try (ResultSet rs = ps.getGeneratedKeys()) {
+                if (rs.next()) {
+                    ficha.setId(rs.getLong(1));
+                    ficha.setVersion(0L);
+                }
+            }
+            return ficha;
+        }
+    }
+
+    /**
+     * Inserta varias Fichas en batch; idsLibro.get(i) es el Libro de fichas.get(i).
+     * No confirma la transacción: el llamador decide commit/rollback.
+     */
+    public void crearLote(List<FichaBibliografica> fichas, List<Long> idsLibro, Connection conn) throws SQLException {
+        if (fichas.size() != idsLibro.size()) {
+            throw new IllegalArgumentException("Cantidad de fichas e IDs de Libro no coincide");
+        }
+        if (fichas.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement ps = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < fichas.size(); i++) {
+                FichaBibliografica ficha = fichas.get(i);
+                ps.setLong(1, idsLibro.get(i));
+                ps.setString(2, ficha.getIsbn());
+                ps.setString(3, Isbn.canonico(ficha.getIsbn()));
+                ps.setString(4, ficha.getClasificacionDewey());
+                ps.setString(5, ficha.getEstanteria());
+                ps.setString(6, ficha.getIdioma());
+                ps.setBoolean(7, ficha.getEliminado());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+
+            try (ResultSet rs = ps.getGeneratedKeys()) {
+                int i = 0;
+                while (rs.next() && i < fichas.size()) {
+                    FichaBibliografica ficha = fichas.get(i++);
+                    ficha.setId(rs.getLong(1));
+                    ficha.setVersion(0L);
+                }
+                if (i != fichas.size()) {
+                    throw new SQLException("Se esperaban " + fichas.size() + " IDs generados y se obtuvieron " + i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reescribe la estantería de Fichas activas en un solo batch {@code UPDATE ... WHERE id = ? AND version = ?},
+     * usando como versión esperada la de cada Ficha. No inserta filas ni modifica las entidades.
+     * No confirma la transacción.
+     *
+     * @return IDs de las Fichas no actualizadas: eliminadas o modificadas por otra operación desde que se leyeron
+     */
+    public List<Long> actualizarEstanteriaLoteSiVersion(List<FichaBibliografica> fichas, Connection conn)
+            throws SQLException {
+        List<Long> enConflicto = new ArrayList<>();
+        if (fichas.isEmpty()) {
+            return enConflicto;
+        }
+        try (PreparedStatement ps = conn.prepareStatement(UPDATE_ESTANTERIA_SI_VERSION_SQL)) {
+            for (FichaBibliografica ficha : fichas) {
+                ps.setString(1, ficha.getEstanteria());
+                ps.setLong(2, ficha.getId());
+                ps.setLong(3, ficha.getVersion());
+                ps.addBatch();
+            }
+            int[] filas = ps.executeBatch();
+            for (int i = 0; i < filas.length; i++) {
+                if (filas[i] == 0) {
+                    enConflicto.add(fichas.get(i).getId());
+                }
+            }
+        }
+        return enConflicto;
+    }
+
     // Sobrecarga sin idLIBRO
     public FichaBibliografica crear(FichaBibliografica ficha, Connection conn) throws SQLException {
         throw new UnsupportedOperationException("Usar crear(ficha, idLIBRO, conn)");
@@ -75,6 +242,11 @@ public class FichaBibliograficaDao implements GenericDao<FichaBibliografica> {
         }
     }
 
+    @Override
+    public Map<Long, FichaBibliografica> leerPorIds(Collection<Long> ids, Connection conn) throws SQLException {
+        return DaoUtil.leerPorBloques(conn, ids, SELECT_BY_IDS_SQL, 1, this::mapResultSetToFicha);
+    }
+
     @Override
     public List<FichaBibliografica> leerTodos(Connection conn) throws SQLException {
         List<FichaBibliografica> fichas = new ArrayList<>();
@@ -87,19 +259,48 @@ public class FichaBibliograficaDao implements GenericDao<FichaBibliografica> {
         return fichas;
     }
 
+    @Override
+    public long recorrerTodos(Connection conn, Consumer<? super FichaBibliografica> consumidor) throws SQLException {
+        long cantidad = 0;
+        try (PreparedStatement ps = conn.prepareStatement(SELECT_ALL_SQL,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            DaoUtil.habilitarStreaming(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    consumidor.accept(mapResultSetToFicha(rs));
+                    cantidad++;
+                }
+            }
+        }
+        return cantidad;
+    }
+
+    /**
+     * Actualiza la Ficha; con versión, sólo si la fila sigue en esa versión (ver LibroDao.actualizar).
+     * @throws ConflictoVersionException si otra transacción modificó la Ficha desde que se leyó
+     */
     @Override
     public void actualizar(FichaBibliografica ficha, Connection conn) throws SQLException {
-        try (PreparedStatement ps = conn.prepareStatement(UPDATE_SQL)) {
+        Long version = ficha.getVersion();
+        try (PreparedStatement ps = conn.prepareStatement(version != null ? UPDATE_SI_VERSION_SQL : UPDATE_SQL)) {
             ps.setString(1, ficha.getIsbn());
-            ps.setString(2, ficha.getClasificacionDewey());
-            ps.setString(3, ficha.getEstanteria());
-            ps.setString(4, ficha.getIdioma());
-            ps.setBoolean(5, ficha.getEliminado());
-            ps.setLong(6, ficha.getId());
+            ps.setString(2, Isbn.canonico(ficha.getIsbn()));
+            ps.setString(3, ficha.getClasificacionDewey());
+            ps.setString(4, ficha.getEstanteria());
+            ps.setString(5, ficha.getIdioma());
+            ps.setBoolean(6, ficha.getEliminado());
+            ps.setLong(7, ficha.getId());
+            if (version != null) {
+                ps.setLong(8, version);
+            }
 
             int filas = ps.executeUpdate();
             if (filas == 0) {
-                throw new SQLException("No se encontro la FichaBibliografica con ID: " + ficha.getId());
+                throw DaoUtil.sinFilasActualizadas(conn, SELECT_VERSION_SQL, "FichaBibliografica", ficha.getId(),
+                        version, "No se encontro la FichaBibliografica con ID: " + ficha.getId());
+            }
+            if (version != null) {
+                ficha.setVersion(version + 1);
             }
         }
     }
@@ -113,14 +314,17 @@ public class FichaBibliograficaDao implements GenericDao<FichaBibliografica> {
     }
 
     //  Método adicional: buscar por ISBN
+    /**
+     * Busca por ISBN sin importar cómo se escribió (con/sin guiones, ISBN-10 o su ISBN-13).
+     * @return ficha activa, o {@code null} si no existe o el texto no tiene forma de ISBN
+     */
     public FichaBibliografica buscarPorIsbn(String isbn, Connection conn) throws SQLException {
-        String sql = """
-            SELECT id, isbn, clasificacionDewey, estanteria, idioma, eliminado
-            FROM FichaBibliografica
-            WHERE UPPER(isbn) = UPPER(?) AND eliminado = FALSE
-            """;
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, isbn);
+        String canonico = Isbn.canonico(isbn);
+        if (canonico == null) {
+            return null;
+        }
+        try (PreparedStatement ps = conn.prepareStatement(BUSCAR_POR_ISBN_SQL)) {
+            ps.setString(1, canonico);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
                     return mapResultSetToFicha(rs);
@@ -130,38 +334,87 @@ public class FichaBibliograficaDao implements GenericDao<FichaBibliografica> {
         }
     }
 
-    //  Helper: mapeo de ResultSet a FichaBibliografica 
-    private FichaBibliografica mapResultSetToFicha(ResultSet rs) throws SQLException {
-        FichaBibliografica ficha = new FichaBibliografica();
-        ficha.setId(rs.getLong("id"));
-        ficha.setIsbn(rs.getString("isbn"));
-        ficha.setClasificacionDewey(rs.getString("clasificacionDewey"));
-        ficha.setEstanteria(rs.getString("estanteria"));
-        ficha.setIdioma(rs.getString("idioma"));
-        ficha.setEliminado(rs.getBoolean("eliminado"));
-        return ficha;
+    /**
+     * Fichas con ISBN y sin isbnCanonico, en orden de id, a partir de {@code despuesDeId}.
+     * @return ISBN tal como está cargado, por ID de ficha
+     */
+    public Map<Long, String> leerIsbnSinCanonico(long despuesDeId, int limite, Connection conn) throws SQLException {
+        Map<Long, String> pendientes = new LinkedHashMap<>();
+        try (PreparedStatement ps = conn.prepareStatement(PENDIENTES_CANONICO_SQL)) {
+            ps.setLong(1, despuesDeId);
+            ps.setInt(2, limite);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    pendientes.put(rs.getLong(1), rs.getString(2));
+                }
+            }
+        }
+        return pendientes;
+    }
+
+    /**
+     * Escribe el isbnCanonico de un lote de fichas. Una fila cuyo ISBN canónico ya pertenece a
+     * otra ficha no se escribe (sólo se deshace esa sentencia) y el resto del lote sigue.
+     * No confirma la transacción.
+     * @return IDs omitidos por ISBN canónico duplicado
+     */
+    public List<Long> completarIsbnCanonico(Map<Long, String> canonicosPorId, Connection conn) throws SQLException {
+        List<Long> duplicadas = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(UPDATE_CANONICO_SQL)) {
+            for (Map.Entry<Long, String> e : canonicosPorId.entrySet()) {
+                ps.setString(1, e.getValue());
+                ps.setLong(2, e.getKey());
+                try {
+                    ps.executeUpdate();
+                } catch (SQLIntegrityConstraintViolationException ex) {
+                    duplicadas.add(e.getKey());
+                }
+            }
+        }
+        return duplicadas;
     }
+
     public FichaBibliografica buscarPorIdLibro(Long idLibro, Connection conn) throws SQLException {
-    String sql = """
-        SELECT id, isbn, clasificacionDewey, estanteria, idioma, eliminado
-        FROM FichaBibliografica
-        WHERE idLIBRO = ? AND eliminado = FALSE
-        """;
-    try (PreparedStatement ps = conn.prepareStatement(sql)) {
-        ps.setLong(1, idLibro);
-        try (ResultSet rs = ps.executeQuery()) {
-            if (rs.next()) {
-                FichaBibliografica f = new FichaBibliografica();
-                f.setId(rs.getLong("id"));
-                f.setIsbn(rs.getString("isbn"));
-                f.setClasificacionDewey(rs.getString("clasificacionDewey"));
-                f.setEstanteria(rs.getString("estanteria"));
-                f.setIdioma(rs.getString("idioma"));
-                f.setEliminado(rs.getBoolean("eliminado"));
-                return f;
+        try (PreparedStatement ps = conn.prepareStatement(SELECT_BY_ID_LIBRO_SQL)) {
+            ps.setLong(1, idLibro);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return mapResultSetToFicha(rs);
+                }
+                return null;
             }
+        }
+    }
+
+    /**
+     * Fichas activas de varios Libros (clave única idLIBRO), con una consulta por bloque de IDs.
+     * @return fichas por ID de Libro; los Libros sin ficha activa no aparecen
+     */
+    public Map<Long, FichaBibliografica> buscarPorIdsLibro(Collection<Long> idsLibro, Connection conn) throws SQLException {
+        return DaoUtil.leerPorBloques(conn, idsLibro, SELECT_BY_IDS_LIBRO_SQL, COLUMNAS_FICHA + 1, this::mapResultSetToFicha);
+    }
+
+    //  Helper: mapeo de ResultSet a FichaBibliografica 
+    private FichaBibliografica mapResultSetToFicha(ResultSet rs) throws SQLException {
+        return mapear(rs, 1);
+    }
+
+    /**
+     * Mapeo por índice de columna, sin revalidar (los datos ya cumplen las restricciones de la BD).
+     * Espera las columnas id, isbn, clasificacionDewey, estanteria, idioma, eliminado, version
+     * consecutivas a partir de {@code primera}; si id es NULL (LEFT JOIN sin ficha) devuelve null.
+     */
+    static FichaBibliografica mapear(ResultSet rs, int primera) throws SQLException {
+        long id = rs.getLong(primera);
+        if (rs.wasNull()) {
             return null;
         }
+        return Hidratacion.ficha(id,
+                rs.getString(primera + 1),
+                rs.getString(primera + 2),
+                rs.getString(primera + 3),
+                rs.getString(primera + 4),
+                rs.getBoolean(primera + 5),
+                rs.getLong(primera + 6));
     }
 }
-}
\ No newline at end of file
@@ -0,0 +1,144 @@
+package dao;
+
+import entities.FichaBibliografica;
+import entities.Isbn;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * FichaBibliograficaDao sobre {@link AlmacenMemoria}. Respeta las mismas restricciones que la
+ * tabla (FK a Libro, una ficha por Libro, ISBN único) con los mismos mensajes de error de MySQL.
+ */
+final class FichaBibliograficaDaoMemoria extends FichaBibliograficaDao {
+
+    private final AlmacenMemoria almacen;
+
+    FichaBibliograficaDaoMemoria(AlmacenMemoria almacen) {
+        this.almacen = almacen;
+    }
+
+    @Override
+    public FichaBibliografica crear(FichaBibliografica ficha, Long idLIBRO, Connection conn) throws SQLException {
+        almacen.insertarFicha(ficha, idLIBRO, conn);
+        return ficha;
+    }
+
+    @Override
+    public FichaBibliografica crearSiLibroActivo(FichaBibliografica ficha, Long idLIBRO, Connection conn) throws SQLException {
+        return almacen.insertarFichaSiLibroActivo(ficha, idLIBRO, conn) ? ficha : null;
+    }
+
+    @Override
+    public void crearLote(List<FichaBibliografica> fichas, List<Long> idsLibro, Connection conn) throws SQLException {
+        if (fichas.size() != idsLibro.size()) {
+            throw new IllegalArgumentException("Cantidad de fichas e IDs de Libro no coincide");
+        }
+        for (int i = 0; i < fichas.size(); i++) {
+            almacen.insertarFicha(fichas.get(i), idsLibro.get(i), conn);
+        }
+    }
+
+    @Override
+    public List<Long> actualizarEstanteriaLoteSiVersion(List<FichaBibliografica> fichas, Connection conn)
+            throws SQLException {
+        List<Long> enConflicto = new ArrayList<>();
+        for (FichaBibliografica ficha : fichas) {
+            FichaBibliografica actual = almacen.ficha(ficha.getId());
+            if (actual == null) {
+                enConflicto.add(ficha.getId());
+                continue;
+            }
+            actual.setEstanteria(ficha.getEstanteria());
+            try {
+                almacen.actualizarFicha(actual, ficha.getVersion(), conn);
+            } catch (ConflictoVersionException e) {
+                enConflicto.add(ficha.getId());
+            }
+        }
+        return enConflicto;
+    }
+
+    @Override
+    public FichaBibliografica leer(Long id, Connection conn) throws SQLException {
+        return almacen.ficha(id);
+    }
+
+    @Override
+    public Map<Long, FichaBibliografica> leerPorIds(Collection<Long> ids, Connection conn) throws SQLException {
+        Map<Long, FichaBibliografica> resultado = new HashMap<>();
+        for (Long id : ids) {
+            FichaBibliografica ficha = almacen.ficha(id);
+            if (ficha != null) {
+                resultado.put(id, ficha);
+            }
+        }
+        return resultado;
+    }
+
+    @Override
+    public List<FichaBibliografica> leerTodos(Connection conn) throws SQLException {
+        return almacen.fichasPorIsbn();
+    }
+
+    @Override
+    public long recorrerTodos(Connection conn, Consumer<? super FichaBibliografica> consumidor) throws SQLException {
+        List<FichaBibliografica> fichas = almacen.fichasPorIsbn();
+        fichas.forEach(consumidor);
+        return fichas.size();
+    }
+
+    @Override
+    public void actualizar(FichaBibliografica ficha, Connection conn) throws SQLException {
+        Long version = ficha.getVersion();
+        if (!almacen.actualizarFicha(ficha, version, conn)) {
+            throw new SQLException("No se encontro la FichaBibliografica con ID: " + ficha.getId());
+        }
+        if (version != null) {
+            ficha.setVersion(version + 1);
+        }
+    }
+
+    @Override
+    public void eliminar(Long id, Connection conn) throws SQLException {
+        almacen.eliminarFicha(id, conn);
+    }
+
+    @Override
+    public FichaBibliografica buscarPorIsbn(String isbn, Connection conn) throws SQLException {
+        return almacen.fichaPorIsbnCanonico(Isbn.canonico(isbn));
+    }
+
+    @Override
+    public FichaBibliografica buscarPorIdLibro(Long idLibro, Connection conn) throws SQLException {
+        return almacen.fichaDeLibro(idLibro);
+    }
+
+    @Override
+    public Map<Long, FichaBibliografica> buscarPorIdsLibro(Collection<Long> idsLibro, Connection conn) throws SQLException {
+        Map<Long, FichaBibliografica> resultado = new HashMap<>();
+        for (Long idLibro : idsLibro) {
+            FichaBibliografica ficha = almacen.fichaDeLibro(idLibro);
+            if (ficha != null) {
+                resultado.put(idLibro, ficha);
+            }
+        }
+        return resultado;
+    }
+
+    // El almacén calcula el ISBN canónico al insertar/actualizar: no hay filas pendientes
+    @Override
+    public Map<Long, String> leerIsbnSinCanonico(long despuesDeId, int limite, Connection conn) throws SQLException {
+        return Map.of();
+    }
+
+    @Override
+    public List<Long> completarIsbnCanonico(Map<Long, String> canonicosPorId, Connection conn) throws SQLException {
+        return List.of();
+    }
+}
@@ -3,7 +3,10 @@ package dao;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Todos los métodos reciben una Connection externa para participar de transacciones.
@@ -28,6 +31,15 @@ public interface GenericDao<T> {
      */
     T leer(Long id, Connection conn) throws SQLException;
 
+    /**
+     * Lee varias entidades activas por ID con consultas {@code IN (...)} en bloques.
+     * @param ids identificadores (se ignoran nulos y repetidos)
+     * @param conn conexión activa
+     * @return entidades por ID; los IDs inexistentes o eliminados no aparecen en el mapa
+     * @throws SQLException
+     */
+    Map<Long, T> leerPorIds(Collection<Long> ids, Connection conn) throws SQLException;
+
     /**
      * Lista todas las entidades activas (eliminado = FALSE).
      * @param conn conexión activa
@@ -36,6 +48,18 @@ public interface GenericDao<T> {
      */
     List<T> leerTodos(Connection conn) throws SQLException;
 
+    /**
+     * Recorre todas las entidades activas (mismo orden que leerTodos) sin materializarlas en una lista.
+     * Usa un ResultSet forward-only/read-only con fetch en streaming; la sentencia y el
+     * ResultSet se cierran al terminar, incluso si el consumidor lanza una excepción.
+     * Durante el recorrido el consumidor no debe usar la misma conexión.
+     * @param conn conexión activa
+     * @param consumidor recibe cada entidad en orden
+     * @return cantidad de entidades recorridas
+     * @throws SQLException
+     */
+    long recorrerTodos(Connection conn, Consumer<? super T> consumidor) throws SQLException;
+
     /**
      * Actualiza una entidad existente.
      * @param entity entidad con ID y datos actualizados
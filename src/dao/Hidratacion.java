@@ -0,0 +1,65 @@
+package dao;
+
+import entities.FichaBibliografica;
+import entities.Libro;
+
+/**
+ * Construcción de entidades a partir de filas ya validadas por la BD, sin pasar por los setters.
+ * {@code Libro.hidratar} y {@code FichaBibliografica.hidratar} son de paquete: el paquete entities
+ * registra la única implementación y sólo los DAOs (este paquete) pueden usarla.
+ */
+public abstract class Hidratacion {
+
+    // Única implementación aceptada (de paquete en entities, por eso se la nombra como texto)
+    private static final String IMPLEMENTACION = "entities.HidratacionEntidades";
+
+    private static volatile Hidratacion implementacion;
+
+    protected Hidratacion() {
+    }
+
+    /**
+     * Lo invoca entities al inicializarse. Se rechaza cualquier otra implementación (aunque se
+     * registre primero, no puede suplantar a la de entities) y un segundo registro.
+     */
+    public static synchronized void registrar(Hidratacion hidratacion) {
+        Class<?> clase = hidratacion.getClass();
+        if (!clase.getName().equals(IMPLEMENTACION) || clase.getClassLoader() != Hidratacion.class.getClassLoader()) {
+            throw new IllegalArgumentException("Hidratacion no admitida: " + clase.getName());
+        }
+        if (implementacion != null) {
+            throw new IllegalStateException("La hidratacion de entidades ya esta registrada");
+        }
+        implementacion = hidratacion;
+    }
+
+    protected abstract Libro crearLibro(Long id, String titulo, String autor, String editorial,
+                                        Integer anioEdicion, boolean eliminado, long version);
+
+    protected abstract FichaBibliografica crearFicha(Long id, String isbn, String clasificacionDewey,
+                                                     String estanteria, String idioma, boolean eliminado, long version);
+
+    static Libro libro(Long id, String titulo, String autor, String editorial,
+                       Integer anioEdicion, boolean eliminado, long version) {
+        return implementacion().crearLibro(id, titulo, autor, editorial, anioEdicion, eliminado, version);
+    }
+
+    static FichaBibliografica ficha(Long id, String isbn, String clasificacionDewey, String estanteria,
+                                    String idioma, boolean eliminado, long version) {
+        return implementacion().crearFicha(id, isbn, clasificacionDewey, estanteria, idioma, eliminado, version);
+    }
+
+    private static Hidratacion implementacion() {
+        Hidratacion h = implementacion;
+        if (h == null) {
+            try {
+                // Inicializar la clase registra la implementación; sólo ocurre en la primera llamada
+                Class.forName(IMPLEMENTACION, true, Hidratacion.class.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException("No se encontro la hidratacion de entidades", e);
+            }
+            h = implementacion;
+        }
+        return h;
+    }
+}
@@ -1,10 +1,14 @@
 
 package dao;
 
+import entities.FichaBibliografica;
 import entities.Libro;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public class LibroDao implements GenericDao<Libro> {
 
@@ -14,32 +18,134 @@ public class LibroDao implements GenericDao<Libro> {
         VALUES (?, ?, ?, ?, ?)
         """;
     private static final String SELECT_BY_ID_SQL = """
-        SELECT id, titulo, autor, editorial, anioEdicion, eliminado
+        SELECT id, titulo, autor, editorial, anioEdicion, eliminado, version
         FROM Libro
         WHERE id = ? AND eliminado = FALSE
         """;
+    private static final String SELECT_BY_IDS_SQL = """
+        SELECT id, titulo, autor, editorial, anioEdicion, eliminado, version
+        FROM Libro
+        WHERE eliminado = FALSE AND id IN (""";
     private static final String SELECT_ALL_SQL = """
-        SELECT id, titulo, autor, editorial, anioEdicion, eliminado
+        SELECT id, titulo, autor, editorial, anioEdicion, eliminado, version
         FROM Libro
         WHERE eliminado = FALSE
         ORDER BY titulo
         """;
     private static final String UPDATE_SQL = """
         UPDATE Libro
-        SET titulo = ?, autor = ?, editorial = ?, anioEdicion = ?, eliminado = ?
+        SET titulo = ?, autor = ?, editorial = ?, anioEdicion = ?, eliminado = ?, version = version + 1
+        WHERE id = ?
+        """;
+    // Control optimista: sólo escribe si nadie modificó la fila desde que se leyó (misma versión)
+    private static final String UPDATE_SI_VERSION_SQL = """
+        UPDATE Libro
+        SET titulo = ?, autor = ?, editorial = ?, anioEdicion = ?, eliminado = ?, version = version + 1
+        WHERE id = ? AND version = ?
+        """;
+    private static final String SELECT_VERSION_SQL = """
+        SELECT version
+        FROM Libro
         WHERE id = ?
         """;
+    // Actualización en lote con control optimista: una fila eliminada o modificada desde que se leyó
+    // no se toca (0 filas afectadas). Con rewriteBatchedStatements=true el driver envía el batch en
+    // un solo viaje y devuelve el conteo de cada sentencia.
+    private static final String UPDATE_LOTE_SI_VERSION_SQL = """
+        UPDATE Libro
+        SET titulo = ?, autor = ?, editorial = ?, anioEdicion = ?, version = version + 1
+        WHERE id = ? AND version = ? AND eliminado = FALSE
+        """;
     private static final String DELETE_LOGICO_SQL = """
         UPDATE Libro
-        SET eliminado = TRUE
+        SET eliminado = TRUE, version = version + 1
         WHERE id = ?
         """;
-    private static final String BUSCAR_POR_TITULO_SQL = """
-        SELECT id, titulo, autor, editorial, anioEdicion, eliminado
+    // Búsqueda por título: índice FULLTEXT ngram (ft_libro_titulo, creado sin stopwords: ver
+    // biblioteca_tfi_migraciones.sql). Términos más cortos que el token ngram (2 caracteres) no
+    // pueden usar el índice y se buscan con LIKE '%x%', igual que antes del FULLTEXT.
+    private static final String SELECT_COLUMNAS = """
+        SELECT id, titulo, autor, editorial, anioEdicion, eliminado, version
         FROM Libro
-        WHERE UPPER(titulo) LIKE UPPER(?) AND eliminado = FALSE
-        ORDER BY titulo
         """;
+    private static final String FT_TITULO = "MATCH(titulo) AGAINST (? IN BOOLEAN MODE)";
+    private static final String CONTIENE_TITULO = "titulo LIKE ?";
+    private static final String BUSCAR_POR_TITULO_SQL = sqlBuscarPorTitulo(FT_TITULO);
+    private static final String BUSCAR_POR_TITULO_CONTIENE_SQL = sqlBuscarPorTitulo(CONTIENE_TITULO);
+    // Búsqueda general sobre titulo y autor, ordenada por relevancia (ft_libro_titulo_autor)
+    private static final String BUSCAR_SQL = """
+        SELECT id, titulo, autor, editorial, anioEdicion, eliminado, version,
+               MATCH(titulo, autor) AGAINST (? IN BOOLEAN MODE) AS relevancia
+        FROM Libro
+        WHERE MATCH(titulo, autor) AGAINST (? IN BOOLEAN MODE) AND eliminado = FALSE
+        ORDER BY relevancia DESC, titulo, id
+        LIMIT ?
+        """;
+    private static final String BUSCAR_PREFIJO_SQL = """
+        SELECT id, titulo, autor, editorial, anioEdicion, eliminado, version
+        FROM Libro
+        WHERE (titulo LIKE ? OR autor LIKE ?) AND eliminado = FALSE
+        ORDER BY titulo, id
+        LIMIT ?
+        """;
+    private static final int COLUMNAS_LIBRO = 7;
+    // Libro + Ficha activa en una sola consulta (LEFT JOIN: el Libro puede no tener ficha)
+    private static final String SELECT_CON_FICHA_COLUMNAS = """
+        SELECT l.id, l.titulo, l.autor, l.editorial, l.anioEdicion, l.eliminado, l.version,
+               f.id AS fichaId, f.isbn, f.clasificacionDewey, f.estanteria, f.idioma,
+               f.eliminado AS fichaEliminado, f.version AS fichaVersion
+        FROM Libro l
+        LEFT JOIN FichaBibliografica f ON f.idLIBRO = l.id AND f.eliminado = FALSE
+        """;
+    private static final String SELECT_CON_FICHA_BY_ID_SQL = SELECT_CON_FICHA_COLUMNAS + """
+        WHERE l.id = ? AND l.eliminado = FALSE
+        """;
+    private static final String SELECT_CON_FICHA_BY_IDS_SQL = SELECT_CON_FICHA_COLUMNAS + """
+        WHERE l.eliminado = FALSE AND l.id IN (""";
+    // Dueño de cada ISBN, esté o no eliminado (el ISBN sigue ocupando uk_ficha_isbn_canonico);
+    // isbnCanonico va al final como clave del resultado
+    private static final String SELECT_CON_FICHA_BY_ISBNS_SQL = """
+        SELECT l.id, l.titulo, l.autor, l.editorial, l.anioEdicion, l.eliminado, l.version,
+               f.id AS fichaId, f.isbn, f.clasificacionDewey, f.estanteria, f.idioma,
+               f.eliminado AS fichaEliminado, f.version AS fichaVersion, f.isbnCanonico
+        FROM FichaBibliografica f
+        JOIN Libro l ON l.id = f.idLIBRO
+        WHERE f.isbnCanonico IN (""";
+    private static final String SELECT_ALL_CON_FICHA_SQL = SELECT_CON_FICHA_COLUMNAS + """
+        WHERE l.eliminado = FALSE
+        ORDER BY l.titulo, l.id
+        """;
+    // Paginación keyset sobre (titulo, id): idx_libro_titulo incluye el id (PK) como sufijo
+    private static final String PAGINA_PRIMERA_SQL = """
+        SELECT id, titulo, autor, editorial, anioEdicion, eliminado, version
+        FROM Libro
+        WHERE eliminado = FALSE
+        ORDER BY titulo, id
+        LIMIT ?
+        """;
+    private static final String PAGINA_SIGUIENTE_SQL = """
+        SELECT id, titulo, autor, editorial, anioEdicion, eliminado, version
+        FROM Libro
+        WHERE eliminado = FALSE AND (titulo > ? OR (titulo = ? AND id > ?))
+        ORDER BY titulo, id
+        LIMIT ?
+        """;
+    private static final String BUSCAR_POR_TITULO_PRIMERA_SQL = sqlBuscarPorTituloPagina(FT_TITULO, false);
+    private static final String BUSCAR_POR_TITULO_SIGUIENTE_SQL = sqlBuscarPorTituloPagina(FT_TITULO, true);
+    private static final String BUSCAR_POR_TITULO_CONTIENE_PRIMERA_SQL = sqlBuscarPorTituloPagina(CONTIENE_TITULO, false);
+    private static final String BUSCAR_POR_TITULO_CONTIENE_SIGUIENTE_SQL = sqlBuscarPorTituloPagina(CONTIENE_TITULO, true);
+
+    static final int NGRAM_TOKEN_SIZE = 2;
+
+    private static String sqlBuscarPorTitulo(String criterio) {
+        return SELECT_COLUMNAS + "WHERE " + criterio + " AND eliminado = FALSE\nORDER BY titulo\n";
+    }
+
+    private static String sqlBuscarPorTituloPagina(String criterio, boolean siguiente) {
+        return SELECT_COLUMNAS + "WHERE " + criterio + " AND eliminado = FALSE\n"
+                + (siguiente ? "  AND (titulo > ? OR (titulo = ? AND id > ?))\n" : "")
+                + "ORDER BY titulo, id\nLIMIT ?\n";
+    }
 
     @Override
     public Libro crear(Libro libro, Connection conn) throws SQLException {
@@ -58,12 +164,78 @@ public class LibroDao implements GenericDao<Libro> {
             try (ResultSet rs = ps.getGeneratedKeys()) {
                 if (rs.next()) {
                     libro.setId(rs.getLong(1));
+                    libro.setVersion(0L);
                 }
             }
             return libro;
         }
     }
 
+    /**
+     * Inserta varios Libros con addBatch/executeBatch y asigna los IDs generados en orden.
+     * No confirma la transacción: el llamador decide commit/rollback.
+     */
+    public void crearLote(List<Libro> libros, Connection conn) throws SQLException {
+        if (libros.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement ps = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            for (Libro libro : libros) {
+                ps.setString(1, libro.getTitulo());
+                ps.setString(2, libro.getAutor());
+                ps.setString(3, libro.getEditorial());
+                ps.setObject(4, libro.getAnioEdicion());
+                ps.setBoolean(5, libro.getEliminado());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+
+            try (ResultSet rs = ps.getGeneratedKeys()) {
+                int i = 0;
+                while (rs.next() && i < libros.size()) {
+                    Libro libro = libros.get(i++);
+                    libro.setId(rs.getLong(1));
+                    libro.setVersion(0L);
+                }
+                if (i != libros.size()) {
+                    throw new SQLException("Se esperaban " + libros.size() + " IDs generados y se obtuvieron " + i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reescribe titulo/autor/editorial/anioEdicion de Libros activos en un solo batch
+     * {@code UPDATE ... WHERE id = ? AND version = ?}, usando como versión esperada la de cada Libro.
+     * No inserta filas ni modifica las entidades (ni su versión). No confirma la transacción.
+     *
+     * @return IDs de los Libros no actualizados: eliminados o modificados por otra operación desde que se leyeron
+     */
+    public List<Long> actualizarLoteSiVersion(List<Libro> libros, Connection conn) throws SQLException {
+        List<Long> enConflicto = new ArrayList<>();
+        if (libros.isEmpty()) {
+            return enConflicto;
+        }
+        try (PreparedStatement ps = conn.prepareStatement(UPDATE_LOTE_SI_VERSION_SQL)) {
+            for (Libro libro : libros) {
+                ps.setString(1, libro.getTitulo());
+                ps.setString(2, libro.getAutor());
+                ps.setString(3, libro.getEditorial());
+                ps.setObject(4, libro.getAnioEdicion());
+                ps.setLong(5, libro.getId());
+                ps.setLong(6, libro.getVersion());
+                ps.addBatch();
+            }
+            int[] filas = ps.executeBatch();
+            for (int i = 0; i < filas.length; i++) {
+                if (filas[i] == 0) {
+                    enConflicto.add(libros.get(i).getId());
+                }
+            }
+        }
+        return enConflicto;
+    }
+
     @Override
     public Libro leer(Long id, Connection conn) throws SQLException {
         try (PreparedStatement ps = conn.prepareStatement(SELECT_BY_ID_SQL)) {
@@ -77,6 +249,11 @@ public class LibroDao implements GenericDao<Libro> {
         }
     }
 
+    @Override
+    public Map<Long, Libro> leerPorIds(Collection<Long> ids, Connection conn) throws SQLException {
+        return DaoUtil.leerPorBloques(conn, ids, SELECT_BY_IDS_SQL, 1, this::mapResultSetToLibro);
+    }
+
     @Override
     public List<Libro> leerTodos(Connection conn) throws SQLException {
         List<Libro> libros = new ArrayList<>();
@@ -89,19 +266,50 @@ public class LibroDao implements GenericDao<Libro> {
         return libros;
     }
 
+    @Override
+    public long recorrerTodos(Connection conn, Consumer<? super Libro> consumidor) throws SQLException {
+        long cantidad = 0;
+        try (PreparedStatement ps = conn.prepareStatement(SELECT_ALL_SQL,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            DaoUtil.habilitarStreaming(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    consumidor.accept(mapResultSetToLibro(rs));
+                    cantidad++;
+                }
+            }
+        }
+        return cantidad;
+    }
+
+    /**
+     * Actualiza el Libro. Si tiene versión (fue leído de la BD) la escritura es condicional a que
+     * la fila siga en esa versión y, al aplicarse, la versión del objeto avanza en uno. Sin versión
+     * la escritura es incondicional; los servicios no la usan (GenericService.actualizarVersionado
+     * rechaza entidades sin versión).
+     * @throws ConflictoVersionException si otra transacción modificó el Libro desde que se leyó
+     */
     @Override
     public void actualizar(Libro libro, Connection conn) throws SQLException {
-        try (PreparedStatement ps = conn.prepareStatement(UPDATE_SQL)) {
+        Long version = libro.getVersion();
+        try (PreparedStatement ps = conn.prepareStatement(version != null ? UPDATE_SI_VERSION_SQL : UPDATE_SQL)) {
             ps.setString(1, libro.getTitulo());
             ps.setString(2, libro.getAutor());
             ps.setString(3, libro.getEditorial());
             ps.setObject(4, libro.getAnioEdicion());
             ps.setBoolean(5, libro.getEliminado());
             ps.setLong(6, libro.getId());
+            if (version != null) {
+                ps.setLong(7, version);
+            }
 
             int filas = ps.executeUpdate();
             if (filas == 0) {
-                throw new SQLException("No se encontro el Libro con ID: " + libro.getId());
+                throw DaoUtil.sinFilasActualizadas(conn, SELECT_VERSION_SQL, "Libro", libro.getId(), version,
+                        "No se encontro el Libro con ID: " + libro.getId());
+            }
+            if (version != null) {
+                libro.setVersion(version + 1);
             }
         }
     }
@@ -115,28 +323,209 @@ public class LibroDao implements GenericDao<Libro> {
     }
 
     // ===== Método adicional de búsqueda =====
+
+    /**
+     * Libros activos cuyo título contiene el texto (sin distinguir mayúsculas ni acentos),
+     * ordenados por título. Usa el índice FULLTEXT; un texto de un solo carácter recorre la tabla con LIKE.
+     */
     public List<Libro> buscarPorTitulo(String titulo, Connection conn) throws SQLException {
-        List<Libro> resultados = new ArrayList<>();
-        try (PreparedStatement ps = conn.prepareStatement(BUSCAR_POR_TITULO_SQL)) {
-            ps.setString(1, "%" + titulo + "%"); // %patrón%
+        String frase = fraseFullText(titulo);
+        try (PreparedStatement ps = conn.prepareStatement(frase != null ? BUSCAR_POR_TITULO_SQL : BUSCAR_POR_TITULO_CONTIENE_SQL)) {
+            ps.setString(1, frase != null ? frase : patronContiene(titulo));
+            return leerLista(ps);
+        }
+    }
+
+    /**
+     * Búsqueda por palabras sobre título y autor, de mayor a menor relevancia.
+     * Todas las palabras deben aparecer (en el título o en el autor).
+     */
+    public List<Libro> buscar(String texto, int limite, Connection conn) throws SQLException {
+        String consulta = consultaFullText(texto);
+        if (consulta == null) {
+            try (PreparedStatement ps = conn.prepareStatement(BUSCAR_PREFIJO_SQL)) {
+                String patron = patronPrefijo(texto);
+                ps.setString(1, patron);
+                ps.setString(2, patron);
+                ps.setInt(3, limite);
+                return leerLista(ps);
+            }
+        }
+        try (PreparedStatement ps = conn.prepareStatement(BUSCAR_SQL)) {
+            ps.setString(1, consulta);
+            ps.setString(2, consulta);
+            ps.setInt(3, limite);
+            return leerLista(ps);
+        }
+    }
+
+    // Frase exacta en modo booleano: con ngram equivale a "contiene el texto"
+    private static String fraseFullText(String texto) {
+        String limpio = limpiarParaFullText(texto);
+        return limpio.length() < NGRAM_TOKEN_SIZE ? null : '"' + limpio + '"';
+    }
+
+    // +"palabra1" +"palabra2" ... ignorando palabras más cortas que el token ngram
+    private static String consultaFullText(String texto) {
+        StringBuilder sb = new StringBuilder();
+        for (String palabra : limpiarParaFullText(texto).split("\\s+")) {
+            if (palabra.length() >= NGRAM_TOKEN_SIZE) {
+                if (sb.length() > 0) sb.append(' ');
+                sb.append("+\"").append(palabra).append('"');
+            }
+        }
+        return sb.length() == 0 ? null : sb.toString();
+    }
+
+    // Quita las comillas dobles para que el texto no altere la sintaxis booleana
+    private static String limpiarParaFullText(String texto) {
+        return texto == null ? "" : texto.replace('"', ' ').trim();
+    }
+
+    private static String patronPrefijo(String texto) {
+        return escaparLike(texto) + "%";
+    }
+
+    private static String patronContiene(String texto) {
+        return "%" + escaparLike(texto) + "%";
+    }
+
+    private static String escaparLike(String texto) {
+        String limpio = texto == null ? "" : texto.trim();
+        return limpio.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    // ===== Lecturas con Ficha (un solo round trip) =====
+
+    /**
+     * Lee un Libro activo con su FichaBibliografica activa (si tiene) en una sola consulta.
+     * @return Libro con getFichaBibliografica() cargado o {@code null}; {@code null} si no existe
+     */
+    public Libro leerConFicha(Long id, Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(SELECT_CON_FICHA_BY_ID_SQL)) {
+            ps.setLong(1, id);
             try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    resultados.add(mapResultSetToLibro(rs));
+                if (rs.next()) {
+                    return mapResultSetToLibroConFicha(rs);
                 }
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Igual que {@link #leerConFicha} para varios IDs, con una consulta por bloque de IDs.
+     * @return Libros por ID; los inexistentes o eliminados no aparecen
+     */
+    public Map<Long, Libro> leerConFichaPorIds(Collection<Long> ids, Connection conn) throws SQLException {
+        return DaoUtil.leerPorBloques(conn, ids, SELECT_CON_FICHA_BY_IDS_SQL, 1, this::mapResultSetToLibroConFicha);
+    }
+
+    /**
+     * Libros con su Ficha para cada ISBN canónico, incluidos los eliminados (ver getEliminado()
+     * del Libro y de la Ficha), con una consulta por bloque de ISBNs.
+     * @return Libros por ISBN canónico; los ISBN libres no aparecen
+     */
+    public Map<String, Libro> leerConFichaPorIsbns(Collection<String> isbnsCanonicos, Connection conn) throws SQLException {
+        return DaoUtil.leerPorBloques(conn, isbnsCanonicos, SELECT_CON_FICHA_BY_ISBNS_SQL,
+                rs -> rs.getString(COLUMNAS_LIBRO + FichaBibliograficaDao.COLUMNAS_FICHA + 1), this::mapResultSetToLibroConFicha);
+    }
+
+    /**
+     * Lista todos los Libros activos ordenados por título, cada uno con su Ficha activa (si tiene).
+     */
+    public List<Libro> leerTodosConFicha(Connection conn) throws SQLException {
+        List<Libro> libros = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(SELECT_ALL_CON_FICHA_SQL);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                libros.add(mapResultSetToLibroConFicha(rs));
+            }
+        }
+        return libros;
+    }
+
+    private Libro mapResultSetToLibroConFicha(ResultSet rs) throws SQLException {
+        Libro libro = mapear(rs, 1);
+        FichaBibliografica ficha = FichaBibliograficaDao.mapear(rs, COLUMNAS_LIBRO + 1);
+        if (ficha != null) {
+            libro.setFichaBibliografica(ficha);
+        }
+        return libro;
+    }
+
+    // ===== Paginación keyset =====
+
+    /**
+     * Lee hasta {@code limite} Libros activos ordenados por (titulo, id) posteriores a la clave dada.
+     * Con {@code despuesDeTitulo}/{@code despuesDeId} nulos devuelve la primera página.
+     */
+    public List<Libro> leerPagina(String despuesDeTitulo, Long despuesDeId, int limite, Connection conn) throws SQLException {
+        boolean primera = despuesDeTitulo == null || despuesDeId == null;
+        try (PreparedStatement ps = conn.prepareStatement(primera ? PAGINA_PRIMERA_SQL : PAGINA_SIGUIENTE_SQL)) {
+            int i = 1;
+            if (!primera) {
+                ps.setString(i++, despuesDeTitulo);
+                ps.setString(i++, despuesDeTitulo);
+                ps.setLong(i++, despuesDeId);
             }
+            ps.setInt(i, limite);
+            return leerLista(ps);
         }
-        return resultados;
+    }
+
+    /**
+     * Igual que {@link #leerPagina} pero filtrando por título (mismo criterio que buscarPorTitulo).
+     */
+    public List<Libro> buscarPorTituloPagina(String titulo, String despuesDeTitulo, Long despuesDeId, int limite,
+                                             Connection conn) throws SQLException {
+        boolean primera = despuesDeTitulo == null || despuesDeId == null;
+        String frase = fraseFullText(titulo);
+        String sql = frase != null
+                ? (primera ? BUSCAR_POR_TITULO_PRIMERA_SQL : BUSCAR_POR_TITULO_SIGUIENTE_SQL)
+                : (primera ? BUSCAR_POR_TITULO_CONTIENE_PRIMERA_SQL : BUSCAR_POR_TITULO_CONTIENE_SIGUIENTE_SQL);
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            int i = 1;
+            ps.setString(i++, frase != null ? frase : patronContiene(titulo));
+            if (!primera) {
+                ps.setString(i++, despuesDeTitulo);
+                ps.setString(i++, despuesDeTitulo);
+                ps.setLong(i++, despuesDeId);
+            }
+            ps.setInt(i, limite);
+            return leerLista(ps);
+        }
+    }
+
+    private List<Libro> leerLista(PreparedStatement ps) throws SQLException {
+        List<Libro> libros = new ArrayList<>();
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                libros.add(mapResultSetToLibro(rs));
+            }
+        }
+        return libros;
     }
 
     // ===== Helper: mapeo de ResultSet a Libro =====
     private Libro mapResultSetToLibro(ResultSet rs) throws SQLException {
-        Libro libro = new Libro();
-        libro.setId(rs.getLong("id"));
-        libro.setTitulo(rs.getString("titulo"));
-        libro.setAutor(rs.getString("autor"));
-        libro.setEditorial(rs.getString("editorial"));
-        libro.setAnioEdicion(rs.getObject("anioEdicion", Integer.class));
-        libro.setEliminado(rs.getBoolean("eliminado"));
-        return libro;
+        return mapear(rs, 1);
+    }
+
+    /**
+     * Mapeo por índice de columna, sin revalidar (los datos ya cumplen las restricciones de la BD).
+     * Espera las columnas id, titulo, autor, editorial, anioEdicion, eliminado, version consecutivas
+     * a partir de {@code primera}, como en todos los SELECT de esta clase.
+     */
+    static Libro mapear(ResultSet rs, int primera) throws SQLException {
+        int anio = rs.getInt(primera + 4);
+        Integer anioEdicion = rs.wasNull() ? null : anio;
+        return Hidratacion.libro(rs.getLong(primera),
+                rs.getString(primera + 1),
+                rs.getString(primera + 2),
+                rs.getString(primera + 3),
+                anioEdicion,
+                rs.getBoolean(primera + 5),
+                rs.getLong(primera + 6));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,184 @@
+package dao;
+
+import entities.Libro;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * LibroDao sobre {@link AlmacenMemoria}: mismas operaciones y semántica de borrado lógico que la
+ * versión SQL, sin base de datos. La conexión sólo se usa para poder deshacer los cambios en rollback.
+ *
+ * Búsquedas: el contenido de texto se compara sin mayúsculas ni acentos recorriendo el índice por
+ * título (también para términos de un carácter, como el LIKE de la versión SQL); los prefijos de
+ * {@link #buscar} recorren sólo los rangos del prefijo en los índices por título y por autor.
+ * {@link #buscar} devuelve los resultados ordenados por título (no calcula relevancia como MATCH ... AGAINST).
+ */
+final class LibroDaoMemoria extends LibroDao {
+
+    private final AlmacenMemoria almacen;
+
+    LibroDaoMemoria(AlmacenMemoria almacen) {
+        this.almacen = almacen;
+    }
+
+    @Override
+    public Libro crear(Libro libro, Connection conn) throws SQLException {
+        almacen.insertarLibro(libro, conn);
+        return libro;
+    }
+
+    @Override
+    public void crearLote(List<Libro> libros, Connection conn) throws SQLException {
+        for (Libro libro : libros) {
+            almacen.insertarLibro(libro, conn);
+        }
+    }
+
+    @Override
+    public List<Long> actualizarLoteSiVersion(List<Libro> libros, Connection conn) throws SQLException {
+        List<Long> enConflicto = new ArrayList<>();
+        for (Libro libro : libros) {
+            try {
+                if (almacen.libro(libro.getId()) == null || !almacen.actualizarLibro(libro, libro.getVersion(), conn)) {
+                    enConflicto.add(libro.getId());
+                }
+            } catch (ConflictoVersionException e) {
+                enConflicto.add(libro.getId());
+            }
+        }
+        return enConflicto;
+    }
+
+    @Override
+    public Libro leer(Long id, Connection conn) throws SQLException {
+        return almacen.libro(id);
+    }
+
+    @Override
+    public Map<Long, Libro> leerPorIds(Collection<Long> ids, Connection conn) throws SQLException {
+        Map<Long, Libro> resultado = new HashMap<>();
+        for (Long id : ids) {
+            Libro libro = almacen.libro(id);
+            if (libro != null) {
+                resultado.put(id, libro);
+            }
+        }
+        return resultado;
+    }
+
+    @Override
+    public List<Libro> leerTodos(Connection conn) throws SQLException {
+        return almacen.librosPorTitulo(null, null, null, -1);
+    }
+
+    @Override
+    public long recorrerTodos(Connection conn, Consumer<? super Libro> consumidor) throws SQLException {
+        List<Libro> libros = leerTodos(conn);
+        libros.forEach(consumidor);
+        return libros.size();
+    }
+
+    @Override
+    public void actualizar(Libro libro, Connection conn) throws SQLException {
+        Long version = libro.getVersion();
+        if (!almacen.actualizarLibro(libro, version, conn)) {
+            throw new SQLException("No se encontro el Libro con ID: " + libro.getId());
+        }
+        if (version != null) {
+            libro.setVersion(version + 1);
+        }
+    }
+
+    @Override
+    public void eliminar(Long id, Connection conn) throws SQLException {
+        almacen.eliminarLibro(id, conn);
+    }
+
+    @Override
+    public List<Libro> buscarPorTitulo(String titulo, Connection conn) throws SQLException {
+        return buscarPorTituloPagina(titulo, null, null, -1, conn);
+    }
+
+    @Override
+    public List<Libro> buscar(String texto, int limite, Connection conn) throws SQLException {
+        List<String> palabras = new ArrayList<>();
+        for (String palabra : limpiar(texto).split("\\s+")) {
+            if (palabra.length() >= NGRAM_TOKEN_SIZE) {
+                palabras.add(palabra);
+            }
+        }
+        if (palabras.isEmpty()) {
+            return almacen.librosConPrefijo(limpiar(texto), limite);
+        }
+        return almacen.librosPorTitulo(null, null, (tituloNorm, autorNorm) -> {
+            for (String palabra : palabras) {
+                if (!tituloNorm.contains(palabra) && !autorNorm.contains(palabra)) {
+                    return false;
+                }
+            }
+            return true;
+        }, limite);
+    }
+
+    @Override
+    public Libro leerConFicha(Long id, Connection conn) throws SQLException {
+        return conFicha(almacen.libro(id));
+    }
+
+    @Override
+    public Map<Long, Libro> leerConFichaPorIds(Collection<Long> ids, Connection conn) throws SQLException {
+        Map<Long, Libro> libros = leerPorIds(ids, conn);
+        libros.values().forEach(this::conFicha);
+        return libros;
+    }
+
+    @Override
+    public Map<String, Libro> leerConFichaPorIsbns(Collection<String> isbnsCanonicos, Connection conn) throws SQLException {
+        Map<String, Libro> resultado = new HashMap<>();
+        for (String canonico : isbnsCanonicos) {
+            Libro libro = almacen.libroPorIsbnCanonico(canonico);
+            if (libro != null) {
+                resultado.put(canonico, libro);
+            }
+        }
+        return resultado;
+    }
+
+    @Override
+    public List<Libro> leerTodosConFicha(Connection conn) throws SQLException {
+        List<Libro> libros = leerTodos(conn);
+        libros.forEach(this::conFicha);
+        return libros;
+    }
+
+    @Override
+    public List<Libro> leerPagina(String despuesDeTitulo, Long despuesDeId, int limite, Connection conn) throws SQLException {
+        return almacen.librosPorTitulo(despuesDeTitulo, despuesDeId, null, limite);
+    }
+
+    @Override
+    public List<Libro> buscarPorTituloPagina(String titulo, String despuesDeTitulo, Long despuesDeId, int limite,
+                                             Connection conn) throws SQLException {
+        String texto = limpiar(titulo);
+        return almacen.librosPorTitulo(despuesDeTitulo, despuesDeId, (tituloNorm, autorNorm) -> tituloNorm.contains(texto),
+                limite);
+    }
+
+    private Libro conFicha(Libro libro) {
+        if (libro != null) {
+            libro.setFichaBibliografica(almacen.fichaDeLibro(libro.getId()));
+        }
+        return libro;
+    }
+
+    // Mismo tratamiento que la búsqueda FULLTEXT: sin comillas, sin mayúsculas ni acentos
+    private static String limpiar(String texto) {
+        return AlmacenMemoria.Clave.normalizar(texto == null ? "" : texto.replace('"', ' '));
+    }
+}
@@ -11,6 +11,8 @@ public class FichaBibliografica {
     private String estanteria;
     private String idioma;
     private Boolean eliminado;
+    // Versión de la fila para el control optimista de concurrencia; null si no se leyó de la BD
+    private Long version;
 
     // Constructor vacío
     public FichaBibliografica() {
@@ -26,6 +28,23 @@ public class FichaBibliografica {
         setIdioma(idioma);
     }
 
+    /**
+     * Construye una Ficha a partir de una fila ya validada por la BD (uso exclusivo de los DAOs,
+     * a través de dao.Hidratacion). No aplica las validaciones ni el trim de los setters.
+     */
+    static FichaBibliografica hidratar(Long id, String isbn, String clasificacionDewey, String estanteria,
+                                              String idioma, boolean eliminado, long version) {
+        FichaBibliografica ficha = new FichaBibliografica();
+        ficha.id = id;
+        ficha.isbn = isbn;
+        ficha.clasificacionDewey = clasificacionDewey;
+        ficha.estanteria = estanteria;
+        ficha.idioma = idioma;
+        ficha.eliminado = eliminado;
+        ficha.version = version;
+        return ficha;
+    }
+
     // Getters y setters con validaciones
     public Long getId() {
         return id;
@@ -41,16 +60,7 @@ public class FichaBibliografica {
 
     public void setIsbn(String isbn) {
         if (isbn != null) {
-            String clean = isbn.replaceAll("[\\s\\-]", ""); // Normalizacion, se quitan espacios y guiones
-            if (clean.length() != 10 && clean.length() != 13) {
-                throw new IllegalArgumentException("ISBN debe tener 10 o 13 dígitos (sin guiones)");
-            }
-            if (!clean.matches("\\d{9}[\\dXx]|\\d{12}[\\dXx]")) {
-                throw new IllegalArgumentException("ISBN contiene caracteres invalidos");
-            }
-            if (isbn.length() > 17) {
-                throw new IllegalArgumentException("ISBN excede los 17 caracteres (con guiones)");
-            }
+            Isbn.validarFormato(isbn); // ignora espacios y guiones; no exige digito verificador
         }
         this.isbn = isbn;
     }
@@ -96,6 +106,32 @@ public class FichaBibliografica {
         this.eliminado = eliminado != null ? eliminado : false;
     }
 
+    /**
+     * @return versión leída de la BD; las actualizaciones sólo se aplican si la fila sigue en esa versión
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    /**
+     * Copia independiente. No repite las validaciones de los setters.
+     */
+    public FichaBibliografica copia() {
+        FichaBibliografica c = new FichaBibliografica();
+        c.id = id;
+        c.isbn = isbn;
+        c.clasificacionDewey = clasificacionDewey;
+        c.estanteria = estanteria;
+        c.idioma = idioma;
+        c.eliminado = eliminado;
+        c.version = version;
+        return c;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -118,6 +154,7 @@ public class FichaBibliografica {
                 ", estanteria='" + estanteria + '\'' +
                 ", idioma='" + idioma + '\'' +
                 ", eliminado=" + eliminado +
+                ", version=" + version +
                 '}';
     }
 }
\ No newline at end of file
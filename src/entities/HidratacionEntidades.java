@@ -0,0 +1,28 @@
+package entities;
+
+import dao.Hidratacion;
+
+/**
+ * Da a los DAOs acceso a {@link Libro#hidratar} y {@link FichaBibliografica#hidratar} sin hacerlos públicos.
+ */
+final class HidratacionEntidades extends Hidratacion {
+
+    static {
+        Hidratacion.registrar(new HidratacionEntidades());
+    }
+
+    private HidratacionEntidades() {
+    }
+
+    @Override
+    protected Libro crearLibro(Long id, String titulo, String autor, String editorial,
+                               Integer anioEdicion, boolean eliminado, long version) {
+        return Libro.hidratar(id, titulo, autor, editorial, anioEdicion, eliminado, version);
+    }
+
+    @Override
+    protected FichaBibliografica crearFicha(Long id, String isbn, String clasificacionDewey, String estanteria,
+                                            String idioma, boolean eliminado, long version) {
+        return FichaBibliografica.hidratar(id, isbn, clasificacionDewey, estanteria, idioma, eliminado, version);
+    }
+}
@@ -0,0 +1,213 @@
+package entities;
+
+/**
+ * Códec de ISBN compartido por entidades, servicios y DAOs.
+ *
+ * Cada operación recorre el texto una sola vez, sin expresiones regulares: los separadores
+ * (guiones y espacios) se saltean, los caracteres significativos se copian a un buffer de 13
+ * y en el mismo recorrido se acumulan las sumas de ambos dígitos verificadores. Normalizar y
+ * convertir trabajan sobre ese buffer; sólo se crea un String cuando el resultado es uno.
+ */
+public final class Isbn {
+
+    public static final int MAX_LARGO_CON_GUIONES = 17;
+
+    // Resultados de analizar(): >= 0 es la cantidad de dígitos significativos, más
+    // VERIFICADOR_CORRECTO si el dígito verificador coincide
+    private static final int LARGO_INVALIDO = -1;
+    private static final int CARACTER_INVALIDO = -2;
+    private static final int VERIFICADOR_CORRECTO = 0x100;
+    private static final int LARGO = 0xFF;
+
+    private Isbn() {
+    }
+
+    /**
+     * Valida la forma del ISBN: 10 o 13 caracteres sin separadores, sólo dígitos salvo la X
+     * final de un ISBN-10, y como máximo 17 caracteres con separadores. No verifica el dígito
+     * verificador. A diferencia de la expresión regular que usaba FichaBibliografica.setIsbn
+     * ({@code \d{12}[\dXx]}), rechaza un ISBN-13 terminado en X: su verificador es siempre un dígito.
+     *
+     * @throws IllegalArgumentException con el motivo si no es válido
+     */
+    public static void validarFormato(CharSequence isbn) {
+        validar(isbn, analizar(isbn, new char[13]));
+    }
+
+    /**
+     * Valida forma y dígito verificador (ISBN-10 módulo 11, ISBN-13 módulo 10).
+     *
+     * @throws IllegalArgumentException con el motivo si no es válido
+     */
+    public static void validar(CharSequence isbn) {
+        int r = analizar(isbn, new char[13]);
+        validar(isbn, r);
+        if ((r & VERIFICADOR_CORRECTO) == 0) {
+            throw new IllegalArgumentException("ISBN con digito verificador incorrecto");
+        }
+    }
+
+    private static void validar(CharSequence isbn, int r) {
+        if (r == LARGO_INVALIDO) {
+            throw new IllegalArgumentException("ISBN debe tener 10 o 13 dígitos (sin guiones)");
+        }
+        if (r == CARACTER_INVALIDO) {
+            throw new IllegalArgumentException("ISBN contiene caracteres invalidos");
+        }
+        if (isbn.length() > MAX_LARGO_CON_GUIONES) {
+            throw new IllegalArgumentException("ISBN excede los 17 caracteres (con guiones)");
+        }
+    }
+
+    /**
+     * @return {@code true} si tiene forma de ISBN-10/13 y su dígito verificador es correcto
+     */
+    public static boolean verificadorValido(CharSequence isbn) {
+        int r = analizar(isbn, new char[13]);
+        return r >= 0 && (r & VERIFICADOR_CORRECTO) != 0;
+    }
+
+    /**
+     * Quita separadores y pasa la X final a mayúscula.
+     *
+     * @return ISBN de 10 o 13 caracteres, o {@code null} si no tiene forma de ISBN
+     */
+    public static String normalizar(CharSequence isbn) {
+        char[] d = new char[13];
+        int r = analizar(isbn, d);
+        return r < 0 ? null : new String(d, 0, r & LARGO);
+    }
+
+    /**
+     * Convierte a ISBN-13 (un ISBN-13 se devuelve normalizado).
+     *
+     * @return ISBN-13 sin separadores, o {@code null} si no tiene forma de ISBN
+     */
+    public static String aIsbn13(CharSequence isbn) {
+        char[] d = new char[13];
+        int r = analizar(isbn, d);
+        if (r < 0) {
+            return null;
+        }
+        return (r & LARGO) == 13 ? new String(d) : new String(isbn10A13(d));
+    }
+
+    /**
+     * Convierte un ISBN-13 con prefijo 978 a ISBN-10 (un ISBN-10 se devuelve normalizado).
+     *
+     * @return ISBN-10 sin separadores, o {@code null} si no es convertible
+     */
+    public static String aIsbn10(CharSequence isbn) {
+        char[] d = new char[13];
+        int r = analizar(isbn, d);
+        if (r < 0) {
+            return null;
+        }
+        if ((r & LARGO) == 10) {
+            return new String(d, 0, 10);
+        }
+        if (d[0] != '9' || d[1] != '7' || d[2] != '8') {
+            return null;
+        }
+        int suma = 0;
+        for (int i = 0; i < 9; i++) {
+            d[i] = d[i + 3];
+            suma += (d[i] - '0') * (10 - i);
+        }
+        int v = (11 - suma % 11) % 11;
+        d[9] = v == 10 ? 'X' : (char) ('0' + v);
+        return new String(d, 0, 10);
+    }
+
+    /**
+     * Forma canónica usada como clave de búsqueda (columna isbnCanonico):
+     * un ISBN-10 con dígito verificador correcto se convierte a ISBN-13.
+     * Un ISBN-10 con verificador incorrecto se conserva normalizado en 10 caracteres para no
+     * colisionar con otro ISBN que comparta los primeros 9 dígitos.
+     *
+     * @return clave canónica, o {@code null} si el texto no tiene forma de ISBN-10/13
+     */
+    public static String canonico(CharSequence isbn) {
+        char[] d = new char[13];
+        int r = analizar(isbn, d);
+        if (r < 0) {
+            return null;
+        }
+        if ((r & LARGO) == 13) {
+            return new String(d);
+        }
+        return (r & VERIFICADOR_CORRECTO) != 0 ? new String(isbn10A13(d)) : new String(d, 0, 10);
+    }
+
+    // ===== Recorrido único del texto =====
+
+    /**
+     * Copia los caracteres significativos a {@code destino} (13 posiciones; la x final queda en
+     * mayúscula) y calcula en el mismo recorrido el dígito verificador que corresponde al largo.
+     *
+     * @return cantidad de caracteres significativos (10 o 13), más VERIFICADOR_CORRECTO si el
+     *         verificador coincide; LARGO_INVALIDO o CARACTER_INVALIDO si la forma no es válida
+     */
+    private static int analizar(CharSequence isbn, char[] destino) {
+        if (isbn == null) {
+            return LARGO_INVALIDO;
+        }
+        int n = 0;
+        boolean caracterInvalido = false;
+        int posX = -1;
+        int suma10 = 0;
+        int suma13 = 0;
+        for (int i = 0, largo = isbn.length(); i < largo; i++) {
+            char c = isbn.charAt(i);
+            if (esSeparador(c)) {
+                continue;
+            }
+            int valor;
+            if (c == 'X' || c == 'x') {
+                if (posX < 0) posX = n;
+                c = 'X';
+                valor = 10;
+            } else if (c >= '0' && c <= '9') {
+                valor = c - '0';
+            } else {
+                caracterInvalido = true;
+                valor = 0;
+            }
+            if (n < 13) {
+                destino[n] = c;
+                suma13 += valor * ((n & 1) == 0 ? 1 : 3);
+                if (n < 10) {
+                    suma10 += valor * (10 - n);
+                }
+            }
+            n++;
+        }
+        if (n != 10 && n != 13) {
+            return LARGO_INVALIDO;
+        }
+        // La X sólo puede ser el verificador de un ISBN-10
+        if (caracterInvalido || (posX >= 0 && (n != 10 || posX != 9))) {
+            return CARACTER_INVALIDO;
+        }
+        boolean correcto = n == 10 ? suma10 % 11 == 0 : suma13 % 10 == 0;
+        return correcto ? n | VERIFICADOR_CORRECTO : n;
+    }
+
+    private static boolean esSeparador(char c) {
+        return c == '-' || c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == '\u000B';
+    }
+
+    // Pasa en el lugar los 9 primeros dígitos de un ISBN-10 a un ISBN-13 978 con su verificador
+    private static char[] isbn10A13(char[] d) {
+        System.arraycopy(d, 0, d, 3, 9);
+        d[0] = '9';
+        d[1] = '7';
+        d[2] = '8';
+        int suma = 0;
+        for (int i = 0; i < 12; i++) {
+            suma += (d[i] - '0') * ((i & 1) == 0 ? 1 : 3);
+        }
+        d[12] = (char) ('0' + (10 - suma % 10) % 10);
+        return d;
+    }
+}
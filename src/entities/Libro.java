@@ -11,6 +11,8 @@ public class Libro {
     private String editorial;
     private Integer anioEdicion;
     private Boolean eliminado;
+    // Versión de la fila para el control optimista de concurrencia; null si no se leyó de la BD
+    private Long version;
     private FichaBibliografica fichaBibliografica;
 
     // Constructor vacío
@@ -27,6 +29,23 @@ public class Libro {
         this.anioEdicion = anioEdicion;
     }
 
+    /**
+     * Construye un Libro a partir de una fila ya validada por la BD (uso exclusivo de los DAOs,
+     * a través de dao.Hidratacion). No aplica las validaciones ni el trim de los setters.
+     */
+    static Libro hidratar(Long id, String titulo, String autor, String editorial,
+                                 Integer anioEdicion, boolean eliminado, long version) {
+        Libro libro = new Libro();
+        libro.id = id;
+        libro.titulo = titulo;
+        libro.autor = autor;
+        libro.editorial = editorial;
+        libro.anioEdicion = anioEdicion;
+        libro.eliminado = eliminado;
+        libro.version = version;
+        return libro;
+    }
+
     // Getters y setters con validaciones
     public Long getId() {
         return id;
@@ -94,6 +113,17 @@ public class Libro {
         this.eliminado = eliminado != null ? eliminado : false;
     }
 
+    /**
+     * @return versión leída de la BD; las actualizaciones sólo se aplican si la fila sigue en esa versión
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public FichaBibliografica getFichaBibliografica() {
         return fichaBibliografica;
     }
@@ -106,6 +136,22 @@ public class Libro {
         this.fichaBibliografica = fichaBibliografica;
     }
 
+    /**
+     * Copia independiente (incluye una copia de la Ficha). No repite las validaciones de los setters.
+     */
+    public Libro copia() {
+        Libro c = new Libro();
+        c.id = id;
+        c.titulo = titulo;
+        c.autor = autor;
+        c.editorial = editorial;
+        c.anioEdicion = anioEdicion;
+        c.eliminado = eliminado;
+        c.version = version;
+        c.fichaBibliografica = fichaBibliografica != null ? fichaBibliografica.copia() : null;
+        return c;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -128,6 +174,7 @@ public class Libro {
                 ", editorial='" + editorial + '\'' +
                 ", anioEdicion=" + anioEdicion +
                 ", eliminado=" + eliminado +
+                ", version=" + version +
                 '}';
     }
 }
\ No newline at end of file
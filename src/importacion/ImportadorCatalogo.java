@@ -0,0 +1,381 @@
+package importacion;
+
+import entities.FichaBibliografica;
+import entities.Libro;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+import service.LibroService;
+import service.ResultadoLote;
+
+/**
+ * Importa un archivo de catálogo (CSV o JSON Lines) con memoria acotada.
+ *
+ * Pipeline: un hilo lector recorre el archivo con NIO, varios hilos parsean y validan
+ * (a través de los setters de Libro/FichaBibliografica) y el hilo llamador escribe en la BD
+ * con {@link LibroService#crearLibrosConFichaEnLote} (o {@link LibroService#sincronizarPorIsbnEnLote}
+ * en modo sincronización). Las colas entre etapas son acotadas, por lo que el consumo de memoria
+ * no depende del tamaño del archivo.
+ * Las líneas rechazadas se escriben en {@code <archivo>.rechazos.tsv}.
+ */
+public class ImportadorCatalogo {
+
+    public enum Formato {
+        CSV, JSONL;
+
+        public static Formato desdeArchivo(Path archivo) {
+            String nombre = archivo.getFileName().toString().toLowerCase(Locale.ROOT);
+            return nombre.endsWith(".jsonl") || nombre.endsWith(".ndjson") || nombre.endsWith(".json")
+                    ? JSONL : CSV;
+        }
+    }
+
+    private static final Linea FIN_LECTURA = new Linea(-1, null);
+    private static final Fila FIN_PARSER = new Fila(-1, null, null, null, null);
+
+    private final LibroService libroService;
+    private final int tamanioLote;
+    private final int hilosParser;
+    private final boolean sincronizar;
+
+    public ImportadorCatalogo(LibroService libroService, int tamanioLote, int hilosParser) {
+        this(libroService, tamanioLote, hilosParser, false);
+    }
+
+    /**
+     * @param sincronizar {@code true} para insertar o actualizar por ISBN (re-sincronización idempotente)
+     *                    en lugar de sólo insertar
+     */
+    public ImportadorCatalogo(LibroService libroService, int tamanioLote, int hilosParser, boolean sincronizar) {
+        if (tamanioLote <= 0) {
+            throw new IllegalArgumentException("El tamanio de lote debe ser mayor a 0");
+        }
+        if (hilosParser <= 0) {
+            throw new IllegalArgumentException("La cantidad de hilos debe ser mayor a 0");
+        }
+        this.libroService = libroService;
+        this.tamanioLote = tamanioLote;
+        this.hilosParser = hilosParser;
+        this.sincronizar = sincronizar;
+    }
+
+    /**
+     * Importa el archivo completo y devuelve el resumen.
+     *
+     * @throws UncheckedIOException si no se puede leer el archivo o escribir los rechazos
+     */
+    public ResumenImportacion importar(Path archivo, Formato formato) {
+        long inicio = System.nanoTime();
+        Path archivoRechazos = archivo.resolveSibling(archivo.getFileName() + ".rechazos.tsv");
+        int capacidad = tamanioLote * 2;
+        BlockingQueue<Linea> lineas = new ArrayBlockingQueue<>(capacidad);
+        BlockingQueue<Fila> filas = new ArrayBlockingQueue<>(capacidad);
+        List<Thread> hilos = new ArrayList<>(hilosParser + 1);
+
+        try {
+            // Un archivo de rechazos de una corrida anterior confundiría el resultado de ésta
+            Files.deleteIfExists(archivoRechazos);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo borrar " + archivoRechazos, e);
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(archivo, StandardCharsets.UTF_8);
+             Rechazos rechazos = new Rechazos(archivoRechazos)) {
+            try {
+                long primeraLinea = 1;
+                ParserLinea parser;
+                if (formato == Formato.CSV) {
+                    String encabezado = reader.readLine();
+                    if (encabezado == null) {
+                        return new ResumenImportacion(0, 0, 0, 0, 0, System.nanoTime() - inicio, null);
+                    }
+                    parser = new ParserCsv(quitarBom(encabezado));
+                    primeraLinea = 2;
+                } else {
+                    parser = new ParserJsonLineas();
+                }
+
+                Lector lector = new Lector(reader, lineas, primeraLinea, hilosParser);
+                iniciar(hilos, lector, "importador-lector");
+                for (int i = 0; i < hilosParser; i++) {
+                    iniciar(hilos, () -> parsear(parser, lineas, filas), "importador-parser-" + i);
+                }
+
+                Escritos escritos = escribir(filas, rechazos);
+
+                for (Thread t : hilos) {
+                    t.join();
+                }
+                if (lector.error != null) {
+                    throw new UncheckedIOException("Error al leer " + archivo, lector.error);
+                }
+                return new ResumenImportacion(lector.leidas, escritos.insertados, escritos.actualizados,
+                        escritos.sinCambios, rechazos.cantidad, System.nanoTime() - inicio, rechazos.cantidad > 0 ? archivoRechazos : null);
+            } finally {
+                // Antes de cerrar el reader: si la escritura falló, lector y parsers siguen bloqueados en put()
+                detener(hilos);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error de E/S importando " + archivo, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Importacion interrumpida", e);
+        }
+    }
+
+    private static void iniciar(List<Thread> hilos, Runnable tarea, String nombre) {
+        Thread t = new Thread(tarea, nombre);
+        t.setDaemon(true);
+        hilos.add(t);
+        t.start();
+    }
+
+    // Interrumpe los hilos que sigan vivos y espera a que terminen (sin cortar la espera si el llamador es interrumpido)
+    private static void detener(List<Thread> hilos) {
+        for (Thread t : hilos) {
+            t.interrupt();
+        }
+        boolean interrumpido = false;
+        for (Thread t : hilos) {
+            while (t.isAlive()) {
+                try {
+                    t.join();
+                } catch (InterruptedException e) {
+                    interrumpido = true;
+                }
+            }
+        }
+        if (interrumpido) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ===== Etapa 2: parseo y validación (varios hilos) =====
+
+    private void parsear(ParserLinea parser, BlockingQueue<Linea> lineas, BlockingQueue<Fila> filas) {
+        try {
+            while (true) {
+                Linea linea = lineas.take();
+                if (linea == FIN_LECTURA) {
+                    filas.put(FIN_PARSER);
+                    return;
+                }
+                filas.put(construir(parser, linea));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Fila construir(ParserLinea parser, Linea linea) {
+        try {
+            Map<String, String> campos = parser.parsear(linea.texto);
+            Libro libro = new Libro(campo(campos, "titulo"), campo(campos, "autor"),
+                    campo(campos, "editorial"), null);
+            String anio = campo(campos, "anioedicion");
+            if (anio == null) {
+                anio = campo(campos, "anio");
+            }
+            if (anio != null) {
+                try {
+                    libro.setAnioEdicion(Integer.valueOf(anio));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Anio de edicion no numerico: " + anio);
+                }
+            }
+            FichaBibliografica ficha = new FichaBibliografica(campo(campos, "isbn"),
+                    campo(campos, "clasificaciondewey"), campo(campos, "estanteria"), campo(campos, "idioma"));
+            return new Fila(linea.numero, linea.texto, libro, ficha, null);
+        } catch (RuntimeException e) {
+            return new Fila(linea.numero, linea.texto, null, null, e.getMessage());
+        }
+    }
+
+    private static String campo(Map<String, String> campos, String nombre) {
+        String valor = campos.get(nombre);
+        if (valor == null) {
+            return null;
+        }
+        valor = valor.trim();
+        return valor.isEmpty() ? null : valor;
+    }
+
+    // ===== Etapa 3: escritura en lotes (hilo llamador) =====
+
+    private Escritos escribir(BlockingQueue<Fila> filas, Rechazos rechazos) throws InterruptedException, IOException {
+        Escritos escritos = new Escritos();
+        int parsersTerminados = 0;
+        List<Fila> lote = new ArrayList<>(tamanioLote);
+        while (parsersTerminados < hilosParser) {
+            Fila fila = filas.take();
+            if (fila == FIN_PARSER) {
+                parsersTerminados++;
+                continue;
+            }
+            if (fila.motivo != null) {
+                rechazos.escribir(fila.numero, fila.motivo, fila.texto);
+                continue;
+            }
+            lote.add(fila);
+            if (lote.size() == tamanioLote) {
+                escribirLote(lote, rechazos, escritos);
+                lote.clear();
+            }
+        }
+        if (!lote.isEmpty()) {
+            escribirLote(lote, rechazos, escritos);
+        }
+        return escritos;
+    }
+
+    private void escribirLote(List<Fila> lote, Rechazos rechazos, Escritos escritos) throws IOException {
+        List<Map.Entry<Libro, FichaBibliografica>> pares = new ArrayList<>(lote.size());
+        for (Fila fila : lote) {
+            pares.add(Map.entry(fila.libro, fila.ficha));
+        }
+        Consumer<ResultadoLote.FilaRechazada> destino = r -> {
+            Fila fila = lote.get(r.getIndice());
+            try {
+                rechazos.escribir(fila.numero, r.getMotivo(), fila.texto);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+        ResultadoLote resultado;
+        try {
+            resultado = sincronizar
+                    ? libroService.sincronizarPorIsbnEnLote(pares.iterator(), tamanioLote, destino)
+                    : libroService.crearLibrosConFichaEnLote(pares.iterator(), tamanioLote, destino);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        escritos.insertados += resultado.getInsertados();
+        escritos.actualizados += resultado.getActualizados();
+        escritos.sinCambios += resultado.getSinCambios();
+    }
+
+    private static String quitarBom(String linea) {
+        return !linea.isEmpty() && linea.charAt(0) == '\uFEFF' ? linea.substring(1) : linea;
+    }
+
+    // ===== Etapa 1: lectura secuencial =====
+
+    private static final class Lector implements Runnable {
+        private final BufferedReader reader;
+        private final BlockingQueue<Linea> lineas;
+        private final long primeraLinea;
+        private final int consumidores;
+        private volatile long leidas;
+        private volatile IOException error;
+
+        Lector(BufferedReader reader, BlockingQueue<Linea> lineas, long primeraLinea, int consumidores) {
+            this.reader = reader;
+            this.lineas = lineas;
+            this.primeraLinea = primeraLinea;
+            this.consumidores = consumidores;
+        }
+
+        @Override
+        public void run() {
+            try {
+                long numero = primeraLinea;
+                String texto;
+                while ((texto = reader.readLine()) != null) {
+                    if (!texto.isBlank()) {
+                        lineas.put(new Linea(numero, texto));
+                        leidas++;
+                    }
+                    numero++;
+                }
+            } catch (IOException e) {
+                error = e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                try {
+                    for (int i = 0; i < consumidores; i++) {
+                        lineas.put(FIN_LECTURA);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private static final class Linea {
+        final long numero;
+        final String texto;
+
+        Linea(long numero, String texto) {
+            this.numero = numero;
+            this.texto = texto;
+        }
+    }
+
+    private static final class Fila {
+        final long numero;
+        final String texto;
+        final Libro libro;
+        final FichaBibliografica ficha;
+        final String motivo;
+
+        Fila(long numero, String texto, Libro libro, FichaBibliografica ficha, String motivo) {
+            this.numero = numero;
+            this.texto = texto;
+            this.libro = libro;
+            this.ficha = ficha;
+            this.motivo = motivo;
+        }
+    }
+
+    private static final class Escritos {
+        long insertados;
+        long actualizados;
+        long sinCambios;
+    }
+
+    // Archivo de rechazos: se crea recién con el primer rechazo
+    private static final class Rechazos implements AutoCloseable {
+        private final Path archivo;
+        private BufferedWriter writer;
+        private long cantidad;
+
+        Rechazos(Path archivo) {
+            this.archivo = archivo;
+        }
+
+        void escribir(long numero, String motivo, String texto) throws IOException {
+            if (writer == null) {
+                writer = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8);
+                writer.write("linea\tmotivo\tcontenido");
+                writer.newLine();
+            }
+            writer.write(Long.toString(numero));
+            writer.write('\t');
+            writer.write(motivo == null ? "" : motivo.replace('\t', ' '));
+            writer.write('\t');
+            writer.write(texto);
+            writer.newLine();
+            cantidad++;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+    }
+}
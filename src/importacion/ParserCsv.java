@@ -0,0 +1,84 @@
+package importacion;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Parser de líneas CSV (comillas dobles, "" como escape, sin saltos de línea dentro de campos).
+ * La primera línea del archivo es el encabezado con los nombres de columna.
+ */
+public class ParserCsv implements ParserLinea {
+
+    private final char separador;
+    private final String[] columnas;
+
+    public ParserCsv(String encabezado) {
+        this.separador = detectarSeparador(encabezado);
+        List<String> nombres = dividir(encabezado, separador);
+        this.columnas = new String[nombres.size()];
+        for (int i = 0; i < columnas.length; i++) {
+            columnas[i] = nombres.get(i).trim().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static char detectarSeparador(String encabezado) {
+        int comas = 0;
+        int puntoYComa = 0;
+        for (int i = 0; i < encabezado.length(); i++) {
+            char c = encabezado.charAt(i);
+            if (c == ',') comas++;
+            else if (c == ';') puntoYComa++;
+        }
+        return puntoYComa > comas ? ';' : ',';
+    }
+
+    @Override
+    public Map<String, String> parsear(String linea) {
+        List<String> valores = dividir(linea, separador);
+        if (valores.size() > columnas.length) {
+            throw new IllegalArgumentException("La linea tiene " + valores.size()
+                    + " columnas y el encabezado " + columnas.length);
+        }
+        Map<String, String> campos = new HashMap<>(columnas.length * 2);
+        for (int i = 0; i < valores.size(); i++) {
+            campos.put(columnas[i], valores.get(i));
+        }
+        return campos;
+    }
+
+    static List<String> dividir(String linea, char separador) {
+        List<String> valores = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"') {
+                    if (i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                        actual.append('"');
+                        i++;
+                    } else {
+                        entreComillas = false;
+                    }
+                } else {
+                    actual.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == separador) {
+                valores.add(actual.toString());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        if (entreComillas) {
+            throw new IllegalArgumentException("Comillas sin cerrar");
+        }
+        valores.add(actual.toString());
+        return valores;
+    }
+}
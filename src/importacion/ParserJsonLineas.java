@@ -0,0 +1,16 @@
+package importacion;
+
+import java.util.Map;
+import json.LectorJson;
+
+/**
+ * Parser de JSON Lines: cada línea es un objeto JSON plano
+ * (valores string, número, booleano o null; sin objetos ni arreglos anidados).
+ */
+public class ParserJsonLineas implements ParserLinea {
+
+    @Override
+    public Map<String, String> parsear(String linea) {
+        return LectorJson.objetoEnMinusculas(linea);
+    }
+}
@@ -0,0 +1,17 @@
+package importacion;
+
+import java.util.Map;
+
+/**
+ * Convierte una línea del archivo de catálogo en pares campo → valor.
+ * Los nombres de campo se devuelven en minúsculas. Debe ser seguro para uso concurrente.
+ */
+public interface ParserLinea {
+
+    /**
+     * @param linea línea completa (sin salto de línea)
+     * @return campos de la línea; valores ausentes no aparecen en el mapa
+     * @throws IllegalArgumentException si la línea está mal formada
+     */
+    Map<String, String> parsear(String linea);
+}
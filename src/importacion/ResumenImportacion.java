@@ -0,0 +1,92 @@
+package importacion;
+
+import java.nio.file.Path;
+
+/**
+ * Resumen final de una importación de catálogo.
+ */
+public class ResumenImportacion {
+
+    private final long lineasLeidas;
+    private final long insertados;
+    private final long actualizados;
+    private final long sinCambios;
+    private final long rechazados;
+    private final long nanosTranscurridos;
+    private final Path archivoRechazos;
+
+    public ResumenImportacion(long lineasLeidas, long insertados, long rechazados, long nanosTranscurridos,
+                              Path archivoRechazos) {
+        this(lineasLeidas, insertados, 0, 0, rechazados, nanosTranscurridos, archivoRechazos);
+    }
+
+    public ResumenImportacion(long lineasLeidas, long insertados, long actualizados, long sinCambios,
+                              long rechazados, long nanosTranscurridos, Path archivoRechazos) {
+        this.lineasLeidas = lineasLeidas;
+        this.insertados = insertados;
+        this.actualizados = actualizados;
+        this.sinCambios = sinCambios;
+        this.rechazados = rechazados;
+        this.nanosTranscurridos = nanosTranscurridos;
+        this.archivoRechazos = archivoRechazos;
+    }
+
+    public long getLineasLeidas() {
+        return lineasLeidas;
+    }
+
+    public long getInsertados() {
+        return insertados;
+    }
+
+    /**
+     * @return Libros existentes (mismo ISBN) actualizados; sólo en modo sincronización
+     */
+    public long getActualizados() {
+        return actualizados;
+    }
+
+    /**
+     * @return Libros existentes que ya estaban al día; sólo en modo sincronización
+     */
+    public long getSinCambios() {
+        return sinCambios;
+    }
+
+    public long getRechazados() {
+        return rechazados;
+    }
+
+    public long getMilisegundos() {
+        return nanosTranscurridos / 1_000_000;
+    }
+
+    public double getLineasPorSegundo() {
+        return nanosTranscurridos == 0 ? 0 : lineasLeidas * 1_000_000_000.0 / nanosTranscurridos;
+    }
+
+    /**
+     * @return archivo con las líneas rechazadas, o {@code null} si no hubo rechazos
+     */
+    public Path getArchivoRechazos() {
+        return archivoRechazos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("   Lineas leidas: ").append(lineasLeidas).append('\n');
+        sb.append("   Insertados:    ").append(insertados).append('\n');
+        if (actualizados > 0 || sinCambios > 0) {
+            sb.append("   Actualizados:  ").append(actualizados).append('\n');
+            sb.append("   Sin cambios:   ").append(sinCambios).append('\n');
+        }
+        sb.append("   Rechazados:    ").append(rechazados).append('\n');
+        sb.append("   Tiempo:        ").append(getMilisegundos()).append(" ms")
+          .append(String.format(" (%.0f lineas/s)", getLineasPorSegundo())).append('\n');
+        if (archivoRechazos != null) {
+            sb.append("   Rechazos en:   ").append(archivoRechazos.toAbsolutePath()).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,99 @@
+package json;
+
+import entities.Libro;
+import java.util.Map;
+
+/**
+ * Campos de un objeto JSON plano ({@link LectorJson}) tal como los leen el servidor HTTP y el modo
+ * script: texto recortado (vacío equivale a ausente), números y la actualización parcial de un Libro.
+ * Los valores mal formados se informan con IllegalArgumentException (400 en el servidor HTTP).
+ */
+public final class CamposJson {
+
+    private CamposJson() {
+    }
+
+    /**
+     * @return el valor recortado, o {@code null} si falta o está vacío
+     */
+    public static String texto(Map<String, String> campos, String nombre) {
+        String valor = campos.get(nombre);
+        if (valor == null) {
+            return null;
+        }
+        valor = valor.trim();
+        return valor.isEmpty() ? null : valor;
+    }
+
+    /**
+     * @throws IllegalArgumentException si falta o está vacío
+     */
+    public static String requerido(Map<String, String> campos, String nombre) {
+        String valor = texto(campos, nombre);
+        if (valor == null) {
+            throw new IllegalArgumentException("Falta el parametro '" + nombre + "'");
+        }
+        return valor;
+    }
+
+    public static Integer entero(Map<String, String> campos, String nombre) {
+        String valor = texto(campos, nombre);
+        if (valor == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parametro '" + nombre + "' no numerico: " + valor);
+        }
+    }
+
+    public static int entero(Map<String, String> campos, String nombre, int porDefecto) {
+        Integer valor = entero(campos, nombre);
+        return valor == null ? porDefecto : valor;
+    }
+
+    public static Long largo(Map<String, String> campos, String nombre) {
+        String valor = texto(campos, nombre);
+        if (valor == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parametro '" + nombre + "' no numerico: " + valor);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException si el texto no es un ID numérico
+     */
+    public static Long id(String texto) {
+        try {
+            return Long.valueOf(texto.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("ID invalido: " + texto);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException si falta o no es un ID numérico
+     */
+    public static Long id(Map<String, String> campos, String nombre) {
+        return id(requerido(campos, nombre));
+    }
+
+    /**
+     * Actualización parcial: cada campo presente (titulo, autor, editorial, anioEdicion) reemplaza al
+     * del Libro, y un valor vacío lo borra; los ausentes no se tocan. {@code version}, si viene, es la
+     * versión leída por el cliente y condiciona la escritura.
+     */
+    public static void aplicarCambios(Map<String, String> campos, Libro libro) {
+        if (campos.containsKey("titulo")) libro.setTitulo(texto(campos, "titulo"));
+        if (campos.containsKey("autor")) libro.setAutor(texto(campos, "autor"));
+        if (campos.containsKey("editorial")) libro.setEditorial(texto(campos, "editorial"));
+        if (campos.containsKey("anioedicion")) libro.setAnioEdicion(entero(campos, "anioedicion"));
+        Long version = largo(campos, "version");
+        if (version != null) libro.setVersion(version);
+    }
+}
@@ -0,0 +1,99 @@
+package json;
+
+import entities.FichaBibliografica;
+import entities.Libro;
+
+/**
+ * Escritura de JSON para salidas legibles por máquina (modo script y servidor HTTP). Contraparte de
+ * {@link LectorJson}: escribe objetos planos con los mismos nombres de campo que acepta
+ * la importación (titulo, autor, editorial, anioEdicion, isbn, clasificacionDewey, estanteria, idioma).
+ */
+public final class EscritorJson {
+
+    private EscritorJson() {
+    }
+
+    /**
+     * Agrega el texto como cadena JSON (con comillas), o {@code null}.
+     */
+    public static StringBuilder cadena(StringBuilder sb, String texto) {
+        if (texto == null) {
+            return sb.append("null");
+        }
+        sb.append('"');
+        for (int i = 0, n = texto.length(); i < n; i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"');
+    }
+
+    /**
+     * Agrega {@code "clave":} (con la coma previa si el objeto ya tiene campos).
+     */
+    public static StringBuilder clave(StringBuilder sb, String clave) {
+        char ultimo = sb.length() == 0 ? '{' : sb.charAt(sb.length() - 1);
+        if (ultimo != '{' && ultimo != '[') {
+            sb.append(',');
+        }
+        return cadena(sb, clave).append(':');
+    }
+
+    /**
+     * Libro activo con su ficha anidada (o {@code "ficha":null}); {@code null} si el libro es nulo.
+     */
+    public static StringBuilder libro(StringBuilder sb, Libro libro) {
+        if (libro == null) {
+            return sb.append("null");
+        }
+        sb.append('{');
+        clave(sb, "id").append(libro.getId());
+        cadena(clave(sb, "titulo"), libro.getTitulo());
+        cadena(clave(sb, "autor"), libro.getAutor());
+        cadena(clave(sb, "editorial"), libro.getEditorial());
+        clave(sb, "anioEdicion").append(libro.getAnioEdicion());
+        clave(sb, "version").append(libro.getVersion());
+        ficha(clave(sb, "ficha"), libro.getFichaBibliografica());
+        return sb.append('}');
+    }
+
+    public static StringBuilder ficha(StringBuilder sb, FichaBibliografica ficha) {
+        if (ficha == null) {
+            return sb.append("null");
+        }
+        sb.append('{');
+        clave(sb, "id").append(ficha.getId());
+        cadena(clave(sb, "isbn"), ficha.getIsbn());
+        cadena(clave(sb, "clasificacionDewey"), ficha.getClasificacionDewey());
+        cadena(clave(sb, "estanteria"), ficha.getEstanteria());
+        cadena(clave(sb, "idioma"), ficha.getIdioma());
+        clave(sb, "version").append(ficha.getVersion());
+        return sb.append('}');
+    }
+
+    public static StringBuilder libros(StringBuilder sb, Iterable<Libro> libros) {
+        sb.append('[');
+        boolean primero = true;
+        for (Libro libro : libros) {
+            if (!primero) {
+                sb.append(',');
+            }
+            libro(sb, libro);
+            primero = false;
+        }
+        return sb.append(']');
+    }
+}
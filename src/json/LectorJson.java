@@ -0,0 +1,182 @@
+package json;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Lectura de objetos JSON planos (valores string, número, booleano o null; sin objetos ni arreglos
+ * anidados). Lo usan la importación JSON Lines, el modo script y el cuerpo de las solicitudes HTTP.
+ */
+public final class LectorJson {
+
+    private LectorJson() {
+    }
+
+    /**
+     * Parsea un objeto JSON plano. Los valores null se omiten y los demás se devuelven como texto.
+     *
+     * @throws IllegalArgumentException si el texto no es un objeto JSON plano válido
+     */
+    public static Map<String, String> objeto(String texto) {
+        return new Lector(texto).objeto();
+    }
+
+    /**
+     * Como {@link #objeto(String)}, con los nombres de campo en minúsculas.
+     */
+    public static Map<String, String> objetoEnMinusculas(String texto) {
+        Map<String, String> campos = objeto(texto);
+        Map<String, String> normalizados = new HashMap<>(campos.size() * 2);
+        for (Map.Entry<String, String> e : campos.entrySet()) {
+            normalizados.put(e.getKey().toLowerCase(Locale.ROOT), e.getValue());
+        }
+        return normalizados;
+    }
+
+    private static final class Lector {
+        private final String s;
+        private int pos;
+
+        Lector(String s) {
+            this.s = s;
+        }
+
+        Map<String, String> objeto() {
+            Map<String, String> campos = new HashMap<>();
+            espacios();
+            esperar('{');
+            espacios();
+            if (mirar() == '}') {
+                pos++;
+                return finObjeto(campos);
+            }
+            while (true) {
+                espacios();
+                String clave = cadena();
+                espacios();
+                esperar(':');
+                espacios();
+                String valor = valor();
+                if (valor != null) {
+                    campos.put(clave, valor);
+                }
+                espacios();
+                char c = siguiente();
+                if (c == '}') {
+                    return finObjeto(campos);
+                }
+                if (c != ',') {
+                    throw error("se esperaba ',' o '}'");
+                }
+            }
+        }
+
+        private Map<String, String> finObjeto(Map<String, String> campos) {
+            espacios();
+            if (pos != s.length()) {
+                throw error("contenido despues del objeto");
+            }
+            return campos;
+        }
+
+        private String valor() {
+            char c = mirar();
+            if (c == '"') {
+                return cadena();
+            }
+            if (c == '{' || c == '[') {
+                throw error("no se admiten objetos ni arreglos anidados");
+            }
+            int inicio = pos;
+            while (pos < s.length() && ",}] \t\r\n".indexOf(s.charAt(pos)) < 0) {
+                pos++;
+            }
+            String literal = s.substring(inicio, pos);
+            if (literal.equals("null")) {
+                return null;
+            }
+            if (literal.equals("true") || literal.equals("false") || esNumero(literal)) {
+                return literal;
+            }
+            throw error("valor invalido '" + literal + "'");
+        }
+
+        private static boolean esNumero(String literal) {
+            if (literal.isEmpty()) {
+                return false;
+            }
+            try {
+                Double.parseDouble(literal);
+                return true;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+
+        private String cadena() {
+            esperar('"');
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                char c = siguiente();
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                char e = siguiente();
+                switch (e) {
+                    case '"', '\\', '/' -> sb.append(e);
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'u' -> {
+                        if (pos + 4 > s.length()) {
+                            throw error("escape unicode incompleto");
+                        }
+                        try {
+                            sb.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException ex) {
+                            throw error("escape unicode invalido");
+                        }
+                        pos += 4;
+                    }
+                    default -> throw error("escape invalido '\\" + e + "'");
+                }
+            }
+        }
+
+        private void espacios() {
+            while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private char mirar() {
+            if (pos >= s.length()) {
+                throw error("fin de linea inesperado");
+            }
+            return s.charAt(pos);
+        }
+
+        private char siguiente() {
+            char c = mirar();
+            pos++;
+            return c;
+        }
+
+        private void esperar(char c) {
+            if (siguiente() != c) {
+                throw error("se esperaba '" + c + "'");
+            }
+        }
+
+        private IllegalArgumentException error(String msg) {
+            return new IllegalArgumentException("JSON invalido en posicion " + pos + ": " + msg);
+        }
+    }
+}
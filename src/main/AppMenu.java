@@ -1,19 +1,30 @@
 
 package main;
 
+import config.DatabaseConnection;
+import config.PoolStats;
 import entities.Libro;
 import entities.FichaBibliografica;
+import metricas.Metricas;
+import metricas.RegistroConsultasLentas;
+import service.CacheStats;
+import service.Caches;
+import service.ConflictoConcurrenciaException;
+import service.EjecutorAsincrono;
 import service.LibroService;
 import service.FichaBibliograficaService;
+import service.Pagina;
 
-import java.util.List;
 import java.util.Scanner;
+import java.util.function.Function;
 
 
  // Manejo de todas las operaciones CRUD y búsquedas relevantes.
 
 public class AppMenu {
 
+    private static final int TAMANIO_PAGINA = 20;
+
     private final LibroService libroService;
     private final FichaBibliograficaService fichaService;
     private final Scanner scanner;
@@ -42,14 +53,15 @@ public class AppMenu {
                     case 6 -> eliminarLibro();
                     case 7 -> buscarFichaPorIsbn();
                     case 8 -> verFichaDeLibro();
-                    case 9 -> System.out.println("Gracias por usar el sistema!");
+                    case 9 -> mostrarDiagnostico();
+                    case 10 -> System.out.println("Gracias por usar el sistema!");
                     default -> System.out.println("Opcion invalida. Intente nuevamente.");
                 }
             } catch (Exception e) {
                 System.err.println("Error inesperado: " + e.getMessage());
             }
-            if (opcion != 9) esperarEnter();
-        } while (opcion != 9);
+            if (opcion != 10) esperarEnter();
+        } while (opcion != 10);
 
         scanner.close();
     }
@@ -64,7 +76,8 @@ public class AppMenu {
         System.out.println("6. Eliminar Libro");
         System.out.println("7. Buscar Ficha por ISBN");
         System.out.println("8. Ver Ficha asociada a un Libro");
-        System.out.println("9. Salir");
+        System.out.println("9. Diagnostico (metricas, pool y caches)");
+        System.out.println("10. Salir");
     }
 
     // ===== Operaciones de Libro =====
@@ -102,13 +115,12 @@ public class AppMenu {
     private void buscarLibroPorId() {
         Long id = leerLong("ID del Libro: ");
         try {
-            Libro libro = libroService.obtenerPorId(id);
+            Libro libro = libroService.obtenerConFicha(id);
             if (libro != null) {
                 System.out.println("   Libro encontrado:");
                 System.out.println(libro);
 
-                //Cargar ficha independientemente
-                FichaBibliografica ficha = fichaService.buscarPorIdLibro(id);
+                FichaBibliografica ficha = libro.getFichaBibliografica();
                 if (ficha != null) {
                     System.out.println("   Ficha: " + ficha);
                 } else {
@@ -125,15 +137,8 @@ public class AppMenu {
     private void listarLibros() {
         System.out.println("\n---   Lista de Libros (activos) ---");
         try {
-            List<Libro> libros = libroService.listarTodos();
-            if (libros.isEmpty()) {
-                System.out.println("   No hay libros activos registrados.");
-            } else {
-                System.out.printf(" %d libro(s) activo(s):\n", libros.size());
-                for (Libro l : libros) {
-                    System.out.println(l);
-                }
-            }
+            mostrarPaginas(token -> libroService.listarPagina(token, TAMANIO_PAGINA),
+                    "   No hay libros activos registrados.");
         } catch (Exception e) {
             System.err.println(" Error al listar: " + e.getMessage());
         }
@@ -143,20 +148,38 @@ public class AppMenu {
         System.out.println("\n---  Buscar Libro por titulo ---");
         String titulo = leerStringNoVacio("Titulo (se buscara como '%titulo%'): ");
         try {
-            List<Libro> resultados = libroService.buscarPorTitulo(titulo);
-            if (resultados.isEmpty()) {
-                System.out.println(" No se encontraron libros con titulo que contenga: " + titulo.toUpperCase());
-            } else {
-                System.out.printf(" %d resultado(s):\n", resultados.size());
-                for (Libro l : resultados) {
-                    System.out.println(l);
-                }
-            }
+            mostrarPaginas(token -> libroService.buscarPorTituloPagina(titulo, token, TAMANIO_PAGINA),
+                    " No se encontraron libros con titulo que contenga: " + titulo.toUpperCase());
         } catch (Exception e) {
             System.err.println(" Error en la busqueda: " + e.getMessage());
         }
     }
 
+    // Muestra página por página hasta que no haya más resultados o el usuario corte
+    private void mostrarPaginas(Function<String, Pagina<Libro>> siguiente, String mensajeVacio) {
+        Pagina<Libro> pagina = siguiente.apply(null);
+        if (pagina.isEmpty()) {
+            System.out.println(mensajeVacio);
+            return;
+        }
+        int mostrados = 0;
+        while (true) {
+            for (Libro l : pagina.getElementos()) {
+                System.out.println(l);
+            }
+            mostrados += pagina.getElementos().size();
+            if (!pagina.hayMas()) {
+                System.out.printf(" %d libro(s) en total.\n", mostrados);
+                return;
+            }
+            String resp = leerString(" Mostrados " + mostrados + ". ENTER para ver mas, 'q' para terminar: ", true);
+            if (resp != null && resp.equalsIgnoreCase("q")) {
+                return;
+            }
+            pagina = siguiente.apply(pagina.getSiguienteToken());
+        }
+    }
+
    private void actualizarLibro() {
     System.out.println("\n---Actualizar Libro---");
     Long id = leerLong("ID del Libro a actualizar: ");
@@ -168,6 +191,7 @@ public class AppMenu {
         }
 
         System.out.println("Libro actual: " + existente);
+        Libro original = existente.copia();
         String nuevoTitulo = leerString("Nuevo titulo (actual: " + existente.getTitulo() + ", Enter para mantener): ", true);
         String nuevoAutor = leerString("Nuevo autor (actual: " + existente.getAutor() + ", Enter para mantener): ", true);
         String nuevaEditorial = leerString("Nueva editorial (actual: " + existente.getEditorial() + ", Enter para mantener): ", true);
@@ -178,7 +202,19 @@ public class AppMenu {
         if (nuevaEditorial != null && !nuevaEditorial.isEmpty()) existente.setEditorial(nuevaEditorial);
         if (nuevoAnio != null) existente.setAnioEdicion(nuevoAnio);
 
-        libroService.actualizar(existente);
+        try {
+            libroService.actualizar(existente);
+        } catch (ConflictoConcurrenciaException e) {
+            // Otro usuario lo modificó mientras se editaba: se puede reintentar conservando sus cambios
+            System.out.println("El Libro fue modificado por otra operacion mientras se editaba.");
+            System.out.println("Libro vigente: " + libroService.obtenerPorId(id));
+            String reintentar = leerString("Aplicar sus cambios sobre la version vigente? (S/N): ", false).toUpperCase();
+            if (!"S".equals(reintentar)) {
+                System.out.println("  Operacion cancelada.");
+                return;
+            }
+            libroService.actualizarFusionando(original, existente);
+        }
         System.out.println("Libro actualizado con exito.");
     } catch (Exception e) {
         System.err.println("No se pudo actualizar: " + e.getMessage());
@@ -228,14 +264,13 @@ public class AppMenu {
     System.out.println("\n--- Ver Ficha asociada a un Libro ---");
     Long idLibro = leerLong("ID del Libro: ");
     try {
-        Libro libro = libroService.obtenerPorId(idLibro);
+        Libro libro = libroService.obtenerConFicha(idLibro);
         if (libro == null) {
             System.out.println(" Libro no encontrado o eliminado.");
             return;
         }
 
-        // Buscar ficha directamente por idLibro 
-        FichaBibliografica ficha = fichaService.buscarPorIdLibro(idLibro);
+        FichaBibliografica ficha = libro.getFichaBibliografica();
         if (ficha != null) {
             System.out.println(" Ficha asociada al Libro '" + libro.getTitulo() + "':");
             System.out.println(ficha);
@@ -247,6 +282,34 @@ public class AppMenu {
     }
     }
 
+    // ===== Diagnóstico =====
+
+    private void mostrarDiagnostico() {
+        System.out.println("\n--- Diagnostico ---");
+        if (!Metricas.habilitadas()) {
+            System.out.println(" Metricas deshabilitadas (metricas.habilitadas=false).");
+        }
+        System.out.print(Metricas.informe());
+        if (RegistroConsultasLentas.habilitado()) {
+            System.out.println("\nConsultas lentas (> " + RegistroConsultasLentas.getUmbralNanos() / 1_000_000 + " ms): "
+                    + RegistroConsultasLentas.getRegistradas() + " registradas, "
+                    + RegistroConsultasLentas.getDescartadas() + " descartadas por cola llena");
+        }
+        PoolStats pool = DatabaseConnection.getPoolStats();
+        System.out.println("\nPool: " + (pool != null ? pool : "sin pool (almacenamiento en memoria)"));
+        System.out.println("Llamadas asincronas: " + EjecutorAsincrono.getEnCurso() + " en curso, "
+                + EjecutorAsincrono.getEnEspera() + " en espera (max " + EjecutorAsincrono.getMaxConcurrentes() + ")");
+        System.out.println("Caches:");
+        for (CacheStats stats : Caches.getStats()) {
+            System.out.println("  " + stats);
+        }
+        String reiniciar = leerString("Reiniciar metricas? (s/N): ", true);
+        if (reiniciar != null && reiniciar.equalsIgnoreCase("s")) {
+            Metricas.reiniciar();
+            System.out.println(" Metricas reiniciadas.");
+        }
+    }
+
     // ===== Helpers de entrada =====
 
     private String leerString(String mensaje, boolean opcional) {
@@ -0,0 +1,261 @@
+package main;
+
+import entities.FichaBibliografica;
+import entities.Libro;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import json.CamposJson;
+import json.EscritorJson;
+import json.LectorJson;
+import metricas.Histograma;
+import service.FichaBibliograficaService;
+import service.LibroService;
+import service.Pagina;
+
+/**
+ * Modo no interactivo: ejecuta las operaciones del menú leídas de un script, sin preguntas.
+ *
+ * Cada línea del script es un objeto JSON con la operación en "op" y sus parámetros con los
+ * mismos nombres que la importación JSON Lines (las líneas vacías y las que empiezan con # se ignoran):
+ * <pre>
+ * {"op":"crear","titulo":"Rayuela","autor":"Cortazar","anioEdicion":1963,"isbn":"9788437604572"}
+ * {"op":"obtener","id":1}
+ * {"op":"listar","limite":100}                    (limite 0: todos)
+ * {"op":"buscarTitulo","titulo":"ray","limite":20}
+ * {"op":"buscar","texto":"cortazar","limite":20}
+ * {"op":"actualizar","id":1,"editorial":"Sudamericana"}   (con "version": sólo si no cambió desde esa versión;
+ *                                                          "editorial":"" la borra, como en PUT /libros/{id})
+ * {"op":"eliminar","id":1}
+ * {"op":"buscarIsbn","isbn":"978-84-376-0457-2"}
+ * {"op":"fichaDeLibro","idLibro":1}
+ * </pre>
+ * Por cada línea se escribe una línea JSON con el resultado y la duración:
+ * {@code {"linea":2,"op":"obtener","ok":true,"ms":0.412,"resultado":{...}}} o, si falla,
+ * {@code "ok":false,"error":"..."}. Al final se escribe una línea {@code "op":"resumen"} con
+ * cantidad, errores y latencias (promedio, p50, p95, máximo) por operación, y el mismo resumen
+ * legible por stderr.
+ */
+public class EjecutorScript {
+
+    private static final int TAMANIO_PAGINA = 500;
+    private static final int LIMITE_POR_DEFECTO = 20;
+
+    private final LibroService libroService;
+    private final FichaBibliograficaService fichaService;
+    private final PrintStream salida;
+    private final boolean detenerEnError;
+    private final Map<String, Estadistica> estadisticas = new LinkedHashMap<>();
+
+    public EjecutorScript(PrintStream salida, boolean detenerEnError) {
+        this.libroService = new LibroService();
+        this.fichaService = new FichaBibliograficaService();
+        this.salida = salida;
+        this.detenerEnError = detenerEnError;
+    }
+
+    /**
+     * @param script archivo con el script, o {@code null} para leerlo de la entrada estándar
+     * @return cantidad de comandos con error
+     */
+    public long ejecutar(Path script) throws IOException {
+        try (BufferedReader lector = script == null
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(script, StandardCharsets.UTF_8)) {
+            return ejecutar(lector);
+        }
+    }
+
+    private long ejecutar(BufferedReader lector) throws IOException {
+        long comandos = 0;
+        long errores = 0;
+        long inicioTotal = System.nanoTime();
+        String texto;
+        int numero = 0;
+        while ((texto = lector.readLine()) != null) {
+            numero++;
+            String linea = texto.trim();
+            if (linea.isEmpty() || linea.startsWith("#")) {
+                continue;
+            }
+            comandos++;
+            StringBuilder sb = new StringBuilder(256).append('{');
+            EscritorJson.clave(sb, "linea").append(numero);
+            String op = "?";
+            long inicio = System.nanoTime();
+            try {
+                Map<String, String> campos = LectorJson.objetoEnMinusculas(linea);
+                op = CamposJson.requerido(campos, "op");
+                StringBuilder resultado = new StringBuilder(128);
+                ejecutarComando(op, campos, resultado);
+                long nanos = System.nanoTime() - inicio;
+                estadistica(op).registrar(nanos, false);
+                EscritorJson.cadena(EscritorJson.clave(sb, "op"), op);
+                EscritorJson.clave(sb, "ok").append(true);
+                EscritorJson.clave(sb, "ms").append(milisegundos(nanos));
+                EscritorJson.clave(sb, "resultado").append(resultado);
+            } catch (RuntimeException e) {
+                long nanos = System.nanoTime() - inicio;
+                errores++;
+                estadistica(op).registrar(nanos, true);
+                EscritorJson.cadena(EscritorJson.clave(sb, "op"), op);
+                EscritorJson.clave(sb, "ok").append(false);
+                EscritorJson.clave(sb, "ms").append(milisegundos(nanos));
+                EscritorJson.cadena(EscritorJson.clave(sb, "error"), e.getMessage());
+            }
+            salida.println(sb.append('}'));
+            if (errores > 0 && detenerEnError) {
+                break;
+            }
+        }
+        escribirResumen(comandos, errores, System.nanoTime() - inicioTotal);
+        salida.flush();
+        return errores;
+    }
+
+    private void ejecutarComando(String op, Map<String, String> campos, StringBuilder resultado) {
+        switch (op.toLowerCase(Locale.ROOT)) {
+            case "crear" -> {
+                Libro libro = new Libro(CamposJson.texto(campos, "titulo"), CamposJson.texto(campos, "autor"),
+                        CamposJson.texto(campos, "editorial"), CamposJson.entero(campos, "anioedicion"));
+                FichaBibliografica ficha = new FichaBibliografica(CamposJson.texto(campos, "isbn"),
+                        CamposJson.texto(campos, "clasificaciondewey"), CamposJson.texto(campos, "estanteria"),
+                        CamposJson.texto(campos, "idioma"));
+                libroService.crearLibroConFicha(libro, ficha);
+                EscritorJson.libro(resultado, libro);
+            }
+            case "obtener" -> EscritorJson.libro(resultado, libroService.obtenerConFicha(CamposJson.id(campos, "id")));
+            case "listar" -> {
+                int limite = limite(campos);
+                EscritorJson.libros(resultado, paginar(limite,
+                        token -> libroService.listarPagina(token, tamanioPagina(limite))));
+            }
+            case "buscartitulo" -> {
+                String titulo = CamposJson.requerido(campos, "titulo");
+                int limite = limite(campos);
+                EscritorJson.libros(resultado, paginar(limite,
+                        token -> libroService.buscarPorTituloPagina(titulo, token, tamanioPagina(limite))));
+            }
+            case "buscar" -> {
+                int limite = CamposJson.entero(campos, "limite", LIMITE_POR_DEFECTO);
+                EscritorJson.libros(resultado, libroService.buscar(CamposJson.requerido(campos, "texto"), limite));
+            }
+            case "actualizar" -> {
+                Long id = CamposJson.id(campos, "id");
+                Libro existente = libroService.obtenerPorId(id);
+                if (existente == null) {
+                    throw new IllegalArgumentException("Libro no encontrado o eliminado: " + id);
+                }
+                CamposJson.aplicarCambios(campos, existente);
+                libroService.actualizar(existente);
+                EscritorJson.libro(resultado, existente);
+            }
+            case "eliminar" -> {
+                Long id = CamposJson.id(campos, "id");
+                if (libroService.obtenerPorId(id) == null) {
+                    throw new IllegalArgumentException("Libro no encontrado o ya eliminado: " + id);
+                }
+                libroService.eliminarLogico(id);
+                EscritorJson.clave(resultado.append('{'), "id").append(id).append('}');
+            }
+            case "buscarisbn" -> EscritorJson.ficha(resultado, fichaService.buscarPorIsbn(CamposJson.requerido(campos, "isbn")));
+            case "fichadelibro" -> EscritorJson.ficha(resultado, fichaService.buscarPorIdLibro(CamposJson.id(campos, "idlibro")));
+            default -> throw new IllegalArgumentException("Operacion desconocida: " + op);
+        }
+    }
+
+    // Recorre páginas keyset hasta juntar 'limite' libros (0: todos)
+    private static List<Libro> paginar(int limite, Function<String, Pagina<Libro>> siguiente) {
+        List<Libro> libros = new ArrayList<>();
+        String token = null;
+        do {
+            Pagina<Libro> pagina = siguiente.apply(token);
+            for (Libro libro : pagina.getElementos()) {
+                if (limite > 0 && libros.size() == limite) {
+                    return libros;
+                }
+                libros.add(libro);
+            }
+            token = pagina.getSiguienteToken();
+        } while (token != null && (limite == 0 || libros.size() < limite));
+        return libros;
+    }
+
+    private static int tamanioPagina(int limite) {
+        return limite == 0 ? TAMANIO_PAGINA : Math.min(limite, TAMANIO_PAGINA);
+    }
+
+    private static int limite(Map<String, String> campos) {
+        Integer limite = CamposJson.entero(campos, "limite");
+        if (limite == null) {
+            return LIMITE_POR_DEFECTO;
+        }
+        if (limite < 0) {
+            throw new IllegalArgumentException("El limite no puede ser negativo");
+        }
+        return limite;
+    }
+
+    // ===== Resumen =====
+
+    private void escribirResumen(long comandos, long errores, long nanosTotales) {
+        StringBuilder sb = new StringBuilder(256).append('{');
+        EscritorJson.cadena(EscritorJson.clave(sb, "op"), "resumen");
+        EscritorJson.clave(sb, "comandos").append(comandos);
+        EscritorJson.clave(sb, "errores").append(errores);
+        EscritorJson.clave(sb, "ms").append(milisegundos(nanosTotales));
+        EscritorJson.clave(sb, "operaciones").append('{');
+        for (Map.Entry<String, Estadistica> e : estadisticas.entrySet()) {
+            Histograma h = e.getValue().tiempos;
+            EscritorJson.clave(sb, e.getKey()).append('{');
+            EscritorJson.clave(sb, "cantidad").append(h.getCantidad());
+            EscritorJson.clave(sb, "errores").append(e.getValue().errores);
+            EscritorJson.clave(sb, "promedioMs").append(milisegundos(h.getPromedioNanos()));
+            EscritorJson.clave(sb, "p50Ms").append(milisegundos(h.getPercentilNanos(50)));
+            EscritorJson.clave(sb, "p95Ms").append(milisegundos(h.getPercentilNanos(95)));
+            EscritorJson.clave(sb, "maxMs").append(milisegundos(h.getMaxNanos()));
+            sb.append('}');
+        }
+        salida.println(sb.append("}}"));
+
+        System.err.printf("Script: %d comandos, %d con error, %s ms%n", comandos, errores, milisegundos(nanosTotales));
+        System.err.printf("  %-14s %8s %7s %10s %10s %10s %10s%n",
+                "operacion", "cantidad", "errores", "prom ms", "p50 ms", "p95 ms", "max ms");
+        for (Map.Entry<String, Estadistica> e : estadisticas.entrySet()) {
+            Histograma h = e.getValue().tiempos;
+            System.err.printf("  %-14s %8d %7d %10s %10s %10s %10s%n", e.getKey(), h.getCantidad(), e.getValue().errores,
+                    milisegundos(h.getPromedioNanos()), milisegundos(h.getPercentilNanos(50)),
+                    milisegundos(h.getPercentilNanos(95)), milisegundos(h.getMaxNanos()));
+        }
+    }
+
+    private Estadistica estadistica(String op) {
+        return estadisticas.computeIfAbsent(op, o -> new Estadistica());
+    }
+
+    private static String milisegundos(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+
+    private static final class Estadistica {
+        final Histograma tiempos = new Histograma();
+        long errores;
+
+        void registrar(long nanos, boolean error) {
+            tiempos.registrar(nanos);
+            if (error) {
+                errores++;
+            }
+        }
+    }
+}
@@ -1,8 +1,188 @@
 
 package main;
 
+import config.AppConfig;
+import importacion.ImportadorCatalogo;
+import importacion.ResumenImportacion;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+import service.Calentamiento;
+import service.FichaBibliograficaService;
+import service.LibroService;
+import service.ResumenCalentamiento;
+import servidor.ServidorHttp;
+
 public class Main {
     public static void main(String[] args) {
-        new AppMenu().iniciar();
+        if (args.length == 0) {
+            calentarSiHabilitado();
+            new AppMenu().iniciar();
+            return;
+        }
+        switch (args[0]) {
+            case "--importar" -> importar(args);
+            case "--script" -> {
+                calentarSiHabilitado();
+                script(args);
+            }
+            case "--servidor" -> {
+                calentarSiHabilitado();
+                servidor(args);
+            }
+            case "--calentar" -> calentar(System.out);
+            case "--completar-isbn" -> System.out.println("ISBN canonico completado: "
+                    + new FichaBibliograficaService().completarIsbnCanonico());
+            default -> {
+                System.err.println("Opcion desconocida: " + args[0]);
+                mostrarUso();
+                System.exit(2);
+            }
+        }
+    }
+
+    // --importar <archivo> [--formato csv|jsonl] [--lote N] [--hilos N] [--sincronizar]
+    private static void importar(String[] args) {
+        if (args.length < 2) {
+            mostrarUso();
+            System.exit(2);
+        }
+        Path archivo = Paths.get(args[1]);
+        if (!Files.isReadable(archivo)) {
+            System.err.println("No se puede leer el archivo: " + archivo);
+            System.exit(1);
+        }
+        String formato = opcion(args, "--formato", null);
+        ImportadorCatalogo.Formato tipo = ImportadorCatalogo.Formato.desdeArchivo(archivo);
+        if (formato != null) {
+            try {
+                tipo = ImportadorCatalogo.Formato.valueOf(formato.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                usoInvalido("Formato desconocido: " + formato + " (se espera csv o jsonl)");
+            }
+        }
+        int lote = opcionPositiva(args, "--lote", 1000);
+        int hilos = opcionPositiva(args, "--hilos", Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+
+        boolean sincronizar = Arrays.asList(args).contains("--sincronizar");
+
+        ImportadorCatalogo importador = new ImportadorCatalogo(new LibroService(), lote, hilos, sincronizar);
+        ResumenImportacion resumen = importador.importar(archivo, tipo);
+        System.out.println("Importacion finalizada:");
+        System.out.print(resumen);
+    }
+
+    // --script <archivo|-> [--salida <archivo>] [--detener-en-error]
+    private static void script(String[] args) {
+        if (args.length < 2) {
+            mostrarUso();
+            System.exit(2);
+        }
+        Path script = "-".equals(args[1]) ? null : Paths.get(args[1]);
+        if (script != null && !Files.isReadable(script)) {
+            System.err.println("No se puede leer el archivo: " + script);
+            System.exit(1);
+        }
+        String salida = opcion(args, "--salida", null);
+        boolean detenerEnError = Arrays.asList(args).contains("--detener-en-error");
+        long errores;
+        try (PrintStream out = salida == null
+                ? new PrintStream(new FileOutputStream(FileDescriptor.out), false, StandardCharsets.UTF_8)
+                : new PrintStream(Files.newOutputStream(Paths.get(salida)), false, StandardCharsets.UTF_8)) {
+            errores = new EjecutorScript(out, detenerEnError).ejecutar(script);
+        } catch (IOException e) {
+            System.err.println("Error de E/S en el script: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        System.exit(errores == 0 ? 0 : 1);
+    }
+
+    // --servidor [--puerto N], N entre 1 y 65535 (el puerto libre, 0, sólo desde código con new ServidorHttp(0))
+    private static void servidor(String[] args) {
+        int puerto = opcionPositiva(args, "--puerto", AppConfig.getInt("servidor.puerto", 8080));
+        if (puerto > 65_535) {
+            usoInvalido("Valor invalido para --puerto: " + puerto + " (se espera un puerto entre 1 y 65535)");
+        }
+        ServidorHttp servidor;
+        try {
+            servidor = new ServidorHttp(puerto);
+        } catch (IOException e) {
+            System.err.println("No se pudo iniciar el servidor en el puerto " + puerto + ": " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> servidor.detener(5), "servidor-http-shutdown"));
+        servidor.iniciar();
+        System.out.println("Servidor HTTP escuchando en http://localhost:" + servidor.getPuerto() + "/libros (Ctrl+C para detener)");
+    }
+
+    // calentamiento.habilitado=true: calienta antes de atender; si falla, se avisa y se inicia igual
+    private static void calentarSiHabilitado() {
+        if (!Calentamiento.habilitado()) {
+            return;
+        }
+        try {
+            calentar(System.err);
+        } catch (RuntimeException e) {
+            System.err.println("Advertencia: calentamiento incompleto: " + e.getMessage());
+        }
+    }
+
+    // --calentar: sólo el calentamiento, para medirlo (calentamiento.* en db.properties)
+    private static void calentar(PrintStream out) {
+        ResumenCalentamiento resumen = new Calentamiento().ejecutar();
+        out.println("Calentamiento finalizado:");
+        out.print(resumen);
+    }
+
+    private static String opcion(String[] args, String nombre, String porDefecto) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (nombre.equals(args[i])) {
+                return args[i + 1];
+            }
+        }
+        return porDefecto;
+    }
+
+    // Entero mayor a 0; si el valor no lo es se muestra el uso y se termina con código 2
+    private static int opcionPositiva(String[] args, String nombre, int porDefecto) {
+        String valor = opcion(args, nombre, null);
+        if (valor == null) {
+            return porDefecto;
+        }
+        try {
+            int n = Integer.parseInt(valor.trim());
+            if (n > 0) {
+                return n;
+            }
+        } catch (NumberFormatException e) {
+            // cae al mensaje de uso
+        }
+        usoInvalido("Valor invalido para " + nombre + ": " + valor + " (se espera un entero mayor a 0)");
+        return porDefecto;
+    }
+
+    private static void usoInvalido(String mensaje) {
+        System.err.println(mensaje);
+        mostrarUso();
+        System.exit(2);
+    }
+
+    private static void mostrarUso() {
+        System.err.println("Uso:");
+        System.err.println("  java main.Main                          (menu interactivo)");
+        System.err.println("  java main.Main --importar <archivo> [--formato csv|jsonl] [--lote N] [--hilos N] [--sincronizar]");
+        System.err.println("  java main.Main --completar-isbn         (backfill de isbnCanonico)");
+        System.err.println("  java main.Main --calentar               (solo calentamiento: conexiones, sentencias, indices)");
+        System.err.println("  java main.Main --servidor [--puerto N]  (API HTTP/JSON, N entre 1 y 65535)");
+        System.err.println("  java main.Main --script <archivo|-> [--salida <archivo>] [--detener-en-error]");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,107 @@
+package metricas;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias (nanosegundos) con cubetas en potencias de 2, cada una dividida en
+ * 8 subcubetas lineales. Registrar es un par de sumas sin bloqueo; los percentiles son
+ * aproximados (error máximo: el ancho de la subcubeta, 12,5 % del valor).
+ */
+public final class Histograma {
+
+    private static final int BITS_SUB = 3;
+    private static final int SUB = 1 << BITS_SUB;
+    // Valores 0..7 exactos, luego 8 subcubetas por cada potencia de 2 hasta 2^62
+    private static final int CUBETAS = SUB * (64 - BITS_SUB);
+
+    private final LongAdder[] cubetas = new LongAdder[CUBETAS];
+    private final LongAdder cantidad = new LongAdder();
+    private final LongAdder sumaNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public Histograma() {
+        for (int i = 0; i < CUBETAS; i++) {
+            cubetas[i] = new LongAdder();
+        }
+    }
+
+    public void registrar(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        cubetas[indice(nanos)].increment();
+        cantidad.increment();
+        sumaNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    public long getCantidad() {
+        return cantidad.sum();
+    }
+
+    public long getSumaNanos() {
+        return sumaNanos.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    public long getPromedioNanos() {
+        long n = cantidad.sum();
+        return n == 0 ? 0 : sumaNanos.sum() / n;
+    }
+
+    /**
+     * @param percentil entre 0 y 100
+     * @return límite superior de la cubeta que contiene el percentil (acotado por el máximo observado)
+     */
+    public long getPercentilNanos(double percentil) {
+        long[] conteos = new long[CUBETAS];
+        long total = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            conteos[i] = cubetas[i].sum();
+            total += conteos[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long objetivo = (long) Math.ceil(total * Math.min(100.0, Math.max(0.0, percentil)) / 100.0);
+        long acumulado = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            acumulado += conteos[i];
+            if (acumulado >= Math.max(1, objetivo)) {
+                return Math.min(limiteSuperior(i), getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+
+    private static int indice(long nanos) {
+        if (nanos < SUB) {
+            return (int) nanos;
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (msb - BITS_SUB)) & (SUB - 1);
+        return (msb - BITS_SUB + 1) * SUB + sub;
+    }
+
+    private static long limiteSuperior(int indice) {
+        if (indice < SUB) {
+            return indice;
+        }
+        int msb = indice / SUB + BITS_SUB - 1;
+        long inicio = (long) (SUB + indice % SUB) << (msb - BITS_SUB);
+        return inicio + (1L << (msb - BITS_SUB)) - 1;
+    }
+
+    public void reiniciar() {
+        for (LongAdder c : cubetas) {
+            c.reset();
+        }
+        cantidad.reset();
+        sumaNanos.reset();
+        maxNanos.reset();
+    }
+}
@@ -0,0 +1,58 @@
+package metricas;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencias y errores (por SQLState) de una operación: un método de servicio,
+ * el préstamo de conexiones o una sentencia SQL.
+ */
+public final class MetricaOperacion {
+
+    private final String nombre;
+    private final Histograma latencias = new Histograma();
+    private final LongAdder errores = new LongAdder();
+    private final ConcurrentHashMap<String, LongAdder> erroresPorSqlState = new ConcurrentHashMap<>();
+
+    MetricaOperacion(String nombre) {
+        this.nombre = nombre;
+    }
+
+    void registrar(long nanos) {
+        latencias.registrar(nanos);
+    }
+
+    void registrarError(String sqlState) {
+        errores.increment();
+        erroresPorSqlState.computeIfAbsent(sqlState, k -> new LongAdder()).increment();
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public Histograma getLatencias() {
+        return latencias;
+    }
+
+    public long getErrores() {
+        return errores.sum();
+    }
+
+    /**
+     * @return errores agrupados por SQLState (o nombre de la excepción si no es SQL), ordenados
+     */
+    public Map<String, Long> getErroresPorSqlState() {
+        Map<String, Long> copia = new TreeMap<>();
+        erroresPorSqlState.forEach((k, v) -> copia.put(k, v.sum()));
+        return copia;
+    }
+
+    void reiniciar() {
+        latencias.reiniciar();
+        errores.reset();
+        erroresPorSqlState.clear();
+    }
+}
@@ -0,0 +1,206 @@
+package metricas;
+
+import config.AppConfig;
+import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Registro global de métricas por operación (latencia y errores por SQLState).
+ * Se configura en db.properties con {@code metricas.habilitadas} (por defecto true) y puede
+ * prenderse o apagarse en caliente desde JMX. Apagadas, medir cuesta una lectura volátil.
+ *
+ * Nombres de operación usados:
+ * <ul>
+ *   <li>{@code db.getConnection}: préstamo de conexión del pool</li>
+ *   <li>{@code sql <sentencia>}: ejecución de cada sentencia (ver {@link SentenciaMedida})</li>
+ *   <li>{@code <Servicio>.<metodo>}: llamadas a los servicios</li>
+ * </ul>
+ */
+public final class Metricas {
+
+    public static final String OBJECT_NAME = "biblioteca:type=Metricas";
+
+    private static final int MAX_LARGO_SQL = 120;
+
+    private static final ConcurrentHashMap<String, MetricaOperacion> OPERACIONES = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, String> NOMBRES_SQL = new ConcurrentHashMap<>();
+    private static volatile boolean habilitadas = AppConfig.getBoolean("metricas.habilitadas", true);
+
+    static {
+        registrarMBean();
+    }
+
+    private Metricas() {
+    }
+
+    public static boolean habilitadas() {
+        return habilitadas;
+    }
+
+    public static void setHabilitadas(boolean valor) {
+        habilitadas = valor;
+    }
+
+    /**
+     * @return marca de inicio para {@link #registrar}/{@link #registrarError}, o 0 si están apagadas
+     */
+    public static long inicio() {
+        return habilitadas ? System.nanoTime() : 0L;
+    }
+
+    public static void registrar(String operacion, long inicio) {
+        if (inicio != 0L) {
+            operacion(operacion).registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    public static void registrarError(String operacion, long inicio, Throwable error) {
+        if (inicio != 0L) {
+            MetricaOperacion m = operacion(operacion);
+            m.registrar(System.nanoTime() - inicio);
+            m.registrarError(clasificar(error));
+        }
+    }
+
+    /**
+     * Ejecuta y mide {@code cuerpo}. Las excepciones se cuentan como error y se relanzan sin cambios.
+     */
+    public static <R> R medir(String operacion, Supplier<R> cuerpo) {
+        long inicio = inicio();
+        if (inicio == 0L) {
+            return cuerpo.get();
+        }
+        try {
+            R resultado = cuerpo.get();
+            registrar(operacion, inicio);
+            return resultado;
+        } catch (RuntimeException | Error e) {
+            registrarError(operacion, inicio, e);
+            throw e;
+        }
+    }
+
+    public static void medir(String operacion, Runnable cuerpo) {
+        medir(operacion, () -> {
+            cuerpo.run();
+            return null;
+        });
+    }
+
+    public static MetricaOperacion operacion(String nombre) {
+        MetricaOperacion m = OPERACIONES.get(nombre);
+        return m != null ? m : OPERACIONES.computeIfAbsent(nombre, MetricaOperacion::new);
+    }
+
+    /**
+     * Nombre de operación para una sentencia: {@code "sql "} + el SQL en una línea, recortado.
+     * Se calcula una vez por texto de sentencia.
+     */
+    public static String nombreSql(String sql) {
+        String nombre = NOMBRES_SQL.get(sql);
+        if (nombre == null) {
+            String compacto = sql.strip().replaceAll("\\s+", " ");
+            if (compacto.length() > MAX_LARGO_SQL) {
+                compacto = compacto.substring(0, MAX_LARGO_SQL - 3) + "...";
+            }
+            nombre = "sql " + compacto;
+            NOMBRES_SQL.putIfAbsent(sql, nombre);
+        }
+        return nombre;
+    }
+
+    // SQLState de la primera SQLException en la cadena de causas; si no hay, el tipo de excepción
+    static String clasificar(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql) {
+                return sql.getSQLState() != null ? sql.getSQLState() : "sin SQLState";
+            }
+        }
+        return error == null ? "desconocido" : error.getClass().getSimpleName();
+    }
+
+    /**
+     * @return resumen de cada operación registrada, ordenado por nombre
+     */
+    public static List<ResumenOperacion> resumen() {
+        List<ResumenOperacion> lista = new ArrayList<>(OPERACIONES.size());
+        for (MetricaOperacion m : OPERACIONES.values()) {
+            lista.add(new ResumenOperacion(m));
+        }
+        lista.sort(Comparator.comparing(ResumenOperacion::getNombre));
+        return lista;
+    }
+
+    /**
+     * Tabla de texto con cantidad, errores y latencias (µs) por operación.
+     */
+    public static String informe() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%10s %7s %9s %9s %9s %9s %9s  %s%n",
+                "llamadas", "errores", "prom(us)", "p50(us)", "p95(us)", "p99(us)", "max(us)", "operacion"));
+        for (ResumenOperacion r : resumen()) {
+            sb.append(String.format("%10d %7d %9d %9d %9d %9d %9d  %s%n",
+                    r.getCantidad(), r.getErrores(), r.getPromedioMicros(), r.getP50Micros(),
+                    r.getP95Micros(), r.getP99Micros(), r.getMaxMicros(), r.getNombre()));
+            for (Map.Entry<String, Long> e : r.getErroresPorSqlState().entrySet()) {
+                sb.append(String.format("%10s %7d  error %s%n", "", e.getValue(), e.getKey()));
+            }
+        }
+        return sb.toString();
+    }
+
+    public static void reiniciar() {
+        for (MetricaOperacion m : OPERACIONES.values()) {
+            m.reiniciar();
+        }
+    }
+
+    private static void registrarMBean() {
+        try {
+            MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+            ObjectName nombre = new ObjectName(OBJECT_NAME);
+            if (!servidor.isRegistered(nombre)) {
+                servidor.registerMBean(new MetricasJmx(), nombre);
+            }
+        } catch (JMException | SecurityException e) {
+            System.err.println("Advertencia: no se pudo registrar el MBean de metricas: " + e.getMessage());
+        }
+    }
+
+    private static final class MetricasJmx implements MetricasMXBean {
+
+        @Override
+        public boolean isHabilitadas() {
+            return Metricas.habilitadas();
+        }
+
+        @Override
+        public void setHabilitadas(boolean valor) {
+            Metricas.setHabilitadas(valor);
+        }
+
+        @Override
+        public List<ResumenOperacion> getOperaciones() {
+            return Metricas.resumen();
+        }
+
+        @Override
+        public String getInforme() {
+            return Metricas.informe();
+        }
+
+        @Override
+        public void reiniciar() {
+            Metricas.reiniciar();
+        }
+    }
+}
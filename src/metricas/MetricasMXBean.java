@@ -0,0 +1,19 @@
+package metricas;
+
+import java.util.List;
+
+/**
+ * Vista JMX de las métricas (ObjectName {@code biblioteca:type=Metricas}).
+ */
+public interface MetricasMXBean {
+
+    boolean isHabilitadas();
+
+    void setHabilitadas(boolean habilitadas);
+
+    List<ResumenOperacion> getOperaciones();
+
+    String getInforme();
+
+    void reiniciar();
+}
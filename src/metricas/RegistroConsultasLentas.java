@@ -0,0 +1,115 @@
+package metricas;
+
+import config.AppConfig;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Log de consultas lentas. Las sentencias que superan el umbral se encolan (sin bloquear: si la
+ * cola está llena se descartan y se cuentan) y un hilo daemon las escribe en el archivo.
+ * Configuración en db.properties:
+ * <pre>
+ * db.consultasLentas.umbralMs=0         (0 o negativo: deshabilitado, el valor por defecto)
+ * db.consultasLentas.archivo=consultas-lentas.log
+ * db.consultasLentas.capacidad=1000     (entradas pendientes de escribir)
+ * </pre>
+ */
+public final class RegistroConsultasLentas {
+
+    private static final long UMBRAL_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(AppConfig.getLong("db.consultasLentas.umbralMs", 0));
+    private static final RegistroConsultasLentas INSTANCIA = UMBRAL_NANOS > 0
+            ? new RegistroConsultasLentas(Paths.get(AppConfig.get("db.consultasLentas.archivo", "consultas-lentas.log")),
+                    AppConfig.getInt("db.consultasLentas.capacidad", 1000))
+            : null;
+
+    static {
+        if (INSTANCIA != null) {
+            INSTANCIA.iniciar();
+        }
+    }
+
+    private final Path archivo;
+    private final BlockingQueue<String> pendientes;
+    private final LongAdder registradas = new LongAdder();
+    private final LongAdder descartadas = new LongAdder();
+
+    private RegistroConsultasLentas(Path archivo, int capacidad) {
+        this.archivo = archivo;
+        this.pendientes = new ArrayBlockingQueue<>(Math.max(1, capacidad));
+    }
+
+    private void iniciar() {
+        Thread escritor = new Thread(this::escribir, "consultas-lentas");
+        escritor.setDaemon(true);
+        escritor.start();
+    }
+
+    public static boolean habilitado() {
+        return INSTANCIA != null;
+    }
+
+    public static long getUmbralNanos() {
+        return UMBRAL_NANOS;
+    }
+
+    public static long getRegistradas() {
+        return INSTANCIA == null ? 0 : INSTANCIA.registradas.sum();
+    }
+
+    public static long getDescartadas() {
+        return INSTANCIA == null ? 0 : INSTANCIA.descartadas.sum();
+    }
+
+    /**
+     * Registra la sentencia si {@code nanos} supera el umbral. No bloquea ni lanza excepciones.
+     *
+     * @param filas filas leídas o afectadas, o -1 si no se conocen
+     * @param parametros parámetros ya formateados, o {@code null}
+     */
+    static void registrarSiEsLenta(String sql, String parametros, long filas, long nanos) {
+        if (INSTANCIA == null || nanos < UMBRAL_NANOS) {
+            return;
+        }
+        // Se formatea en el hilo llamador sólo el caso lento, que ya excede el umbral
+        String linea = Instant.now() + "\t" + String.format("%.3f", nanos / 1_000_000.0) + " ms\t"
+                + (filas >= 0 ? filas + " filas" : "-") + "\t"
+                + sql.strip().replaceAll("\\s+", " ") + "\t"
+                + (parametros != null ? parametros : "[]");
+        if (INSTANCIA.pendientes.offer(linea)) {
+            INSTANCIA.registradas.increment();
+        } else {
+            INSTANCIA.descartadas.increment();
+        }
+    }
+
+    private void escribir() {
+        try (BufferedWriter writer = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            while (true) {
+                String linea = pendientes.take();
+                writer.write(linea);
+                writer.newLine();
+                // Se vacía el buffer cuando no queda nada pendiente
+                if (pendientes.isEmpty()) {
+                    writer.flush();
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Advertencia: se deja de escribir el log de consultas lentas ("
+                    + archivo + "): " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
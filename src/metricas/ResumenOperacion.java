@@ -0,0 +1,68 @@
+package metricas;
+
+import java.util.Map;
+
+/**
+ * Foto de una {@link MetricaOperacion} en microsegundos; JMX la expone como CompositeData.
+ */
+public class ResumenOperacion {
+
+    private final String nombre;
+    private final long cantidad;
+    private final long errores;
+    private final long promedioMicros;
+    private final long p50Micros;
+    private final long p95Micros;
+    private final long p99Micros;
+    private final long maxMicros;
+    private final Map<String, Long> erroresPorSqlState;
+
+    ResumenOperacion(MetricaOperacion m) {
+        Histograma h = m.getLatencias();
+        this.nombre = m.getNombre();
+        this.cantidad = h.getCantidad();
+        this.errores = m.getErrores();
+        this.promedioMicros = h.getPromedioNanos() / 1000;
+        this.p50Micros = h.getPercentilNanos(50) / 1000;
+        this.p95Micros = h.getPercentilNanos(95) / 1000;
+        this.p99Micros = h.getPercentilNanos(99) / 1000;
+        this.maxMicros = h.getMaxNanos() / 1000;
+        this.erroresPorSqlState = m.getErroresPorSqlState();
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public long getCantidad() {
+        return cantidad;
+    }
+
+    public long getErrores() {
+        return errores;
+    }
+
+    public long getPromedioMicros() {
+        return promedioMicros;
+    }
+
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    public long getP95Micros() {
+        return p95Micros;
+    }
+
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    public Map<String, Long> getErroresPorSqlState() {
+        return erroresPorSqlState;
+    }
+}
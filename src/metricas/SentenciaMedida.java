@@ -0,0 +1,277 @@
+package metricas;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * Envuelve un Statement para medir cada execute* ({@link Metricas}) y registrar las sentencias
+ * lentas con sus parámetros y filas ({@link RegistroConsultasLentas}). El pool lo aplica a las
+ * sentencias creadas desde sus conexiones cuando alguna de las dos cosas está habilitada
+ * (ver {@link #aplica()}); si no, entrega la sentencia original.
+ *
+ * Para un executeQuery el tiempo del log lento es el del execute más el pasado dentro de cada
+ * {@code next()} (la lectura de filas desde el servidor), sin el trabajo que el llamador hace entre
+ * fila y fila; se registra al cerrarse el ResultSet (o la sentencia). Con el log habilitado el ResultSet
+ * se entrega envuelto en un Proxy para contar filas y tiempos, por eso viene deshabilitado por defecto.
+ */
+public final class SentenciaMedida implements InvocationHandler {
+
+    private static final int MAX_LARGO_PARAMETRO = 100;
+
+    private final Statement sentencia;
+    private final String sql;
+    private final String nombre;
+    // Sólo se capturan parámetros si el log de consultas lentas está habilitado
+    private Object[] parametros;
+    private int filasEnLote;
+    private ConsultaAbierta consultaAbierta;
+
+    private SentenciaMedida(Statement sentencia, String sql) {
+        this.sentencia = sentencia;
+        this.sql = sql;
+        this.nombre = sql != null ? Metricas.nombreSql(sql) : null;
+        if (sql != null && RegistroConsultasLentas.habilitado()) {
+            this.parametros = new Object[8];
+        }
+    }
+
+    /**
+     * @return {@code true} si las sentencias deben envolverse (métricas o log de lentas habilitados)
+     */
+    public static boolean aplica() {
+        return Metricas.habilitadas() || RegistroConsultasLentas.habilitado();
+    }
+
+    /**
+     * @param sql texto de la sentencia preparada, o {@code null} para un Statement simple
+     *            (en ese caso se usa el SQL pasado a cada execute)
+     */
+    public static Statement envolver(Statement sentencia, String sql) {
+        Class<?> tipo = sentencia instanceof CallableStatement ? CallableStatement.class
+                : sentencia instanceof PreparedStatement ? PreparedStatement.class
+                : Statement.class;
+        return (Statement) Proxy.newProxyInstance(SentenciaMedida.class.getClassLoader(),
+                new Class<?>[]{tipo}, new SentenciaMedida(sentencia, sql));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String metodo = method.getName();
+        if (metodo.startsWith("execute")) {
+            return ejecutar(method, args);
+        }
+        switch (metodo) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "clearParameters":
+                if (parametros != null) {
+                    Arrays.fill(parametros, null);
+                }
+                break;
+            case "addBatch":
+                filasEnLote++;
+                break;
+            case "clearBatch":
+                filasEnLote = 0;
+                break;
+            case "close":
+                cerrarConsulta();
+                break;
+            default:
+                if (parametros != null && metodo.startsWith("set") && args != null && args.length >= 2
+                        && args[0] instanceof Integer indice) {
+                    guardarParametro(indice, metodo.equals("setNull") ? null : args[1]);
+                }
+        }
+        return invocar(method, args);
+    }
+
+    private Object ejecutar(Method method, Object[] args) throws Throwable {
+        String textoSql = sql;
+        String operacion = nombre;
+        if (args != null && args.length > 0 && args[0] instanceof String s) {
+            textoSql = s;
+            operacion = Metricas.nombreSql(s);
+        }
+        if (operacion == null) {
+            operacion = "sql " + method.getName();
+        }
+        cerrarConsulta();
+        long inicioMetricas = Metricas.inicio();
+        long inicio = System.nanoTime();
+        Object resultado;
+        try {
+            resultado = invocar(method, args);
+        } catch (Throwable e) {
+            Metricas.registrarError(operacion, inicioMetricas, e);
+            registrarLenta(textoSql, -1, System.nanoTime() - inicio);
+            throw e;
+        }
+        long nanos = System.nanoTime() - inicio;
+        Metricas.registrar(operacion, inicioMetricas);
+
+        if (resultado instanceof ResultSet rs && textoSql != null && RegistroConsultasLentas.habilitado()) {
+            consultaAbierta = new ConsultaAbierta(rs, textoSql, formatearParametros(), nanos);
+            return Proxy.newProxyInstance(SentenciaMedida.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class}, consultaAbierta);
+        }
+        registrarLenta(textoSql, filasAfectadas(resultado), nanos);
+        return resultado;
+    }
+
+    private void registrarLenta(String textoSql, long filas, long nanos) {
+        if (textoSql != null && RegistroConsultasLentas.habilitado() && nanos >= RegistroConsultasLentas.getUmbralNanos()) {
+            String params = formatearParametros();
+            if (filasEnLote > 0) {
+                params = "[lote de " + filasEnLote + "] " + params;
+            }
+            RegistroConsultasLentas.registrarSiEsLenta(textoSql, params, filas, nanos);
+        }
+        filasEnLote = 0;
+    }
+
+    private void cerrarConsulta() {
+        ConsultaAbierta c = consultaAbierta;
+        if (c != null) {
+            consultaAbierta = null;
+            c.finalizar();
+        }
+    }
+
+    private static long filasAfectadas(Object resultado) {
+        if (resultado instanceof Integer n) {
+            return n;
+        }
+        if (resultado instanceof Long n) {
+            return n;
+        }
+        if (resultado instanceof int[] lote) {
+            long total = 0;
+            for (int n : lote) {
+                total += Math.max(n, 0);
+            }
+            return total;
+        }
+        if (resultado instanceof long[] lote) {
+            long total = 0;
+            for (long n : lote) {
+                total += Math.max(n, 0);
+            }
+            return total;
+        }
+        return -1;
+    }
+
+    private void guardarParametro(int indice, Object valor) {
+        if (indice < 1) {
+            return;
+        }
+        if (indice > parametros.length) {
+            parametros = Arrays.copyOf(parametros, Math.max(indice, parametros.length * 2));
+        }
+        parametros[indice - 1] = valor;
+    }
+
+    private String formatearParametros() {
+        if (parametros == null) {
+            return null;
+        }
+        int n = parametros.length;
+        while (n > 0 && parametros[n - 1] == null) {
+            n--;
+        }
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < n; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            Object v = parametros[i];
+            if (v == null) {
+                sb.append("NULL");
+            } else if (v instanceof byte[] bytes) {
+                sb.append('<').append(bytes.length).append(" bytes>");
+            } else if (v instanceof CharSequence || v instanceof java.util.Date || v instanceof java.time.temporal.Temporal) {
+                String texto = v.toString();
+                if (texto.length() > MAX_LARGO_PARAMETRO) {
+                    texto = texto.substring(0, MAX_LARGO_PARAMETRO) + "...";
+                }
+                sb.append('\'').append(texto.replace("'", "''")).append('\'');
+            } else if (v instanceof Number || v instanceof Boolean) {
+                sb.append(v);
+            } else {
+                sb.append('<').append(v.getClass().getSimpleName()).append('>');
+            }
+        }
+        return sb.append(']').toString();
+    }
+
+    private static Object invocar(Object destino, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(destino, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Object invocar(Method method, Object[] args) throws Throwable {
+        return invocar(sentencia, method, args);
+    }
+
+    // ResultSet de un executeQuery: cuenta las filas y el tiempo dentro de next(); registra al cerrarse
+    private static final class ConsultaAbierta implements InvocationHandler {
+        private final ResultSet rs;
+        private final String sql;
+        private final String parametros;
+        private long nanos;
+        private long filas;
+        private boolean finalizada;
+
+        ConsultaAbierta(ResultSet rs, String sql, String parametros, long nanosEjecucion) {
+            this.rs = rs;
+            this.sql = sql;
+            this.parametros = parametros;
+            this.nanos = nanosEjecucion;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next": {
+                    long inicio = System.nanoTime();
+                    Object hay = invocar(rs, method, args);
+                    nanos += System.nanoTime() - inicio;
+                    if (Boolean.TRUE.equals(hay)) {
+                        filas++;
+                    }
+                    return hay;
+                }
+                case "close":
+                    finalizar();
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            return invocar(rs, method, args);
+        }
+
+        void finalizar() {
+            if (!finalizada) {
+                finalizada = true;
+                RegistroConsultasLentas.registrarSiEsLenta(sql, parametros, filas, nanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package service;
+
+/**
+ * Contadores de una caché en un instante dado.
+ */
+public class CacheStats {
+
+    private final String nombre;
+    private final int tamanio;
+    private final long aciertos;
+    private final long fallos;
+    private final long desalojos;
+    private final long vencimientos;
+    private final long invalidaciones;
+
+    public CacheStats(String nombre, int tamanio, long aciertos, long fallos, long desalojos,
+                      long vencimientos, long invalidaciones) {
+        this.nombre = nombre;
+        this.tamanio = tamanio;
+        this.aciertos = aciertos;
+        this.fallos = fallos;
+        this.desalojos = desalojos;
+        this.vencimientos = vencimientos;
+        this.invalidaciones = invalidaciones;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public int getTamanio() {
+        return tamanio;
+    }
+
+    public long getAciertos() {
+        return aciertos;
+    }
+
+    public long getFallos() {
+        return fallos;
+    }
+
+    public long getDesalojos() {
+        return desalojos;
+    }
+
+    public long getVencimientos() {
+        return vencimientos;
+    }
+
+    public long getInvalidaciones() {
+        return invalidaciones;
+    }
+
+    public double getTasaAciertos() {
+        long total = aciertos + fallos;
+        return total == 0 ? 0 : (double) aciertos / total;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{" +
+                "nombre='" + nombre + '\'' +
+                ", tamanio=" + tamanio +
+                ", aciertos=" + aciertos +
+                ", fallos=" + fallos +
+                ", tasa=" + String.format("%.1f%%", getTasaAciertos() * 100) +
+                ", desalojos=" + desalojos +
+                ", vencimientos=" + vencimientos +
+                ", invalidaciones=" + invalidaciones +
+                '}';
+    }
+}
@@ -0,0 +1,77 @@
+package service;
+
+import config.AppConfig;
+import entities.FichaBibliografica;
+import entities.Libro;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Cachés compartidas por todas las instancias de los servicios, configuradas desde db.properties:
+ * <pre>
+ * cache.libro.habilitada=true
+ * cache.libro.maxEntradas=10000
+ * cache.libro.ttlSegundos=300
+ * cache.ficha.habilitada=true   (por id, por idLIBRO y por ISBN canónico)
+ * </pre>
+ */
+public final class Caches {
+
+    private static final EntityCache<Long, Libro> LIBROS =
+            crear("libro", "libro.porId", Libro::copia);
+    private static final EntityCache<Long, FichaBibliografica> FICHAS =
+            crear("ficha", "ficha.porId", FichaBibliografica::copia);
+    private static final EntityCache<Long, FichaBibliografica> FICHAS_POR_ID_LIBRO =
+            crear("ficha", "ficha.porIdLibro", FichaBibliografica::copia);
+    private static final EntityCache<String, FichaBibliografica> FICHAS_POR_ISBN =
+            crear("ficha", "ficha.porIsbn", FichaBibliografica::copia);
+
+    private Caches() {
+    }
+
+    private static <K, V> EntityCache<K, V> crear(String tipo, String nombre, UnaryOperator<V> copiador) {
+        String prefijo = "cache." + tipo + ".";
+        if (!AppConfig.getBoolean(prefijo + "habilitada", true)) {
+            return EntityCache.deshabilitada();
+        }
+        return new LruTtlCache<>(nombre,
+                AppConfig.getInt(prefijo + "maxEntradas", 10_000),
+                AppConfig.getLong(prefijo + "ttlSegundos", 300) * 1000L,
+                copiador);
+    }
+
+    public static EntityCache<Long, Libro> libros() {
+        return LIBROS;
+    }
+
+    public static EntityCache<Long, FichaBibliografica> fichas() {
+        return FICHAS;
+    }
+
+    public static EntityCache<Long, FichaBibliografica> fichasPorIdLibro() {
+        return FICHAS_POR_ID_LIBRO;
+    }
+
+    public static EntityCache<String, FichaBibliografica> fichasPorIsbn() {
+        return FICHAS_POR_ISBN;
+    }
+
+    /**
+     * Invalida las cachés de fichas. Las claves secundarias (idLIBRO, ISBN) no se conocen
+     * al modificar una ficha por id, por eso se vacían completas; las escrituras son poco frecuentes.
+     */
+    public static void invalidarFichas() {
+        FICHAS.invalidarTodo();
+        FICHAS_POR_ID_LIBRO.invalidarTodo();
+        FICHAS_POR_ISBN.invalidarTodo();
+    }
+
+    public static void invalidarTodo() {
+        LIBROS.invalidarTodo();
+        invalidarFichas();
+    }
+
+    public static List<CacheStats> getStats() {
+        return List.of(LIBROS.getStats(), FICHAS.getStats(), FICHAS_POR_ID_LIBRO.getStats(), FICHAS_POR_ISBN.getStats());
+    }
+}
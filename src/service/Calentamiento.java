@@ -0,0 +1,270 @@
+package service;
+
+import config.AppConfig;
+import config.DatabaseConnection;
+import dao.Daos;
+import dao.FichaBibliograficaDao;
+import dao.LibroDao;
+import entities.FichaBibliografica;
+import entities.Isbn;
+import entities.Libro;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import metricas.Metricas;
+
+/**
+ * Calentamiento al iniciar, para que las primeras operaciones no paguen el arranque en frío
+ * (carga del driver, primera conexión, JIT del mapeo, páginas de InnoDB fuera del buffer pool):
+ * <ol>
+ * <li>conexiones: crea el pool y abre sus db.pool.minIdle conexiones;</li>
+ * <li>sentencias: en cada una de esas conexiones ejecuta una vez cada lectura de los DAOs;</li>
+ * <li>indices: recorre por keyset las primeras {@code calentamiento.filasIndice} filas de
+ *     idx_libro_titulo con sus fichas (clave única idLIBRO), trayéndolas al buffer pool;</li>
+ * <li>mapeo: repite las lecturas {@code calentamiento.repeticiones} veces para que el JIT compile
+ *     el mapeo y el camino de las sentencias;</li>
+ * <li>precarga (con {@code calentamiento.precarga=true}): guarda los libros y fichas activos en las
+ *     cachés, hasta cache.libro.maxEntradas.</li>
+ * </ol>
+ * Sólo lee: no modifica datos. Al terminar reinicia las métricas para que reflejen el uso real.
+ */
+public final class Calentamiento {
+
+    private static final int TAMANIO_PAGINA = 200;
+    private static final int TAMANIO_PRUEBA = 20;
+
+    private final LibroDao libroDao = Daos.libroDao();
+    private final FichaBibliograficaDao fichaDao = Daos.fichaDao();
+    private final int repeticiones;
+    private final int filasIndice;
+    private final boolean precargar;
+
+    /**
+     * Paso del calentamiento.
+     *
+     * @return detalle para el resumen
+     */
+    @FunctionalInterface
+    private interface Paso {
+        String ejecutar() throws SQLException;
+    }
+
+    public Calentamiento() {
+        this(AppConfig.getInt("calentamiento.repeticiones", 100),
+                AppConfig.getInt("calentamiento.filasIndice", 2000),
+                AppConfig.getBoolean("calentamiento.precarga", false));
+    }
+
+    public Calentamiento(int repeticiones, int filasIndice, boolean precargar) {
+        this.repeticiones = Math.max(0, repeticiones);
+        this.filasIndice = Math.max(0, filasIndice);
+        this.precargar = precargar;
+    }
+
+    /**
+     * @return {@code true} si {@code calentamiento.habilitado=true} (calentar al iniciar main.Main)
+     */
+    public static boolean habilitado() {
+        return AppConfig.getBoolean("calentamiento.habilitado", false);
+    }
+
+    /**
+     * @throws RuntimeException si falla el acceso a la base (ej. no hay conexión)
+     */
+    public ResumenCalentamiento ejecutar() {
+        ResumenCalentamiento resumen = new ResumenCalentamiento();
+        resumen.setNanosPrimeraAntes(consultaDePrueba());
+        long inicio = System.nanoTime();
+        paso(resumen, "conexiones", () -> DatabaseConnection.isEnMemoria()
+                ? "almacenamiento en memoria"
+                : DatabaseConnection.abrirConexionesMinimas() + " ociosas");
+        paso(resumen, "sentencias", this::prepararSentencias);
+        paso(resumen, "indices", this::recorrerIndices);
+        paso(resumen, "mapeo", this::ejercitarMapeo);
+        if (precargar) {
+            paso(resumen, "precarga", this::precargarCaches);
+        }
+        resumen.setNanosTotal(System.nanoTime() - inicio);
+        resumen.setNanosPrimeraDespues(consultaDePrueba());
+        Metricas.reiniciar();
+        return resumen;
+    }
+
+    private static void paso(ResumenCalentamiento resumen, String nombre, Paso paso) {
+        long inicio = System.nanoTime();
+        String detalle;
+        try {
+            detalle = paso.ejecutar();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error en el calentamiento (" + nombre + "): " + e.getMessage(), e);
+        }
+        resumen.agregarPaso(nombre, System.nanoTime() - inicio, detalle);
+    }
+
+    // Lo que hace la primera operación típica: pedir una conexión y leer una página de libros con sus fichas
+    private long consultaDePrueba() {
+        long inicio = System.nanoTime();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            List<Libro> pagina = libroDao.leerPagina(null, null, TAMANIO_PRUEBA, conn);
+            fichaDao.buscarPorIdsLibro(ids(pagina), conn);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error en la consulta de prueba del calentamiento", e);
+        }
+        return System.nanoTime() - inicio;
+    }
+
+    // Las conexiones se piden todas a la vez para que cada lectura pase por cada conexión física
+    private String prepararSentencias() throws SQLException {
+        int cantidad = DatabaseConnection.isEnMemoria() ? 1 : Math.max(1, AppConfig.getInt("db.pool.minIdle", 2));
+        List<Connection> conexiones = new ArrayList<>(cantidad);
+        try {
+            for (int i = 0; i < cantidad; i++) {
+                conexiones.add(DatabaseConnection.getConnection());
+            }
+            for (Connection conn : conexiones) {
+                leerTodo(conn);
+            }
+        } finally {
+            for (Connection conn : conexiones) {
+                conn.close();
+            }
+        }
+        return cantidad + (cantidad == 1 ? " conexion" : " conexiones");
+    }
+
+    private String recorrerIndices() throws SQLException {
+        long libros = 0;
+        long fichas = 0;
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            String titulo = null;
+            Long id = null;
+            while (libros < filasIndice) {
+                int pedido = (int) Math.min(TAMANIO_PAGINA, filasIndice - libros);
+                List<Libro> pagina = libroDao.leerPagina(titulo, id, pedido, conn);
+                libros += pagina.size();
+                fichas += fichaDao.buscarPorIdsLibro(ids(pagina), conn).size();
+                if (pagina.size() < pedido) {
+                    break;
+                }
+                Libro ultimo = pagina.get(pagina.size() - 1);
+                titulo = ultimo.getTitulo();
+                id = ultimo.getId();
+            }
+        }
+        return libros + " libros, " + fichas + " fichas";
+    }
+
+    private String ejercitarMapeo() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            for (int i = 0; i < repeticiones; i++) {
+                leerTodo(conn);
+            }
+        }
+        return repeticiones + " repeticiones";
+    }
+
+    // Cada lectura de los DAOs una vez, con argumentos tomados de la primera página
+    private void leerTodo(Connection conn) throws SQLException {
+        List<Libro> pagina = libroDao.leerPagina(null, null, TAMANIO_PRUEBA, conn);
+        if (pagina.isEmpty()) {
+            return;
+        }
+        Libro primero = pagina.get(0);
+        List<Long> ids = ids(pagina);
+        libroDao.leerPagina(primero.getTitulo(), primero.getId(), TAMANIO_PRUEBA, conn);
+        libroDao.leer(primero.getId(), conn);
+        libroDao.leerPorIds(ids, conn);
+        libroDao.leerConFicha(primero.getId(), conn);
+        libroDao.leerConFichaPorIds(ids, conn);
+
+        String palabra = palabraIndexable(primero.getTitulo());
+        if (palabra != null) {
+            libroDao.buscarPorTitulo(palabra, conn);
+            libroDao.buscar(palabra, TAMANIO_PRUEBA, conn);
+            libroDao.buscarPorTituloPagina(palabra, null, null, TAMANIO_PRUEBA, conn);
+        }
+
+        fichaDao.buscarPorIdLibro(primero.getId(), conn);
+        Map<Long, FichaBibliografica> fichas = fichaDao.buscarPorIdsLibro(ids, conn);
+        List<Long> idsFicha = new ArrayList<>(fichas.size());
+        for (FichaBibliografica ficha : fichas.values()) {
+            idsFicha.add(ficha.getId());
+        }
+        if (!idsFicha.isEmpty()) {
+            fichaDao.leer(idsFicha.get(0), conn);
+            fichaDao.leerPorIds(idsFicha, conn);
+        }
+        for (FichaBibliografica ficha : fichas.values()) {
+            if (ficha.getIsbn() != null) {
+                fichaDao.buscarPorIsbn(ficha.getIsbn(), conn);
+                break;
+            }
+        }
+    }
+
+    // Primera palabra de 2 o más caracteres (el token ngram): con menos, la búsqueda por título no usa
+    // el índice FULLTEXT y recorre la tabla con LIKE '%x%', demasiado caro para repetirlo
+    private static String palabraIndexable(String titulo) {
+        for (String palabra : titulo.trim().split("\\s+")) {
+            if (palabra.length() >= 2) {
+                return palabra;
+            }
+        }
+        return null;
+    }
+
+    // Misma forma que las lecturas de los servicios: cada página se guarda con la generación tomada antes de leerla
+    private String precargarCaches() throws SQLException {
+        EntityCache<Long, Libro> libros = Caches.libros();
+        EntityCache<Long, FichaBibliografica> fichas = Caches.fichas();
+        EntityCache<Long, FichaBibliografica> porIdLibro = Caches.fichasPorIdLibro();
+        EntityCache<String, FichaBibliografica> porIsbn = Caches.fichasPorIsbn();
+        int maximo = AppConfig.getInt("cache.libro.maxEntradas", 10_000);
+        long cargados = 0;
+        long fichasCargadas = 0;
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            String titulo = null;
+            Long id = null;
+            while (cargados < maximo) {
+                long generacionLibros = libros.generacion();
+                long generacionFichas = fichas.generacion();
+                long generacionPorIdLibro = porIdLibro.generacion();
+                long generacionPorIsbn = porIsbn.generacion();
+                int pedido = (int) Math.min(TAMANIO_PAGINA, maximo - cargados);
+                List<Libro> pagina = libroDao.leerPagina(titulo, id, pedido, conn);
+                Map<Long, FichaBibliografica> fichasPagina = fichaDao.buscarPorIdsLibro(ids(pagina), conn);
+                for (Libro libro : pagina) {
+                    libros.put(libro.getId(), libro, generacionLibros);
+                    FichaBibliografica ficha = fichasPagina.get(libro.getId());
+                    if (ficha != null) {
+                        fichas.put(ficha.getId(), ficha, generacionFichas);
+                        porIdLibro.put(libro.getId(), ficha, generacionPorIdLibro);
+                        String canonico = Isbn.canonico(ficha.getIsbn());
+                        if (canonico != null) {
+                            porIsbn.put(canonico, ficha, generacionPorIsbn);
+                        }
+                        fichasCargadas++;
+                    }
+                }
+                cargados += pagina.size();
+                if (pagina.size() < pedido) {
+                    break;
+                }
+                Libro ultimo = pagina.get(pagina.size() - 1);
+                titulo = ultimo.getTitulo();
+                id = ultimo.getId();
+            }
+        }
+        return cargados + " libros, " + fichasCargadas + " fichas";
+    }
+
+    private static List<Long> ids(List<Libro> libros) {
+        List<Long> ids = new ArrayList<>(libros.size());
+        for (Libro libro : libros) {
+            ids.add(libro.getId());
+        }
+        return ids;
+    }
+}
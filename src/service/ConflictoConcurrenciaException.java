@@ -0,0 +1,51 @@
+package service;
+
+import dao.ConflictoVersionException;
+import java.util.List;
+
+/**
+ * La entidad fue modificada por otra operación desde que se leyó, por lo que la actualización
+ * no se aplicó (control optimista de concurrencia). Se puede volver a leer y editar, o usar
+ * {@link GenericService#actualizarFusionando} para combinar los cambios con los ajenos.
+ *
+ * Extiende IllegalStateException como el resto de los conflictos de negocio (HTTP 409).
+ */
+public class ConflictoConcurrenciaException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+    private final String entidad;
+    private final Long id;
+    private final String[] camposEnConflicto;
+
+    ConflictoConcurrenciaException(ConflictoVersionException causa) {
+        super(causa.getEntidad() + " con ID " + causa.getId()
+                + " fue modificado por otra operacion desde que se leyo; vuelva a leerlo", causa);
+        this.entidad = causa.getEntidad();
+        this.id = causa.getId();
+        this.camposEnConflicto = new String[0];
+    }
+
+    ConflictoConcurrenciaException(String entidad, Long id, List<String> camposEnConflicto) {
+        super(entidad + " con ID " + id + " fue modificado por otra operacion con valores distintos en: "
+                + String.join(", ", camposEnConflicto));
+        this.entidad = entidad;
+        this.id = id;
+        this.camposEnConflicto = camposEnConflicto.toArray(new String[0]);
+    }
+
+    public String getEntidad() {
+        return entidad;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * @return campos que ambos modificaron con valores distintos (vacío si el conflicto no vino de
+     *         una fusión)
+     */
+    public List<String> getCamposEnConflicto() {
+        return List.of(camposEnConflicto);
+    }
+}
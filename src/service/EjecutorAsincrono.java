@@ -0,0 +1,88 @@
+package service;
+
+import config.AppConfig;
+import config.DatabaseConnection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+import metricas.Metricas;
+
+/**
+ * Ejecutor de las variantes asíncronas de los servicios (métodos {@code ...Async}).
+ *
+ * Cada llamada corre en su propio hilo virtual, por lo que miles de llamadas pueden estar en curso
+ * sin agotar hilos de plataforma. El trabajo con la base se limita con un semáforo del tamaño del
+ * pool ({@code servicio.async.maxConcurrentes}, por defecto {@code db.pool.maxSize}): las llamadas
+ * que exceden ese límite esperan estacionadas (sin ocupar un hilo de plataforma) en lugar de
+ * competir por el pool y agotar su borrowTimeoutMs.
+ */
+public final class EjecutorAsincrono {
+
+    private static final String OPERACION_ESPERA = "async.espera";
+
+    private static final ExecutorService EJECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+    private static final int MAX_CONCURRENTES = AppConfig.getInt("servicio.async.maxConcurrentes",
+            DatabaseConnection.isEnMemoria()
+                    ? Runtime.getRuntime().availableProcessors()
+                    : AppConfig.getInt("db.pool.maxSize", 10));
+    private static final Semaphore PERMISOS = new Semaphore(Math.max(1, MAX_CONCURRENTES), true);
+
+    private EjecutorAsincrono() {
+    }
+
+    /**
+     * Ejecuta {@code cuerpo} en un hilo virtual, después de obtener uno de los permisos de trabajo con la base.
+     * Las excepciones del cuerpo completan el futuro excepcionalmente (envueltas en CompletionException
+     * al usar join()).
+     */
+    public static <R> CompletableFuture<R> ejecutar(Supplier<R> cuerpo) {
+        return CompletableFuture.supplyAsync(() -> conPermiso(cuerpo), EJECUTOR);
+    }
+
+    public static CompletableFuture<Void> ejecutar(Runnable cuerpo) {
+        return ejecutar(() -> {
+            cuerpo.run();
+            return null;
+        });
+    }
+
+    /**
+     * Ejecuta {@code cuerpo} en el hilo actual dentro del mismo límite de concurrencia que
+     * {@link #ejecutar(Supplier)}; para código que ya corre en un hilo virtual propio (ej. el servidor HTTP).
+     */
+    public static <R> R conPermiso(Supplier<R> cuerpo) {
+        long inicio = Metricas.inicio();
+        try {
+            PERMISOS.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrumpido esperando un permiso para acceder a la base de datos", e);
+        }
+        Metricas.registrar(OPERACION_ESPERA, inicio);
+        try {
+            return cuerpo.get();
+        } finally {
+            PERMISOS.release();
+        }
+    }
+
+    public static int getMaxConcurrentes() {
+        return MAX_CONCURRENTES;
+    }
+
+    /**
+     * @return llamadas trabajando con la base en este momento
+     */
+    public static int getEnCurso() {
+        return Math.max(1, MAX_CONCURRENTES) - PERMISOS.availablePermits();
+    }
+
+    /**
+     * @return llamadas (aproximadas) esperando un permiso
+     */
+    public static int getEnEspera() {
+        return PERMISOS.getQueueLength();
+    }
+}
@@ -0,0 +1,70 @@
+package service;
+
+/**
+ * Caché de entidades consultada por los servicios antes de ir a la BD.
+ *
+ * Para evitar guardar un valor leído antes de una invalidación concurrente, el lector toma
+ * {@link #generacion()} antes de consultar la BD y lo pasa a {@link #put}; si hubo una
+ * invalidación en el medio el valor se descarta.
+ * Las implementaciones devuelven copias: modificar lo obtenido no altera lo cacheado.
+ */
+public interface EntityCache<K, V> {
+
+    /**
+     * @return copia del valor cacheado, o {@code null} si no está o venció
+     */
+    V get(K clave);
+
+    long generacion();
+
+    void put(K clave, V valor, long generacion);
+
+    void invalidar(K clave);
+
+    void invalidarTodo();
+
+    CacheStats getStats();
+
+    /**
+     * Caché que nunca guarda nada (para deshabilitarla por tipo de entidad).
+     */
+    @SuppressWarnings("unchecked")
+    static <K, V> EntityCache<K, V> deshabilitada() {
+        return (EntityCache<K, V>) Deshabilitada.INSTANCIA;
+    }
+
+    final class Deshabilitada implements EntityCache<Object, Object> {
+        private static final Deshabilitada INSTANCIA = new Deshabilitada();
+        private static final CacheStats VACIAS = new CacheStats("deshabilitada", 0, 0, 0, 0, 0, 0);
+
+        private Deshabilitada() {
+        }
+
+        @Override
+        public Object get(Object clave) {
+            return null;
+        }
+
+        @Override
+        public long generacion() {
+            return 0;
+        }
+
+        @Override
+        public void put(Object clave, Object valor, long generacion) {
+        }
+
+        @Override
+        public void invalidar(Object clave) {
+        }
+
+        @Override
+        public void invalidarTodo() {
+        }
+
+        @Override
+        public CacheStats getStats() {
+            return VACIAS;
+        }
+    }
+}
@@ -1,12 +1,17 @@
 
 package service;
 
+import dao.Daos;
 import dao.FichaBibliograficaDao;
-import dao.LibroDao;
 import entities.FichaBibliografica;
-import entities.Libro;
+import entities.Isbn;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Servicio para FichaBibliografica (Clase B).
@@ -14,13 +19,46 @@ import java.sql.SQLException;
  */
 public class FichaBibliograficaService extends GenericService<FichaBibliografica> {
 
+    private static final int LOTE_ISBN_CANONICO = 500;
+
     private final FichaBibliograficaDao fichaDao;
-    private final LibroDao libroDao;
 
     public FichaBibliograficaService() {
-        super(new FichaBibliograficaDao());
+        super(Daos.fichaDao(), Caches.fichas());
         this.fichaDao = (FichaBibliograficaDao) super.dao;
-        this.libroDao = new LibroDao();
+    }
+
+    @Override
+    protected Long idDe(FichaBibliografica ficha) {
+        return ficha.getId();
+    }
+
+    @Override
+    protected Long versionDe(FichaBibliografica ficha) {
+        return ficha.getVersion();
+    }
+
+    @Override
+    protected void fijarVersion(FichaBibliografica ficha, Long version) {
+        ficha.setVersion(version);
+    }
+
+    @Override
+    protected FichaBibliografica fusionar(FichaBibliografica original, FichaBibliografica editado,
+                                          FichaBibliografica actual, List<String> conflictos) {
+        actual.setIsbn(fusionarCampo("isbn", original.getIsbn(), editado.getIsbn(), actual.getIsbn(), conflictos));
+        actual.setClasificacionDewey(fusionarCampo("clasificacionDewey", original.getClasificacionDewey(),
+                editado.getClasificacionDewey(), actual.getClasificacionDewey(), conflictos));
+        actual.setEstanteria(fusionarCampo("estanteria", original.getEstanteria(), editado.getEstanteria(),
+                actual.getEstanteria(), conflictos));
+        actual.setIdioma(fusionarCampo("idioma", original.getIdioma(), editado.getIdioma(), actual.getIdioma(), conflictos));
+        return actual;
+    }
+
+    // Las cachés por idLIBRO e ISBN no se pueden invalidar por id de ficha
+    @Override
+    protected void invalidarCache(Long id) {
+        Caches.invalidarFichas();
     }
 
     /**
@@ -30,85 +68,124 @@ public class FichaBibliograficaService extends GenericService<FichaBibliografica
      * @param idLibro ID del Libro al que se asociará (debe existir y estar activo)
      * @return FichaBibliografica creada (con ID asignado)
      * @throws IllegalArgumentException si idLibro no existe o ficha es inválida
+     * @throws IllegalStateException si el Libro ya tiene una FichaBibliografica
      */
     public FichaBibliografica crear(Long idLibro, FichaBibliografica ficha) {
-        if (idLibro == null || idLibro <= 0) {
-            throw new IllegalArgumentException("ID de Libro invalido");
-        }
-        if (ficha == null) {
-            throw new IllegalArgumentException("La FichaBibliografica no puede ser nula");
-        }
-
-        // Validaciones de negocio
-        if (ficha.getIsbn() != null) {
-            String clean = ficha.getIsbn().replaceAll("[\\s\\-]", "");
-            if (clean.length() != 10 && clean.length() != 13) {
-                throw new IllegalArgumentException("ISBN debe tener 10 o 13 digitos");
+        return medir("crear", () -> {
+            if (idLibro == null || idLibro <= 0) {
+                throw new IllegalArgumentException("ID de Libro invalido");
             }
-            if (ficha.getIsbn().length() > 17) {
-                throw new IllegalArgumentException("ISBN excede los 17 caracteres permitidos");
+            if (ficha == null) {
+                throw new IllegalArgumentException("La FichaBibliografica no puede ser nula");
             }
-        }
-
-        Connection conn = null;
-        try {
-            conn = config.DatabaseConnection.getConnection();
-            conn.setAutoCommit(false);
 
-            // Validar que el Libro exista y esté activo
-            Libro libro = libroDao.leer(idLibro, conn);
-            if (libro == null) {
-                throw new IllegalArgumentException("No existe un Libro activo con ID: " + idLibro);
+            // Validaciones de negocio
+            if (ficha.getIsbn() != null) {
+                Isbn.validar(ficha.getIsbn());
             }
 
-            // Validar que el Libro no tenga ya una ficha
-            // Aunque la BD lo impide con UK, validamos antes para aclarar el mensaje
-            String sqlCheck = "SELECT COUNT(*) FROM FichaBibliografica WHERE idLIBRO = ? AND eliminado = FALSE";
-            try (java.sql.PreparedStatement ps = conn.prepareStatement(sqlCheck)) {
-                ps.setLong(1, idLibro);
-                try (java.sql.ResultSet rs = ps.executeQuery()) {
-                    if (rs.next() && rs.getInt(1) > 0) {
-                        throw new IllegalStateException("El Libro ya tiene una FichaBibliografica asociada");
-                    }
+            // Una sola sentencia (autocommit): el alta verifica que el Libro esté activo y el UK de
+            // idLIBRO rechaza una segunda ficha, sin lecturas previas que puedan quedar desactualizadas
+            FichaBibliografica creada;
+            try {
+                creada = conReintentos("crear", conn -> fichaDao.crearSiLibroActivo(ficha, idLibro, conn));
+            } catch (SQLException e) {
+                if (esDuplicadoIdLibro(e)) {
+                    throw new IllegalStateException("El Libro ya tiene una FichaBibliografica asociada", e);
                 }
+                String msg = extraerMensajeUsuario(e);
+                throw new RuntimeException("No se pudo crear la FichaBibliografica: " + msg, e);
             }
-
-            // Crear ficha
-            FichaBibliografica creada = fichaDao.crear(ficha, idLibro, conn);
-            conn.commit();
+            if (creada == null) {
+                throw new IllegalArgumentException("No existe un Libro activo con ID: " + idLibro);
+            }
+            Caches.invalidarFichas();
             return creada;
+        });
+    }
 
-        } catch (SQLException e) {
-            try {
-                if (conn != null) conn.rollback();
-            } catch (SQLException ex) {
-                System.err.println("Advertencia: fallo rollback anidado: " + ex.getMessage());
+    
+    // Busca una FichaBibliografica por ISBN (con o sin guiones, ISBN-10 o ISBN-13).
+    
+    public FichaBibliografica buscarPorIsbn(String isbn) {
+        return medir("buscarPorIsbn", () -> {
+            if (isbn == null || isbn.trim().isEmpty()) {
+                throw new IllegalArgumentException("ISBN no puede ser nulo o vacio");
+            }
+            String canonico = Isbn.canonico(isbn);
+            if (canonico == null) {
+                return null;
+            }
+            EntityCache<String, FichaBibliografica> porIsbn = Caches.fichasPorIsbn();
+            FichaBibliografica cacheada = porIsbn.get(canonico);
+            if (cacheada != null) {
+                return cacheada;
             }
-            String msg = extraerMensajeUsuario(e);
-            throw new RuntimeException("No se pudo crear la FichaBibliografica: " + msg, e);
-        } finally {
+            long generacion = porIsbn.generacion();
+            try (Connection conn = config.DatabaseConnection.getConnection()) {
+                FichaBibliografica ficha = fichaDao.buscarPorIsbn(canonico, conn);
+                porIsbn.put(canonico, ficha, generacion);
+                return ficha;
+            } catch (SQLException e) {
+                throw new RuntimeException("Error al buscar ficha por ISBN", e);
+            }
+        });
+    }
+
+    /**
+     * Completa la columna isbnCanonico de las fichas existentes (migración única), de a
+     * {@value #LOTE_ISBN_CANONICO} fichas con una transacción por lote.
+     *
+     * @return fichas actualizadas, con ISBN inválido y omitidas por ISBN canónico duplicado
+     */
+    public ResultadoIsbnCanonico completarIsbnCanonico() {
+        return medir("completarIsbnCanonico", () -> {
+            ResultadoIsbnCanonico resultado = new ResultadoIsbnCanonico();
+            long ultimoId = 0;
             try {
-                if (conn != null) {
-                    conn.setAutoCommit(true);
-                    conn.close();
+                while (true) {
+                    long desde = ultimoId;
+                    // Cada intento relee el lote: un reintento no repite filas ya confirmadas
+                    LoteIsbnCanonico lote = enTransaccion("completarIsbnCanonico", conn -> {
+                        Map<Long, String> pendientes = fichaDao.leerIsbnSinCanonico(desde, LOTE_ISBN_CANONICO, conn);
+                        LoteIsbnCanonico l = new LoteIsbnCanonico(pendientes);
+                        l.duplicadas = fichaDao.completarIsbnCanonico(l.canonicos, conn);
+                        return l;
+                    });
+                    resultado.sumarLote(lote.canonicos.size() - lote.duplicadas.size(), lote.invalidas, lote.duplicadas);
+                    if (lote.leidas < LOTE_ISBN_CANONICO) {
+                        break;
+                    }
+                    ultimoId = lote.ultimoId;
                 }
             } catch (SQLException e) {
-                System.err.println("Error al cerrar conexión: " + e.getMessage());
+                throw new RuntimeException("Error al completar ISBN canonico (" + resultado + ")", e);
+            } finally {
+                Caches.invalidarFichas();
             }
-        }
+            return resultado;
+        });
     }
 
-    
-    // Busca una FichaBibliografica por ISBN.
-    
-    public FichaBibliografica buscarPorIsbn(String isbn) {
-        if (isbn == null || isbn.trim().isEmpty()) {
-            throw new IllegalArgumentException("ISBN no puede ser nulo o vacio");
-        }
-        try (Connection conn = config.DatabaseConnection.getConnection()) {
-            return fichaDao.buscarPorIsbn(isbn, conn);
-        } catch (SQLException e) {
-            throw new RuntimeException("Error al buscar ficha por ISBN", e);
+    // Lote leído de la BD: ISBN canónico por ID (los inválidos sólo se cuentan)
+    private static final class LoteIsbnCanonico {
+        final Map<Long, String> canonicos = new LinkedHashMap<>();
+        final int leidas;
+        int invalidas;
+        long ultimoId;
+        List<Long> duplicadas = List.of();
+
+        LoteIsbnCanonico(Map<Long, String> pendientes) {
+            leidas = pendientes.size();
+            for (Map.Entry<Long, String> e : pendientes.entrySet()) {
+                ultimoId = e.getKey();
+                String canonico = Isbn.canonico(e.getValue());
+                if (canonico == null) {
+                    invalidas++;
+                } else {
+                    canonicos.put(e.getKey(), canonico);
+                }
+            }
         }
     }
 
@@ -123,6 +200,30 @@ public class FichaBibliograficaService extends GenericService<FichaBibliografica
         super.actualizar(ficha);
     }
 
+    // ===== Variantes asíncronas (hilos virtuales, ver EjecutorAsincrono) =====
+
+    public CompletableFuture<FichaBibliografica> crearAsync(Long idLibro, FichaBibliografica ficha) {
+        return EjecutorAsincrono.ejecutar(() -> crear(idLibro, ficha));
+    }
+
+    public CompletableFuture<FichaBibliografica> buscarPorIsbnAsync(String isbn) {
+        return EjecutorAsincrono.ejecutar(() -> buscarPorIsbn(isbn));
+    }
+
+    public CompletableFuture<FichaBibliografica> buscarPorIdLibroAsync(Long idLibro) {
+        return EjecutorAsincrono.ejecutar(() -> buscarPorIdLibro(idLibro));
+    }
+
+    public CompletableFuture<Map<Long, FichaBibliografica>> buscarPorIdsLibroAsync(Collection<Long> idsLibro) {
+        return EjecutorAsincrono.ejecutar(() -> buscarPorIdsLibro(idsLibro));
+    }
+
+    private static boolean esDuplicadoIdLibro(SQLException e) {
+        String sqlState = e.getSQLState();
+        String msg = e.getMessage() == null ? "" : e.getMessage().toLowerCase();
+        return sqlState != null && sqlState.startsWith("23") && msg.contains("duplicate entry") && msg.contains("idlibro");
+    }
+
     // ===== Helper: mensajes amigables =====
     private String extraerMensajeUsuario(SQLException e) {
         String sqlState = e.getSQLState();
@@ -140,10 +241,30 @@ public class FichaBibliograficaService extends GenericService<FichaBibliografica
     }
     
     public FichaBibliografica buscarPorIdLibro(Long idLibro) {
-    try (Connection conn = config.DatabaseConnection.getConnection()) {
-        return fichaDao.buscarPorIdLibro(idLibro, conn);
-    } catch (SQLException e) {
-        throw new RuntimeException("Error al buscar ficha por ID de Libro", e);
+        return medir("buscarPorIdLibro", () -> {
+            EntityCache<Long, FichaBibliografica> porIdLibro = Caches.fichasPorIdLibro();
+            FichaBibliografica cacheada = porIdLibro.get(idLibro);
+            if (cacheada != null) {
+                return cacheada;
+            }
+            long generacion = porIdLibro.generacion();
+            try (Connection conn = config.DatabaseConnection.getConnection()) {
+                FichaBibliografica ficha = fichaDao.buscarPorIdLibro(idLibro, conn);
+                porIdLibro.put(idLibro, ficha, generacion);
+                return ficha;
+            } catch (SQLException e) {
+                throw new RuntimeException("Error al buscar ficha por ID de Libro", e);
+            }
+        });
+    }
+
+    /**
+     * Fichas activas de varios Libros; usa la misma caché que {@link #buscarPorIdLibro}.
+     *
+     * @return fichas por ID de Libro en el orden de {@code idsLibro}; los Libros sin ficha no aparecen
+     */
+    public Map<Long, FichaBibliografica> buscarPorIdsLibro(Collection<Long> idsLibro) {
+        return medir("buscarPorIdsLibro", () -> obtenerVarios(idsLibro, Caches.fichasPorIdLibro(),
+                fichaDao::buscarPorIdsLibro, "Error al buscar fichas por IDs de Libro"));
     }
 }
-}
\ No newline at end of file
@@ -1,84 +1,381 @@
 
 package service;
 
+import dao.ConflictoVersionException;
 import dao.GenericDao;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import metricas.Metricas;
 
 public abstract class GenericService<T> {
 
+    // Lecturas + escrituras condicionadas de actualizarFusionando antes de informar el conflicto
+    private static final int INTENTOS_FUSION = 3;
+
     protected final GenericDao<T> dao;
+    protected final EntityCache<Long, T> cache;
+    // "<Servicio>.<metodo>" por método, para no concatenar en cada llamada medida
+    private final ConcurrentHashMap<String, String> operaciones = new ConcurrentHashMap<>();
 
     protected GenericService(GenericDao<T> dao) {
+        this(dao, EntityCache.deshabilitada());
+    }
+
+    protected GenericService(GenericDao<T> dao, EntityCache<Long, T> cache) {
         this.dao = dao;
+        this.cache = cache;
+    }
+
+    /**
+     * ID de la entidad, para invalidar la caché al modificarla.
+     */
+    protected abstract Long idDe(T entity);
+
+    /**
+     * Versión leída de la entidad ({@code null}: la actualización no se condiciona a la versión).
+     */
+    protected abstract Long versionDe(T entity);
+
+    protected abstract void fijarVersion(T entity, Long version);
+
+    /**
+     * Aplica sobre {@code actual} (la fila vigente, recién leída) los cambios que el usuario hizo
+     * de {@code original} a {@code editado}, campo por campo con {@link #fusionarCampo}.
+     *
+     * @return {@code actual} con los cambios aplicados
+     */
+    protected abstract T fusionar(T original, T editado, T actual, List<String> conflictos);
+
+    /**
+     * Invalida lo cacheado para la entidad con ese ID. Se invoca tras cada commit de escritura.
+     */
+    protected void invalidarCache(Long id) {
+        cache.invalidar(id);
+    }
+
+    /**
+     * Mide la llamada como operación {@code <Servicio>.<metodo>} (ver {@link Metricas}).
+     */
+    protected <R> R medir(String metodo, Supplier<R> cuerpo) {
+        if (!Metricas.habilitadas()) {
+            return cuerpo.get();
+        }
+        return Metricas.medir(nombreOperacion(metodo), cuerpo);
+    }
+
+    private String nombreOperacion(String metodo) {
+        return operaciones.computeIfAbsent(metodo, m -> getClass().getSimpleName() + "." + m);
+    }
+
+    /**
+     * Ejecuta {@code trabajo} en una transacción (con reintentos ante deadlock o lock wait timeout)
+     * medida como {@code tx <Servicio>.<metodo>}; ver {@link Transacciones}.
+     */
+    protected <R> R enTransaccion(String metodo, Transacciones.Trabajo<R> trabajo) throws SQLException {
+        return Transacciones.ejecutar(nombreOperacion(metodo), trabajo);
+    }
+
+    /**
+     * Como {@link #enTransaccion} pero en autocommit, para una sola sentencia o trabajo que confirma por su cuenta.
+     */
+    protected <R> R conReintentos(String metodo, Transacciones.Trabajo<R> trabajo) throws SQLException {
+        return Transacciones.conReintentos(nombreOperacion(metodo), trabajo);
+    }
+
+    protected void medir(String metodo, Runnable cuerpo) {
+        medir(metodo, () -> {
+            cuerpo.run();
+            return null;
+        });
     }
 
     public T crear(T entity) throws RuntimeException {
-        try (Connection conn = config.DatabaseConnection.getConnection()) {
-            conn.setAutoCommit(false);
+        return medir("crear", () -> {
             try {
-                T result = dao.crear(entity, conn);
-                conn.commit();
-                return result;
+                return enTransaccion("crear", conn -> dao.crear(entity, conn));
             } catch (SQLException e) {
-                conn.rollback();
                 throw new RuntimeException("Error al crear entidad: " + e.getMessage(), e);
-            } finally {
-                conn.setAutoCommit(true);
             }
-        } catch (SQLException e) {
-            throw new RuntimeException("Error de conexion al crear entidad", e);
-        }
+        });
     }
 
     public T obtenerPorId(Long id) {
-        try (Connection conn = config.DatabaseConnection.getConnection()) {
-            return dao.leer(id, conn);
-        } catch (SQLException e) {
-            throw new RuntimeException("Error al obtener por ID", e);
+        return medir("obtenerPorId", () -> {
+            T cacheada = cache.get(id);
+            if (cacheada != null) {
+                return cacheada;
+            }
+            long generacion = cache.generacion();
+            try (Connection conn = config.DatabaseConnection.getConnection()) {
+                T entity = dao.leer(id, conn);
+                cache.put(id, entity, generacion);
+                return entity;
+            } catch (SQLException e) {
+                throw new RuntimeException("Error al obtener por ID", e);
+            }
+        });
+    }
+
+    /**
+     * Obtiene varias entidades activas por ID: las cacheadas se sirven de la caché y el resto se lee
+     * con consultas {@code IN (...)} en bloques, en una sola conexión.
+     *
+     * @return entidades por ID en el orden de {@code ids}; los IDs inexistentes no aparecen
+     */
+    public Map<Long, T> obtenerPorIds(Collection<Long> ids) {
+        return medir("obtenerPorIds", () -> obtenerVarios(ids, cache, dao::leerPorIds,
+                "Error al obtener por IDs"));
+    }
+
+    /**
+     * Lectura de varias entidades por clave (ver {@link #obtenerVarios}).
+     */
+    @FunctionalInterface
+    protected interface LecturaPorClaves<V> {
+        Map<Long, V> leer(Collection<Long> claves, Connection conn) throws SQLException;
+    }
+
+    /**
+     * Multi-get con caché: sirve los aciertos de {@code cache} y resuelve los faltantes con una
+     * única llamada a {@code lectura}, guardando lo leído con la generación tomada antes de leer.
+     *
+     * @return valores por clave en el orden de {@code claves} (sin nulos ni repetidos)
+     */
+    protected static <V> Map<Long, V> obtenerVarios(Collection<Long> claves, EntityCache<Long, V> cache,
+                                                   LecturaPorClaves<V> lectura, String mensajeError) {
+        if (claves == null) {
+            throw new IllegalArgumentException("La lista de IDs no puede ser nula");
+        }
+        Map<Long, V> resultado = new LinkedHashMap<>();
+        List<Long> faltantes = new ArrayList<>();
+        for (Long clave : claves) {
+            if (clave == null || resultado.containsKey(clave)) {
+                continue;
+            }
+            V cacheado = cache.get(clave);
+            resultado.put(clave, cacheado);
+            if (cacheado == null) {
+                faltantes.add(clave);
+            }
         }
+        if (!faltantes.isEmpty()) {
+            long generacion = cache.generacion();
+            try (Connection conn = config.DatabaseConnection.getConnection()) {
+                Map<Long, V> leidos = lectura.leer(faltantes, conn);
+                for (Long clave : faltantes) {
+                    V valor = leidos.get(clave);
+                    if (valor == null) {
+                        resultado.remove(clave);
+                    } else {
+                        resultado.put(clave, valor);
+                        cache.put(clave, valor, generacion);
+                    }
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException(mensajeError, e);
+            }
+        }
+        return resultado;
     }
 
     public List<T> listarTodos() {
-        try (Connection conn = config.DatabaseConnection.getConnection()) {
-            return dao.leerTodos(conn);
-        } catch (SQLException e) {
-            throw new RuntimeException("Error al listar todas las entidades", e);
-        }
+        return medir("listarTodos", () -> {
+            try (Connection conn = config.DatabaseConnection.getConnection()) {
+                return dao.leerTodos(conn);
+            } catch (SQLException e) {
+                throw new RuntimeException("Error al listar todas las entidades", e);
+            }
+        });
     }
 
-    public void actualizar(T entity) {
-        try (Connection conn = config.DatabaseConnection.getConnection()) {
-            conn.setAutoCommit(false);
-            try {
-                dao.actualizar(entity, conn);
-                conn.commit();
+    /**
+     * Recorre todas las entidades activas en memoria constante (streaming desde la BD).
+     * La conexión queda ocupada hasta terminar el recorrido.
+     *
+     * @return cantidad de entidades recorridas
+     */
+    public long recorrerTodos(Consumer<? super T> consumidor) {
+        return medir("recorrerTodos", () -> {
+            if (consumidor == null) {
+                throw new IllegalArgumentException("El consumidor no puede ser nulo");
+            }
+            try (Connection conn = config.DatabaseConnection.getConnection()) {
+                conn.setReadOnly(true);
+                return dao.recorrerTodos(conn, consumidor);
             } catch (SQLException e) {
-                conn.rollback();
-                throw new RuntimeException("Error al actualizar entidad", e);
-            } finally {
-                conn.setAutoCommit(true);
+                throw new RuntimeException("Error al recorrer las entidades", e);
             }
+        });
+    }
+
+    /**
+     * Actualiza la entidad, sólo si nadie la modificó desde que se leyó: debe traer la versión leída
+     * (obtenerla con {@link #obtenerPorId} antes de modificarla).
+     *
+     * @throws ConflictoConcurrenciaException si otra operación la modificó antes
+     * @throws IllegalArgumentException si la entidad no tiene versión
+     */
+    public void actualizar(T entity) {
+        medir("actualizar", () -> actualizarVersionado("actualizar", entity, "Error al actualizar entidad", conn -> {
+            dao.actualizar(entity, conn);
+            return null;
+        }));
+    }
+
+    /**
+     * Ejecuta {@code trabajo} (que actualiza {@code entity}) en una transacción e invalida la caché al
+     * confirmar. Si no confirma, la versión de la entidad vuelve a la leída, también antes de cada
+     * reintento, para no quedar adelantada respecto de la BD.
+     *
+     * @throws ConflictoConcurrenciaException si la escritura condicionada a la versión no se aplicó
+     * @throws IllegalArgumentException si la entidad no tiene versión: sin ella el DAO escribiría
+     *         sin condición y pisaría cambios ajenos
+     */
+    protected void actualizarVersionado(String metodo, T entity, String mensajeError, Transacciones.Trabajo<?> trabajo) {
+        Long version = entity == null ? null : versionDe(entity);
+        if (version == null) {
+            throw new IllegalArgumentException("Se requiere la entidad con la version leida (ver obtenerPorId) para actualizarla");
+        }
+        boolean confirmada = false;
+        try {
+            enTransaccion(metodo, conn -> {
+                fijarVersion(entity, version);
+                return trabajo.ejecutar(conn);
+            });
+            confirmada = true;
+        } catch (ConflictoVersionException e) {
+            throw new ConflictoConcurrenciaException(e);
         } catch (SQLException e) {
-            throw new RuntimeException("Error de conexion al actualizar", e);
+            throw new RuntimeException(mensajeError, e);
+        } finally {
+            if (!confirmada) {
+                fijarVersion(entity, version);
+            }
+        }
+        invalidarCache(idDe(entity));
+    }
+
+    /**
+     * Actualización con fusión para cuando {@link #actualizar} informó un conflicto: relee la fila
+     * vigente, le aplica los cambios del usuario ({@code original} → {@code editado}) y la escribe
+     * condicionada a la versión releída, repitiendo si otra operación se interpone entre la lectura
+     * y la escritura. {@code original} y {@code editado} no se modifican.
+     *
+     * @param original la entidad tal como se leyó antes de editarla
+     * @param editado la misma entidad con los cambios del usuario
+     * @return la entidad guardada (valores fusionados y versión nueva)
+     * @throws ConflictoConcurrenciaException si ambos cambiaron un mismo campo con valores distintos
+     *         (ver getCamposEnConflicto()) o si la fila cambió en cada intento
+     * @throws IllegalArgumentException si la entidad ya no existe o fue eliminada
+     */
+    public T actualizarFusionando(T original, T editado) {
+        return medir("actualizarFusionando", () -> {
+            if (original == null || editado == null || idDe(editado) == null
+                    || !idDe(editado).equals(idDe(original))) {
+                throw new IllegalArgumentException("Se requieren la entidad original y la editada, con el mismo ID");
+            }
+            Long id = idDe(editado);
+            for (int intento = 1; ; intento++) {
+                try {
+                    T guardada = enTransaccion("actualizarFusionando", conn -> {
+                        T actual = dao.leer(id, conn);
+                        if (actual == null) {
+                            throw new IllegalArgumentException("No existe una entidad activa con ID: " + id);
+                        }
+                        List<String> conflictos = new ArrayList<>();
+                        T fusionada = fusionar(original, editado, actual, conflictos);
+                        if (!conflictos.isEmpty()) {
+                            throw new ConflictoConcurrenciaException(actual.getClass().getSimpleName(), id, conflictos);
+                        }
+                        dao.actualizar(fusionada, conn);
+                        return fusionada;
+                    });
+                    invalidarCache(id);
+                    return guardada;
+                } catch (ConflictoVersionException e) {
+                    if (intento >= INTENTOS_FUSION) {
+                        throw new ConflictoConcurrenciaException(e);
+                    }
+                } catch (SQLException e) {
+                    throw new RuntimeException("Error al actualizar entidad", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Fusión de un campo: si el usuario no lo cambió queda el vigente; si lo cambió y el vigente
+     * sigue como se leyó (o ya tiene ese mismo valor), gana el del usuario; si los dos lo cambiaron
+     * con valores distintos se anota en {@code conflictos}.
+     */
+    protected static <V> V fusionarCampo(String campo, V original, V editado, V actual, List<String> conflictos) {
+        if (Objects.equals(editado, original)) {
+            return actual;
+        }
+        if (!Objects.equals(actual, original) && !Objects.equals(actual, editado)) {
+            conflictos.add(campo);
         }
+        return editado;
     }
 
     public void eliminarLogico(Long id) {
-        try (Connection conn = config.DatabaseConnection.getConnection()) {
-            conn.setAutoCommit(false);
+        medir("eliminarLogico", () -> {
             try {
-                dao.eliminar(id, conn);
-                conn.commit();
+                enTransaccion("eliminarLogico", conn -> {
+                    dao.eliminar(id, conn);
+                    return null;
+                });
             } catch (SQLException e) {
-                conn.rollback();
                 throw new RuntimeException("Error al eliminar logicamente", e);
-            } finally {
-                conn.setAutoCommit(true);
             }
-        } catch (SQLException e) {
-            throw new RuntimeException("Error de conexion al eliminar", e);
-        }
+            invalidarCache(id);
+        });
+    }
+
+    // ===== Variantes asíncronas (hilos virtuales, ver EjecutorAsincrono) =====
+
+    public CompletableFuture<T> crearAsync(T entity) {
+        return EjecutorAsincrono.ejecutar(() -> crear(entity));
+    }
+
+    public CompletableFuture<T> obtenerPorIdAsync(Long id) {
+        return EjecutorAsincrono.ejecutar(() -> obtenerPorId(id));
+    }
+
+    public CompletableFuture<Map<Long, T>> obtenerPorIdsAsync(Collection<Long> ids) {
+        return EjecutorAsincrono.ejecutar(() -> obtenerPorIds(ids));
+    }
+
+    public CompletableFuture<List<T>> listarTodosAsync() {
+        return EjecutorAsincrono.ejecutar(this::listarTodos);
+    }
+
+    /**
+     * El consumidor se invoca desde el hilo virtual que hace el recorrido.
+     */
+    public CompletableFuture<Long> recorrerTodosAsync(Consumer<? super T> consumidor) {
+        return EjecutorAsincrono.ejecutar(() -> recorrerTodos(consumidor));
+    }
+
+    public CompletableFuture<Void> actualizarAsync(T entity) {
+        return EjecutorAsincrono.ejecutar(() -> actualizar(entity));
+    }
+
+    public CompletableFuture<T> actualizarFusionandoAsync(T original, T editado) {
+        return EjecutorAsincrono.ejecutar(() -> actualizarFusionando(original, editado));
+    }
+
+    public CompletableFuture<Void> eliminarLogicoAsync(Long id) {
+        return EjecutorAsincrono.ejecutar(() -> eliminarLogico(id));
     }
-}
\ No newline at end of file
+}
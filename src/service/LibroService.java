@@ -1,14 +1,28 @@
 
 package service;
 import dao.LibroDao;
+import dao.Daos;
 import dao.FichaBibliograficaDao;
 import entities.Libro;
 import entities.FichaBibliografica;
+import entities.Isbn;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.sql.Savepoint;
 
 
 public class LibroService extends GenericService<Libro> {
@@ -17,9 +31,35 @@ public class LibroService extends GenericService<Libro> {
     private final FichaBibliograficaDao fichaDao;
 
     public LibroService() {
-        super(new LibroDao());
+        super(Daos.libroDao(), Caches.libros());
         this.libroDao = (LibroDao) super.dao;
-        this.fichaDao = new FichaBibliograficaDao();
+        this.fichaDao = Daos.fichaDao();
+    }
+
+    @Override
+    protected Long idDe(Libro libro) {
+        return libro.getId();
+    }
+
+    @Override
+    protected Long versionDe(Libro libro) {
+        return libro.getVersion();
+    }
+
+    @Override
+    protected void fijarVersion(Libro libro, Long version) {
+        libro.setVersion(version);
+    }
+
+    @Override
+    protected Libro fusionar(Libro original, Libro editado, Libro actual, List<String> conflictos) {
+        actual.setTitulo(fusionarCampo("titulo", original.getTitulo(), editado.getTitulo(), actual.getTitulo(), conflictos));
+        actual.setAutor(fusionarCampo("autor", original.getAutor(), editado.getAutor(), actual.getAutor(), conflictos));
+        actual.setEditorial(fusionarCampo("editorial", original.getEditorial(), editado.getEditorial(),
+                actual.getEditorial(), conflictos));
+        actual.setAnioEdicion(fusionarCampo("anioEdicion", original.getAnioEdicion(), editado.getAnioEdicion(),
+                actual.getAnioEdicion(), conflictos));
+        return actual;
     }
 
     /**
@@ -29,73 +69,614 @@ public class LibroService extends GenericService<Libro> {
      * @throws RuntimeException si ocurre error en BD (ej. ISBN duplicado)
      */
     public void crearLibroConFicha(Libro libro, FichaBibliografica ficha) {
-        if (libro == null) {
-            throw new IllegalArgumentException("El Libro no puede ser nulo");
+        medir("crearLibroConFicha", () -> {
+            if (libro == null) {
+                throw new IllegalArgumentException("El Libro no puede ser nulo");
+            }
+            if (ficha == null) {
+                throw new IllegalArgumentException("La Ficha Bibliografica no puede ser nula");
+            }
+            if (libro.getFichaBibliografica() != null) {
+                throw new IllegalStateException("El Libro ya tiene una Ficha Bibliografica");
+            }
+
+            // Validaciones de negocio (anticipadas, aunque BD también valida)
+            libro.getTitulo(); // dispara validación en setter si no fue hecha antes
+            libro.getAutor();
+            if (ficha.getIsbn() != null) {
+                // El setter valida la forma; para altas nuevas se exige además el digito verificador
+                Isbn.validar(ficha.getIsbn());
+            }
+
+            try {
+                enTransaccion("crearLibroConFicha", conn -> {
+                    // 1. Crear Libro → obtenemos ID generado
+                    libroDao.crear(libro, conn);
+
+                    // 2. Crear FichaBibliografica usando el ID del Libro recién creado
+                    fichaDao.crear(ficha, libro.getId(), conn);
+                    return null;
+                });
+            } catch (SQLException e) {
+                // Mensaje amigable para AppMenu
+                String msg = extraerMensajeUsuario(e);
+                throw new RuntimeException("No se pudo crear Libro con Ficha: " + msg, e);
+            }
+
+            // 3. Sincronizar en memoria (recién confirmada: un reintento no la asocia dos veces)
+            libro.setFichaBibliografica(ficha);
+            invalidarCache(libro.getId());
+            Caches.fichasPorIdLibro().invalidar(libro.getId());
+        });
+    }
+
+    /**
+     * Carga masiva de pares Libro + FichaBibliografica.
+     * Inserta con JDBC batch en lotes de {@code tamanioLote} filas y confirma una vez por lote.
+     * Si un lote falla (ej. ISBN duplicado en la BD) se reintenta fila por fila con savepoints,
+     * de modo que sólo se rechazan las filas con error y el resto de la carga continúa.
+     *
+     * @param pares Libro y su Ficha (ninguno con ID asignado)
+     * @param tamanioLote filas por lote/commit (mayor a 0)
+     * @return conteo de insertados y detalle de filas rechazadas
+     */
+    public ResultadoLote crearLibrosConFichaEnLote(Iterator<Map.Entry<Libro, FichaBibliografica>> pares, int tamanioLote) {
+        return crearLibrosConFichaEnLote(pares, tamanioLote, null);
+    }
+
+    /**
+     * Igual que {@link #crearLibrosConFichaEnLote(Iterator, int)}, entregando cada fila rechazada a
+     * {@code destinoRechazos} en lugar de acumularla en el resultado (cargas de tamaño arbitrario).
+     */
+    public ResultadoLote crearLibrosConFichaEnLote(Iterator<Map.Entry<Libro, FichaBibliografica>> pares, int tamanioLote,
+                                                   Consumer<ResultadoLote.FilaRechazada> destinoRechazos) {
+        return medir("crearLibrosConFichaEnLote", () -> {
+            if (pares == null) {
+                throw new IllegalArgumentException("Los pares Libro/Ficha no pueden ser nulos");
+            }
+            if (tamanioLote <= 0) {
+                throw new IllegalArgumentException("El tamanio de lote debe ser mayor a 0");
+            }
+
+            long inicio = System.nanoTime();
+            ResultadoLote resultado = new ResultadoLote(destinoRechazos);
+            List<Libro> libros = new ArrayList<>(tamanioLote);
+            List<FichaBibliografica> fichas = new ArrayList<>(tamanioLote);
+            List<Integer> indices = new ArrayList<>(tamanioLote);
+            Set<String> isbnsDelLote = new HashSet<>();
+            int indice = 0;
+
+            while (pares.hasNext()) {
+                Map.Entry<Libro, FichaBibliografica> par = pares.next();
+                int actual = indice++;
+                resultado.sumarProcesados(1);
+
+                String error = validarParaLote(par);
+                String isbn = error == null ? Isbn.canonico(par.getValue().getIsbn()) : null;
+                if (isbn != null && !isbnsDelLote.add(isbn)) {
+                    error = "ISBN repetido dentro del mismo lote";
+                }
+                if (error != null) {
+                    resultado.rechazar(actual, error);
+                    continue;
+                }
+
+                libros.add(par.getKey());
+                fichas.add(par.getValue());
+                indices.add(actual);
+                if (libros.size() == tamanioLote) {
+                    insertarLote(libros, fichas, indices, resultado);
+                    libros.clear();
+                    fichas.clear();
+                    indices.clear();
+                    isbnsDelLote.clear();
+                }
+            }
+            if (!libros.isEmpty()) {
+                insertarLote(libros, fichas, indices, resultado);
+            }
+
+            resultado.setNanosTranscurridos(System.nanoTime() - inicio);
+            return resultado;
+        });
+    }
+
+    public ResultadoLote crearLibrosConFichaEnLote(Iterable<Map.Entry<Libro, FichaBibliografica>> pares, int tamanioLote) {
+        if (pares == null) {
+            throw new IllegalArgumentException("Los pares Libro/Ficha no pueden ser nulos");
         }
+        return crearLibrosConFichaEnLote(pares.iterator(), tamanioLote);
+    }
+
+    // Mismas reglas que crearLibroConFicha, devueltas como mensaje en lugar de excepción
+    private String validarParaLote(Map.Entry<Libro, FichaBibliografica> par) {
+        if (par == null || par.getKey() == null) {
+            return "El Libro no puede ser nulo";
+        }
+        Libro libro = par.getKey();
+        FichaBibliografica ficha = par.getValue();
         if (ficha == null) {
-            throw new IllegalArgumentException("La Ficha Bibliografica no puede ser nula");
+            return "La Ficha Bibliografica no puede ser nula";
         }
-        if (libro.getFichaBibliografica() != null) {
-            throw new IllegalStateException("El Libro ya tiene una Ficha Bibliografica");
+        if (libro.getId() != null || libro.getFichaBibliografica() != null) {
+            return "El Libro ya fue creado o ya tiene una Ficha Bibliografica";
+        }
+        if (libro.getTitulo() == null || libro.getAutor() == null) {
+            return "Titulo y autor son obligatorios";
         }
-
-        // Validaciones de negocio (anticipadas, aunque BD también valida)
-        libro.getTitulo(); // dispara validación en setter si no fue hecha antes
-        libro.getAutor();
         if (ficha.getIsbn() != null) {
-            // Validacion basica de ISBN: longitud ≤17 (la fuerte está en FichaBibliografica.setIsbn)
-            if (ficha.getIsbn().length() > 17) {
-                throw new IllegalArgumentException("ISBN excede los 17 caracteres permitidos");
+            try {
+                Isbn.validar(ficha.getIsbn());
+            } catch (IllegalArgumentException e) {
+                return e.getMessage();
             }
         }
+        return null;
+    }
 
-        Connection conn = null;
+    private void insertarLote(List<Libro> libros, List<FichaBibliografica> fichas, List<Integer> indices,
+                              ResultadoLote resultado) {
         try {
-            conn = config.DatabaseConnection.getConnection();
-            conn.setAutoCommit(false);
+            enTransaccion("crearLibrosConFichaEnLote", conn -> {
+                libroDao.crearLote(libros, conn);
+                List<Long> idsLibro = new ArrayList<>(libros.size());
+                for (Libro libro : libros) {
+                    idsLibro.add(libro.getId());
+                }
+                fichaDao.crearLote(fichas, idsLibro, conn);
+                return null;
+            });
+            for (int i = 0; i < libros.size(); i++) {
+                libros.get(i).setFichaBibliografica(fichas.get(i));
+            }
+            resultado.sumarInsertados(libros.size());
+        } catch (SQLException e) {
+            insertarFilaPorFila(libros, fichas, indices, resultado);
+        }
+    }
 
-            // 1. Crear Libro → obtenemos ID generado
-            libroDao.crear(libro, conn);
+    // Reintento de un lote fallido: cada fila en su savepoint, un solo commit al final
+    private void insertarFilaPorFila(List<Libro> libros, List<FichaBibliografica> fichas, List<Integer> indices,
+                                     ResultadoLote resultado) {
+        Map<Integer, String> rechazadas;
+        try {
+            rechazadas = enTransaccion("insertarFilaPorFila", conn -> insertarConSavepoints(libros, fichas, conn));
+        } catch (SQLException e) {
+            for (int i = 0; i < libros.size(); i++) {
+                libros.get(i).setId(null);
+                fichas.get(i).setId(null);
+                resultado.rechazar(indices.get(i), extraerMensajeUsuario(e));
+            }
+            return;
+        }
+        for (int i = 0; i < libros.size(); i++) {
+            String motivo = rechazadas.get(i);
+            if (motivo != null) {
+                resultado.rechazar(indices.get(i), motivo);
+            } else {
+                libros.get(i).setFichaBibliografica(fichas.get(i));
+            }
+        }
+        resultado.sumarInsertados(libros.size() - rechazadas.size());
+    }
 
-            // 2. Crear FichaBibliografica usando el ID del Libro recién creado
-            fichaDao.crear(ficha, libro.getId(), conn);
+    /**
+     * @return motivo por posición de cada fila rechazada (las demás quedan insertadas, sin confirmar)
+     */
+    private Map<Integer, String> insertarConSavepoints(List<Libro> libros, List<FichaBibliografica> fichas,
+                                                       Connection conn) throws SQLException {
+        Map<Integer, String> rechazadas = new HashMap<>();
+        for (int i = 0; i < libros.size(); i++) {
+            Libro libro = libros.get(i);
+            FichaBibliografica ficha = fichas.get(i);
+            libro.setId(null);
+            ficha.setId(null);
+            Savepoint sp = conn.setSavepoint();
+            try {
+                libroDao.crear(libro, conn);
+                fichaDao.crear(ficha, libro.getId(), conn);
+                conn.releaseSavepoint(sp);
+            } catch (SQLException e) {
+                if (Transacciones.esTransitorio(e)) {
+                    // Un deadlock deshace toda la transacción, pero un lock wait timeout (1205) sólo la
+                    // sentencia: se deshace todo antes de que Transacciones la repita completa
+                    try {
+                        conn.rollback();
+                    } catch (SQLException ex) {
+                        e.addSuppressed(ex);
+                    }
+                    throw e;
+                }
+                conn.rollback(sp);
+                libro.setId(null);
+                ficha.setId(null);
+                rechazadas.put(i, extraerMensajeUsuario(e));
+            }
+        }
+        return rechazadas;
+    }
 
-            // 3. Sincronizar en memoria (opcional, pero útil para AppMenu)
-            libro.setFichaBibliografica(ficha);
+    /**
+     * Sincronización idempotente de un catálogo por ISBN (re-importar el mismo archivo no cambia nada).
+     * Los pares cuyo ISBN no existe se insertan como en {@link #crearLibrosConFichaEnLote}; los que ya
+     * existen reciben titulo, autor, editorial, anioEdicion y estanteria del archivo (incluso vacíos)
+     * sólo si alguno cambió. Por lote: una consulta {@code IN} por los ISBN, las altas en batch, los
+     * cambios en batch con {@code UPDATE ... WHERE id = ? AND version = ?} (versión leída) y un commit.
+     * Una fila cuyo Libro o Ficha se eliminó o modificó entre la lectura y la escritura se rechaza (sin
+     * escribir nada de ella); si el lote falla por otro motivo se rechazan todas sus filas.
+     *
+     * @param pares Libro y su Ficha (ninguno con ID asignado; la Ficha con ISBN)
+     * @param tamanioLote filas por lote/commit (mayor a 0)
+     * @return insertados, actualizados, sin cambios y filas rechazadas
+     */
+    public ResultadoLote sincronizarPorIsbnEnLote(Iterator<Map.Entry<Libro, FichaBibliografica>> pares, int tamanioLote) {
+        return sincronizarPorIsbnEnLote(pares, tamanioLote, null);
+    }
+
+    /**
+     * Igual que {@link #sincronizarPorIsbnEnLote(Iterator, int)}, entregando cada fila rechazada a
+     * {@code destinoRechazos} en lugar de acumularla en el resultado.
+     */
+    public ResultadoLote sincronizarPorIsbnEnLote(Iterator<Map.Entry<Libro, FichaBibliografica>> pares, int tamanioLote,
+                                                  Consumer<ResultadoLote.FilaRechazada> destinoRechazos) {
+        return medir("sincronizarPorIsbnEnLote", () -> {
+            if (pares == null) {
+                throw new IllegalArgumentException("Los pares Libro/Ficha no pueden ser nulos");
+            }
+            if (tamanioLote <= 0) {
+                throw new IllegalArgumentException("El tamanio de lote debe ser mayor a 0");
+            }
+
+            long inicio = System.nanoTime();
+            ResultadoLote resultado = new ResultadoLote(destinoRechazos);
+            List<Libro> libros = new ArrayList<>(tamanioLote);
+            List<FichaBibliografica> fichas = new ArrayList<>(tamanioLote);
+            List<Integer> indices = new ArrayList<>(tamanioLote);
+            Map<String, Integer> isbnsDelLote = new LinkedHashMap<>();
+            int indice = 0;
+
+            while (pares.hasNext()) {
+                Map.Entry<Libro, FichaBibliografica> par = pares.next();
+                int actual = indice++;
+                resultado.sumarProcesados(1);
 
-            // 4. Confirmar
-            conn.commit();
+                String error = validarParaLote(par);
+                if (error == null && par.getValue().getIsbn() == null) {
+                    error = "El ISBN es obligatorio para sincronizar";
+                }
+                if (error == null && isbnsDelLote.putIfAbsent(Isbn.canonico(par.getValue().getIsbn()), libros.size()) != null) {
+                    error = "ISBN repetido dentro del mismo lote";
+                }
+                if (error != null) {
+                    resultado.rechazar(actual, error);
+                    continue;
+                }
+
+                libros.add(par.getKey());
+                fichas.add(par.getValue());
+                indices.add(actual);
+                if (libros.size() == tamanioLote) {
+                    sincronizarLote(libros, fichas, indices, new ArrayList<>(isbnsDelLote.keySet()), resultado);
+                    libros.clear();
+                    fichas.clear();
+                    indices.clear();
+                    isbnsDelLote.clear();
+                }
+            }
+            if (!libros.isEmpty()) {
+                sincronizarLote(libros, fichas, indices, new ArrayList<>(isbnsDelLote.keySet()), resultado);
+            }
 
+            resultado.setNanosTranscurridos(System.nanoTime() - inicio);
+            return resultado;
+        });
+    }
+
+    public ResultadoLote sincronizarPorIsbnEnLote(Iterable<Map.Entry<Libro, FichaBibliografica>> pares, int tamanioLote) {
+        if (pares == null) {
+            throw new IllegalArgumentException("Los pares Libro/Ficha no pueden ser nulos");
+        }
+        return sincronizarPorIsbnEnLote(pares.iterator(), tamanioLote);
+    }
+
+    // isbns.get(i) es el ISBN canónico de fichas.get(i)
+    private void sincronizarLote(List<Libro> libros, List<FichaBibliografica> fichas, List<Integer> indices,
+                                 List<String> isbns, ResultadoLote resultado) {
+        PlanSincronizacion plan;
+        try {
+            plan = enTransaccion("sincronizarPorIsbnEnLote", conn -> {
+                PlanSincronizacion p = clasificar(libros, fichas, indices, libroDao.leerConFichaPorIsbns(isbns, conn));
+                libroDao.crearLote(p.nuevosLibros, conn);
+                List<Long> idsLibro = new ArrayList<>(p.nuevosLibros.size());
+                for (Libro libro : p.nuevosLibros) {
+                    idsLibro.add(libro.getId());
+                }
+                fichaDao.crearLote(p.nuevasFichas, idsLibro, conn);
+                escribirCambios(p, conn);
+                return p;
+            });
         } catch (SQLException e) {
-            try {
-                if (conn != null) conn.rollback();
-            } catch (SQLException ex) {
-                // Log interno (no se lanza)
-                System.err.println("Advertencia: fallo rollback anidado: " + ex.getMessage());
-            }
-            // Mensaje amigable para AppMenu
-            String msg = extraerMensajeUsuario(e);
-            throw new RuntimeException("No se pudo crear Libro con Ficha: " + msg, e);
-        } finally {
-            try {
-                if (conn != null) {
-                    conn.setAutoCommit(true);
-                    conn.close();
+            String motivo = extraerMensajeUsuario(e);
+            for (int i = 0; i < libros.size(); i++) {
+                libros.get(i).setId(null);
+                fichas.get(i).setId(null);
+                resultado.rechazar(indices.get(i), motivo);
+            }
+            return;
+        }
+
+        for (int i = 0; i < plan.nuevosLibros.size(); i++) {
+            plan.nuevosLibros.get(i).setFichaBibliografica(plan.nuevasFichas.get(i));
+        }
+        resultado.sumarInsertados(plan.nuevosLibros.size());
+        plan.rechazadas.forEach(resultado::rechazar);
+        resultado.sumarSinCambios(plan.sinCambios);
+        resultado.sumarActualizados(plan.cambios.size());
+        boolean fichasCambiadas = false;
+        for (CambioSincronizacion cambio : plan.cambios) {
+            if (cambio.libro != null) {
+                invalidarCache(cambio.libro.getId());
+            }
+            fichasCambiadas |= cambio.ficha != null;
+        }
+        if (fichasCambiadas) {
+            Caches.invalidarFichas();
+        }
+    }
+
+    // Separa el lote en altas, cambios y filas sin cambios según lo que ya existe para cada ISBN
+    private PlanSincronizacion clasificar(List<Libro> libros, List<FichaBibliografica> fichas, List<Integer> indices,
+                                          Map<String, Libro> existentesPorIsbn) {
+        PlanSincronizacion plan = new PlanSincronizacion();
+        for (int i = 0; i < libros.size(); i++) {
+            Libro libro = libros.get(i);
+            FichaBibliografica ficha = fichas.get(i);
+            Libro existente = existentesPorIsbn.get(Isbn.canonico(ficha.getIsbn()));
+            if (existente == null) {
+                libro.setId(null);
+                ficha.setId(null);
+                plan.nuevosLibros.add(libro);
+                plan.nuevasFichas.add(ficha);
+                continue;
+            }
+            FichaBibliografica fichaExistente = existente.getFichaBibliografica();
+            if (existente.getEliminado() || fichaExistente.getEliminado()) {
+                plan.rechazadas.put(indices.get(i), "El ISBN pertenece a un Libro o Ficha eliminado");
+                continue;
+            }
+            boolean libroCambio = !Objects.equals(libro.getTitulo(), existente.getTitulo())
+                    || !Objects.equals(libro.getAutor(), existente.getAutor())
+                    || !Objects.equals(libro.getEditorial(), existente.getEditorial())
+                    || !Objects.equals(libro.getAnioEdicion(), existente.getAnioEdicion());
+            boolean fichaCambio = !Objects.equals(ficha.getEstanteria(), fichaExistente.getEstanteria());
+            libro.setId(existente.getId());
+            libro.setVersion(existente.getVersion());
+            ficha.setId(fichaExistente.getId());
+            if (!libroCambio && !fichaCambio) {
+                plan.sinCambios++;
+                continue;
+            }
+            // Se conserva el resto de la ficha guardada (ISBN tal como se escribió, Dewey, idioma)
+            fichaExistente.setEstanteria(ficha.getEstanteria());
+            plan.cambios.add(new CambioSincronizacion(indices.get(i), libroCambio ? libro : null,
+                    fichaCambio ? fichaExistente : null));
+        }
+        return plan;
+    }
+
+    /*
+     * Escribe los cambios con la versión leída. Si alguna fila se eliminó o modificó desde la lectura se
+     * vuelve al savepoint (deshaciendo también la otra mitad de esa fila), se rechaza y se repite sin ella.
+     */
+    private void escribirCambios(PlanSincronizacion plan, Connection conn) throws SQLException {
+        while (!plan.cambios.isEmpty()) {
+            List<Libro> libros = new ArrayList<>();
+            List<FichaBibliografica> fichas = new ArrayList<>();
+            for (CambioSincronizacion cambio : plan.cambios) {
+                if (cambio.libro != null) {
+                    libros.add(cambio.libro);
                 }
-            } catch (SQLException e) {
-                System.err.println("Error al cerrar conexion: " + e.getMessage());
+                if (cambio.ficha != null) {
+                    fichas.add(cambio.ficha);
+                }
+            }
+            Savepoint sp = conn.setSavepoint();
+            Set<Long> librosEnConflicto = new HashSet<>(libroDao.actualizarLoteSiVersion(libros, conn));
+            Set<Long> fichasEnConflicto = new HashSet<>(fichaDao.actualizarEstanteriaLoteSiVersion(fichas, conn));
+            if (librosEnConflicto.isEmpty() && fichasEnConflicto.isEmpty()) {
+                conn.releaseSavepoint(sp);
+                for (Libro libro : libros) {
+                    libro.setVersion(libro.getVersion() + 1);
+                }
+                return;
             }
+            conn.rollback(sp);
+            plan.cambios.removeIf(cambio -> {
+                boolean conflicto = (cambio.libro != null && librosEnConflicto.contains(cambio.libro.getId()))
+                        || (cambio.ficha != null && fichasEnConflicto.contains(cambio.ficha.getId()));
+                if (conflicto) {
+                    plan.rechazadas.put(cambio.indice, "El Libro o su Ficha fue modificado o eliminado por otra operacion; vuelva a sincronizar");
+                }
+                return conflicto;
+            });
+        }
+    }
+
+    // Clasificación de un lote de sincronización; se recalcula en cada intento de la transacción
+    private static final class PlanSincronizacion {
+        final List<Libro> nuevosLibros = new ArrayList<>();
+        final List<FichaBibliografica> nuevasFichas = new ArrayList<>();
+        final List<CambioSincronizacion> cambios = new ArrayList<>();
+        final Map<Integer, String> rechazadas = new LinkedHashMap<>();
+        int sinCambios;
+    }
+
+    // Fila existente con cambios: el Libro y/o la Ficha a reescribir (null si esa parte no cambió)
+    private static final class CambioSincronizacion {
+        final int indice;
+        final Libro libro;
+        final FichaBibliografica ficha;
+
+        CambioSincronizacion(int indice, Libro libro, FichaBibliografica ficha) {
+            this.indice = indice;
+            this.libro = libro;
+            this.ficha = ficha;
         }
     }
 
     /**
-     * Busca Libros por título (insensible a mayúsculas, %patrón%).
+     * Busca Libros cuyo título contiene el texto (insensible a mayúsculas y acentos, índice FULLTEXT).
      */
     public List<Libro> buscarPorTitulo(String titulo) {
-        try (Connection conn = config.DatabaseConnection.getConnection()) {
-            return libroDao.buscarPorTitulo(titulo, conn);
-        } catch (SQLException e) {
-            throw new RuntimeException("Error al buscar por titulo", e);
+        return medir("buscarPorTitulo", () -> {
+            try (Connection conn = config.DatabaseConnection.getConnection()) {
+                return libroDao.buscarPorTitulo(titulo, conn);
+            } catch (SQLException e) {
+                throw new RuntimeException("Error al buscar por titulo", e);
+            }
+        });
+    }
+
+    /**
+     * Búsqueda por palabras en título y autor, ordenada por relevancia.
+     *
+     * @param texto palabras a buscar (todas deben aparecer)
+     * @param limite cantidad máxima de resultados
+     */
+    public List<Libro> buscar(String texto, int limite) {
+        return medir("buscar", () -> {
+            if (texto == null || texto.trim().isEmpty()) {
+                throw new IllegalArgumentException("El texto a buscar no puede ser nulo o vacio");
+            }
+            if (limite <= 0) {
+                throw new IllegalArgumentException("El limite debe ser mayor a 0");
+            }
+            try (Connection conn = config.DatabaseConnection.getConnection()) {
+                return libroDao.buscar(texto, limite, conn);
+            } catch (SQLException e) {
+                throw new RuntimeException("Error al buscar Libros", e);
+            }
+        });
+    }
+
+    /**
+     * Obtiene un Libro activo con su FichaBibliografica cargada, usando una conexión y una consulta.
+     *
+     * @return Libro (ficha en getFichaBibliografica(), o {@code null} si no tiene), o {@code null} si no existe
+     */
+    public Libro obtenerConFicha(Long id) {
+        return medir("obtenerConFicha", () -> {
+            try (Connection conn = config.DatabaseConnection.getConnection()) {
+                return libroDao.leerConFicha(id, conn);
+            } catch (SQLException e) {
+                throw new RuntimeException("Error al obtener el Libro con su Ficha", e);
+            }
+        });
+    }
+
+    /**
+     * Varios Libros activos con sus Fichas, con una consulta por bloque de IDs (sin caché, como
+     * {@link #obtenerConFicha}).
+     *
+     * @return Libros por ID en el orden de {@code ids}; los IDs inexistentes no aparecen
+     */
+    public Map<Long, Libro> obtenerConFichaPorIds(Collection<Long> ids) {
+        return medir("obtenerConFichaPorIds", () -> obtenerVarios(ids, EntityCache.deshabilitada(),
+                libroDao::leerConFichaPorIds, "Error al obtener Libros con Ficha por IDs"));
+    }
+
+    /**
+     * Lista los Libros activos con sus Fichas en una sola consulta.
+     */
+    public List<Libro> listarTodosConFicha() {
+        return medir("listarTodosConFicha", () -> {
+            try (Connection conn = config.DatabaseConnection.getConnection()) {
+                return libroDao.leerTodosConFicha(conn);
+            } catch (SQLException e) {
+                throw new RuntimeException("Error al listar Libros con Ficha", e);
+            }
+        });
+    }
+
+    // ===== Paginación keyset =====
+
+    /**
+     * Página de Libros activos ordenados por título.
+     *
+     * @param token {@code null} para la primera página, o el siguienteToken de la página anterior
+     * @param tamanio cantidad máxima de Libros por página
+     */
+    public Pagina<Libro> listarPagina(String token, int tamanio) {
+        return medir("listarPagina", () -> {
+            validarTamanioPagina(tamanio);
+            Clave clave = decodificarToken(token);
+            try (Connection conn = config.DatabaseConnection.getConnection()) {
+                return armarPagina(libroDao.leerPagina(clave.titulo, clave.id, tamanio + 1, conn), tamanio);
+            } catch (SQLException e) {
+                throw new RuntimeException("Error al listar la pagina de Libros", e);
+            }
+        });
+    }
+
+    /**
+     * Página de resultados de la búsqueda por título, ordenados por título.
+     */
+    public Pagina<Libro> buscarPorTituloPagina(String titulo, String token, int tamanio) {
+        return medir("buscarPorTituloPagina", () -> {
+            if (titulo == null) {
+                throw new IllegalArgumentException("El titulo a buscar no puede ser nulo");
+            }
+            validarTamanioPagina(tamanio);
+            Clave clave = decodificarToken(token);
+            try (Connection conn = config.DatabaseConnection.getConnection()) {
+                return armarPagina(libroDao.buscarPorTituloPagina(titulo, clave.titulo, clave.id, tamanio + 1, conn), tamanio);
+            } catch (SQLException e) {
+                throw new RuntimeException("Error al buscar por titulo", e);
+            }
+        });
+    }
+
+    private static void validarTamanioPagina(int tamanio) {
+        if (tamanio <= 0 || tamanio > 1000) {
+            throw new IllegalArgumentException("El tamanio de pagina debe estar entre 1 y 1000");
+        }
+    }
+
+    // Se pide una fila extra para saber si hay página siguiente sin hacer COUNT
+    private static Pagina<Libro> armarPagina(List<Libro> libros, int tamanio) {
+        if (libros.size() <= tamanio) {
+            return new Pagina<>(libros, null);
+        }
+        List<Libro> elementos = libros.subList(0, tamanio);
+        Libro ultimo = elementos.get(tamanio - 1);
+        return new Pagina<>(new ArrayList<>(elementos), codificarToken(ultimo.getTitulo(), ultimo.getId()));
+    }
+
+    private static String codificarToken(String titulo, Long id) {
+        String clave = id + ":" + titulo;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(clave.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Clave decodificarToken(String token) {
+        if (token == null || token.isEmpty()) {
+            return new Clave(null, null);
+        }
+        try {
+            String clave = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = clave.indexOf(':');
+            return new Clave(clave.substring(sep + 1), Long.valueOf(clave.substring(0, sep)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Token de pagina invalido", e);
+        }
+    }
+
+    private static final class Clave {
+        final String titulo;
+        final Long id;
+
+        Clave(String titulo, Long id) {
+            this.titulo = titulo;
+            this.id = id;
         }
     }
 
@@ -105,31 +686,76 @@ public class LibroService extends GenericService<Libro> {
         throw new UnsupportedOperationException("Usar crearLibroConFicha() para Libro con FichaBibliografica");
     }
 
+    /**
+     * @throws ConflictoConcurrenciaException si el Libro fue modificado desde que se leyó
+     *         (ver {@link #actualizarFusionando})
+     */
     @Override
     public void actualizar(Libro libro) {
-        try (Connection conn = config.DatabaseConnection.getConnection()) {
-            conn.setAutoCommit(false);
-            try {
-                // Validar que no esté reasignando ficha
-                if (libro.getFichaBibliografica() != null) {
-                    // Si ya tenía ficha, no permitir cambiarla
-                    Libro existente = libroDao.leer(libro.getId(), conn);
-                    if (existente != null && existente.getFichaBibliografica() != null) {
-                        throw new IllegalStateException("No se permite reasignar la FichaBibliografica");
-                    }
+        medir("actualizar", () -> actualizarVersionado("actualizar", libro, "Error al actualizar el Libro", conn -> {
+            // Validar que no esté reasignando ficha
+            if (libro.getFichaBibliografica() != null) {
+                // Si ya tenía ficha, no permitir cambiarla
+                Libro existente = libroDao.leer(libro.getId(), conn);
+                if (existente != null && existente.getFichaBibliografica() != null) {
+                    throw new IllegalStateException("No se permite reasignar la FichaBibliografica");
                 }
-
-                libroDao.actualizar(libro, conn);
-                conn.commit();
-            } catch (SQLException e) {
-                conn.rollback();
-                throw new RuntimeException("Error al actualizar el Libro", e);
-            } finally {
-                conn.setAutoCommit(true);
             }
-        } catch (SQLException e) {
-            throw new RuntimeException("Error de conexion al actualizar el Libro", e);
-        }
+
+            libroDao.actualizar(libro, conn);
+            return null;
+        }));
+    }
+
+    // ===== Variantes asíncronas (hilos virtuales, ver EjecutorAsincrono) =====
+
+    public CompletableFuture<Void> crearLibroConFichaAsync(Libro libro, FichaBibliografica ficha) {
+        return EjecutorAsincrono.ejecutar(() -> crearLibroConFicha(libro, ficha));
+    }
+
+    /**
+     * El lote completo ocupa un solo permiso: sus inserciones usan una conexión a la vez.
+     */
+    public CompletableFuture<ResultadoLote> crearLibrosConFichaEnLoteAsync(
+            Iterable<Map.Entry<Libro, FichaBibliografica>> pares, int tamanioLote) {
+        return EjecutorAsincrono.ejecutar(() -> crearLibrosConFichaEnLote(pares, tamanioLote));
+    }
+
+    public CompletableFuture<ResultadoLote> sincronizarPorIsbnEnLoteAsync(
+            Iterable<Map.Entry<Libro, FichaBibliografica>> pares, int tamanioLote) {
+        return EjecutorAsincrono.ejecutar(() -> sincronizarPorIsbnEnLote(pares, tamanioLote));
+    }
+
+    public CompletableFuture<List<Libro>> buscarPorTituloAsync(String titulo) {
+        return EjecutorAsincrono.ejecutar(() -> buscarPorTitulo(titulo));
+    }
+
+    public CompletableFuture<List<Libro>> buscarAsync(String texto, int limite) {
+        return EjecutorAsincrono.ejecutar(() -> buscar(texto, limite));
+    }
+
+    public CompletableFuture<Libro> obtenerConFichaAsync(Long id) {
+        return EjecutorAsincrono.ejecutar(() -> obtenerConFicha(id));
+    }
+
+    public CompletableFuture<Map<Long, Libro>> obtenerConFichaPorIdsAsync(Collection<Long> ids) {
+        return EjecutorAsincrono.ejecutar(() -> obtenerConFichaPorIds(ids));
+    }
+
+    public CompletableFuture<List<Libro>> listarTodosConFichaAsync() {
+        return EjecutorAsincrono.ejecutar(this::listarTodosConFicha);
+    }
+
+    public CompletableFuture<Pagina<Libro>> listarPaginaAsync(String token, int tamanio) {
+        return EjecutorAsincrono.ejecutar(() -> listarPagina(token, tamanio));
+    }
+
+    public CompletableFuture<Pagina<Libro>> buscarPorTituloPaginaAsync(String titulo, String token, int tamanio) {
+        return EjecutorAsincrono.ejecutar(() -> buscarPorTituloPagina(titulo, token, tamanio));
+    }
+
+    public CompletableFuture<Void> cargarFichaBibliograficaAsync(Libro libro) {
+        return EjecutorAsincrono.ejecutar(() -> cargarFichaBibliografica(libro));
     }
 
     // ===== Helper: mensajes de error amigables =====
@@ -149,34 +775,19 @@ public class LibroService extends GenericService<Libro> {
     }
     
     public void cargarFichaBibliografica(Libro libro) {
-        if (libro == null || libro.getId() == null) {
-            return;
-        }
+        medir("cargarFichaBibliografica", () -> {
+            if (libro == null || libro.getId() == null) {
+                return;
+            }
 
-        try (Connection conn = config.DatabaseConnection.getConnection()) {
-            String sql = """
-                SELECT id, isbn, clasificacionDewey, estanteria, idioma, eliminado
-                FROM FichaBibliografica
-                WHERE idLIBRO = ? AND eliminado = FALSE
-                """;
-            try (PreparedStatement ps = conn.prepareStatement(sql)) {
-                ps.setLong(1, libro.getId());
-
-                try (ResultSet rs = ps.executeQuery()) {
-                    if (rs.next()) {
-                        FichaBibliografica ficha = new FichaBibliografica();
-                        ficha.setId(rs.getLong("id"));
-                        ficha.setIsbn(rs.getString("isbn"));
-                        ficha.setClasificacionDewey(rs.getString("clasificacionDewey"));
-                        ficha.setEstanteria(rs.getString("estanteria"));
-                        ficha.setIdioma(rs.getString("idioma"));
-                        ficha.setEliminado(rs.getBoolean("eliminado"));
-                        libro.setFichaBibliografica(ficha);
-                    }
+            try (Connection conn = config.DatabaseConnection.getConnection()) {
+                FichaBibliografica ficha = fichaDao.buscarPorIdLibro(libro.getId(), conn);
+                if (ficha != null) {
+                    libro.setFichaBibliografica(ficha);
                 }
+            } catch (SQLException e) {
+                throw new RuntimeException("Error al cargar la FichaBibliografica", e);
             }
-        } catch (SQLException e) {
-            throw new RuntimeException("Error al cargar la FichaBibliografica", e);
-        }
+        });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,183 @@
+package service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * Caché acotada con desalojo LRU y vencimiento por tiempo (TTL).
+ * Se divide en segmentos con su propio lock para que lecturas concurrentes de claves
+ * distintas no compitan por el mismo lock.
+ * Los valores se copian al guardar y al leer con el copiador recibido.
+ */
+public class LruTtlCache<K, V> implements EntityCache<K, V> {
+
+    private static final int SEGMENTOS = 16;
+
+    private final String nombre;
+    private final long ttlNanos;
+    private final UnaryOperator<V> copiador;
+    private final Segmento<K, V>[] segmentos;
+    private final AtomicLong generacion = new AtomicLong();
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder desalojos = new LongAdder();
+    private final LongAdder vencimientos = new LongAdder();
+    private final LongAdder invalidaciones = new LongAdder();
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public LruTtlCache(String nombre, int maxEntradas, long ttlMillis, UnaryOperator<V> copiador) {
+        if (maxEntradas <= 0) {
+            throw new IllegalArgumentException("La cache debe admitir al menos una entrada");
+        }
+        this.nombre = nombre;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.copiador = copiador;
+        int porSegmento = Math.max(1, (maxEntradas + SEGMENTOS - 1) / SEGMENTOS);
+        this.segmentos = new Segmento[SEGMENTOS];
+        for (int i = 0; i < SEGMENTOS; i++) {
+            segmentos[i] = new Segmento<>(porSegmento, desalojos);
+        }
+    }
+
+    private Segmento<K, V> segmento(Object clave) {
+        int h = clave.hashCode();
+        h ^= (h >>> 16);
+        return segmentos[h & (SEGMENTOS - 1)];
+    }
+
+    @Override
+    public V get(K clave) {
+        if (clave == null) {
+            return null;
+        }
+        Segmento<K, V> seg = segmento(clave);
+        V valor;
+        synchronized (seg) {
+            Entrada<V> e = seg.mapa.get(clave);
+            if (e == null) {
+                fallos.increment();
+                return null;
+            }
+            if (ttlNanos > 0 && System.nanoTime() - e.guardadoNanos > ttlNanos) {
+                seg.mapa.remove(clave);
+                vencimientos.increment();
+                fallos.increment();
+                return null;
+            }
+            valor = e.valor;
+        }
+        aciertos.increment();
+        return copiador.apply(valor);
+    }
+
+    @Override
+    public long generacion() {
+        return generacion.get();
+    }
+
+    @Override
+    public void put(K clave, V valor, long generacionLeida) {
+        if (clave == null || valor == null) {
+            return;
+        }
+        V copia = copiador.apply(valor);
+        Segmento<K, V> seg = segmento(clave);
+        synchronized (seg) {
+            // Se compara dentro del lock: invalidar() incrementa la generación antes de tomarlo
+            if (generacion.get() != generacionLeida) {
+                return;
+            }
+            seg.mapa.put(clave, new Entrada<>(copia, System.nanoTime()));
+        }
+    }
+
+    @Override
+    public void invalidar(K clave) {
+        if (clave == null) {
+            return;
+        }
+        generacion.incrementAndGet();
+        Segmento<K, V> seg = segmento(clave);
+        synchronized (seg) {
+            if (seg.mapa.remove(clave) != null) {
+                invalidaciones.increment();
+            }
+        }
+    }
+
+    @Override
+    public void invalidarTodo() {
+        generacion.incrementAndGet();
+        for (Segmento<K, V> seg : segmentos) {
+            synchronized (seg) {
+                invalidaciones.add(seg.mapa.size());
+                seg.mapa.clear();
+            }
+        }
+    }
+
+    /**
+     * Elimina las entradas vencidas (opcional: las vencidas también se descartan al leerlas).
+     */
+    public void purgarVencidas() {
+        if (ttlNanos <= 0) {
+            return;
+        }
+        long ahora = System.nanoTime();
+        for (Segmento<K, V> seg : segmentos) {
+            synchronized (seg) {
+                Iterator<Entrada<V>> it = seg.mapa.values().iterator();
+                while (it.hasNext()) {
+                    if (ahora - it.next().guardadoNanos > ttlNanos) {
+                        it.remove();
+                        vencimientos.increment();
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public CacheStats getStats() {
+        int tamanio = 0;
+        for (Segmento<K, V> seg : segmentos) {
+            synchronized (seg) {
+                tamanio += seg.mapa.size();
+            }
+        }
+        return new CacheStats(nombre, tamanio, aciertos.sum(), fallos.sum(), desalojos.sum(),
+                vencimientos.sum(), invalidaciones.sum());
+    }
+
+    private static final class Entrada<V> {
+        final V valor;
+        final long guardadoNanos;
+
+        Entrada(V valor, long guardadoNanos) {
+            this.valor = valor;
+            this.guardadoNanos = guardadoNanos;
+        }
+    }
+
+    private static final class Segmento<K, V> {
+        final LinkedHashMap<K, Entrada<V>> mapa;
+
+        Segmento(int max, LongAdder desalojos) {
+            // accessOrder = true: el primero es el menos usado recientemente
+            this.mapa = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, Entrada<V>> eldest) {
+                    if (size() > max) {
+                        desalojos.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package service;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Página de resultados con paginación por clave (keyset).
+ * {@code siguienteToken} es opaco: se pasa tal cual para pedir la página siguiente
+ * y es {@code null} en la última página.
+ */
+public class Pagina<T> {
+
+    private final List<T> elementos;
+    private final String siguienteToken;
+
+    public Pagina(List<T> elementos, String siguienteToken) {
+        this.elementos = Collections.unmodifiableList(elementos);
+        this.siguienteToken = siguienteToken;
+    }
+
+    public List<T> getElementos() {
+        return elementos;
+    }
+
+    public String getSiguienteToken() {
+        return siguienteToken;
+    }
+
+    public boolean hayMas() {
+        return siguienteToken != null;
+    }
+
+    public boolean isEmpty() {
+        return elementos.isEmpty();
+    }
+}
@@ -0,0 +1,46 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de {@link FichaBibliograficaService#completarIsbnCanonico()}: fichas que recibieron
+ * su isbnCanonico, las que tienen un ISBN que no se puede normalizar y las omitidas porque su
+ * ISBN canónico ya pertenece a otra ficha (hay que corregirlas a mano).
+ */
+public class ResultadoIsbnCanonico {
+
+    private int actualizadas;
+    private int invalidas;
+    private final List<Long> duplicadas = new ArrayList<>();
+
+    void sumarLote(int actualizadas, int invalidas, List<Long> duplicadas) {
+        this.actualizadas += actualizadas;
+        this.invalidas += invalidas;
+        this.duplicadas.addAll(duplicadas);
+    }
+
+    public int getActualizadas() {
+        return actualizadas;
+    }
+
+    public int getInvalidas() {
+        return invalidas;
+    }
+
+    /**
+     * @return IDs de las fichas omitidas por ISBN canónico duplicado, en orden de id
+     */
+    public List<Long> getDuplicadas() {
+        return Collections.unmodifiableList(duplicadas);
+    }
+
+    @Override
+    public String toString() {
+        return "actualizadas=" + actualizadas
+                + ", ISBN invalido=" + invalidas
+                + ", ISBN duplicado=" + duplicadas.size()
+                + (duplicadas.isEmpty() ? "" : " (fichas " + duplicadas + ")");
+    }
+}
@@ -0,0 +1,139 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Resultado de una carga masiva: cuántas filas se insertaron (y, en una sincronización por ISBN,
+ * cuántas se actualizaron o ya estaban al día) y cuáles se rechazaron.
+ * Los índices de las filas rechazadas son relativos al orden de entrada (base 0).
+ * Sin destino de rechazos sólo se conserva el detalle de los primeros {@link #MAX_RECHAZOS_DETALLE};
+ * con destino cada rechazo se le entrega en el momento y no se guarda.
+ */
+public class ResultadoLote {
+
+    public static final int MAX_RECHAZOS_DETALLE = 1000;
+
+    private int procesados;
+    private int insertados;
+    private int actualizados;
+    private int sinCambios;
+    private int rechazados;
+    private final List<FilaRechazada> rechazos = new ArrayList<>();
+    private final Consumer<FilaRechazada> destinoRechazos;
+    private long nanosTranscurridos;
+
+    ResultadoLote() {
+        this(null);
+    }
+
+    ResultadoLote(Consumer<FilaRechazada> destinoRechazos) {
+        this.destinoRechazos = destinoRechazos;
+    }
+
+    void sumarProcesados(int n) {
+        procesados += n;
+    }
+
+    void sumarInsertados(int n) {
+        insertados += n;
+    }
+
+    void sumarActualizados(int n) {
+        actualizados += n;
+    }
+
+    void sumarSinCambios(int n) {
+        sinCambios += n;
+    }
+
+    void rechazar(int indice, String motivo) {
+        rechazados++;
+        if (destinoRechazos != null) {
+            destinoRechazos.accept(new FilaRechazada(indice, motivo));
+        } else if (rechazos.size() < MAX_RECHAZOS_DETALLE) {
+            rechazos.add(new FilaRechazada(indice, motivo));
+        }
+    }
+
+    void setNanosTranscurridos(long nanos) {
+        this.nanosTranscurridos = nanos;
+    }
+
+    public int getProcesados() {
+        return procesados;
+    }
+
+    public int getInsertados() {
+        return insertados;
+    }
+
+    public int getActualizados() {
+        return actualizados;
+    }
+
+    public int getSinCambios() {
+        return sinCambios;
+    }
+
+    public int getRechazados() {
+        return rechazados;
+    }
+
+    /**
+     * Detalle de los primeros {@link #MAX_RECHAZOS_DETALLE} rechazos (vacío si se usó un destino de rechazos).
+     */
+    public List<FilaRechazada> getRechazos() {
+        return Collections.unmodifiableList(rechazos);
+    }
+
+    public long getMilisegundos() {
+        return nanosTranscurridos / 1_000_000;
+    }
+
+    public double getFilasPorSegundo() {
+        return nanosTranscurridos == 0 ? 0 : insertados * 1_000_000_000.0 / nanosTranscurridos;
+    }
+
+    @Override
+    public String toString() {
+        return "ResultadoLote{" +
+                "procesados=" + procesados +
+                ", insertados=" + insertados +
+                ", actualizados=" + actualizados +
+                ", sinCambios=" + sinCambios +
+                ", rechazados=" + rechazados +
+                ", ms=" + getMilisegundos() +
+                ", filas/s=" + String.format("%.0f", getFilasPorSegundo()) +
+                '}';
+    }
+
+    /**
+     * Fila de entrada que no se pudo insertar y el motivo (mensaje para el usuario).
+     */
+    public static class FilaRechazada {
+
+        private final int indice;
+        private final String motivo;
+
+        public FilaRechazada(int indice, String motivo) {
+            this.indice = indice;
+            this.motivo = motivo;
+        }
+
+        public int getIndice() {
+            return indice;
+        }
+
+        public String getMotivo() {
+            return motivo;
+        }
+
+        @Override
+        public String toString() {
+            return "fila " + indice + ": " + motivo;
+        }
+    }
+}
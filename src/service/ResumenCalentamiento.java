@@ -0,0 +1,91 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de {@link Calentamiento#ejecutar()}: duración de cada paso y latencia de la misma
+ * consulta de prueba (conexión + primera página de libros con sus fichas) antes y después.
+ */
+public class ResumenCalentamiento {
+
+    private final List<Paso> pasos = new ArrayList<>();
+    private long nanosPrimeraAntes;
+    private long nanosPrimeraDespues;
+    private long nanosTotal;
+
+    void agregarPaso(String nombre, long nanos, String detalle) {
+        pasos.add(new Paso(nombre, nanos, detalle));
+    }
+
+    void setNanosPrimeraAntes(long nanos) {
+        this.nanosPrimeraAntes = nanos;
+    }
+
+    void setNanosPrimeraDespues(long nanos) {
+        this.nanosPrimeraDespues = nanos;
+    }
+
+    void setNanosTotal(long nanos) {
+        this.nanosTotal = nanos;
+    }
+
+    public List<Paso> getPasos() {
+        return Collections.unmodifiableList(pasos);
+    }
+
+    /**
+     * @return latencia de la consulta de prueba en frío (incluye crear el pool y la primera conexión)
+     */
+    public double getMilisegundosPrimeraAntes() {
+        return nanosPrimeraAntes / 1_000_000.0;
+    }
+
+    public double getMilisegundosPrimeraDespues() {
+        return nanosPrimeraDespues / 1_000_000.0;
+    }
+
+    /**
+     * @return duración del calentamiento, sin las consultas de prueba
+     */
+    public long getMilisegundos() {
+        return nanosTotal / 1_000_000;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Paso p : pasos) {
+            sb.append(String.format("   %-14s %7.1f ms  %s%n", p.nombre + ":", p.getMilisegundos(), p.detalle));
+        }
+        sb.append(String.format("   %-14s %7d ms%n", "Total:", getMilisegundos()));
+        sb.append(String.format("   Primera consulta: %.1f ms en frio, %.1f ms despues del calentamiento%n",
+                getMilisegundosPrimeraAntes(), getMilisegundosPrimeraDespues()));
+        return sb.toString();
+    }
+
+    public static class Paso {
+        private final String nombre;
+        private final long nanos;
+        private final String detalle;
+
+        Paso(String nombre, long nanos, String detalle) {
+            this.nombre = nombre;
+            this.nanos = nanos;
+            this.detalle = detalle;
+        }
+
+        public String getNombre() {
+            return nombre;
+        }
+
+        public double getMilisegundos() {
+            return nanos / 1_000_000.0;
+        }
+
+        public String getDetalle() {
+            return detalle;
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package service;
+
+import config.AppConfig;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import metricas.Metricas;
+
+/**
+ * Plantilla de transacción de los servicios: toma una conexión del pool, fija el aislamiento,
+ * confirma o deshace y la devuelve, restaurando su estado.
+ *
+ * Los fallos transitorios de InnoDB (deadlock: SQLState 40001 / error 1213; lock wait timeout:
+ * error 1205) deshacen la transacción y la repiten completa, con espera exponencial acotada y
+ * aleatoria, hasta {@code db.transaccion.reintentos} veces. Cualquier otro error (incluidas las
+ * excepciones no SQL del trabajo) deshace y se propaga sin reintentar. Por eso el trabajo debe poder
+ * repetirse: no debe acumular efectos fuera de la conexión antes de que la transacción confirme.
+ *
+ * Configuración (db.properties): {@code db.transaccion.aislamiento} (READ_COMMITTED, REPEATABLE_READ,
+ * SERIALIZABLE, READ_UNCOMMITTED; vacío = el de la conexión), {@code db.transaccion.reintentos},
+ * {@code db.transaccion.esperaInicialMs} y {@code db.transaccion.esperaMaximaMs}.
+ *
+ * Cada ejecución se mide como {@code tx <operacion>} y cada espera de reintento como
+ * {@code tx.reintento} (ver {@link Metricas}); además se avisa a los {@link Observador}es registrados.
+ */
+public final class Transacciones {
+
+    private static final String OPERACION_REINTENTO = "tx.reintento";
+    private static final int MYSQL_LOCK_WAIT_TIMEOUT = 1205;
+    private static final int MYSQL_DEADLOCK = 1213;
+
+    private static final int AISLAMIENTO = aislamiento(AppConfig.get("db.transaccion.aislamiento", ""));
+    private static final int REINTENTOS = Math.max(0, AppConfig.getInt("db.transaccion.reintentos", 3));
+    private static final long ESPERA_INICIAL_MS = Math.max(1, AppConfig.getLong("db.transaccion.esperaInicialMs", 20));
+    private static final long ESPERA_MAXIMA_MS = Math.max(ESPERA_INICIAL_MS,
+            AppConfig.getLong("db.transaccion.esperaMaximaMs", 1000));
+
+    private static final System.Logger LOG = System.getLogger(Transacciones.class.getName());
+
+    private static final List<Observador> OBSERVADORES = new CopyOnWriteArrayList<>();
+
+    /**
+     * Cuerpo de la transacción. No debe confirmar ni cerrar la conexión.
+     */
+    @FunctionalInterface
+    public interface Trabajo<R> {
+        R ejecutar(Connection conn) throws SQLException;
+    }
+
+    /**
+     * Ganchos de tiempo de las transacciones (ej. para trazas o alertas). Se invocan en el hilo
+     * que ejecuta la transacción, por lo que deben ser rápidos y no lanzar excepciones.
+     */
+    public interface Observador {
+
+        /**
+         * Antes de esperar para reintentar.
+         *
+         * @param intento intento que falló (1 = el primero)
+         */
+        default void alReintentar(String operacion, int intento, long esperaMs, SQLException causa) {
+        }
+
+        /**
+         * Al terminar, confirmada o no.
+         *
+         * @param intentos intentos realizados
+         * @param nanos duración total, incluidas las esperas entre intentos
+         * @param error {@code null} si confirmó
+         */
+        default void alTerminar(String operacion, int intentos, long nanos, Throwable error) {
+        }
+    }
+
+    private Transacciones() {
+    }
+
+    public static void agregarObservador(Observador observador) {
+        OBSERVADORES.add(observador);
+    }
+
+    public static void quitarObservador(Observador observador) {
+        OBSERVADORES.remove(observador);
+    }
+
+    /**
+     * Ejecuta {@code trabajo} en una transacción con el aislamiento configurado.
+     *
+     * @return lo que devuelve el trabajo
+     * @throws SQLException el último error si no es transitorio o se agotaron los reintentos
+     */
+    public static <R> R ejecutar(String operacion, Trabajo<R> trabajo) throws SQLException {
+        return ejecutar(operacion, AISLAMIENTO, trabajo);
+    }
+
+    /**
+     * @param aislamiento constante {@code Connection.TRANSACTION_*}, o -1 para no cambiarlo
+     */
+    public static <R> R ejecutar(String operacion, int aislamiento, Trabajo<R> trabajo) throws SQLException {
+        return ejecutar(operacion, true, aislamiento, trabajo);
+    }
+
+    /**
+     * Como {@link #ejecutar(String, Trabajo)} pero sin transacción explícita (autocommit): para una
+     * sola sentencia, o trabajo que confirma por su cuenta, que igualmente conviene reintentar.
+     */
+    public static <R> R conReintentos(String operacion, Trabajo<R> trabajo) throws SQLException {
+        return ejecutar(operacion, false, -1, trabajo);
+    }
+
+    private static <R> R ejecutar(String operacion, boolean transaccion, int aislamiento, Trabajo<R> trabajo)
+            throws SQLException {
+        String nombre = "tx " + operacion;
+        long inicio = System.nanoTime();
+        long inicioMetrica = Metricas.inicio();
+        int intento = 0;
+        R resultado;
+        try (Connection conn = config.DatabaseConnection.getConnection()) {
+            int aislamientoOriginal = -1;
+            if (aislamiento >= 0 && conn.getTransactionIsolation() != aislamiento) {
+                aislamientoOriginal = conn.getTransactionIsolation();
+                conn.setTransactionIsolation(aislamiento);
+            }
+            try {
+                while (true) {
+                    intento++;
+                    try {
+                        resultado = intentar(conn, transaccion, trabajo);
+                        break;
+                    } catch (SQLException e) {
+                        if (intento > REINTENTOS || !esTransitorio(e)) {
+                            throw e;
+                        }
+                        esperar(operacion, intento, e);
+                    }
+                }
+            } catch (SQLException | RuntimeException | Error e) {
+                restaurar(conn, transaccion, aislamientoOriginal, e);
+                throw e;
+            }
+            restaurarConfirmada(conn, transaccion, aislamientoOriginal);
+        } catch (SQLException | RuntimeException | Error e) {
+            Metricas.registrarError(nombre, inicioMetrica, e);
+            notificarFin(operacion, Math.max(intento, 1), inicio, e);
+            throw e;
+        }
+        Metricas.registrar(nombre, inicioMetrica);
+        notificarFin(operacion, intento, inicio, null);
+        return resultado;
+    }
+
+    // Sin restaurar el autocommit: si falla, el siguiente intento corre en la misma transacción ya deshecha
+    private static <R> R intentar(Connection conn, boolean transaccion, Trabajo<R> trabajo) throws SQLException {
+        if (!transaccion) {
+            return trabajo.ejecutar(conn);
+        }
+        conn.setAutoCommit(false);
+        try {
+            R resultado = trabajo.ejecutar(conn);
+            conn.commit();
+            return resultado;
+        } catch (SQLException | RuntimeException | Error e) {
+            try {
+                conn.rollback();
+            } catch (SQLException ex) {
+                e.addSuppressed(ex);
+            }
+            throw e;
+        }
+    }
+
+    /*
+     * Restauración después del commit (o del trabajo sin transacción): el trabajo ya es durable, así que
+     * un fallo aquí no se informa como error de la transacción, que el llamador repetiría. Se registra y
+     * se descarta la conexión física (abort) para que el pool no la reutilice en un estado desconocido.
+     */
+    static void restaurarConfirmada(Connection conn, boolean transaccion, int aislamientoOriginal) {
+        try {
+            restaurar(conn, transaccion, aislamientoOriginal, null);
+        } catch (SQLException e) {
+            LOG.log(System.Logger.Level.WARNING, "No se pudo restaurar la conexion tras confirmar; se descarta", e);
+            try {
+                conn.abort(Runnable::run);
+            } catch (SQLException ex) {
+                LOG.log(System.Logger.Level.WARNING, "No se pudo descartar la conexion", ex);
+            }
+        }
+    }
+
+    /*
+     * Devuelve la conexión al estado en que la entregó el pool (autocommit y aislamiento). Si la
+     * transacción ya falló, los errores de la limpieza se agregan como suprimidos y no la ocultan.
+     */
+    private static void restaurar(Connection conn, boolean transaccion, int aislamientoOriginal, Throwable error)
+            throws SQLException {
+        SQLException fallo = null;
+        if (transaccion) {
+            try {
+                conn.setAutoCommit(true);
+            } catch (SQLException e) {
+                fallo = e;
+            }
+        }
+        if (aislamientoOriginal >= 0) {
+            try {
+                conn.setTransactionIsolation(aislamientoOriginal);
+            } catch (SQLException e) {
+                if (fallo == null) {
+                    fallo = e;
+                } else {
+                    fallo.addSuppressed(e);
+                }
+            }
+        }
+        if (fallo == null) {
+            return;
+        }
+        if (error == null) {
+            throw fallo;
+        }
+        error.addSuppressed(fallo);
+    }
+
+    /**
+     * @return {@code true} para deadlock o lock wait timeout (en la excepción o en su cadena)
+     */
+    public static boolean esTransitorio(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql) {
+                for (SQLException s = sql; s != null; s = s.getNextException()) {
+                    if ("40001".equals(s.getSQLState()) || s.getErrorCode() == MYSQL_DEADLOCK
+                            || s.getErrorCode() == MYSQL_LOCK_WAIT_TIMEOUT) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    // Espera exponencial acotada con "jitter" (entre la mitad y el total) para que las transacciones
+    // que chocaron no vuelvan a reintentar al mismo tiempo
+    private static void esperar(String operacion, int intento, SQLException causa) throws SQLException {
+        long tope = Math.min(ESPERA_MAXIMA_MS, ESPERA_INICIAL_MS << Math.min(intento - 1, 20));
+        long espera = ThreadLocalRandom.current().nextLong(tope / 2, tope + 1);
+        for (Observador o : OBSERVADORES) {
+            o.alReintentar(operacion, intento, espera, causa);
+        }
+        long inicio = Metricas.inicio();
+        try {
+            Thread.sleep(espera);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw causa;
+        }
+        Metricas.registrar(OPERACION_REINTENTO, inicio);
+    }
+
+    private static void notificarFin(String operacion, int intentos, long inicio, Throwable error) {
+        if (OBSERVADORES.isEmpty()) {
+            return;
+        }
+        long nanos = System.nanoTime() - inicio;
+        for (Observador o : OBSERVADORES) {
+            o.alTerminar(operacion, intentos, nanos, error);
+        }
+    }
+
+    private static int aislamiento(String nombre) {
+        return switch (nombre.trim().toUpperCase(Locale.ROOT).replace(' ', '_').replace('-', '_')) {
+            case "" -> -1;
+            case "READ_UNCOMMITTED" -> Connection.TRANSACTION_READ_UNCOMMITTED;
+            case "READ_COMMITTED" -> Connection.TRANSACTION_READ_COMMITTED;
+            case "REPEATABLE_READ" -> Connection.TRANSACTION_REPEATABLE_READ;
+            case "SERIALIZABLE" -> Connection.TRANSACTION_SERIALIZABLE;
+            default -> throw new IllegalArgumentException("db.transaccion.aislamiento invalido: " + nombre);
+        };
+    }
+
+    public static int getReintentos() {
+        return REINTENTOS;
+    }
+}
@@ -0,0 +1,384 @@
+package servidor;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import config.AppConfig;
+import entities.FichaBibliografica;
+import entities.Libro;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import json.CamposJson;
+import json.EscritorJson;
+import json.LectorJson;
+import metricas.Metricas;
+import service.EjecutorAsincrono;
+import service.FichaBibliograficaService;
+import service.LibroService;
+import service.Pagina;
+
+/**
+ * Servidor HTTP/JSON embebido (com.sun.net.httpserver del JDK) sobre LibroService y FichaBibliograficaService.
+ *
+ * Cada solicitud se atiende en su propio hilo virtual y el trabajo con la base pasa por
+ * {@link EjecutorAsincrono#conPermiso}, por lo que muchas terminales comparten el proceso sin
+ * agotar hilos ni el pool. Las conexiones HTTP/1.1 se mantienen abiertas (keep-alive).
+ * <pre>
+ * GET    /libros?tamanio=20&amp;token=...      página keyset {"elementos":[...],"siguienteToken":...}
+ * GET    /libros?titulo=ray&amp;token=...      página de búsqueda por título
+ * GET    /libros?texto=borges&amp;limite=20    búsqueda por palabras (relevancia)
+ * GET    /libros/exportar                  todos los libros activos, en streaming (chunked) por páginas keyset
+ * GET    /libros/{id}                      libro con su ficha
+ * GET    /libros/{id}/ficha                ficha del libro
+ * POST   /libros                           alta de libro + ficha (mismos campos que la importación JSON)
+ * PUT    /libros/{id}                      modificación parcial de titulo/autor/editorial/anioEdicion; con
+ *                                          "version" (la leída) sólo si el libro no cambió desde entonces
+ * DELETE /libros/{id}                      baja lógica
+ * GET    /fichas?isbn=978-...              ficha por ISBN (10 o 13, con o sin guiones)
+ * GET    /salud                            {"estado":"ok"}
+ * </pre>
+ * Errores: 400 parámetros inválidos, 404 no encontrado, 405 método no soportado, 409 conflicto
+ * (ISBN duplicado, libro que ya tiene ficha, libro modificado por otra operación), 500 resto; el cuerpo es {@code {"error":"..."}}.
+ */
+public class ServidorHttp {
+
+    private static final String JSON = "application/json; charset=utf-8";
+    private static final int TAMANIO_PAGINA = 20;
+    private static final int LOTE_EXPORTACION = AppConfig.getInt("servidor.exportar.lote", 500);
+    private static final System.Logger LOG = System.getLogger(ServidorHttp.class.getName());
+
+    private final LibroService libroService = new LibroService();
+    private final FichaBibliograficaService fichaService = new FichaBibliograficaService();
+    private final HttpServer servidor;
+    private final ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * @param puerto puerto TCP (0 elige uno libre; desde la línea de comandos, --puerto sólo admite 1-65535)
+     */
+    public ServidorHttp(int puerto) throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress(puerto), AppConfig.getInt("servidor.backlog", 256));
+        servidor.createContext("/libros", this::atenderLibros);
+        servidor.createContext("/fichas", this::atenderFichas);
+        servidor.createContext("/salud", ex -> responder(ex, "salud", () -> {
+            soloMetodo(ex, "GET");
+            return "{\"estado\":\"ok\"}";
+        }));
+        servidor.setExecutor(hilos);
+    }
+
+    public void iniciar() {
+        servidor.start();
+    }
+
+    public int getPuerto() {
+        return servidor.getAddress().getPort();
+    }
+
+    /**
+     * Deja de aceptar conexiones y espera hasta {@code segundos} a que terminen las solicitudes en curso.
+     */
+    public void detener(int segundos) {
+        servidor.stop(segundos);
+        hilos.shutdown();
+    }
+
+    // ===== /libros =====
+
+    private void atenderLibros(HttpExchange ex) {
+        String[] partes = ex.getRequestURI().getPath().split("/");
+        // partes: ["", "libros", {id|exportar}, "ficha"]
+        String metodo = ex.getRequestMethod();
+        if (partes.length <= 2) {
+            if ("POST".equals(metodo)) {
+                responder(ex, "POST /libros", 201, () -> crearLibro(ex));
+            } else {
+                responder(ex, "GET /libros", () -> {
+                    soloMetodo(ex, "GET");
+                    return listarLibros(parametros(ex));
+                });
+            }
+            return;
+        }
+        if (partes.length == 3 && "exportar".equals(partes[2])) {
+            exportarLibros(ex);
+            return;
+        }
+        if (partes.length == 4 && "ficha".equals(partes[3])) {
+            responder(ex, "GET /libros/{id}/ficha", () -> {
+                soloMetodo(ex, "GET");
+                return json(sb -> EscritorJson.ficha(sb, encontrada(fichaService.buscarPorIdLibro(CamposJson.id(partes[2])))));
+            });
+            return;
+        }
+        if (partes.length != 3) {
+            responder(ex, "libros", () -> {
+                throw new ErrorHttp(404, "Recurso inexistente: " + ex.getRequestURI().getPath());
+            });
+            return;
+        }
+        switch (metodo) {
+            case "GET" -> responder(ex, "GET /libros/{id}", () ->
+                    json(sb -> EscritorJson.libro(sb, encontrada(libroService.obtenerConFicha(CamposJson.id(partes[2]))))));
+            case "PUT" -> responder(ex, "PUT /libros/{id}", () -> actualizarLibro(ex, CamposJson.id(partes[2])));
+            case "DELETE" -> responder(ex, "DELETE /libros/{id}", () -> {
+                Long id = CamposJson.id(partes[2]);
+                encontrada(libroService.obtenerPorId(id));
+                libroService.eliminarLogico(id);
+                return null;
+            });
+            default -> responder(ex, "libros", () -> {
+                throw new ErrorHttp(405, "Metodo no soportado: " + metodo);
+            });
+        }
+    }
+
+    private String listarLibros(Map<String, String> parametros) {
+        String texto = parametros.get("texto");
+        if (texto != null) {
+            int limite = CamposJson.entero(parametros, "limite", TAMANIO_PAGINA);
+            return json(sb -> EscritorJson.libros(sb, libroService.buscar(texto, limite)));
+        }
+        String titulo = parametros.get("titulo");
+        String token = parametros.get("token");
+        int tamanio = CamposJson.entero(parametros, "tamanio", TAMANIO_PAGINA);
+        Pagina<Libro> pagina = titulo != null
+                ? libroService.buscarPorTituloPagina(titulo, token, tamanio)
+                : libroService.listarPagina(token, tamanio);
+        return json(sb -> {
+            EscritorJson.libros(EscritorJson.clave(sb.append('{'), "elementos"), pagina.getElementos());
+            EscritorJson.cadena(EscritorJson.clave(sb, "siguienteToken"), pagina.getSiguienteToken());
+            sb.append('}');
+        });
+    }
+
+    private String crearLibro(HttpExchange ex) throws IOException {
+        Map<String, String> campos = cuerpo(ex);
+        Libro libro = new Libro(campos.get("titulo"), campos.get("autor"), campos.get("editorial"),
+                CamposJson.entero(campos, "anioedicion"));
+        FichaBibliografica ficha = new FichaBibliografica(campos.get("isbn"), campos.get("clasificaciondewey"),
+                campos.get("estanteria"), campos.get("idioma"));
+        libroService.crearLibroConFicha(libro, ficha);
+        ex.getResponseHeaders().set("Location", "/libros/" + libro.getId());
+        return json(sb -> EscritorJson.libro(sb, libro));
+    }
+
+    private String actualizarLibro(HttpExchange ex, Long id) throws IOException {
+        Map<String, String> campos = cuerpo(ex);
+        Libro existente = encontrada(libroService.obtenerPorId(id));
+        CamposJson.aplicarCambios(campos, existente);
+        libroService.actualizar(existente);
+        return json(sb -> EscritorJson.libro(sb, existente));
+    }
+
+    /*
+     * Streaming: el cuerpo se envía con chunked encoding página a página (keyset por título), en memoria
+     * constante. Cada página se lee con su propio permiso y conexión, que se liberan antes de escribirla:
+     * un cliente lento sólo retiene su hilo virtual, no el pool.
+     */
+    private void exportarLibros(HttpExchange ex) {
+        long inicio = Metricas.inicio();
+        try (ex) {
+            if (!"GET".equals(ex.getRequestMethod())) {
+                enviarError(ex, new ErrorHttp(405, "Metodo no soportado: " + ex.getRequestMethod()));
+                return;
+            }
+            descartarCuerpo(ex);
+            ex.getResponseHeaders().set("Content-Type", JSON);
+            ex.sendResponseHeaders(200, 0);
+            try (Writer w = new BufferedWriter(new OutputStreamWriter(ex.getResponseBody(), StandardCharsets.UTF_8), 16 * 1024)) {
+                w.write('[');
+                StringBuilder sb = new StringBuilder(256);
+                long escritos = 0;
+                String token = null;
+                do {
+                    String desde = token;
+                    Pagina<Libro> pagina = EjecutorAsincrono.conPermiso(() -> libroService.listarPagina(desde, LOTE_EXPORTACION));
+                    for (Libro libro : pagina.getElementos()) {
+                        sb.setLength(0);
+                        if (escritos++ > 0) {
+                            sb.append(',');
+                        }
+                        EscritorJson.libro(sb, libro);
+                        w.append(sb);
+                    }
+                    token = pagina.getSiguienteToken();
+                } while (token != null);
+                w.write(']');
+            }
+            Metricas.registrar("http GET /libros/exportar", inicio);
+        } catch (IOException | RuntimeException e) {
+            // Con los encabezados ya enviados sólo queda cortar la respuesta
+            Metricas.registrarError("http GET /libros/exportar", inicio, e);
+        }
+    }
+
+    // ===== /fichas =====
+
+    private void atenderFichas(HttpExchange ex) {
+        responder(ex, "GET /fichas", () -> {
+            soloMetodo(ex, "GET");
+            String isbn = parametros(ex).get("isbn");
+            if (isbn == null) {
+                throw new ErrorHttp(400, "Falta el parametro 'isbn'");
+            }
+            return json(sb -> EscritorJson.ficha(sb, encontrada(fichaService.buscarPorIsbn(isbn))));
+        });
+    }
+
+    // ===== Respuestas =====
+
+    @FunctionalInterface
+    private interface Accion {
+        String ejecutar() throws IOException;
+    }
+
+    private void responder(HttpExchange ex, String operacion, Accion accion) {
+        responder(ex, operacion, 200, accion);
+    }
+
+    /**
+     * Ejecuta la acción con un permiso de base de datos y envía su JSON con {@code estado} (204 si devuelve
+     * {@code null}). Las excepciones se traducen a códigos HTTP. Cierra el intercambio para que la conexión siga viva.
+     */
+    private void responder(HttpExchange ex, String operacion, int estado, Accion accion) {
+        long inicio = Metricas.inicio();
+        try (ex) {
+            try {
+                String cuerpo = EjecutorAsincrono.conPermiso(() -> {
+                    try {
+                        return accion.ejecutar();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                descartarCuerpo(ex);
+                enviar(ex, cuerpo == null ? 204 : estado, cuerpo);
+                Metricas.registrar("http " + operacion, inicio);
+            } catch (RuntimeException e) {
+                Metricas.registrarError("http " + operacion, inicio, e);
+                descartarCuerpo(ex);
+                enviarError(ex, e);
+            }
+        } catch (IOException e) {
+            // Cliente desconectado: no hay a quién responder
+            Metricas.registrarError("http " + operacion, inicio, e);
+        }
+    }
+
+    private static void enviar(HttpExchange ex, int estado, String cuerpo) throws IOException {
+        if (cuerpo == null) {
+            ex.sendResponseHeaders(estado, -1);
+            return;
+        }
+        byte[] bytes = cuerpo.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", JSON);
+        ex.sendResponseHeaders(estado, bytes.length);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    private static void enviarError(HttpExchange ex, RuntimeException e) throws IOException {
+        int estado = estadoPara(e);
+        String mensaje = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        if (estado == 500) {
+            LOG.log(System.Logger.Level.ERROR, "Error atendiendo " + ex.getRequestMethod() + " " + ex.getRequestURI(), e);
+        }
+        enviar(ex, estado, json(sb -> EscritorJson.cadena(EscritorJson.clave(sb.append('{'), "error"), mensaje).append('}')));
+    }
+
+    private static int estadoPara(RuntimeException e) {
+        if (e instanceof ErrorHttp h) {
+            return h.estado;
+        }
+        if (e instanceof IllegalArgumentException) {
+            return 400;
+        }
+        if (e instanceof IllegalStateException) {
+            return 409;
+        }
+        for (Throwable t = e.getCause(); t != null; t = t.getCause()) {
+            if (t instanceof SQLException s && s.getSQLState() != null && s.getSQLState().startsWith("23")) {
+                return 409;
+            }
+        }
+        return 500;
+    }
+
+    private static <T> T encontrada(T entidad) {
+        if (entidad == null) {
+            throw new ErrorHttp(404, "No encontrado");
+        }
+        return entidad;
+    }
+
+    private static void soloMetodo(HttpExchange ex, String metodo) {
+        if (!metodo.equals(ex.getRequestMethod())) {
+            throw new ErrorHttp(405, "Metodo no soportado: " + ex.getRequestMethod());
+        }
+    }
+
+    private static String json(Consumer<StringBuilder> escritor) {
+        StringBuilder sb = new StringBuilder(256);
+        escritor.accept(sb);
+        return sb.toString();
+    }
+
+    // ===== Solicitudes =====
+
+    // Keep-alive: el servidor sólo reutiliza la conexión si el cuerpo de la solicitud se leyó completo
+    private static void descartarCuerpo(HttpExchange ex) throws IOException {
+        try (InputStream is = ex.getRequestBody()) {
+            is.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    private static Map<String, String> cuerpo(HttpExchange ex) throws IOException {
+        // Sin cerrar el stream: responder() lo termina de consumir y lo cierra
+        String texto = new String(ex.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        if (texto.isBlank()) {
+            throw new ErrorHttp(400, "Falta el cuerpo JSON");
+        }
+        Map<String, String> campos = LectorJson.objetoEnMinusculas(texto);
+        campos.replaceAll((clave, valor) -> valor.trim().isEmpty() ? null : valor.trim());
+        return campos;
+    }
+
+    private static Map<String, String> parametros(HttpExchange ex) {
+        Map<String, String> parametros = new HashMap<>();
+        String consulta = ex.getRequestURI().getRawQuery();
+        if (consulta == null || consulta.isEmpty()) {
+            return parametros;
+        }
+        for (String par : consulta.split("&")) {
+            int igual = par.indexOf('=');
+            String clave = igual < 0 ? par : par.substring(0, igual);
+            String valor = igual < 0 ? "" : par.substring(igual + 1);
+            parametros.put(URLDecoder.decode(clave, StandardCharsets.UTF_8), URLDecoder.decode(valor, StandardCharsets.UTF_8));
+        }
+        return parametros;
+    }
+
+    private static final class ErrorHttp extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        private final int estado;
+
+        ErrorHttp(int estado, String mensaje) {
+            super(mensaje);
+            this.estado = estado;
+        }
+    }
+}
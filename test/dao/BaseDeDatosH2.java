@@ -0,0 +1,48 @@
+package dao;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Base H2 en memoria (modo MySQL) con el esquema de los benchmarks ({@code bench/esquema_h2.sql}),
+ * para probar el SQL de los DAOs sin MySQL. No cubre MATCH ... AGAINST, que H2 no soporta.
+ */
+final class BaseDeDatosH2 {
+
+    private static final String URL =
+            "jdbc:h2:mem:%s;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1";
+
+    private BaseDeDatosH2() {
+    }
+
+    /**
+     * Abre una conexión a la base {@code nombre}, borrando lo que tuviera y creando el esquema vacío.
+     */
+    static Connection abrir(String nombre) throws SQLException, IOException {
+        Connection conn = DriverManager.getConnection(String.format(URL, nombre), "sa", "");
+        try (Statement st = conn.createStatement()) {
+            st.execute("DROP ALL OBJECTS");
+            StringBuilder sql = new StringBuilder();
+            for (String linea : Files.readAllLines(Path.of("bench/esquema_h2.sql"), StandardCharsets.UTF_8)) {
+                if (!linea.startsWith("--")) {
+                    sql.append(linea).append('\n');
+                }
+            }
+            for (String sentencia : sql.toString().split(";")) {
+                if (!sentencia.isBlank()) {
+                    st.execute(sentencia);
+                }
+            }
+        } catch (SQLException | IOException e) {
+            conn.close();
+            throw e;
+        }
+        return conn;
+    }
+}
@@ -0,0 +1,40 @@
+package dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import entities.FichaBibliografica;
+import entities.Libro;
+import org.junit.Test;
+
+/**
+ * Registro de la implementación de Hidratacion: sólo se acepta la del paquete entities.
+ */
+public class HidratacionTest {
+
+    @Test
+    public void otraImplementacionNoPuedeRegistrarse() {
+        Hidratacion ajena = new Hidratacion() {
+            @Override
+            protected Libro crearLibro(Long id, String titulo, String autor, String editorial,
+                                       Integer anioEdicion, boolean eliminado, long version) {
+                return null;
+            }
+
+            @Override
+            protected FichaBibliografica crearFicha(Long id, String isbn, String clasificacionDewey,
+                                                    String estanteria, String idioma, boolean eliminado, long version) {
+                return null;
+            }
+        };
+        // Antes de que entities registre la suya: no puede adelantarse
+        try {
+            Hidratacion.registrar(ajena);
+            fail("Se esperaba el rechazo de una implementacion ajena");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Hidratacion no admitida: " + ajena.getClass().getName(), e.getMessage());
+        }
+        Libro libro = Hidratacion.libro(7L, "Titulo", "Autor", null, null, false, 3);
+        assertEquals(Long.valueOf(3), libro.getVersion());
+    }
+}
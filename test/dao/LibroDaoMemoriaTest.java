@@ -0,0 +1,104 @@
+package dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import config.DatabaseConnection;
+import entities.Libro;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * LibroDaoMemoria: emulación de la búsqueda FULLTEXT ngram sin stopwords (cualquier texto de 2 o más
+ * caracteres, aunque sea una stopword de InnoDB) y de las escrituras condicionales de LibroDao.
+ */
+public class LibroDaoMemoriaTest {
+
+    private static final LibroDao dao = new LibroDaoMemoria(AlmacenMemoria.instancia());
+
+    @BeforeClass
+    public static void cargarLibros() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            // Palabras formadas casi sólo por stopwords de InnoDB ("a", "i", "de", "la", "en")
+            dao.crear(new Libro("La casa de los espíritus", "Isabel Allende", null, null), conn);
+            dao.crear(new Libro("Vida y destino", "Vasili Grossman", null, null), conn);
+            dao.crear(new Libro("Ensayo sobre la ceguera", "José Saramago", null, null), conn);
+        }
+    }
+
+    private static List<String> titulos(String texto) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            List<String> titulos = new ArrayList<>();
+            for (Libro libro : dao.buscarPorTitulo(texto, conn)) {
+                titulos.add(libro.getTitulo());
+            }
+            return titulos;
+        }
+    }
+
+    @Test
+    public void encuentraPalabrasQueContienenStopwords() throws SQLException {
+        assertTrue(titulos("casa").contains("La casa de los espíritus"));
+        assertTrue(titulos("vida").contains("Vida y destino"));
+        assertTrue(titulos("de los").contains("La casa de los espíritus"));
+        assertTrue(titulos("ESPIRITUS").contains("La casa de los espíritus"));
+    }
+
+    @Test
+    public void unSoloCaracterBuscaEnCualquierPosicion() throws SQLException {
+        List<String> conY = titulos("y");
+        assertTrue(conY.contains("Vida y destino"));
+        assertTrue(conY.contains("Ensayo sobre la ceguera"));
+        assertTrue(conY.contains("Rayuela"));
+        assertEquals(List.of("1984"), titulos("9"));
+    }
+
+    @Test
+    public void buscarConUnCaracterUsaLosPrefijosDeTituloYAutor() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            dao.crear(new Libro("Árbol de la ciencia", "Pío Baroja", null, null), conn);
+            dao.crear(new Libro("Zama", "Antonio Di Benedetto", null, null), conn);
+            List<String> conA = dao.buscar("a", -1, conn).stream().map(Libro::getTitulo).toList();
+            assertTrue(conA.contains("Árbol de la ciencia"));
+            assertTrue(conA.contains("Zama"));
+            assertFalse(conA.contains("Vida y destino"));
+            // Orden por título aunque la coincidencia venga del autor, y el límite corta ese orden
+            List<String> ordenados = new ArrayList<>(conA);
+            ordenados.sort(Comparator.comparing(AlmacenMemoria.Clave::normalizar));
+            assertEquals(ordenados, conA);
+            assertEquals(conA.subList(0, 2), dao.buscar("a", 2, conn).stream().map(Libro::getTitulo).toList());
+        }
+    }
+
+    @Test
+    public void actualizarLoteSiVersionNoTocaLibrosEliminadosOModificados() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            Long vigente = dao.crear(new Libro("Lote vigente", "Autor Lote", null, null), conn).getId();
+            Long modificado = dao.crear(new Libro("Lote modificado", "Autor Lote", null, null), conn).getId();
+            Long eliminado = dao.crear(new Libro("Lote eliminado", "Autor Lote", null, null), conn).getId();
+            List<Libro> leidos = List.of(dao.leer(vigente, conn), dao.leer(modificado, conn), dao.leer(eliminado, conn));
+
+            // Otra operación escribe entre la lectura y el lote
+            Libro otro = dao.leer(modificado, conn);
+            otro.setAutor("Otra operacion");
+            dao.actualizar(otro, conn);
+            dao.eliminar(eliminado, conn);
+
+            for (Libro libro : leidos) {
+                libro.setTitulo(libro.getTitulo() + " (lote)");
+            }
+            assertEquals(List.of(modificado, eliminado), dao.actualizarLoteSiVersion(leidos, conn));
+            assertEquals("Lote vigente (lote)", dao.leer(vigente, conn).getTitulo());
+            assertEquals(Long.valueOf(1), dao.leer(vigente, conn).getVersion());
+            assertEquals("Lote modificado", dao.leer(modificado, conn).getTitulo());
+            assertNull(dao.leer(eliminado, conn));
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import entities.Libro;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.Test;
+
+/**
+ * SQL de LibroDao sobre H2 en modo MySQL ({@link BaseDeDatosH2}): búsquedas con LIKE (escape de
+ * comodines) y actualización en lote. H2 no soporta MATCH ... AGAINST, así que de la búsqueda FULLTEXT
+ * sólo se revisa el texto de los scripts: cada índice se crea con innodb_ft_enable_stopword = OFF.
+ */
+public class LibroDaoTest {
+
+    private static List<String> titulos(List<Libro> libros) {
+        List<String> titulos = new ArrayList<>();
+        for (Libro libro : libros) {
+            titulos.add(libro.getTitulo());
+        }
+        return titulos;
+    }
+
+    @Test
+    public void unSoloCaracterBuscaComodinesLiteralmente() throws SQLException, IOException {
+        try (Connection conn = BaseDeDatosH2.abrir("libroDaoLike")) {
+            LibroDao dao = new LibroDao();
+            for (String titulo : List.of("100% algodon", "Libro_digital", "Libro digital", "Ruta C:\\libros", "Sin comodines")) {
+                dao.crear(new Libro(titulo, "Autor", null, null), conn);
+            }
+            // Sin escapar, '%' y '_' coincidirían con todos los títulos
+            assertEquals(List.of("100% algodon"), titulos(dao.buscarPorTitulo("%", conn)));
+            assertEquals(List.of("Libro_digital"), titulos(dao.buscarPorTitulo("_", conn)));
+            assertEquals(List.of("Ruta C:\\libros"), titulos(dao.buscarPorTitulo("\\", conn)));
+        }
+    }
+
+    @Test
+    public void buscarConUnCaracterUsaElPrefijoEscapado() throws SQLException, IOException {
+        try (Connection conn = BaseDeDatosH2.abrir("libroDaoPrefijo")) {
+            LibroDao dao = new LibroDao();
+            dao.crear(new Libro("_Notas", "Anonimo", null, null), conn);
+            dao.crear(new Libro("Notas", "_Anonimo", null, null), conn);
+            dao.crear(new Libro("XNotas", "Anonimo", null, null), conn);
+            assertEquals(List.of("Notas", "_Notas"), titulos(dao.buscar("_", 10, conn)));
+        }
+    }
+
+    @Test
+    public void elDumpDesactivaLasStopwordsAntesDelIndiceFullText() throws IOException {
+        verificarFullTextSinStopwords("biblioteca_tfi_libro.sql");
+    }
+
+    @Test
+    public void lasMigracionesDesactivanLasStopwordsAntesDelIndiceFullText() throws IOException {
+        verificarFullTextSinStopwords("biblioteca_tfi_migraciones.sql");
+    }
+
+    @Test
+    public void actualizarLoteSiVersionNoTocaLibrosEliminadosOModificados() throws SQLException, IOException {
+        try (Connection conn = BaseDeDatosH2.abrir("libroDao")) {
+            LibroDao dao = new LibroDao();
+            Long vigente = dao.crear(new Libro("Lote vigente", "Autor Lote", null, null), conn).getId();
+            Long modificado = dao.crear(new Libro("Lote modificado", "Autor Lote", null, null), conn).getId();
+            Long eliminado = dao.crear(new Libro("Lote eliminado", "Autor Lote", null, null), conn).getId();
+            List<Libro> leidos = List.of(dao.leer(vigente, conn), dao.leer(modificado, conn), dao.leer(eliminado, conn));
+
+            // Otra operación escribe entre la lectura y el lote
+            Libro otro = dao.leer(modificado, conn);
+            otro.setAutor("Otra operacion");
+            dao.actualizar(otro, conn);
+            dao.eliminar(eliminado, conn);
+
+            for (Libro libro : leidos) {
+                libro.setTitulo(libro.getTitulo() + " (lote)");
+            }
+            assertEquals(List.of(modificado, eliminado), dao.actualizarLoteSiVersion(leidos, conn));
+            assertEquals("Lote vigente (lote)", dao.leer(vigente, conn).getTitulo());
+            assertEquals(Long.valueOf(1), dao.leer(vigente, conn).getVersion());
+            assertEquals("Lote modificado", dao.leer(modificado, conn).getTitulo());
+            assertNull(dao.leer(eliminado, conn));
+        }
+    }
+
+    // Cada índice FULLTEXT se crea después de desactivar las stopwords en la sesión
+    private static void verificarFullTextSinStopwords(String script) throws IOException {
+        String sql = Files.readString(Path.of(script), StandardCharsets.UTF_8).toUpperCase(Locale.ROOT);
+        Matcher stopword = Pattern.compile("SET (?:SESSION )?INNODB_FT_ENABLE_STOPWORD = (\\S+?)\\s*(?:\\*/)?;").matcher(sql);
+        Matcher ddl = Pattern.compile("FULLTEXT (?:INDEX|KEY)").matcher(sql);
+        int indices = 0;
+        while (ddl.find()) {
+            int fullText = ddl.start();
+            String valor = null;
+            stopword.reset();
+            while (stopword.find() && stopword.start() < fullText) {
+                valor = stopword.group(1);
+            }
+            assertEquals(script + ": FULLTEXT en la posicion " + fullText, "OFF", valor);
+            indices++;
+        }
+        assertTrue(script + " no crea indices FULLTEXT", indices > 0);
+    }
+}
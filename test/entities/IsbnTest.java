@@ -0,0 +1,108 @@
+package entities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+/**
+ * Dígitos verificadores y conversión ISBN-10 / ISBN-13 del códec Isbn.
+ */
+public class IsbnTest {
+
+    @Test
+    public void verificaElDigitoDeIsbn10() {
+        assertTrue(Isbn.verificadorValido("0-306-40615-2"));
+        assertTrue(Isbn.verificadorValido("080442957X"));
+        assertTrue(Isbn.verificadorValido("080442957x"));
+        assertTrue(Isbn.verificadorValido("84-376-0494-X"));
+        assertFalse(Isbn.verificadorValido("0-306-40615-3"));
+        assertFalse(Isbn.verificadorValido("0804429570"));
+    }
+
+    @Test
+    public void verificaElDigitoDeIsbn13() {
+        assertTrue(Isbn.verificadorValido("978-0-306-40615-7"));
+        assertTrue(Isbn.verificadorValido("978 84 376 0494 7"));
+        assertTrue(Isbn.verificadorValido("979-10-90636-07-1"));
+        assertFalse(Isbn.verificadorValido("978-0-306-40615-6"));
+        assertFalse(Isbn.verificadorValido("978030640615X"));
+    }
+
+    @Test
+    public void rechazaTextosSinFormaDeIsbn() {
+        assertFalse(Isbn.verificadorValido(null));
+        assertFalse(Isbn.verificadorValido(""));
+        assertFalse(Isbn.verificadorValido("030640615"));
+        assertFalse(Isbn.verificadorValido("03064061522"));
+        assertFalse(Isbn.verificadorValido("0X06406152"));
+        assertFalse(Isbn.verificadorValido("0-306-4O615-2"));
+        assertNull(Isbn.normalizar("12345"));
+        assertNull(Isbn.aIsbn13("12345"));
+        assertNull(Isbn.canonico("12345"));
+    }
+
+    @Test
+    public void validarInformaElMotivo() {
+        assertMotivo("030640615", "10 o 13");
+        assertMotivo("030640615#", "invalidos");
+        assertMotivo("978-0-306-40615-7----", "17");
+        assertMotivo("978-0-306-40615-6", "verificador");
+        // El verificador de un ISBN-13 es siempre un dígito (la expresión regular anterior admitía X)
+        assertMotivo("978030640615X", "invalidos");
+        Isbn.validar("978-0-306-40615-7");
+    }
+
+    private static void assertMotivo(String isbn, String motivo) {
+        try {
+            Isbn.validar(isbn);
+            fail("Se esperaba IllegalArgumentException para " + isbn);
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(motivo));
+        }
+    }
+
+    @Test
+    public void normalizaQuitandoSeparadores() {
+        assertEquals("9780306406157", Isbn.normalizar("978-0-306-40615-7"));
+        assertEquals("080442957X", Isbn.normalizar("0 8044 2957 x"));
+    }
+
+    @Test
+    public void convierteIsbn10AIsbn13() {
+        assertEquals("9780306406157", Isbn.aIsbn13("0-306-40615-2"));
+        assertEquals("9780804429573", Isbn.aIsbn13("080442957X"));
+        assertEquals("9788437604947", Isbn.aIsbn13("84-376-0494-X"));
+        assertEquals("9780306406157", Isbn.aIsbn13("978-0-306-40615-7"));
+    }
+
+    @Test
+    public void convierteIsbn13AIsbn10() {
+        assertEquals("0306406152", Isbn.aIsbn10("978-0-306-40615-7"));
+        assertEquals("080442957X", Isbn.aIsbn10("9780804429573"));
+        assertEquals("843760494X", Isbn.aIsbn10("9788437604947"));
+        assertEquals("0306406152", Isbn.aIsbn10("0-306-40615-2"));
+        // Sólo el prefijo 978 tiene equivalente ISBN-10
+        assertNull(Isbn.aIsbn10("979-10-90636-07-1"));
+    }
+
+    @Test
+    public void idaYVueltaConservaElIsbn() {
+        for (String isbn10 : new String[]{"0306406152", "080442957X", "843760494X", "0000000000"}) {
+            String isbn13 = Isbn.aIsbn13(isbn10);
+            assertTrue(isbn13, Isbn.verificadorValido(isbn13));
+            assertEquals(isbn10, Isbn.aIsbn10(isbn13));
+        }
+    }
+
+    @Test
+    public void laClaveCanonicaUnificaIsbn10EIsbn13() {
+        assertEquals(Isbn.canonico("978-0-306-40615-7"), Isbn.canonico("0-306-40615-2"));
+        assertEquals("9780306406157", Isbn.canonico("0306406152"));
+        // Con verificador incorrecto no se convierte: no debe chocar con el ISBN válido
+        assertEquals("0306406153", Isbn.canonico("0-306-40615-3"));
+    }
+}
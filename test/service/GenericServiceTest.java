@@ -0,0 +1,54 @@
+package service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Reglas de fusión campo por campo de {@link GenericService#fusionarCampo} (original: valor leído
+ * por el usuario, editado: su cambio, actual: valor vigente en la base).
+ */
+public class GenericServiceTest {
+
+    private final List<String> conflictos = new ArrayList<>();
+
+    @Test
+    public void sinCambioDelUsuarioQuedaElVigente() {
+        assertEquals("ajeno", GenericService.fusionarCampo("titulo", "leido", "leido", "ajeno", conflictos));
+        assertEquals("leido", GenericService.fusionarCampo("autor", "leido", "leido", "leido", conflictos));
+        assertTrue(conflictos.isEmpty());
+    }
+
+    @Test
+    public void elCambioDelUsuarioGanaSiElVigenteNoCambio() {
+        assertEquals("nuevo", GenericService.fusionarCampo("titulo", "leido", "nuevo", "leido", conflictos));
+        assertTrue(conflictos.isEmpty());
+    }
+
+    @Test
+    public void mismoCambioEnAmbosNoEsConflicto() {
+        assertEquals("nuevo", GenericService.fusionarCampo("titulo", "leido", "nuevo", "nuevo", conflictos));
+        assertTrue(conflictos.isEmpty());
+    }
+
+    @Test
+    public void cambiosDistintosEnAmbosSonConflicto() {
+        assertEquals("mio", GenericService.fusionarCampo("titulo", "leido", "mio", "ajeno", conflictos));
+        assertEquals(List.of("titulo"), conflictos);
+    }
+
+    @Test
+    public void losNulosSonValoresComoCualquierOtro() {
+        // El usuario borró el campo y nadie más lo tocó
+        assertNull(GenericService.fusionarCampo("editorial", "Sudamericana", null, "Sudamericana", conflictos));
+        // El usuario lo completó y otro lo completó con otro valor
+        assertEquals(Integer.valueOf(1967), GenericService.fusionarCampo("anioEdicion", null, 1967, 1970, conflictos));
+        // Otro lo borró y el usuario no lo cambió
+        assertNull(GenericService.fusionarCampo("autor", "Cortazar", "Cortazar", null, conflictos));
+        assertEquals(List.of("anioEdicion"), conflictos);
+    }
+}
@@ -0,0 +1,243 @@
+package service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import entities.FichaBibliografica;
+import entities.Libro;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Pruebas de LibroService sobre el almacenamiento en memoria
+ * (test-sys-prop.almacenamiento.motor=memoria en nbproject/project.properties).
+ */
+public class LibroServiceTest {
+
+    private static LibroService servicio;
+
+    @BeforeClass
+    public static void crearServicio() {
+        servicio = new LibroService();
+        // Títulos con el separador del token y caracteres fuera de ASCII
+        crear("Zeta: segunda parte", "Autor Prueba");
+        crear("Zeta: segunda parte", "Otro Autor");
+        crear("Ñandú: relatos", "Autor Prueba");
+    }
+
+    private static void crear(String titulo, String autor) {
+        servicio.crearLibroConFicha(new Libro(titulo, autor, null, null), new FichaBibliografica(null, null, "T1", null));
+    }
+
+    private static Map.Entry<Libro, FichaBibliografica> par(String titulo, String isbn, String estanteria) {
+        return Map.entry(new Libro(titulo, "Autor Sincronizado", null, null),
+                new FichaBibliografica(isbn, null, estanteria, null));
+    }
+
+    @Test
+    public void recorrerPorTokenDevuelveTodosLosLibrosUnaVezYEnOrden() {
+        List<Libro> todos = servicio.listarTodos();
+        List<Libro> recorridos = new ArrayList<>();
+        Set<Long> ids = new HashSet<>();
+        String token = null;
+        do {
+            Pagina<Libro> pagina = servicio.listarPagina(token, 2);
+            assertTrue(pagina.getElementos().size() <= 2);
+            for (Libro libro : pagina.getElementos()) {
+                assertTrue("Libro repetido entre paginas: " + libro.getId(), ids.add(libro.getId()));
+                recorridos.add(libro);
+            }
+            token = pagina.getSiguienteToken();
+        } while (token != null);
+
+        // Paginar de a 2 recorre lo mismo y en el mismo orden que una sola página grande
+        List<Libro> deUnaVez = servicio.listarPagina(null, 1000).getElementos();
+        assertEquals(todos.size(), recorridos.size());
+        assertEquals(deUnaVez.size(), recorridos.size());
+        for (int i = 0; i < recorridos.size(); i++) {
+            assertEquals(deUnaVez.get(i).getId(), recorridos.get(i).getId());
+        }
+    }
+
+    @Test
+    public void elTokenConservaTituloConSeparadorYAcentos() {
+        Pagina<Libro> primera = servicio.buscarPorTituloPagina("Zeta", null, 1);
+        assertEquals(1, primera.getElementos().size());
+        assertTrue(primera.hayMas());
+
+        Pagina<Libro> segunda = servicio.buscarPorTituloPagina("Zeta", primera.getSiguienteToken(), 1);
+        assertEquals(1, segunda.getElementos().size());
+        assertEquals("Zeta: segunda parte", segunda.getElementos().get(0).getTitulo());
+        assertFalse(primera.getElementos().get(0).getId().equals(segunda.getElementos().get(0).getId()));
+
+        Pagina<Libro> acentos = servicio.buscarPorTituloPagina("andú", null, 1);
+        assertEquals("Ñandú: relatos", acentos.getElementos().get(0).getTitulo());
+    }
+
+    @Test
+    public void laUltimaPaginaNoTieneToken() {
+        Pagina<Libro> pagina = servicio.listarPagina(null, 1000);
+        assertNull(pagina.getSiguienteToken());
+        assertFalse(pagina.hayMas());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tokenAlteradoEsRechazado() {
+        servicio.listarPagina("%%no es base64%%", 10);
+    }
+
+    @Test
+    public void sincronizarClasificaAltasCambiosSinCambiosYRechazos() {
+        ResultadoLote inicial = servicio.sincronizarPorIsbnEnLote(List.of(
+                par("Sincronizado A", "978-0-306-40615-7", "S1"),
+                par("Sincronizado B", "978-0-262-03384-8", "S1"),
+                par("Sincronizado C", "978-0-13-110362-7", "S1")), 10);
+        assertEquals(3, inicial.getInsertados());
+        assertEquals(0, inicial.getRechazados());
+
+        List<Map.Entry<Libro, FichaBibliografica>> archivo = List.of(
+                par("Sincronizado A", "9780306406157", "S1"),           // mismo ISBN sin guiones: sin cambios
+                par("Sincronizado B, 2da edicion", "9780262033848", "S1"), // cambia el Libro
+                par("Sincronizado C", "9780131103627", "S2"),           // cambia la Ficha
+                par("Sincronizado D", "9780201633610", "S1"),           // ISBN nuevo: alta
+                par("Sin ISBN", null, "S1"),
+                par("Repetido", "978-0-262-03384-8", "S1"));
+        ResultadoLote cambios = servicio.sincronizarPorIsbnEnLote(archivo, 10);
+        assertEquals(6, cambios.getProcesados());
+        assertEquals(1, cambios.getInsertados());
+        assertEquals(2, cambios.getActualizados());
+        assertEquals(1, cambios.getSinCambios());
+        assertEquals(2, cambios.getRechazados());
+        assertEquals(4, cambios.getRechazos().get(0).getIndice());
+        assertEquals(5, cambios.getRechazos().get(1).getIndice());
+
+        // La versión sube una sola vez, sólo en el Libro que cambió
+        Libro b = servicio.obtenerConFicha(archivo.get(1).getKey().getId());
+        assertEquals("Sincronizado B, 2da edicion", b.getTitulo());
+        assertEquals(Long.valueOf(1), b.getVersion());
+        assertEquals(Long.valueOf(0), servicio.obtenerConFicha(archivo.get(2).getKey().getId()).getVersion());
+        assertEquals("S2", servicio.obtenerConFicha(archivo.get(2).getKey().getId()).getFichaBibliografica().getEstanteria());
+
+        // Re-sincronizar el mismo contenido no escribe nada
+        ResultadoLote repetida = servicio.sincronizarPorIsbnEnLote(List.of(
+                par("Sincronizado A", "9780306406157", "S1"),
+                par("Sincronizado B, 2da edicion", "9780262033848", "S1"),
+                par("Sincronizado C", "9780131103627", "S2"),
+                par("Sincronizado D", "9780201633610", "S1")), 10);
+        assertEquals(4, repetida.getSinCambios());
+        assertEquals(0, repetida.getInsertados() + repetida.getActualizados() + repetida.getRechazados());
+    }
+
+    @Test
+    public void unLoteConUnIsbnYaCargadoInsertaLasDemasFilasUnaSolaVez() {
+        servicio.crearLibroConFicha(new Libro("Lote mixto previo", "Autor Lote", null, null),
+                new FichaBibliografica("9790000001015", null, "L1", null));
+        List<Map.Entry<Libro, FichaBibliografica>> pares = List.of(
+                par("Lote mixto 0", "9790000001022", "L1"),
+                // Ya cargado (con guiones): el lote falla en la BD y se reintenta fila por fila
+                par("Lote mixto 1", "979-0-000001-01-5", "L1"),
+                par("Lote mixto 2", "9790000001039", "L1"),
+                // Repetido dentro del lote: se rechaza antes de escribir
+                par("Lote mixto 3", "9790000001022", "L1"),
+                par("Lote mixto 4", "9790000001046", "L1"));
+
+        ResultadoLote resultado = servicio.crearLibrosConFichaEnLote(pares, 10);
+        assertEquals(5, resultado.getProcesados());
+        assertEquals(3, resultado.getInsertados());
+        Set<Integer> rechazadas = new HashSet<>();
+        for (ResultadoLote.FilaRechazada fila : resultado.getRechazos()) {
+            rechazadas.add(fila.getIndice());
+        }
+        assertEquals(Set.of(1, 3), rechazadas);
+        for (int i : List.of(0, 2, 4)) {
+            assertNotNull(pares.get(i).getKey().getId());
+            assertEquals(pares.get(i).getValue(), pares.get(i).getKey().getFichaBibliografica());
+        }
+        assertNull(pares.get(1).getKey().getId());
+        assertNull(pares.get(3).getKey().getId());
+
+        // El primer intento (deshecho) no deja filas: cada título insertado aparece una sola vez
+        List<String> titulos = new ArrayList<>();
+        for (Libro libro : servicio.listarTodos()) {
+            if (libro.getTitulo().startsWith("Lote mixto ")) {
+                titulos.add(libro.getTitulo());
+            }
+        }
+        titulos.sort(null);
+        assertEquals(List.of("Lote mixto 0", "Lote mixto 2", "Lote mixto 4", "Lote mixto previo"), titulos);
+    }
+
+    @Test
+    public void actualizarSinVersionNoEscribeSinCondicion() {
+        Libro libro = new Libro("Sin version", "Autor Version", null, null);
+        servicio.crearLibroConFicha(libro, new FichaBibliografica(null, null, "V1", null));
+
+        Libro armado = new Libro("Sin version, pisado", "Autor Version", null, null);
+        armado.setId(libro.getId());
+        try {
+            servicio.actualizar(armado);
+            fail("Una entidad sin version leida no debe actualizarse");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("version"));
+        }
+        assertEquals("Sin version", servicio.obtenerPorId(libro.getId()).getTitulo());
+    }
+
+    @Test
+    public void actualizarFusionandoCombinaCambiosEnCamposDistintos() {
+        Libro libro = new Libro("Fusion", "Autor Fusion", "Editorial Fusion", 2000);
+        servicio.crearLibroConFicha(libro, new FichaBibliografica(null, null, "F1", null));
+        Libro original = servicio.obtenerConFicha(libro.getId());
+
+        Libro ajeno = original.copia();
+        ajeno.setAutor("Autor Corregido");
+        servicio.actualizar(ajeno);
+
+        Libro editado = original.copia();
+        editado.setTitulo("Fusion, edicion revisada");
+        try {
+            servicio.actualizar(editado.copia());
+            fail("La version leida ya no es la vigente");
+        } catch (ConflictoConcurrenciaException e) {
+            assertTrue(e.getCamposEnConflicto().isEmpty());
+        }
+
+        Libro guardado = servicio.actualizarFusionando(original, editado);
+        assertEquals("Fusion, edicion revisada", guardado.getTitulo());
+        assertEquals("Autor Corregido", guardado.getAutor());
+        assertEquals(Long.valueOf(2), guardado.getVersion());
+        assertEquals("Fusion", original.getTitulo());
+    }
+
+    @Test
+    public void actualizarFusionandoInformaLosCamposEnConflicto() {
+        Libro libro = new Libro("Conflicto", "Autor Conflicto", null, null);
+        servicio.crearLibroConFicha(libro, new FichaBibliografica(null, null, "F1", null));
+        Libro original = servicio.obtenerConFicha(libro.getId());
+
+        Libro ajeno = original.copia();
+        ajeno.setTitulo("Conflicto, version ajena");
+        ajeno.setAnioEdicion(1999);
+        servicio.actualizar(ajeno);
+
+        Libro editado = original.copia();
+        editado.setTitulo("Conflicto, version propia");
+        editado.setAnioEdicion(1999);
+        try {
+            servicio.actualizarFusionando(original, editado);
+            fail("Ambos cambiaron el titulo con valores distintos");
+        } catch (ConflictoConcurrenciaException e) {
+            assertEquals(List.of("titulo"), e.getCamposEnConflicto());
+        }
+        assertEquals("Conflicto, version ajena", servicio.obtenerConFicha(libro.getId()).getTitulo());
+    }
+}
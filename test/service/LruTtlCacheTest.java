@@ -0,0 +1,85 @@
+package service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+import entities.Libro;
+import org.junit.Test;
+
+/**
+ * Guarda por generación de LruTtlCache: un valor leído antes de una invalidación no se cachea.
+ */
+public class LruTtlCacheTest {
+
+    private static LruTtlCache<Long, Libro> nuevaCache() {
+        return new LruTtlCache<>("libros", 100, 0, Libro::copia);
+    }
+
+    private static Libro libro(long id, String titulo) {
+        Libro libro = new Libro(titulo, "Autor", null, null);
+        libro.setId(id);
+        return libro;
+    }
+
+    @Test
+    public void guardaConLaGeneracionVigente() {
+        LruTtlCache<Long, Libro> cache = nuevaCache();
+        long generacion = cache.generacion();
+        cache.put(1L, libro(1, "Rayuela"), generacion);
+        assertEquals("Rayuela", cache.get(1L).getTitulo());
+    }
+
+    @Test
+    public void descartaLoLeidoAntesDeInvalidarLaClave() {
+        LruTtlCache<Long, Libro> cache = nuevaCache();
+        long generacion = cache.generacion();
+        // Otro hilo actualiza el Libro e invalida mientras éste leía la versión vieja de la BD
+        cache.invalidar(1L);
+        cache.put(1L, libro(1, "Titulo viejo"), generacion);
+        assertNull(cache.get(1L));
+    }
+
+    @Test
+    public void descartaLoLeidoAntesDeInvalidarOtraClave() {
+        // La generación es de toda la caché: también descarta claves que no se invalidaron
+        LruTtlCache<Long, Libro> cache = nuevaCache();
+        long generacion = cache.generacion();
+        cache.invalidar(2L);
+        cache.put(1L, libro(1, "Rayuela"), generacion);
+        assertNull(cache.get(1L));
+    }
+
+    @Test
+    public void descartaLoLeidoAntesDeInvalidarTodo() {
+        LruTtlCache<Long, Libro> cache = nuevaCache();
+        long generacion = cache.generacion();
+        cache.invalidarTodo();
+        cache.put(1L, libro(1, "Rayuela"), generacion);
+        assertNull(cache.get(1L));
+        assertEquals(0, cache.getStats().getTamanio());
+    }
+
+    @Test
+    public void unaLecturaPosteriorALaInvalidacionSeGuarda() {
+        LruTtlCache<Long, Libro> cache = nuevaCache();
+        cache.invalidar(1L);
+        long generacion = cache.generacion();
+        cache.put(1L, libro(1, "Titulo nuevo"), generacion);
+        assertEquals("Titulo nuevo", cache.get(1L).getTitulo());
+    }
+
+    @Test
+    public void guardaYDevuelveCopias() {
+        LruTtlCache<Long, Libro> cache = nuevaCache();
+        Libro original = libro(1, "Rayuela");
+        cache.put(1L, original, cache.generacion());
+        original.setTitulo("Modificado despues de guardar");
+
+        Libro leido = cache.get(1L);
+        assertEquals("Rayuela", leido.getTitulo());
+        leido.setTitulo("Modificado despues de leer");
+        assertEquals("Rayuela", cache.get(1L).getTitulo());
+        assertNotSame(cache.get(1L), cache.get(1L));
+    }
+}
@@ -0,0 +1,149 @@
+package service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Clasificación de errores reintentables de Transacciones y reintentos de {@code ejecutar}
+ * (sobre el almacenamiento en memoria).
+ */
+public class TransaccionesTest {
+
+    private final List<String> terminadas = new ArrayList<>();
+    private final Transacciones.Observador observador = new Transacciones.Observador() {
+        @Override
+        public void alTerminar(String operacion, int intentos, long nanos, Throwable error) {
+            terminadas.add(intentos + (error == null ? " ok" : " error"));
+        }
+    };
+
+    @Before
+    public void registrarObservador() {
+        Transacciones.agregarObservador(observador);
+    }
+
+    @After
+    public void quitarObservador() {
+        Transacciones.quitarObservador(observador);
+    }
+
+    @Test
+    public void deadlockYLockWaitTimeoutSonTransitorios() {
+        assertTrue(Transacciones.esTransitorio(new SQLException("Deadlock found", "40001", 1213)));
+        assertTrue(Transacciones.esTransitorio(new SQLException("Lock wait timeout exceeded", "HY000", 1205)));
+        assertTrue(Transacciones.esTransitorio(new SQLTransactionRollbackException("serializacion", "40001", 0)));
+    }
+
+    @Test
+    public void losDemasErroresNoSonTransitorios() {
+        assertFalse(Transacciones.esTransitorio(new SQLIntegrityConstraintViolationException("Duplicate entry", "23000", 1062)));
+        assertFalse(Transacciones.esTransitorio(new SQLException("Communications link failure", "08S01", 0)));
+        assertFalse(Transacciones.esTransitorio(new SQLException("sin codigo")));
+    }
+
+    @Test
+    public void buscaEnLaCausaYEnLaCadenaDeExcepciones() {
+        SQLException envoltorio = new SQLException("Error en el lote", new SQLException("Deadlock found", "40001", 1213));
+        assertTrue(Transacciones.esTransitorio(envoltorio));
+
+        SQLException batch = new SQLException("Error en el batch", "HY000", 0);
+        batch.setNextException(new SQLException("Lock wait timeout exceeded", "HY000", 1205));
+        assertTrue(Transacciones.esTransitorio(batch));
+    }
+
+    @Test
+    public void reintentaLosErroresTransitoriosYRegistraUnSoloFin() throws SQLException {
+        AtomicInteger intentos = new AtomicInteger();
+        String resultado = Transacciones.ejecutar("prueba", conn -> {
+            if (intentos.incrementAndGet() < 3) {
+                throw new SQLException("Deadlock found", "40001", 1213);
+            }
+            return "confirmada";
+        });
+        assertEquals("confirmada", resultado);
+        assertEquals(3, intentos.get());
+        assertEquals(List.of("3 ok"), terminadas);
+    }
+
+    @Test
+    public void noReintentaLosErroresPermanentes() {
+        AtomicInteger intentos = new AtomicInteger();
+        SQLException duplicado = new SQLIntegrityConstraintViolationException("Duplicate entry", "23000", 1062);
+        try {
+            Transacciones.ejecutar("prueba", conn -> {
+                intentos.incrementAndGet();
+                throw duplicado;
+            });
+            fail("Se esperaba la excepcion del trabajo");
+        } catch (SQLException e) {
+            assertSame(duplicado, e);
+            assertEquals(0, e.getSuppressed().length);
+        }
+        assertEquals(1, intentos.get());
+        assertEquals(List.of("1 error"), terminadas);
+    }
+
+    @Test
+    public void seAgotanLosReintentos() {
+        AtomicInteger intentos = new AtomicInteger();
+        try {
+            Transacciones.ejecutar("prueba", conn -> {
+                intentos.incrementAndGet();
+                throw new SQLException("Lock wait timeout exceeded", "HY000", 1205);
+            });
+            fail("Se esperaba el ultimo error transitorio");
+        } catch (SQLException e) {
+            assertEquals(1205, e.getErrorCode());
+        }
+        assertEquals(Transacciones.getReintentos() + 1, intentos.get());
+        assertEquals(List.of(intentos.get() + " error"), terminadas);
+    }
+
+    @Test
+    public void laLimpiezaFallidaNoOcultaElErrorOriginal() {
+        SQLException duplicado = new SQLIntegrityConstraintViolationException("Duplicate entry", "23000", 1062);
+        try {
+            Transacciones.ejecutar("prueba", conn -> {
+                // Con la conexión cerrada fallan el rollback y la restauración del autocommit
+                conn.close();
+                throw duplicado;
+            });
+            fail("Se esperaba la excepcion del trabajo");
+        } catch (SQLException e) {
+            assertSame(duplicado, e);
+            assertEquals(2, e.getSuppressed().length);
+        }
+        assertEquals(List.of("1 error"), terminadas);
+    }
+
+    @Test
+    public void unFalloAlRestaurarTrasElCommitDescartaLaConexionSinInformarError() {
+        // Conexión cuyo commit ya fue durable pero que no acepta volver a autocommit
+        List<String> llamadas = new ArrayList<>();
+        Connection conn = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, metodo, args) -> {
+                    llamadas.add(metodo.getName());
+                    if (metodo.getName().equals("setAutoCommit")) {
+                        throw new SQLException("Communications link failure", "08S01");
+                    }
+                    return null;
+                });
+        Transacciones.restaurarConfirmada(conn, true, Connection.TRANSACTION_READ_COMMITTED);
+        assertEquals(List.of("setAutoCommit", "setTransactionIsolation", "abort"), llamadas);
+    }
+}